@@ -15,8 +15,10 @@ import java.util.Optional;
 
 import com.controllers.MainSceneController;
 import com.core.AppConfig;
+import com.utils.PrintSpooler;
 import com.utils.TrayHelper;
 import com.core.BackupService;
+import com.core.Fabrique;
 import com.core.JpaUtil;
 import com.update.UpdateDownloader;
 import com.update.VersionChecker;
@@ -40,6 +42,13 @@ public class App extends Application {
     @Override
     public void start(Stage stage) throws IOException {
         JpaUtil.initEntityManagerFactory();
+        // Ventes, prolongations et pauses interrompues par un arrêt brutal : rejouées avant toute saisie
+        try {
+            int replayed = Fabrique.getService().replayPendingOperations();
+            if (replayed > 0) log.warn("{} opération(s) interrompue(s) rejouée(s) au démarrage", replayed);
+        } catch (RuntimeException e) {
+            log.error("Reprise du journal des opérations impossible", e);
+        }
         mainStage = stage;
         mainStage.initStyle(StageStyle.UNDECORATED);
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/views/MainSceneBase.fxml"));
@@ -59,6 +68,8 @@ public class App extends Application {
         Platform.runLater(() -> TrayHelper.setupTray(mainStage));
 
         BackupService.startAutoBackup();
+        // Reprise des tickets restés en file d'impression
+        PrintSpooler.start();
 
         java.nio.file.Path lockPath = AppConfig.getUpdateLockPath();
         if (lockPath != null && java.nio.file.Files.exists(lockPath)) {
@@ -173,6 +184,7 @@ public class App extends Application {
     @Override
     public void stop() throws Exception {
         BackupService.stopAutoBackup();
+        PrintSpooler.stop();
         JpaUtil.closeEntityManagerFactory();
         super.stop();
     }
@@ -29,6 +29,10 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class AddReservationController {
+
+    // Nombre maximal de clients proposés par la recherche
+    private static final int CLIENT_SEARCH_LIMIT = 20;
+
     @FXML private TextField searchClientField;
     @FXML private ComboBox<Client> clientChoiceComboBox;
     @FXML private TextField nameField;
@@ -283,7 +287,7 @@ public class AddReservationController {
             ControllerUtils.showErrorAlert("Recherche vide", "Veuillez entrer un nom de client.");
             return;
         }
-        java.util.List<Client> byName = Fabrique.getService().findClientsByNameContaining(search);
+        java.util.List<Client> byName = Fabrique.getService().searchClients(search, CLIENT_SEARCH_LIMIT);
         if (byName.isEmpty()) {
             nameField.setVisible(true);
             nameField.setDisable(false);
@@ -406,8 +410,8 @@ private void addReservation(ActionEvent event) {
         Duration remainingTime = getRemainingTimeForClient(client);
 
         // Mettre à jour les anciennes sessions en pause pour ce client
-        List<GameSession> pausedSessions = Fabrique.getService().getAllGameSessions().stream()
-            .filter(session -> "En pause".equals(session.getStatus()) && session.getClient().getId() == client.getId())
+        List<GameSession> pausedSessions = Fabrique.getService().getLiveSessionsForClient(client.getId()).stream()
+            .filter(session -> "En pause".equals(session.getStatus()))
             .collect(Collectors.toList());
 
         // Marquer les anciennes sessions en pause comme "Terminées"
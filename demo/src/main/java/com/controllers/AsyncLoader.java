@@ -0,0 +1,95 @@
+package com.controllers;
+
+import com.core.AppConfig;
+import com.core.UnitOfWork;
+import javafx.application.Platform;
+
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Chargements de données des contrôleurs hors du thread JavaFX : chaque tâche s'exécute sur un thread
+ * virtuel, dans une UnitOfWork en lecture (un seul EntityManager, relations LAZY accessibles), puis son
+ * résultat est publié par Platform.runLater.
+ *
+ * Le nombre de lectures simultanées est borné par la taille du pool SQLite des lecteurs, pour que les
+ * threads virtuels n'attendent pas une connexion Hikari. MainSceneController.loadView annule toutes
+ * les tâches en cours : les résultats de la vue quittée ne sont jamais publiés.
+ */
+public final class AsyncLoader {
+
+    private static final ExecutorService EXECUTOR =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("GestionSalles-load-", 0).factory());
+    private static final Semaphore READERS = new Semaphore(Math.max(1, AppConfig.getDbPoolReaders()));
+    private static final Set<DataTask<?>> PENDING = ConcurrentHashMap.newKeySet();
+
+    private AsyncLoader() {}
+
+    /** Lance un chargement ; les erreurs sont affichées dans une alerte. */
+    public static <T> DataTask<T> load(DataTask.Work<T> work, Consumer<T> onSuccess) {
+        return load(work, onSuccess, AsyncLoader::showError);
+    }
+
+    /** Lance un chargement ; onSuccess et onError sont appelés sur le thread JavaFX. */
+    public static <T> DataTask<T> load(DataTask.Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        DataTask<T> task = new DataTask<>(work, onSuccess, onError);
+        PENDING.add(task);
+        EXECUTOR.execute(() -> run(task));
+        return task;
+    }
+
+    /** Annule toutes les tâches en cours (changement de vue). */
+    public static void cancelAll() {
+        for (DataTask<?> task : PENDING) {
+            task.cancel();
+        }
+        PENDING.clear();
+    }
+
+    private static <T> void run(DataTask<T> task) {
+        try {
+            READERS.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            PENDING.remove(task);
+            return;
+        }
+        try {
+            if (task.isCancelled()) {
+                PENDING.remove(task);
+                return;
+            }
+            T result = UnitOfWork.read(() -> {
+                try {
+                    return task.execute();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+            Platform.runLater(() -> {
+                PENDING.remove(task);
+                task.succeed(result);
+            });
+        } catch (Throwable e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Platform.runLater(() -> {
+                PENDING.remove(task);
+                task.fail(cause);
+            });
+        } finally {
+            READERS.release();
+        }
+    }
+
+    private static void showError(Throwable error) {
+        error.printStackTrace();
+        ControllerUtils.showErrorAlert("Erreur de chargement", "Impossible de charger les données : " + error.getMessage());
+    }
+}
@@ -1,13 +1,11 @@
 package com.controllers;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import com.core.Fabrique;
 import com.core.WindowManager;
-import com.entities.Client;
 import com.entities.Produit;
 import com.entities.User;
 
@@ -89,8 +87,7 @@ public class CartController {
         for (Map.Entry<Produit, Integer> entry : produitsDansLePanier.entrySet()) {
             Produit produit = entry.getKey();
             int quantite = entry.getValue();
-            System.out.println("Prix du produit dans le panier : " + produit.getPrix());
-            String itemText = String.format("%s x%d - %.2f FCFA", produit.getNom(), quantite, produit.getPrix().doubleValue() * quantite);
+            String itemText = String.format("%s x%d - %.2f FCFA", produit.getNom(), quantite, produit.getPrixEffectif().doubleValue() * quantite);
             cartItemsList.getItems().add(itemText);
         }
         updateTotalDisplay();
@@ -248,11 +245,10 @@ public class CartController {
             Parent paymentPane = loader.load();
 
             PaymentController paymentController = loader.getController();
-            List<Client> clients = Fabrique.getService().getAllClients();
             double montantTotal = calculerPrixTotal().doubleValue();
             String detailsProduits = getDetailsProduits();
             paymentController.setConnectedUser(connectedUser); // À ajouter
-            paymentController.initializeData(clients, montantTotal, detailsProduits, "", produitsDansLePanier);
+            paymentController.initializeData(montantTotal, detailsProduits, "", produitsDansLePanier);
 
             
             // Callback pour le paiement réussi : vider le panier, fermer la fenêtre du panier et rafraîchir la liste des produits
@@ -283,8 +279,7 @@ public class CartController {
         for (Map.Entry<Produit, Integer> entry : produitsDansLePanier.entrySet()) {
             Produit p = entry.getKey();
             int qte = entry.getValue();
-            System.out.println("Prix du produit " + p.getNom() + " : " + p.getPrix());
-            total = total.add(p.getPrix().multiply(new BigDecimal(qte)));
+            total = total.add(p.getPrixEffectif().multiply(new BigDecimal(qte)));
         }
         return total;
     }
@@ -3,6 +3,10 @@ package com.controllers;
 import com.core.Fabrique;
 import com.entities.Client;
 import com.entities.Reservation;
+import com.reports.PdfTable;
+import com.reports.ReportSources;
+import com.reports.ReportTask;
+import com.reports.RowCursor;
 import com.utils.ReservationDisplayUtils;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
@@ -11,17 +15,13 @@ import javafx.scene.control.TableView;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.awt.Color;
 import java.io.File;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 
 /**
  * Fenêtre Historique client : réservations du client + totaux (durée, montant, points) comme dans la réservation.
@@ -34,6 +34,26 @@ public class ClientHistoryController {
 
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
+    private static final PdfTable<ReportSources.ReservationLine> HISTORY_TABLE = new PdfTable<ReportSources.ReservationLine>(r -> {
+            Duration d = r.getDuration();
+            int pts = (d != null && !d.isZero()) ? (int) (d.toMinutes() / 15) : 0;
+            return new String[]{
+                r.getReservationDate() != null ? r.getReservationDate().format(DateTimeFormatter.ofPattern("dd/MM/yy HH:mm")) : "-",
+                r.getNumeroTicket() != null ? r.getNumeroTicket() : "-",
+                r.getPosteName(),
+                r.getGameName(),
+                d != null ? String.format("%dh%02d", d.toHours(), d.toMinutesPart()) : "-",
+                String.format("%.0f", r.getTotalPrice()),
+                String.valueOf(pts),
+                r.getStatus() != null ? r.getStatus() : "-"
+            };
+        })
+        .column("Date résa", 0.125f).column("N° Ticket", 0.125f).column("Poste", 0.125f).column("Jeu", 0.125f)
+        .column("Durée", 0.125f).column("Montant", 0.125f).column("Pts", 0.125f).column("Statut", 0.125f)
+        .rowHeight(18).textOffsets(3, 6).fontSizes(9, 8)
+        .headerColors(new Color(0.2f, 0.35f, 0.55f), Color.WHITE)
+        .borders(false);
+
     private Client client;
     private List<Reservation> reservations;
 
@@ -95,7 +115,7 @@ public class ClientHistoryController {
 
     @FXML
     private void genererPdf() {
-        if (client == null || reservations == null) return;
+        if (client == null) return;
         FileChooser fc = new FileChooser();
         fc.setTitle("Enregistrer l'historique client");
         fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF", "*.pdf"));
@@ -103,108 +123,48 @@ public class ClientHistoryController {
         fc.setInitialFileName(safeName);
         File file = fc.showSaveDialog(clientInfoLabel.getScene().getWindow());
         if (file == null) return;
-        try {
-            genererPdfLandscape(client, reservations, file);
-            ControllerUtils.showInfoAlert("Succès", "PDF enregistré : " + file.getAbsolutePath());
-        } catch (Exception e) {
-            ControllerUtils.showErrorAlert("Erreur PDF", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
-        }
+        genererPdfLandscape(client, file);
     }
 
-    /** Appelable depuis UserController pour générer le PDF sans ouvrir la fenêtre. */
-    public static void genererPdfLandscape(Client client, List<Reservation> reservations, File file) throws Exception {
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage(new PDRectangle(842, 595)); // A4 paysage
-            doc.addPage(page);
-            PDPageContentStream cs = new PDPageContentStream(doc, page);
-            float margin = 40;
-            float w = page.getMediaBox().getWidth();
-            float h = page.getMediaBox().getHeight();
-            float y = h - margin;
-
-            cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 14);
-            cs.beginText();
-            cs.newLineAtOffset(margin, y);
-            cs.showText("Historique des réservations — " + (client.getName() != null ? client.getName() : "Client"));
-            cs.endText();
-            y -= 20;
-
-            long dureeTotaleMin = reservations.stream().mapToLong(r -> r.getDuration() != null ? r.getDuration().toMinutes() : 0).sum();
-            double montantTotal = reservations.stream().mapToDouble(Reservation::getTotalPrice).sum();
-            int pointsFidelite = client.getLoyaltyPoints();
+    /**
+     * Génère le PDF de l'historique en arrière-plan (fenêtre de progression), puis confirme l'enregistrement.
+     * Appelable depuis UserController pour générer le PDF sans ouvrir la fenêtre.
+     */
+    public static void genererPdfLandscape(Client client, File file) {
+        ReportProgressDialog.run("Historique client", historyReport(client, file),
+            generated -> ControllerUtils.showInfoAlert("Succès", "PDF enregistré : " + generated.getAbsolutePath()));
+    }
+
+    // A4 paysage : en-tête (totaux calculés en SQL) puis toutes les réservations, lues au fil du dessin
+    private static ReportTask historyReport(Client client, File file) {
+        String nom = client.getName() != null ? client.getName() : "Client";
+        String tel = client.getPhone() != null ? client.getPhone() : "-";
+        String dateCreation = client.getRegistrationDate() != null
+            ? new java.text.SimpleDateFormat("dd/MM/yyyy").format(client.getRegistrationDate()) : "-";
+        int clientId = client.getId();
+        int pointsFidelite = client.getLoyaltyPoints();
+
+        return new ReportTask(file, new PDRectangle(842, 595), 40, 0, pdf -> {
+            ReportSources.ClientTotals totals = ReportSources.clientTotals(clientId);
+            long dureeTotaleMin = totals.getDurationMinutes();
             String dureeHMin = String.format("%dh%02dmin", dureeTotaleMin / 60, dureeTotaleMin % 60);
 
-            cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+            pdf.text("Historique des réservations — " + nom, pdf.getMargin(), pdf.bold(), 14, Color.BLACK);
+            pdf.space(20);
             // Ligne 1 : Tél et date création
-            String infos1 = String.format("Tél : %s  |  Date création : %s",
-                client.getPhone() != null ? client.getPhone() : "-",
-                client.getRegistrationDate() != null ? new java.text.SimpleDateFormat("dd/MM/yyyy").format(client.getRegistrationDate()) : "-");
-            cs.beginText();
-            cs.newLineAtOffset(margin, y);
-            cs.showText(infos1.length() > 100 ? infos1.substring(0, 97) + "..." : infos1);
-            cs.endText();
-            y -= 14;
+            pdf.text(String.format("Tél : %s  |  Date création : %s", tel, dateCreation), pdf.getMargin(), pdf.regular(), 10, Color.BLACK);
+            pdf.space(14);
             // Ligne 2 : Durée totale (en heure minute) et montant
-            String infos2 = String.format("Durée totale : %s  |  Montant total : %.0f F", dureeHMin, montantTotal);
-            cs.beginText();
-            cs.newLineAtOffset(margin, y);
-            cs.showText(infos2);
-            cs.endText();
-            y -= 14;
+            pdf.text(String.format("Durée totale : %s  |  Montant total : %.0f F", dureeHMin, totals.getAmount()), pdf.getMargin(), pdf.regular(), 10, Color.BLACK);
+            pdf.space(14);
             // Ligne 3 : Points fidélité (ligne dédiée pour ne pas couper)
-            String infos3 = "Points fidélité : " + pointsFidelite;
-            cs.beginText();
-            cs.newLineAtOffset(margin, y);
-            cs.showText(infos3);
-            cs.endText();
-            y -= 25;
-
-            String[] headers = { "Date résa", "N° Ticket", "Poste", "Jeu", "Durée", "Montant", "Pts", "Statut" };
-            float colW = (w - 2 * margin) / headers.length;
-            float rowH = 18;
-            cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 9);
-            cs.setNonStrokingColor(0.2f, 0.35f, 0.55f);
-            cs.addRect(margin, y - rowH, w - 2 * margin, rowH);
-            cs.fill();
-            cs.setNonStrokingColor(1, 1, 1);
-            float x = margin;
-            for (String hdr : headers) {
-                cs.beginText();
-                cs.newLineAtOffset(x + 3, y - rowH + 5);
-                cs.showText(hdr.length() > 10 ? hdr.substring(0, 9) : hdr);
-                cs.endText();
-                x += colW;
-            }
-            cs.setNonStrokingColor(0, 0, 0);
-            y -= rowH;
-
-            cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 8);
-            for (Reservation r : reservations) {
-                if (y < margin + rowH) break;
-                String dateStr = r.getReservationDate() != null ? r.getReservationDate().format(DateTimeFormatter.ofPattern("dd/MM/yy HH:mm")) : "-";
-                String ticket = r.getNumeroTicket() != null ? r.getNumeroTicket() : "-";
-                String poste = ReservationDisplayUtils.safeGetPosteName(r);
-                String jeu = ReservationDisplayUtils.safeGetGameName(r);
-                String duree = r.getDuration() != null ? String.format("%dh%02d", r.getDuration().toHours(), r.getDuration().toMinutesPart()) : "-";
-                String montant = String.format("%.0f", r.getTotalPrice());
-                int pts = (r.getDuration() != null && !r.getDuration().isZero()) ? (int)(r.getDuration().toMinutes() / 15) : 0;
-                String statut = r.getStatus() != null ? r.getStatus() : "-";
-
-                String[] row = { dateStr, ticket, poste, jeu, duree, montant, String.valueOf(pts), statut };
-                x = margin;
-                for (String cell : row) {
-                    cs.beginText();
-                    cs.newLineAtOffset(x + 2, y - 12);
-                    cs.showText(cell.length() > 14 ? cell.substring(0, 13) : cell);
-                    cs.endText();
-                    x += colW;
-                }
-                y -= rowH;
-            }
+            pdf.text("Points fidélité : " + pointsFidelite, pdf.getMargin(), pdf.regular(), 10, Color.BLACK);
+            pdf.space(25);
 
-            cs.close();
-            doc.save(file);
-        }
+            try (RowCursor<ReportSources.ReservationLine> lines = ReportSources.clientReservations(clientId)) {
+                pdf.table(HISTORY_TABLE, lines);
+            }
+        });
     }
 
     @FXML
@@ -0,0 +1,62 @@
+package com.controllers;
+
+import java.util.function.Consumer;
+
+/**
+ * Chargement lancé par AsyncLoader : le travail s'exécute hors du thread JavaFX, le résultat est
+ * publié sur le thread JavaFX sauf si la tâche a été annulée entre-temps (nouvelle saisie, changement
+ * de vue). L'annulation n'interrompt pas une requête en cours : son résultat est simplement ignoré.
+ */
+public final class DataTask<T> {
+
+    /** Travail exécuté en arrière-plan. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T call() throws Exception;
+    }
+
+    private final Work<T> work;
+    private final Consumer<T> onSuccess;
+    private final Consumer<Throwable> onError;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+
+    DataTask(Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        this.work = work;
+        this.onSuccess = onSuccess;
+        this.onError = onError;
+    }
+
+    /** Ignore le résultat de la tâche (et ne la lance pas si elle attend encore son tour). */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /** Annule une tâche éventuelle (pratique pour remplacer le chargement précédent d'un contrôleur). */
+    public static void cancel(DataTask<?> task) {
+        if (task != null) task.cancel();
+    }
+
+    T execute() throws Exception {
+        return work.call();
+    }
+
+    // Appelés sur le thread JavaFX
+    void succeed(T result) {
+        done = true;
+        if (!cancelled) onSuccess.accept(result);
+    }
+
+    void fail(Throwable error) {
+        done = true;
+        if (!cancelled) onError.accept(error);
+    }
+}
@@ -7,6 +7,13 @@ import com.entities.Produit;
 import com.entities.Reservation;
 import com.entities.Role;
 import com.entities.User;
+import com.reports.DataExport;
+import com.reports.ExportTask;
+import com.reports.PdfReport;
+import com.reports.PdfTable;
+import com.reports.ReportSources;
+import com.reports.ReportTask;
+import com.reports.RowCursor;
 
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
@@ -31,33 +38,57 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.DoubleSummaryStatistics;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 
 public class FinanceController {
 
-    // Palette pour les rapports PDF (RGB 0-1)
-    private static final float PDF_COLOR_PRIMARY_R = 26f / 255f;
-    private static final float PDF_COLOR_PRIMARY_G = 54f / 255f;
-    private static final float PDF_COLOR_PRIMARY_B = 93f / 255f;
-    private static final float PDF_COLOR_SUCCESS_R = 45f / 255f;
-    private static final float PDF_COLOR_SUCCESS_G = 125f / 255f;
-    private static final float PDF_COLOR_SUCCESS_B = 70f / 255f;
-    private static final float PDF_COLOR_HEADER_BG_R = 0.25f;
-    private static final float PDF_COLOR_HEADER_BG_G = 0.35f;
-    private static final float PDF_COLOR_HEADER_BG_B = 0.55f;
+    // Mise en page des rapports PDF (A4 portrait)
+    private static final float PDF_MARGIN = 50;
+    private static final float PDF_HEADER_HEIGHT = 52;
+    private static final String[] PDF_COMPANY_INFOS = {
+        "Jaxaay, Parcelle Unité 24, BP 17000, KEUR MASSAR · Tel. +221 338134720 / 771128514",
+        "Kayplay.gamingroom@gmail.com · NINEA 012344800"
+    };
+
+    private static final PdfTable<ReportSources.ProductSale> SALES_TABLE = new PdfTable<ReportSources.ProductSale>(s -> new String[]{
+            s.getNumeroTicket(),
+            s.getClientName() != null ? s.getClientName() : "N/A",
+            String.format("%.2f", s.getAmount()),
+            s.getModePaiement(),
+            s.getDateHeure() != null ? s.getDateHeure().format(DateTimeFormatter.ofPattern("HH:mm:ss")) : ""
+        })
+        .column("N° Ticket", 0.20f).column("Client", 0.20f).column("Montant", 0.15f).column("Mode Paiement", 0.15f).column("Heure", 0.20f);
+
+    private static final PdfTable<ReportSources.ReservationLine> RESERVATIONS_TABLE = new PdfTable<ReportSources.ReservationLine>(r -> new String[]{
+            r.getNumeroTicket(),
+            r.getClientName() != null ? r.getClientName() : "N/A",
+            String.format("%.2f", r.getTotalPrice()),
+            r.getPosteName(),
+            r.getReservationDate() != null ? r.getReservationDate().format(DateTimeFormatter.ofPattern("HH:mm:ss")) : ""
+        })
+        .column("N° Ticket", 0.20f).column("Client", 0.20f).column("Montant", 0.15f).column("Poste", 0.15f).column("Heure", 0.20f);
+
+    // Détail des articles d'un ticket : tableau compact sans bordures, en-tête gris clair
+    private static final PdfTable<String[]> ARTICLES_TABLE = new PdfTable<String[]>(article -> article)
+        .column("Article", 0.75f).column("Qté", 0.25f)
+        .rowHeight(16).textOffsets(4, 4).fontSizes(8, 8)
+        .headerColors(new java.awt.Color(0.95f, 0.95f, 0.95f), java.awt.Color.BLACK)
+        .borders(false);
+
+    private static final PdfTable<AdminDailyReport> JOURNAL_TABLE = new PdfTable<AdminDailyReport>(r -> new String[]{
+            r.getAdminName(),
+            r.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+            String.format("%.2f F", r.getProductSalesTotal()),
+            String.format("%.2f F", r.getReservationTotal())
+        })
+        .column("Admin", 0.25f).column("Date", 0.25f).column("Total Ventes", 0.25f).column("Total Réservations", 0.25f);
 
     @FXML private Text titleText;
     @FXML private VBox adminInfoBox;
@@ -101,6 +132,10 @@ public class FinanceController {
     private ObservableList<Produit> stockList;
     private ObservableList<Object> journalList;
     private ObservableList<Object> filteredJournalList;
+    // Chargements en cours (hors thread JavaFX), remplacés par le suivant du même type
+    private DataTask<?> ventesTask;
+    private DataTask<?> journalTask;
+    private DataTask<?> totalsTask;
     private static final int ITEMS_PER_PAGE = 25;
     // v1.3.5 : pagination -> liste sans fin
     private static final boolean INFINITE_LIST = true;
@@ -190,10 +225,6 @@ public class FinanceController {
         return payment.getDetailReservations() != null && !payment.getDetailReservations().trim().isEmpty();
     }
 
-    private boolean isVenteProduitPayment(Payment payment) {
-        return payment.getDetailsProduits() != null && !payment.getDetailsProduits().trim().isEmpty();
-    }
-
     private void refreshData() {
         Platform.runLater(() -> {
             loadVentes();
@@ -273,7 +304,7 @@ public class FinanceController {
             AdminDailyReport report = (AdminDailyReport) cellData.getValue();
             return new SimpleStringProperty(
                 String.format("Admin: %s, Date: %s, Opérations: %d",
-                    report.getAdmin().getName(),
+                    report.getAdminName(),
                     report.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
                     report.getTotalOperations()
                 )
@@ -289,7 +320,7 @@ public class FinanceController {
         });
         journalAdminColumn.setCellValueFactory(cellData -> {
             AdminDailyReport report = (AdminDailyReport) cellData.getValue();
-            return new SimpleStringProperty(report.getAdmin().getName());
+            return new SimpleStringProperty(report.getAdminName());
         });
         journalCheckColumn.setCellFactory(tc -> new TableCell<Object, Void>() {
             private final CheckBox checkBox = new CheckBox();
@@ -323,7 +354,7 @@ public class FinanceController {
                     row.setStyle("");
                 }
                 if (!row.isEmpty()) {
-                    TableCell<Object, Void> cell = (TableCell<Object, Void>) row.getChildrenUnmodifiable().get(0);
+                    TableCell<?, ?> cell = (TableCell<?, ?>) row.getChildrenUnmodifiable().get(0);
                     if (cell != null && cell.getGraphic() instanceof CheckBox) {
                         ((CheckBox) cell.getGraphic()).setSelected(isNowSelected);
                     }
@@ -421,21 +452,24 @@ private void loadVentes() {
     if (isAdmin) {
         LocalDate today = LocalDate.now();
         User currentUser = Fabrique.getService().getCurrentUser();
-        // Récupérer TOUS les paiements de l'admin connecté pour la journée
-        List<Payment> paiements = Fabrique.getService().getPaymentsByUser(currentUser)
-            .stream()
-            .filter(p -> p.getDateHeure().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().isEqual(today))
-            .collect(Collectors.toList());
-        // Ajouter TOUS les paiements (ventes de produits + paiements de réservations)
-        ventesList.clear();
-        ventesList.addAll(paiements);
-        ventesPagination.setPageCount((int) Math.ceil(ventesList.size() / (double) ITEMS_PER_PAGE));
-        updateVentesPagination(0);
-        calculateTotals();
+        // Paiements de l'admin connecté pour la journée (ventes de produits + paiements de réservations), filtrés en SQL
+        Integer createdById = ventesUserFilter(currentUser);
+        DataTask.cancel(ventesTask);
+        ventesTask = AsyncLoader.load(() -> Fabrique.getService().findPaymentsBetween(today, today, createdById), paiements -> {
+            ventesList.setAll(paiements);
+            ventesPagination.setPageCount((int) Math.ceil(ventesList.size() / (double) ITEMS_PER_PAGE));
+            updateVentesPagination(0);
+            calculateTotals();
+        });
     }
 }
 
 
+    /** Filtre utilisateur des ventes du jour : aucun pour le SuperAdmin, qui voit les ventes de tous. */
+    private static Integer ventesUserFilter(User user) {
+        return user == null || user.getRole() == Role.SuperAdmin ? null : user.getId();
+    }
+
     private void loadStock() {
         if (!isAdmin) {
             List<Produit> produits = Fabrique.getService().findAllProduits();
@@ -448,75 +482,35 @@ private void loadVentes() {
 
     private void loadJournal() {
         if (!isAdmin) {
-            journalList.clear();
-            Map<User, Map<LocalDate, List<Object>>> adminDailyOperations = new HashMap<>();
-            List<Object> allOperations = new ArrayList<>();
-            allOperations.addAll(Fabrique.getService().getAllPayments());
-            allOperations.addAll(Fabrique.getService().findAllReservations());
-            for (Object op : allOperations) {
-                User createdBy = null;
-                LocalDate date = null;
-                if (op instanceof Payment) {
-                    createdBy = ((Payment) op).getCreatedBy();
-                    date = ((Payment) op).getDateHeure().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                } else if (op instanceof Reservation) {
-                    createdBy = ((Reservation) op).getCreatedBy();
-                    date = ((Reservation) op).getReservationDate().toLocalDate();
-                }
-                if (createdBy != null && date != null) {
-                    adminDailyOperations.putIfAbsent(createdBy, new HashMap<>());
-                    adminDailyOperations.get(createdBy).putIfAbsent(date, new ArrayList<>());
-                    adminDailyOperations.get(createdBy).get(date).add(op);
-                }
-            }
-            for (Map.Entry<User, Map<LocalDate, List<Object>>> adminEntry : adminDailyOperations.entrySet()) {
-                User admin = adminEntry.getKey();
-                for (Map.Entry<LocalDate, List<Object>> dateEntry : adminEntry.getValue().entrySet()) {
-                    LocalDate date = dateEntry.getKey();
-                    List<Object> operations = dateEntry.getValue();
-                    // Dans loadJournal, quand tu construis les listes :
-                    List<Payment> payments = operations.stream()
-                        .filter(op -> op instanceof Payment)
-                        .map(op -> (Payment) op)
-                        .filter(p -> p.getDetailsProduits() != null && !p.getDetailsProduits().trim().isEmpty()) // Uniquement les ventes de produits
-                        .collect(Collectors.toList());
-
-                    List<Reservation> reservations = operations.stream()
-                        .filter(op -> op instanceof Reservation)
-                        .map(op -> (Reservation) op)
-                        .collect(Collectors.toList());
-
-                    AdminDailyReport report = new AdminDailyReport(admin, date, payments, reservations);
-                    journalList.add(report);
-                }
-            }
-            journalList.sort((o1, o2) -> {
-                AdminDailyReport r1 = (AdminDailyReport) o1;
-                AdminDailyReport r2 = (AdminDailyReport) o2;
-                return r2.getDate().compareTo(r1.getDate());
+            // Totaux par admin et par jour calculés en SQL (GROUP BY), déjà triés par date décroissante
+            DataTask.cancel(journalTask);
+            journalTask = AsyncLoader.load(() -> Fabrique.getFinanceQueryService().findDailyReports(null, null, null), reports -> {
+                journalList.setAll(reports);
+                filteredJournalList.setAll(journalList);
+                journalPagination.setPageCount((int) Math.ceil(filteredJournalList.size() / (double) ITEMS_PER_PAGE));
+                updateJournalPagination(0);
             });
-            filteredJournalList.addAll(journalList);
-            journalPagination.setPageCount((int) Math.ceil(filteredJournalList.size() / (double) ITEMS_PER_PAGE));
-            updateJournalPagination(0);
         }
     }
 
     private void filterVentes(String searchText) {
     if (!isAdmin) return;
-    List<Payment> paiements = Fabrique.getService().getAllPayments().stream()
-        .filter(p -> p.getDateHeure().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().isEqual(LocalDate.now()))
-        .collect(Collectors.toList());
-    List<Object> filteredList = paiements.stream()
+    LocalDate today = LocalDate.now();
+    // Recherche sur tous les paiements du jour, comme avant le filtrage en SQL (aucun filtre utilisateur)
+    // Une frappe remplace la recherche précédente encore en cours
+    DataTask.cancel(ventesTask);
+    ventesTask = AsyncLoader.load(() -> Fabrique.getService().findPaymentsBetween(today, today, null).stream()
         .filter(payment -> {
             return payment.getNumeroTicket().toLowerCase().contains(searchText.toLowerCase()) ||
                    (payment.getClient() != null && payment.getClient().getName().toLowerCase().contains(searchText.toLowerCase())) ||
                    payment.getModePaiement().toLowerCase().contains(searchText.toLowerCase());
         })
-        .collect(Collectors.toList());
-    ventesList.setAll(filteredList);
-    ventesPagination.setPageCount((int) Math.ceil(ventesList.size() / (double) ITEMS_PER_PAGE));
-    ventesPagination.setCurrentPageIndex(0);
-    updateVentesPagination(0);
+        .collect(Collectors.toList()), filteredList -> {
+            ventesList.setAll(filteredList);
+            ventesPagination.setPageCount((int) Math.ceil(ventesList.size() / (double) ITEMS_PER_PAGE));
+            ventesPagination.setCurrentPageIndex(0);
+            updateVentesPagination(0);
+        });
 }
 
 
@@ -539,7 +533,7 @@ private void loadVentes() {
         List<Object> tempFilteredList = journalList.stream()
             .filter(item -> {
                 AdminDailyReport report = (AdminDailyReport) item;
-                String adminName = report.getAdmin().getName().toLowerCase();
+                String adminName = report.getAdminName().toLowerCase();
                 String dateStr = report.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")).toLowerCase();
                 String totalAmountStr = String.format("%.2f", report.getTotalAmount()).toLowerCase();
                 String operationsCountStr = String.valueOf(report.getTotalOperations()).toLowerCase();
@@ -561,18 +555,14 @@ private void loadVentes() {
         if (isAdmin) return;
         LocalDate startDate = startDatePicker.getValue();
         LocalDate endDate = endDatePicker.getValue();
-        List<Object> tempFilteredList = journalList.stream()
-            .filter(item -> {
-                AdminDailyReport report = (AdminDailyReport) item;
-                boolean afterStart = (startDate == null) || !report.getDate().isBefore(startDate);
-                boolean beforeEnd = (endDate == null) || !report.getDate().isAfter(endDate);
-                return afterStart && beforeEnd;
-            })
-            .collect(Collectors.toList());
-        filteredJournalList.setAll(tempFilteredList);
-        journalPagination.setPageCount((int) Math.ceil(filteredJournalList.size() / (double) ITEMS_PER_PAGE));
-        journalPagination.setCurrentPageIndex(0);
-        updateJournalPagination(0);
+        // Période quelconque : agrégats recalculés en SQL sur les bornes choisies
+        DataTask.cancel(journalTask);
+        journalTask = AsyncLoader.load(() -> Fabrique.getFinanceQueryService().findDailyReports(null, startDate, endDate), reports -> {
+            filteredJournalList.setAll(reports);
+            journalPagination.setPageCount((int) Math.ceil(filteredJournalList.size() / (double) ITEMS_PER_PAGE));
+            journalPagination.setCurrentPageIndex(0);
+            updateJournalPagination(0);
+        });
     }
 
     private void updateVentesPagination(int pageIndex) {
@@ -606,996 +596,304 @@ private void loadVentes() {
     }
 
     private void calculateTotals() {
-        if (isAdmin) {
-            double totalVentesProduits = ventesList.stream()
-                .filter(item -> item instanceof Payment)
-                .map(item -> (Payment) item)
-                .filter(payment -> isVenteProduitPayment(payment))
-                .mapToDouble(Payment::getMontantTotal)
-                .sum();
-
-            double totalReservations = ventesList.stream()
-                .filter(item -> item instanceof Payment)
-                .map(item -> (Payment) item)
-                .filter(payment -> isReservationPayment(payment))
-                .mapToDouble(Payment::getMontantTotal)
-                .sum();
-
-            totalVentesLabel.setText(String.format("Total Ventes Produits (jour) : %.2f F", totalVentesProduits));
-            totalReservationsLabel.setText(String.format("Total Réservations (jour) : %.2f F", totalReservations));
+        if (isAdmin && currentUser != null) {
+            LocalDate today = LocalDate.now();
+            int adminId = currentUser.getId();
+            DataTask.cancel(totalsTask);
+            totalsTask = AsyncLoader.load(() -> Fabrique.getFinanceQueryService().getSalesSplit(adminId, today, today), split -> {
+                totalVentesLabel.setText(String.format("Total Ventes Produits (jour) : %.2f F", split.getProductSalesTotal()));
+                totalReservationsLabel.setText(String.format("Total Réservations (jour) : %.2f F", split.getReservationPaymentTotal()));
+            });
         }
     }
 
 
-@FXML
-private void generateDailyPdf() {
-    if (currentUser == null) return;
-    try {
+    @FXML
+    private void generateDailyPdf() {
+        if (currentUser == null) return;
         LocalDate today = LocalDate.now();
 
-        // Récupère les opérations du jour (défensif: dates null possibles)
-        List<Payment> dailyPayments = Fabrique.getService().getAllPayments().stream()
-            .filter(p -> p != null && p.getDateHeure() != null)
-            .filter(p -> p.getDateHeure().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().isEqual(today))
-            .filter(p -> p.getDetailsProduits() != null && !p.getDetailsProduits().trim().isEmpty()) // Uniquement les ventes de produits
-            .collect(Collectors.toList());
+        // Admin : rapport limité à ses opérations ; SuperAdmin : rapport de tous les admins du jour
+        Integer adminId = currentUser.getRole() == Role.Admin ? currentUser.getId() : null;
+        String generatedBy = currentUser.getName() != null && !currentUser.getName().isBlank() ? currentUser.getName() : "Admin";
 
-        List<Reservation> dailyReservations = Fabrique.getService().findAllReservations().stream()
-            .filter(r -> r != null && r.getReservationDate() != null)
-            .filter(r -> r.getReservationDate().toLocalDate().isEqual(today))
-            .collect(Collectors.toList());
+        AsyncLoader.load(() -> ReportSources.hasOperations(adminId, today, today), hasOperations -> {
+            if (!hasOperations) {
+                showAlert(Alert.AlertType.INFORMATION, "Aucune Opération", "Il n'y a aucune opération pour aujourd'hui.");
+                return;
+            }
 
-        // Admin : rapport limité à ses opérations ; SuperAdmin : rapport de tous les admins du jour
-        if (currentUser.getRole() == Role.Admin) {
-            dailyPayments = dailyPayments.stream()
-                .filter(p -> currentUser.equals(p.getCreatedBy()))
-                .collect(Collectors.toList());
-            dailyReservations = dailyReservations.stream()
-                .filter(r -> currentUser.equals(r.getCreatedBy()))
-                .collect(Collectors.toList());
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Enregistrer le rapport journalier");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers PDF", "*.pdf"));
+            fileChooser.setInitialFileName("Rapport_Journalier_" + today.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".pdf");
+            File file = fileChooser.showSaveDialog(new Stage());
+            if (file == null) return;
+
+            ReportTask task = new ReportTask(file, PDRectangle.A4, PDF_MARGIN, 0, pdf -> {
+                float leading = 25;
+                pdf.banner("KAYPLAY GAMING ROOM", "Rapport financier · " + today.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), PDF_HEADER_HEIGHT);
+                pdf.space(leading);
+
+                // Infos entreprise (sous le bandeau)
+                for (String info : PDF_COMPANY_INFOS) {
+                    pdf.centered(info, pdf.regular(), 9, java.awt.Color.BLACK);
+                    pdf.space(12);
+                }
+                pdf.space(8);
+
+                pdf.centered("Rapport Journalier — " + today.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), pdf.bold(), 14, PdfReport.PRIMARY);
+                pdf.space(16);
+                pdf.centered("Généré par : " + generatedBy + " · " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+                    pdf.regular(), 10, java.awt.Color.BLACK);
+                pdf.space(20);
+
+                writeDayOperations(pdf, adminId, today, leading);
+            });
+            ReportProgressDialog.run("Rapport journalier", task, generated -> openPdf(generated, true));
+        });
+    }
+
+    private void generateAndOpenPdf(Object item, boolean saveToFile) {
+        if (!(item instanceof AdminDailyReport)) {
+            showAlert(Alert.AlertType.ERROR, "Erreur", "L'élément sélectionné n'est pas un rapport journalier.");
+            return;
         }
 
-        if (dailyPayments.isEmpty() && dailyReservations.isEmpty()) {
-            showAlert(Alert.AlertType.INFORMATION, "Aucune Opération", "Il n'y a aucune opération pour aujourd'hui.");
+        AdminDailyReport report = (AdminDailyReport) item;
+        File file;
+
+        // Choix du fichier de sortie
+        if (saveToFile) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Enregistrer le rapport journalier");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers PDF", "*.pdf"));
+            fileChooser.setInitialFileName(
+                String.format("Rapport_%s_%s.pdf",
+                    report.getAdminName(),
+                    report.getDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"))
+                )
+            );
+            file = fileChooser.showSaveDialog(new Stage());
+            if (file == null) return;
+        } else {
+            try {
+                file = File.createTempFile("temp_rapport_", ".pdf");
+                file.deleteOnExit();
+            } catch (IOException e) {
+                showAlert(Alert.AlertType.ERROR, "Erreur", "Impossible de créer le fichier temporaire: " + e.getMessage());
+                return;
+            }
+        }
+
+        // Détail des opérations de la journée, lu en SQL au fil du dessin
+        ReportTask task = new ReportTask(file, PDRectangle.A4, PDF_MARGIN, 0, pdf -> {
+            pdf.banner("KAYPLAY GAMING ROOM", "Rapport journalier — " + report.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), PDF_HEADER_HEIGHT);
+            pdf.space(20);
+            pdf.centered("Admin : " + report.getAdminName() + " · Généré le " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+                pdf.regular(), 9, java.awt.Color.BLACK);
+            pdf.space(20);
+
+            writeDayOperations(pdf, report.getAdminId(), report.getDate(), 20);
+        });
+        ReportProgressDialog.run("Rapport journalier", task, generated -> openPdf(generated, saveToFile));
+    }
+
+    @FXML
+    private void generateSelectedJournalPdf() {
+        if (isAdmin) return;
+
+        ObservableList<Object> selectedItems = journalTable.getSelectionModel().getSelectedItems();
+        if (selectedItems.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "Aucune sélection", "Veuillez sélectionner au moins une ligne à inclure dans le rapport PDF.");
             return;
         }
 
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Enregistrer le rapport journalier");
+        fileChooser.setTitle("Enregistrer le rapport sélectionné");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers PDF", "*.pdf"));
-        fileChooser.setInitialFileName("Rapport_Journalier_" + today.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".pdf");
+        fileChooser.setInitialFileName("Rapport_Selection_" + LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".pdf");
         File file = fileChooser.showSaveDialog(new Stage());
+        if (file == null) return;
 
-        if (file != null) {
-            try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
+        // Copie de la sélection : la liste observable ne doit pas être lue hors du thread JavaFX
+        List<AdminDailyReport> reports = new ArrayList<>();
+        for (Object item : selectedItems) {
+            reports.add((AdminDailyReport) item);
+        }
+        String generatedBy = currentUser.getName();
 
-            float margin = 50;
-            float yStart = page.getMediaBox().getHeight() - margin;
-            float tableWidth = page.getMediaBox().getWidth() - 2 * margin;
-            float yPosition = yStart;
+        ReportTask task = new ReportTask(file, PDRectangle.A4, PDF_MARGIN, reports.size(), pdf -> {
             float leading = 25;
+            pdf.banner("KAYPLAY GAMING ROOM", "Rapport sélectionné · " + reports.size() + " jour(s)", PDF_HEADER_HEIGHT);
+            pdf.space(20);
+            pdf.centered("Généré par : " + generatedBy + " · " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+                pdf.regular(), 9, java.awt.Color.BLACK);
+            pdf.space(20);
+
+            // --- Tableau des rapports sélectionnés (totaux cumulés pendant le dessin) ---
+            DoubleSummaryStatistics ventes = new DoubleSummaryStatistics();
+            DoubleSummaryStatistics reservations = new DoubleSummaryStatistics();
+            pdf.table(JOURNAL_TABLE, RowCursor.of(reports).onEach(r -> {
+                ventes.accept(r.getProductSalesTotal());
+                reservations.accept(r.getReservationTotal());
+            }));
 
-            // --- Bandeau d'en-tête (bleu KayPlay) ---
-            float headerHeight = 52;
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.addRect(0, yStart - headerHeight, page.getMediaBox().getWidth(), headerHeight);
-            contentStream.fill();
-            contentStream.setNonStrokingColor(1f, 1f, 1f);
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 20);
-            String headerTitle = "KAYPLAY GAMING ROOM";
-            float headerTitleWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(headerTitle) / 1000 * 20;
-            contentStream.beginText();
-            contentStream.newLineAtOffset((page.getMediaBox().getWidth() - headerTitleWidth) / 2, yStart - headerHeight + 18);
-            contentStream.showText(headerTitle);
-            contentStream.endText();
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
-            String headerSub = "Rapport financier · " + today.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-            float headerSubWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA).getStringWidth(headerSub) / 1000 * 10;
-            contentStream.beginText();
-            contentStream.newLineAtOffset((page.getMediaBox().getWidth() - headerSubWidth) / 2, yStart - headerHeight + 4);
-            contentStream.showText(headerSub);
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            yPosition -= headerHeight + leading;
-
-            // Infos entreprise (sous le bandeau)
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 9);
-            String[] companyInfos = {
-                "Jaxaay, Parcelle Unité 24, BP 17000, KEUR MASSAR · Tel. +221 338134720 / 771128514",
-                "Kayplay.gamingroom@gmail.com · NINEA 012344800"
-            };
-            for (String info : companyInfos) {
-                float infoWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA).getStringWidth(info) / 1000 * 9;
-                contentStream.beginText();
-                contentStream.newLineAtOffset((page.getMediaBox().getWidth() - infoWidth) / 2, yPosition);
-                contentStream.showText(info);
-                contentStream.endText();
-                yPosition -= 12;
-            }
-            yPosition -= 8;
-
-            // Titre du rapport
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 14);
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            String rapportTitle = "Rapport Journalier — " + today.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-            float titleWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(rapportTitle) / 1000 * 14;
-            contentStream.beginText();
-            contentStream.newLineAtOffset((page.getMediaBox().getWidth() - titleWidth) / 2, yPosition);
-            contentStream.showText(rapportTitle);
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            yPosition -= 16;
-
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
-            String generatedBy = (currentUser != null && currentUser.getName() != null && !currentUser.getName().isBlank())
-                ? currentUser.getName()
-                : "Admin";
-            String adminText = "Généré par : " + generatedBy + " · " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-            float adminWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA).getStringWidth(adminText) / 1000 * 10;
-            contentStream.beginText();
-            contentStream.newLineAtOffset((page.getMediaBox().getWidth() - adminWidth) / 2, yPosition);
-            contentStream.showText(adminText);
-            contentStream.endText();
-            yPosition -= 20;
-
-            // --- Ventes de Produits ---
-            if (!dailyPayments.isEmpty()) {
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-                contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(margin, yPosition);
-                contentStream.showText("Ventes de Produits");
-                contentStream.endText();
-                contentStream.setNonStrokingColor(0f, 0f, 0f);
-                contentStream.setStrokingColor(0.85f, 0.85f, 0.85f);
-                contentStream.moveTo(margin, yPosition - 4);
-                contentStream.lineTo(margin + 120, yPosition - 4);
-                contentStream.stroke();
-                contentStream.setStrokingColor(0f, 0f, 0f);
-                yPosition -= leading;
-
-                // Tableau des ventes de produits
-                float[] paymentColumnWidths = {0.20f, 0.20f, 0.15f, 0.15f, 0.20f};
-                yPosition = drawTable(
-                    document, contentStream, page, yPosition, margin, paymentColumnWidths,
-                    new String[]{"N° Ticket", "Client", "Montant", "Mode Paiement", "Heure"},
-                    dailyPayments,
-                    (item, cs, startX, startY, columnWidths) -> {
-                        Payment p = (Payment) item;
-                        cs.showText(p.getNumeroTicket() != null ? p.getNumeroTicket() : "");
-                        cs.newLineAtOffset(columnWidths[0], 0);
-                        cs.showText(p.getClient() != null ? p.getClient().getName() : "N/A");
-                        cs.newLineAtOffset(columnWidths[1], 0);
-                        cs.showText(String.format("%.2f", p.getMontantTotal()));
-                        cs.newLineAtOffset(columnWidths[2], 0);
-                        cs.showText(p.getModePaiement() != null ? p.getModePaiement() : "");
-                        cs.newLineAtOffset(columnWidths[3], 0);
-                        cs.showText(
-                            p.getDateHeure() != null
-                                ? p.getDateHeure().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime().format(DateTimeFormatter.ofPattern("HH:mm:ss"))
-                                : ""
-                        );
-                    }
-                );
-
-                // Espacement entre le tableau des ventes et le détail des articles
-                yPosition -= 20;
-
-                // --- Détail des articles achetés (présentation en tableau) ---
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 11);
-                contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(margin, yPosition);
-                contentStream.showText("Détail des articles achetés");
-                contentStream.endText();
-                contentStream.setNonStrokingColor(0f, 0f, 0f);
-                contentStream.setStrokingColor(0.85f, 0.85f, 0.85f);
-                contentStream.moveTo(margin, yPosition - 4);
-                contentStream.lineTo(margin + 160, yPosition - 4);
-                contentStream.stroke();
-                contentStream.setStrokingColor(0f, 0f, 0f);
-                yPosition -= leading;
-
-                float detailTableWidth = page.getMediaBox().getWidth() - 2 * margin;
-                float colArticle = detailTableWidth * 0.75f;
-                float colQte = detailTableWidth * 0.25f;
-                float rowHeight = 16f;
-
-                for (Payment p : dailyPayments) {
-                    String details = p.getDetailsProduits();
-                    if (details != null && !details.trim().isEmpty()) {
-                        String ticket = (p.getNumeroTicket() != null ? p.getNumeroTicket() : "") + " — Montant : " + String.format("%.0f F", p.getMontantTotal());
-                        if (yPosition < margin + rowHeight * 4) {
-                            contentStream.close();
-                            page = new PDPage(PDRectangle.A4);
-                            document.addPage(page);
-                            contentStream = new PDPageContentStream(document, page);
-                            yPosition = page.getMediaBox().getHeight() - margin;
-                        }
-                        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 9);
-                        contentStream.beginText();
-                        contentStream.newLineAtOffset(margin, yPosition);
-                        contentStream.showText(ticket.length() > 70 ? ticket.substring(0, 67) + "..." : ticket);
-                        contentStream.endText();
-                        yPosition -= 14;
-
-                        contentStream.setNonStrokingColor(0.95f, 0.95f, 0.95f);
-                        contentStream.addRect(margin, yPosition - rowHeight, detailTableWidth, rowHeight);
-                        contentStream.fill();
-                        contentStream.setNonStrokingColor(0f, 0f, 0f);
-                        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 8);
-                        contentStream.beginText();
-                        contentStream.newLineAtOffset(margin + 4, yPosition - rowHeight + 5);
-                        contentStream.showText("Article");
-                        contentStream.endText();
-                        contentStream.beginText();
-                        contentStream.newLineAtOffset(margin + colArticle + 4, yPosition - rowHeight + 5);
-                        contentStream.showText("Qté");
-                        contentStream.endText();
-                        yPosition -= rowHeight;
-
-                        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 8);
-                        for (String part : details.split(",\\s*")) {
-                            String line = part.trim();
-                            if (line.isEmpty()) continue;
-                            String article = line;
-                            String qte = "1";
-                            int xIdx = line.lastIndexOf(" x");
-                            if (xIdx > 0 && xIdx < line.length() - 2) {
-                                try {
-                                    qte = line.substring(xIdx + 2).trim();
-                                    article = line.substring(0, xIdx).trim();
-                                } catch (Exception ignored) {}
-                            }
-                            if (article.length() > 45) article = article.substring(0, 42) + "...";
-                            contentStream.beginText();
-                            contentStream.newLineAtOffset(margin + 4, yPosition - 12);
-                            contentStream.showText(article);
-                            contentStream.endText();
-                            contentStream.beginText();
-                            contentStream.newLineAtOffset(margin + colArticle + 4, yPosition - 12);
-                            contentStream.showText(qte);
-                            contentStream.endText();
-                            yPosition -= rowHeight;
-                            if (yPosition < margin + rowHeight) {
-                                contentStream.close();
-                                page = new PDPage(PDRectangle.A4);
-                                document.addPage(page);
-                                contentStream = new PDPageContentStream(document, page);
-                                yPosition = page.getMediaBox().getHeight() - margin;
-                            }
-                        }
-                        yPosition -= 8;
-                    }
-                }
-                yPosition -= 8;
-
-                // Ligne de séparation avant le total
-                contentStream.setStrokingColor(0.7f, 0.7f, 0.7f);
-                contentStream.moveTo(margin, yPosition);
-                contentStream.lineTo(page.getMediaBox().getWidth() - margin, yPosition);
-                contentStream.stroke();
-                contentStream.setStrokingColor(0f, 0f, 0f);
-                yPosition -= 15; // Espace supplémentaire avant le total
-
-                // Total des ventes de produits
-                double totalVentes = dailyPayments.stream().mapToDouble(Payment::getMontantTotal).sum();
-                String totalVentesText = String.format("Total Ventes Produits : %.2f F", totalVentes);
-                float totalVentesWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(totalVentesText) / 1000 * 12;
-                float totalVentesX = (page.getMediaBox().getWidth() - totalVentesWidth) / 2;
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-                contentStream.setNonStrokingColor(PDF_COLOR_SUCCESS_R, PDF_COLOR_SUCCESS_G, PDF_COLOR_SUCCESS_B);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(totalVentesX, yPosition);
-                contentStream.showText(totalVentesText);
-                contentStream.endText();
-                contentStream.setNonStrokingColor(0f, 0f, 0f);
-                yPosition -= leading * 3;
-            }
-
-            // --- Réservations ---
-            if (!dailyReservations.isEmpty()) {
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-                contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(margin, yPosition);
-                contentStream.showText("Réservations");
-                contentStream.endText();
-                contentStream.setNonStrokingColor(0f, 0f, 0f);
-                contentStream.setStrokingColor(0.85f, 0.85f, 0.85f);
-                contentStream.moveTo(margin, yPosition - 4);
-                contentStream.lineTo(margin + 90, yPosition - 4);
-                contentStream.stroke();
-                contentStream.setStrokingColor(0f, 0f, 0f);
-                yPosition -= leading;
-
-                // Tableau des réservations
-                float[] reservationColumnWidths = {0.20f, 0.20f, 0.15f, 0.15f, 0.20f};
-                yPosition = drawTable(
-                    document, contentStream, page, yPosition, margin, reservationColumnWidths,
-                    new String[]{"N° Ticket", "Client", "Montant", "Poste", "Heure"},
-                    dailyReservations,
-                    (item, cs, startX, startY, columnWidths) -> {
-                        Reservation r = (Reservation) item;
-                        cs.showText(r.getNumeroTicket());
-                        cs.newLineAtOffset(columnWidths[0], 0);
-                        cs.showText(r.getClient() != null ? r.getClient().getName() : "N/A");
-                        cs.newLineAtOffset(columnWidths[1], 0);
-                        cs.showText(String.format("%.2f", r.getTotalPrice()));
-                        cs.newLineAtOffset(columnWidths[2], 0);
-                        cs.showText(r.getPoste() != null ? r.getPoste().getName() : "N/A");
-                        cs.newLineAtOffset(columnWidths[3], 0);
-                        cs.showText(r.getReservationDate().format(DateTimeFormatter.ofPattern("HH:mm:ss")));
-                    }
-                );
-
-                // Ligne de séparation avant le total
-                contentStream.setStrokingColor(0.7f, 0.7f, 0.7f);
-                contentStream.moveTo(margin, yPosition);
-                contentStream.lineTo(page.getMediaBox().getWidth() - margin, yPosition);
-                contentStream.stroke();
-                contentStream.setStrokingColor(0f, 0f, 0f);
-                yPosition -= 15; // Espace supplémentaire avant le total
-
-                // Total des réservations (centré et espacé)
-                double totalReservations = dailyReservations.stream().mapToDouble(Reservation::getTotalPrice).sum();
-                String totalReservationsText = String.format("Total Réservations : %.2f F", totalReservations);
-                float totalReservationsWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(totalReservationsText) / 1000 * 12;
-                float totalReservationsX = (page.getMediaBox().getWidth() - totalReservationsWidth) / 2;
-
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-                contentStream.setNonStrokingColor(PDF_COLOR_SUCCESS_R, PDF_COLOR_SUCCESS_G, PDF_COLOR_SUCCESS_B);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(totalReservationsX, yPosition);
-                contentStream.showText(totalReservationsText);
-                contentStream.endText();
-                contentStream.setNonStrokingColor(0f, 0f, 0f);
-                yPosition -= leading * 3;
-            }
+            // Ligne de séparation avant les totaux
+            pdf.ensureSpace(30 + 4 * leading + 40);
+            pdf.rule();
+            pdf.space(30);
 
-            yPosition -= 12;
-
-            // --- Grand Total Journalier (encadré) ---
-            double totalVentes = dailyPayments.stream().mapToDouble(Payment::getMontantTotal).sum();
-            double totalReservations = dailyReservations.stream().mapToDouble(Reservation::getTotalPrice).sum();
-            double grandTotal = totalVentes + totalReservations;
-            String grandTotalText = String.format("Grand Total Journalier : %.2f F", grandTotal);
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 16);
-            float grandTotalWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(grandTotalText) / 1000 * 16;
-            float grandTotalX = (page.getMediaBox().getWidth() - grandTotalWidth) / 2;
-            float boxPad = 12;
-            contentStream.setNonStrokingColor(0.94f, 0.95f, 0.97f);
-            contentStream.addRect(grandTotalX - boxPad, yPosition - 22, grandTotalWidth + 2 * boxPad, 28);
-            contentStream.fill();
-            contentStream.setStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.setLineWidth(1.2f);
-            contentStream.addRect(grandTotalX - boxPad, yPosition - 22, grandTotalWidth + 2 * boxPad, 28);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(grandTotalX, yPosition - 16);
-            contentStream.showText(grandTotalText);
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-
-            contentStream.close();
-            document.save(file);
+            // --- Totaux (centrés et espacés) ---
+            pdf.centered(String.format("Total Ventes Produits : %.2f F", ventes.getSum()), pdf.bold(), 12, PdfReport.SUCCESS);
+            pdf.space(leading * 2);
+            pdf.centered(String.format("Total Réservations : %.2f F", reservations.getSum()), pdf.bold(), 12, PdfReport.SUCCESS);
+            pdf.space(leading * 2 + 12);
 
-            showAlert(Alert.AlertType.INFORMATION, "Succès", "Rapport PDF généré avec succès !");
-            if (Desktop.isDesktopSupported()) {
-                Desktop.getDesktop().open(file);
-            }
-            } catch (IOException e) {
-                showAlert(Alert.AlertType.ERROR, "Erreur PDF", "Impossible de générer le rapport PDF : " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-    } catch (Exception e) {
-        // Évite une erreur opaque "InvocationTargetException" côté JavaFX/FXML
-        String msg = e.getMessage();
-        showAlert(Alert.AlertType.ERROR, "Erreur", "Erreur lors de la génération du rapport journalier : " + (msg != null ? msg : e.getClass().getSimpleName()));
-        e.printStackTrace();
+            pdf.framedTotal(String.format("Total Global : %.2f F", ventes.getSum() + reservations.getSum()), 14, 26);
+        });
+        ReportProgressDialog.run("Rapport sélectionné", task, generated -> openPdf(generated, true));
     }
-}
-
 
+    /**
+     * Export brut pour la comptabilité (CSV ou Excel selon le type de fichier choisi), sur la période des
+     * filtres du journal ; sans date, tout l'historique est exporté.
+     */
+    @FXML
+    private void exportData() {
+        if (isAdmin) return;
 
-  private void generateAndOpenPdf(Object item, boolean saveToFile) {
-    if (!(item instanceof AdminDailyReport)) {
-        showAlert(Alert.AlertType.ERROR, "Erreur", "L'élément sélectionné n'est pas un rapport journalier.");
-        return;
-    }
-
-    AdminDailyReport report = (AdminDailyReport) item;
-    File file = null;
+        ChoiceDialog<DataExport.Dataset> choice = new ChoiceDialog<>(DataExport.Dataset.PAYMENTS, DataExport.Dataset.values());
+        choice.setTitle("Exporter les données");
+        choice.setHeaderText(null);
+        choice.setContentText("Données à exporter :");
+        DataExport.Dataset dataset = choice.showAndWait().orElse(null);
+        if (dataset == null) return;
 
-    // Choix du fichier de sortie
-    if (saveToFile) {
+        LocalDate from = startDatePicker.getValue();
+        LocalDate to = endDatePicker.getValue();
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Enregistrer le rapport journalier");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers PDF", "*.pdf"));
-        fileChooser.setInitialFileName(
-            String.format("Rapport_%s_%s.pdf",
-                report.getAdmin().getName(),
-                report.getDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"))
-            )
-        );
-        file = fileChooser.showSaveDialog(new Stage());
+        fileChooser.setTitle("Exporter " + dataset.getLabel());
+        FileChooser.ExtensionFilter xlsx = new FileChooser.ExtensionFilter("Classeur Excel", "*.xlsx");
+        FileChooser.ExtensionFilter csv = new FileChooser.ExtensionFilter("CSV (point-virgule)", "*.csv");
+        fileChooser.getExtensionFilters().addAll(xlsx, csv);
+        fileChooser.setInitialFileName(String.format("%s_%s_%s",
+            dataset.getLabel().replaceAll("[^a-zA-Z0-9]", "_"),
+            from != null ? from.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) : "debut",
+            to != null ? to.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) : "fin"));
+        File file = fileChooser.showSaveDialog(new Stage());
         if (file == null) return;
-    } else {
-        try {
-            file = File.createTempFile("temp_rapport_", ".pdf");
-            file.deleteOnExit();
-        } catch (IOException e) {
-            showAlert(Alert.AlertType.ERROR, "Erreur", "Impossible de créer le fichier temporaire: " + e.getMessage());
-            return;
+        String name = file.getName().toLowerCase();
+        if (!name.endsWith(".xlsx") && !name.endsWith(".csv")) {
+            file = new File(file.getPath() + (fileChooser.getSelectedExtensionFilter() == csv ? ".csv" : ".xlsx"));
         }
-    }
 
-    try (PDDocument document = new PDDocument()) {
-        PDPage page = new PDPage(PDRectangle.A4);
-        document.addPage(page);
-        PDPageContentStream contentStream = new PDPageContentStream(document, page);
-
-        float margin = 50;
-        float yStart = page.getMediaBox().getHeight() - margin;
-        float tableWidth = page.getMediaBox().getWidth() - 2 * margin;
-        float yPosition = yStart;
-        float leading = 20;
-
-        // --- Bandeau d'en-tête ---
-        float headerHeight = 52;
-        contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-        contentStream.addRect(0, yStart - headerHeight, page.getMediaBox().getWidth(), headerHeight);
-        contentStream.fill();
-        contentStream.setNonStrokingColor(1f, 1f, 1f);
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 20);
-        // Titre sans espace visible entre KAY et PLAY (éviter affichage "KAY PLAY")
-        String headerTitle = "KAYPLAY GAMING ROOM";
-        float headerTitleWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(headerTitle) / 1000 * 20;
-        contentStream.beginText();
-        contentStream.newLineAtOffset((page.getMediaBox().getWidth() - headerTitleWidth) / 2, yStart - headerHeight + 18);
-        contentStream.showText(headerTitle);
-        contentStream.endText();
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
-        String headerSub = "Rapport journalier — " + report.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        float headerSubWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA).getStringWidth(headerSub) / 1000 * 10;
-        contentStream.beginText();
-        contentStream.newLineAtOffset((page.getMediaBox().getWidth() - headerSubWidth) / 2, yStart - headerHeight + 4);
-        contentStream.showText(headerSub);
-        contentStream.endText();
-        contentStream.setNonStrokingColor(0f, 0f, 0f);
-        yPosition -= headerHeight + 20;
-
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 9);
-        String adminLine = "Admin : " + report.getAdmin().getName() + " · Généré le " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-        float adminLineWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA).getStringWidth(adminLine) / 1000 * 9;
-        contentStream.beginText();
-        contentStream.newLineAtOffset((page.getMediaBox().getWidth() - adminLineWidth) / 2, yPosition);
-        contentStream.showText(adminLine);
-        contentStream.endText();
-        yPosition -= 20;
+        ReportProgressDialog.run("Export " + dataset.getLabel(), new ExportTask(file, dataset, from, to),
+            exported -> showAlert(Alert.AlertType.INFORMATION, "Export terminé", "Fichier enregistré : " + exported.getAbsolutePath()));
+    }
 
+    /**
+     * Sections communes des rapports d'une journée : ventes de produits, détail des articles,
+     * réservations et grand total. Les lignes sont lues en SQL au fil du dessin, les totaux cumulés
+     * pendant le parcours ; une section sans opération n'est pas affichée.
+     */
+    private static void writeDayOperations(PdfReport pdf, Integer adminId, LocalDate day, float leading) throws IOException {
         // --- Ventes de Produits ---
-        if (!report.getPayments().isEmpty()) {
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("Ventes de Produits");
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            contentStream.setStrokingColor(0.85f, 0.85f, 0.85f);
-            contentStream.moveTo(margin, yPosition - 4);
-            contentStream.lineTo(margin + 120, yPosition - 4);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            yPosition -= leading;
-
-            // Tableau des ventes de produits
-            float[] paymentColumnWidths = {0.20f, 0.20f, 0.15f, 0.15f, 0.20f};
-            yPosition = drawTable(
-                document, contentStream, page, yPosition, margin, paymentColumnWidths,
-                new String[]{"N° Ticket", "Client", "Montant", "Mode Paiement", "Heure"},
-                report.getPayments(),
-                (itemObj, cs, startX, startY, columnWidths) -> {
-                    Payment p = (Payment) itemObj;
-                    cs.showText(p.getNumeroTicket() != null ? p.getNumeroTicket() : "");
-                    cs.newLineAtOffset(columnWidths[0], 0);
-                    cs.showText(p.getClient() != null ? p.getClient().getName() : "N/A");
-                    cs.newLineAtOffset(columnWidths[1], 0);
-                    cs.showText(String.format("%.2f", p.getMontantTotal()));
-                    cs.newLineAtOffset(columnWidths[2], 0);
-                    cs.showText(p.getModePaiement() != null ? p.getModePaiement() : "");
-                    cs.newLineAtOffset(columnWidths[3], 0);
-                    cs.showText(
-                        p.getDateHeure() != null
-                            ? p.getDateHeure().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime().format(DateTimeFormatter.ofPattern("HH:mm:ss"))
-                            : ""
-                    );
-                }
-            );
+        DoubleSummaryStatistics ventes = new DoubleSummaryStatistics();
+        try (RowCursor<ReportSources.ProductSale> sales = ReportSources.productSales(adminId, day, day)) {
+            if (sales.hasNext()) {
+                pdf.ensureSpace(leading + 40);
+                pdf.sectionTitle("Ventes de Produits", 12, 120);
+                pdf.space(leading);
+                pdf.table(SALES_TABLE, sales.onEach(s -> ventes.accept(s.getAmount())));
+            }
+        }
 
+        if (ventes.getCount() > 0) {
             // Espacement entre le tableau des ventes et le détail des articles
-            yPosition -= 20;
-
-            // --- Détail des articles achetés (SuperAdmin : voir le détail des ventes par ligne) ---
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 11);
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("Détail des articles achetés");
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            contentStream.setStrokingColor(0.85f, 0.85f, 0.85f);
-            contentStream.moveTo(margin, yPosition - 4);
-            contentStream.lineTo(margin + 160, yPosition - 4);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            yPosition -= leading;
-
-            float detailTableWidth = page.getMediaBox().getWidth() - 2 * margin;
-            float colArticle = detailTableWidth * 0.75f;
-            float colQte = detailTableWidth * 0.25f;
-            float rowHeight = 16f;
-
-            for (Payment p : report.getPayments()) {
-                String details = p.getDetailsProduits();
-                if (details != null && !details.trim().isEmpty()) {
-                    String ticket = (p.getNumeroTicket() != null ? p.getNumeroTicket() : "") + " — Montant : " + String.format("%.0f F", p.getMontantTotal());
-                    if (yPosition < margin + rowHeight * 4) {
-                        contentStream.close();
-                        page = new PDPage(PDRectangle.A4);
-                        document.addPage(page);
-                        contentStream = new PDPageContentStream(document, page);
-                        yPosition = page.getMediaBox().getHeight() - margin;
-                    }
-                    contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 9);
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(margin, yPosition);
-                    contentStream.showText(ticket.length() > 70 ? ticket.substring(0, 67) + "..." : ticket);
-                    contentStream.endText();
-                    yPosition -= 14;
-
-                    contentStream.setNonStrokingColor(0.95f, 0.95f, 0.95f);
-                    contentStream.addRect(margin, yPosition - rowHeight, detailTableWidth, rowHeight);
-                    contentStream.fill();
-                    contentStream.setNonStrokingColor(0f, 0f, 0f);
-                    contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 8);
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(margin + 4, yPosition - rowHeight + 5);
-                    contentStream.showText("Article");
-                    contentStream.endText();
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(margin + colArticle + 4, yPosition - rowHeight + 5);
-                    contentStream.showText("Qté");
-                    contentStream.endText();
-                    yPosition -= rowHeight;
-
-                    contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 8);
-                    for (String part : details.split(",\\s*")) {
-                        String line = part.trim();
-                        if (line.isEmpty()) continue;
-                        String article = line;
-                        String qte = "1";
-                        int xIdx = line.lastIndexOf(" x");
-                        if (xIdx > 0 && xIdx < line.length() - 2) {
-                            try {
-                                qte = line.substring(xIdx + 2).trim();
-                                article = line.substring(0, xIdx).trim();
-                            } catch (Exception ignored) {}
-                        }
-                        if (article.length() > 45) article = article.substring(0, 42) + "...";
-                        contentStream.beginText();
-                        contentStream.newLineAtOffset(margin + 4, yPosition - 12);
-                        contentStream.showText(article);
-                        contentStream.endText();
-                        contentStream.beginText();
-                        contentStream.newLineAtOffset(margin + colArticle + 4, yPosition - 12);
-                        contentStream.showText(qte);
-                        contentStream.endText();
-                        yPosition -= rowHeight;
-                        if (yPosition < margin + rowHeight) {
-                            contentStream.close();
-                            page = new PDPage(PDRectangle.A4);
-                            document.addPage(page);
-                            contentStream = new PDPageContentStream(document, page);
-                            yPosition = page.getMediaBox().getHeight() - margin;
-                        }
-                    }
-                    yPosition -= 8;
+            pdf.space(20);
+
+            // --- Détail des articles achetés (un petit tableau par ticket) ---
+            pdf.ensureSpace(leading + 16 * 4);
+            pdf.sectionTitle("Détail des articles achetés", 11, 160);
+            pdf.space(leading);
+            try (RowCursor<ReportSources.ProductSale> sales = ReportSources.productSales(adminId, day, day)) {
+                while (sales.hasNext()) {
+                    ReportSources.ProductSale sale = sales.next();
+                    pdf.ensureSpace(16 * 4);
+                    String ticket = (sale.getNumeroTicket() != null ? sale.getNumeroTicket() : "") + " — Montant : " + String.format("%.0f F", sale.getAmount());
+                    pdf.text(ticket.length() > 70 ? ticket.substring(0, 67) + "..." : ticket, pdf.getMargin(), pdf.bold(), 9, java.awt.Color.BLACK);
+                    pdf.space(14);
+                    pdf.table(ARTICLES_TABLE, RowCursor.of(parseArticles(sale.getDetails())));
+                    pdf.space(8);
                 }
             }
-            yPosition -= 8;
+            pdf.space(8);
 
             // Ligne de séparation avant le total
-            contentStream.setStrokingColor(0.7f, 0.7f, 0.7f);
-            contentStream.moveTo(margin, yPosition);
-            contentStream.lineTo(page.getMediaBox().getWidth() - margin, yPosition);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            yPosition -= 15; // Espace supplémentaire avant le total
-
-            // Total des ventes de produits (centré et espacé)
-            double totalVentes = report.getPayments().stream().mapToDouble(Payment::getMontantTotal).sum();
-            String totalVentesText = String.format("Total Ventes Produits : %.2f F", totalVentes);
-            float totalVentesWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(totalVentesText) / 1000 * 12;
-            float totalVentesX = (page.getMediaBox().getWidth() - totalVentesWidth) / 2;
-
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-            contentStream.setNonStrokingColor(PDF_COLOR_SUCCESS_R, PDF_COLOR_SUCCESS_G, PDF_COLOR_SUCCESS_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(totalVentesX, yPosition);
-            contentStream.showText(totalVentesText);
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            yPosition -= leading * 3;
+            pdf.ensureSpace(15 + 12);
+            pdf.rule();
+            pdf.space(15);
+            pdf.centered(String.format("Total Ventes Produits : %.2f F", ventes.getSum()), pdf.bold(), 12, PdfReport.SUCCESS);
+            pdf.space(leading * 3);
         }
 
         // --- Réservations ---
-        if (!report.getReservations().isEmpty()) {
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("Réservations");
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            contentStream.setStrokingColor(0.85f, 0.85f, 0.85f);
-            contentStream.moveTo(margin, yPosition - 4);
-            contentStream.lineTo(margin + 90, yPosition - 4);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            yPosition -= leading;
-
-            // Tableau des réservations
-            float[] reservationColumnWidths = {0.20f, 0.20f, 0.15f, 0.15f, 0.20f};
-            yPosition = drawTable(
-                document, contentStream, page, yPosition, margin, reservationColumnWidths,
-                new String[]{"N° Ticket", "Client", "Montant", "Poste", "Heure"},
-                report.getReservations(),
-                (itemObj, cs, startX, startY, columnWidths) -> {
-                    Reservation r = (Reservation) itemObj;
-                    cs.showText(r.getNumeroTicket());
-                    cs.newLineAtOffset(columnWidths[0], 0);
-                    cs.showText(r.getClient() != null ? r.getClient().getName() : "N/A");
-                    cs.newLineAtOffset(columnWidths[1], 0);
-                    cs.showText(String.format("%.2f", r.getTotalPrice()));
-                    cs.newLineAtOffset(columnWidths[2], 0);
-                    cs.showText(r.getPoste() != null ? r.getPoste().getName() : "N/A");
-                    cs.newLineAtOffset(columnWidths[3], 0);
-                    cs.showText(r.getReservationDate().format(DateTimeFormatter.ofPattern("HH:mm:ss")));
-                }
-            );
-
-            // Ligne de séparation avant le total
-            contentStream.setStrokingColor(0.7f, 0.7f, 0.7f);
-            contentStream.moveTo(margin, yPosition);
-            contentStream.lineTo(page.getMediaBox().getWidth() - margin, yPosition);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            yPosition -= 15; // Espace supplémentaire avant le total
-
-            // Total des réservations (centré et espacé)
-            double totalReservations = report.getReservations().stream().mapToDouble(Reservation::getTotalPrice).sum();
-            String totalReservationsText = String.format("Total Réservations : %.2f F", totalReservations);
-            float totalReservationsWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(totalReservationsText) / 1000 * 12;
-            float totalReservationsX = (page.getMediaBox().getWidth() - totalReservationsWidth) / 2;
-
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-            contentStream.setNonStrokingColor(PDF_COLOR_SUCCESS_R, PDF_COLOR_SUCCESS_G, PDF_COLOR_SUCCESS_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(totalReservationsX, yPosition);
-            contentStream.showText(totalReservationsText);
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            yPosition -= leading * 3;
+        DoubleSummaryStatistics reservations = new DoubleSummaryStatistics();
+        try (RowCursor<ReportSources.ReservationLine> lines = ReportSources.reservations(adminId, day, day)) {
+            if (lines.hasNext()) {
+                pdf.ensureSpace(leading + 40);
+                pdf.sectionTitle("Réservations", 12, 90);
+                pdf.space(leading);
+                pdf.table(RESERVATIONS_TABLE, lines.onEach(r -> reservations.accept(r.getTotalPrice())));
+            }
         }
 
-        yPosition -= 12;
-
-        // --- Grand Total (encadré) ---
-        double totalVentes = report.getPayments().stream().mapToDouble(Payment::getMontantTotal).sum();
-        double totalReservations = report.getReservations().stream().mapToDouble(Reservation::getTotalPrice).sum();
-        double grandTotal = totalVentes + totalReservations;
-        String grandTotalText = String.format("Grand Total Journalier : %.2f F", grandTotal);
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 16);
-        float grandTotalWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(grandTotalText) / 1000 * 16;
-        float grandTotalX = (page.getMediaBox().getWidth() - grandTotalWidth) / 2;
-        float boxPad = 12;
-        contentStream.setNonStrokingColor(0.94f, 0.95f, 0.97f);
-        contentStream.addRect(grandTotalX - boxPad, yPosition - 22, grandTotalWidth + 2 * boxPad, 28);
-        contentStream.fill();
-        contentStream.setStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-        contentStream.setLineWidth(1.2f);
-        contentStream.addRect(grandTotalX - boxPad, yPosition - 22, grandTotalWidth + 2 * boxPad, 28);
-        contentStream.stroke();
-        contentStream.setStrokingColor(0f, 0f, 0f);
-        contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-        contentStream.beginText();
-        contentStream.newLineAtOffset(grandTotalX, yPosition - 16);
-        contentStream.showText(grandTotalText);
-        contentStream.endText();
-        contentStream.setNonStrokingColor(0f, 0f, 0f);
-
-        // Fermeture et sauvegarde
-        contentStream.close();
-        document.save(file);
-
-        if (saveToFile) {
-            showAlert(Alert.AlertType.INFORMATION, "Succès", "Rapport PDF généré avec succès !");
-        }
-        if (Desktop.isDesktopSupported()) {
-            Desktop.getDesktop().open(file);
+        if (reservations.getCount() > 0) {
+            // Ligne de séparation avant le total
+            pdf.ensureSpace(15 + 12);
+            pdf.rule();
+            pdf.space(15);
+            pdf.centered(String.format("Total Réservations : %.2f F", reservations.getSum()), pdf.bold(), 12, PdfReport.SUCCESS);
+            pdf.space(leading * 3);
         }
-    } catch (IOException e) {
-        showAlert(Alert.AlertType.ERROR, "Erreur PDF", "Erreur lors de la génération du PDF: " + e.getMessage());
-        e.printStackTrace();
-    }
-}
 
+        pdf.space(12);
 
-   @FXML
-private void generateSelectedJournalPdf() {
-    if (isAdmin) return;
-
-    ObservableList<Object> selectedItems = journalTable.getSelectionModel().getSelectedItems();
-    if (selectedItems.isEmpty()) {
-        showAlert(Alert.AlertType.WARNING, "Aucune sélection", "Veuillez sélectionner au moins une ligne à inclure dans le rapport PDF.");
-        return;
+        // --- Grand Total Journalier (encadré) ---
+        pdf.ensureSpace(28);
+        pdf.framedTotal(String.format("Grand Total Journalier : %.2f F", ventes.getSum() + reservations.getSum()), 16, 28);
     }
 
-    FileChooser fileChooser = new FileChooser();
-    fileChooser.setTitle("Enregistrer le rapport sélectionné");
-    fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers PDF", "*.pdf"));
-    fileChooser.setInitialFileName("Rapport_Selection_" + LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".pdf");
-    File file = fileChooser.showSaveDialog(new Stage());
-
-    if (file != null) {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-
-            float margin = 50;
-            float yStart = page.getMediaBox().getHeight() - margin;
-            float tableWidth = page.getMediaBox().getWidth() - 2 * margin;
-            float yPosition = yStart;
-            float leading = 25;
-
-            // --- Bandeau d'en-tête ---
-            float headerHeight = 52;
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.addRect(0, yStart - headerHeight, page.getMediaBox().getWidth(), headerHeight);
-            contentStream.fill();
-            contentStream.setNonStrokingColor(1f, 1f, 1f);
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 20);
-            String headerTitle = "KAYPLAY GAMING ROOM";
-            float headerTitleWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(headerTitle) / 1000 * 20;
-            contentStream.beginText();
-            contentStream.newLineAtOffset((page.getMediaBox().getWidth() - headerTitleWidth) / 2, yStart - headerHeight + 18);
-            contentStream.showText(headerTitle);
-            contentStream.endText();
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
-            String headerSub = "Rapport sélectionné · " + selectedItems.size() + " jour(s)";
-            float headerSubWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA).getStringWidth(headerSub) / 1000 * 10;
-            contentStream.beginText();
-            contentStream.newLineAtOffset((page.getMediaBox().getWidth() - headerSubWidth) / 2, yStart - headerHeight + 4);
-            contentStream.showText(headerSub);
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-            yPosition -= headerHeight + 20;
-
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 9);
-            String genLine = "Généré par : " + currentUser.getName() + " · " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-            float genLineWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA).getStringWidth(genLine) / 1000 * 9;
-            contentStream.beginText();
-            contentStream.newLineAtOffset((page.getMediaBox().getWidth() - genLineWidth) / 2, yPosition);
-            contentStream.showText(genLine);
-            contentStream.endText();
-            yPosition -= 20;
-
-            // --- Tableau des rapports sélectionnés ---
-            float[] columnWidths = {0.25f, 0.25f, 0.25f, 0.25f};
-            yPosition = drawTable(
-                document, contentStream, page, yPosition, margin, columnWidths,
-                new String[]{"Admin", "Date", "Total Ventes", "Total Réservations"},
-                selectedItems,
-                (item, cs, startX, startY, colWidths) -> {
-                    AdminDailyReport report = (AdminDailyReport) item;
-                    cs.showText(report.getAdmin().getName());
-                    cs.newLineAtOffset(colWidths[0], 0);
-                    cs.showText(report.getDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-                    cs.newLineAtOffset(colWidths[1], 0);
-                    cs.showText(String.format("%.2f F", report.getPayments().stream().mapToDouble(Payment::getMontantTotal).sum()));
-                    cs.newLineAtOffset(colWidths[2], 0);
-                    cs.showText(String.format("%.2f F", report.getReservations().stream().mapToDouble(Reservation::getTotalPrice).sum()));
-                }
-            );
-
-            // --- Calcul des totaux ---
-            double totalVentes = selectedItems.stream()
-                .mapToDouble(item -> ((AdminDailyReport) item).getPayments().stream().mapToDouble(Payment::getMontantTotal).sum())
-                .sum();
-
-            double totalReservations = selectedItems.stream()
-                .mapToDouble(item -> ((AdminDailyReport) item).getReservations().stream().mapToDouble(Reservation::getTotalPrice).sum())
-                .sum();
-
-            double totalGlobal = totalVentes + totalReservations;
-
-            // Ligne de séparation avant les totaux
-            contentStream.setStrokingColor(0.7f, 0.7f, 0.7f);
-            contentStream.moveTo(margin, yPosition);
-            contentStream.lineTo(page.getMediaBox().getWidth() - margin, yPosition);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            yPosition -= 30; // Espace supplémentaire avant les totaux
-
-            // --- Totaux (centrés et espacés) ---
-            // Total Global Ventes
-            String totalVentesText = String.format("Total Ventes Produits : %.2f F", totalVentes);
-            float totalVentesWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(totalVentesText) / 1000 * 12;
-            float totalVentesX = (page.getMediaBox().getWidth() - totalVentesWidth) / 2;
-
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 12);
-            contentStream.setNonStrokingColor(PDF_COLOR_SUCCESS_R, PDF_COLOR_SUCCESS_G, PDF_COLOR_SUCCESS_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(totalVentesX, yPosition);
-            contentStream.showText(totalVentesText);
-            contentStream.endText();
-            yPosition -= leading * 2;
-
-            String totalReservationsText = String.format("Total Réservations : %.2f F", totalReservations);
-            float totalReservationsWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(totalReservationsText) / 1000 * 12;
-            float totalReservationsX = (page.getMediaBox().getWidth() - totalReservationsWidth) / 2;
-            contentStream.beginText();
-            contentStream.newLineAtOffset(totalReservationsX, yPosition);
-            contentStream.showText(totalReservationsText);
-            contentStream.endText();
-            yPosition -= leading * 2;
-
-            yPosition -= 12;
-
-            String grandTotalText = String.format("Total Global : %.2f F", totalGlobal);
-            float grandTotalWidth = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD).getStringWidth(grandTotalText) / 1000 * 14;
-            float grandTotalX = (page.getMediaBox().getWidth() - grandTotalWidth) / 2;
-            float boxPad = 12;
-            contentStream.setNonStrokingColor(0.94f, 0.95f, 0.97f);
-            contentStream.addRect(grandTotalX - boxPad, yPosition - 20, grandTotalWidth + 2 * boxPad, 26);
-            contentStream.fill();
-            contentStream.setStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.setLineWidth(1.2f);
-            contentStream.addRect(grandTotalX - boxPad, yPosition - 20, grandTotalWidth + 2 * boxPad, 26);
-            contentStream.stroke();
-            contentStream.setStrokingColor(0f, 0f, 0f);
-            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 14);
-            contentStream.setNonStrokingColor(PDF_COLOR_PRIMARY_R, PDF_COLOR_PRIMARY_G, PDF_COLOR_PRIMARY_B);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(grandTotalX, yPosition - 14);
-            contentStream.showText(grandTotalText);
-            contentStream.endText();
-            contentStream.setNonStrokingColor(0f, 0f, 0f);
-
-            // Fermeture et sauvegarde
-            contentStream.close();
-            document.save(file);
-
-            showAlert(Alert.AlertType.INFORMATION, "Succès", "Rapport PDF généré avec succès !");
-            if (Desktop.isDesktopSupported()) {
-                Desktop.getDesktop().open(file);
+    // Articles d'une vente ("Nom xQté, ...") : lignes {article, quantité}
+    private static List<String[]> parseArticles(String details) {
+        List<String[]> articles = new ArrayList<>();
+        for (String part : details.split(",\\s*")) {
+            String line = part.trim();
+            if (line.isEmpty()) continue;
+            String article = line;
+            String qte = "1";
+            int xIdx = line.lastIndexOf(" x");
+            if (xIdx > 0 && xIdx < line.length() - 2) {
+                qte = line.substring(xIdx + 2).trim();
+                article = line.substring(0, xIdx).trim();
             }
-        } catch (IOException e) {
-            showAlert(Alert.AlertType.ERROR, "Erreur PDF", "Impossible de générer le rapport PDF : " + e.getMessage());
-            e.printStackTrace();
+            articles.add(new String[]{article, qte});
         }
+        return articles;
     }
-}
 
-
-    @FunctionalInterface
-    interface PDFRowDrawer {
-        void draw(Object item, PDPageContentStream contentStream, float startX, float startY, float[] columnWidths) throws IOException;
-    }
-
-    private float drawTable(
-        PDDocument document,
-        PDPageContentStream contentStream,
-        PDPage page,
-        float yPosition,
-        float margin,
-        float[] columnWidths,
-        String[] headers,
-        List<?> dataList,
-        PDFRowDrawer rowDrawer
-    ) throws IOException {
-        float tableWidth = page.getMediaBox().getWidth() - 2 * margin;
-        float rowHeight = 20f;
-        float cellMargin = 5f;
-        float[] actualColumnWidths = new float[columnWidths.length];
-        for (int i = 0; i < columnWidths.length; i++) {
-            actualColumnWidths[i] = columnWidths[i] * tableWidth;
-        }
-
-        // En-tête du tableau (bandeau bleu, texte blanc)
-        contentStream.setNonStrokingColor(PDF_COLOR_HEADER_BG_R, PDF_COLOR_HEADER_BG_G, PDF_COLOR_HEADER_BG_B);
-        contentStream.addRect(margin, yPosition - rowHeight, tableWidth, rowHeight);
-        contentStream.fill();
-        contentStream.setNonStrokingColor(1f, 1f, 1f);
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 10);
-        float currentX = margin;
-        for (int i = 0; i < headers.length; i++) {
-            contentStream.beginText();
-            contentStream.newLineAtOffset(currentX + cellMargin, yPosition - rowHeight + 5);
-            contentStream.showText(headers[i]);
-            contentStream.endText();
-            currentX += actualColumnWidths[i];
+    private void openPdf(File file, boolean announce) {
+        if (announce) {
+            showAlert(Alert.AlertType.INFORMATION, "Succès", "Rapport PDF généré avec succès !");
         }
-        contentStream.setNonStrokingColor(0f, 0f, 0f);
-        yPosition -= rowHeight;
-        contentStream.moveTo(margin, yPosition);
-        contentStream.lineTo(margin + tableWidth, yPosition);
-        contentStream.stroke();
-
-        // Lignes du tableau
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 9);
-        for (Object item : dataList) {
-            if (yPosition < margin + rowHeight) {
-                contentStream.close();
-                page = new PDPage(PDRectangle.A4);
-                document.addPage(page);
-                contentStream = new PDPageContentStream(document, page);
-                yPosition = page.getMediaBox().getHeight() - margin;
-                contentStream.setNonStrokingColor(PDF_COLOR_HEADER_BG_R, PDF_COLOR_HEADER_BG_G, PDF_COLOR_HEADER_BG_B);
-                contentStream.addRect(margin, yPosition - rowHeight, tableWidth, rowHeight);
-                contentStream.fill();
-                contentStream.setNonStrokingColor(1f, 1f, 1f);
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 10);
-                currentX = margin;
-                for (int i = 0; i < headers.length; i++) {
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(currentX + cellMargin, yPosition - rowHeight + 5);
-                    contentStream.showText(headers[i]);
-                    contentStream.endText();
-                    currentX += actualColumnWidths[i];
-                }
-                contentStream.setNonStrokingColor(0f, 0f, 0f);
-                yPosition -= rowHeight;
-                contentStream.moveTo(margin, yPosition);
-                contentStream.lineTo(margin + tableWidth, yPosition);
-                contentStream.stroke();
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 9);
-            }
-
-            // Dessine les bordures verticales
-            currentX = margin;
-            for (int i = 0; i < actualColumnWidths.length; i++) {
-                contentStream.moveTo(currentX, yPosition);
-                contentStream.lineTo(currentX, yPosition + rowHeight);
-                contentStream.stroke();
-                currentX += actualColumnWidths[i];
+        if (Desktop.isDesktopSupported()) {
+            try {
+                Desktop.getDesktop().open(file);
+            } catch (IOException e) {
+                showAlert(Alert.AlertType.ERROR, "Erreur PDF", "Impossible d'ouvrir le rapport PDF : " + e.getMessage());
             }
-            contentStream.moveTo(currentX, yPosition);
-            contentStream.lineTo(currentX, yPosition + rowHeight);
-            contentStream.stroke();
-
-            // Contenu de la ligne
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin + cellMargin, yPosition - rowHeight + 5);
-            rowDrawer.draw(item, contentStream, margin + cellMargin, yPosition - rowHeight + 5, actualColumnWidths);
-            contentStream.endText();
-
-            // Ligne horizontale en bas de la ligne
-            yPosition -= rowHeight;
-            contentStream.moveTo(margin, yPosition);
-            contentStream.lineTo(margin + tableWidth, yPosition);
-            contentStream.stroke();
         }
-        return yPosition;
     }
 
 
@@ -1,6 +1,7 @@
 package com.controllers;
 
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -8,26 +9,35 @@ import javafx.scene.Parent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.Label;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.scene.control.Alert.AlertType;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
 import com.App;
 import javafx.stage.Window;
 import com.core.BackupService;
+import com.core.BackupStore;
 import com.core.Fabrique;
 import com.entities.Role;
 import com.entities.User;
-
-import java.nio.file.Path;
+import com.utils.PrintSpooler;
 
 public class MainSceneController implements Initializable {
 
@@ -50,6 +60,7 @@ public class MainSceneController implements Initializable {
     @FXML private Button btnFinances;
     @FXML private Button btnPromotions;
     @FXML private Button btnBackup;
+    @FXML private Button btnRestore;
     @FXML private Button btnDeconnexion;
 
     @FXML private AnchorPane contentPane; // Le panneau où les vues seront chargées
@@ -59,6 +70,13 @@ public class MainSceneController implements Initializable {
     private boolean isMaximized = false;
 
     private static MainSceneController instance;
+    private static final DateTimeFormatter SNAPSHOT_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    // Alertes de fin de session, actives tant qu'un utilisateur est connecté
+    private final SessionDeadlineAlerts sessionDeadlineAlerts = new SessionDeadlineAlerts();
+    private boolean sessionDeadlineAlertsRegistered;
+    // Alertes d'impression des tickets, actives pendant toute l'application
+    private final PrintStatusAlerts printStatusAlerts = new PrintStatusAlerts();
 
     public MainSceneController() {
         instance = this;
@@ -98,6 +116,8 @@ public class MainSceneController implements Initializable {
         // AU DÉMARRAGE DE L'APP, LE MENU EST MASQUÉ PAR DÉFAUT
         // La visibilité sera gérée par loadView() après le chargement de la première vue.
         setMenuVisibility(false); 
+
+        PrintSpooler.addListener(printStatusAlerts);
     }
 
     /**
@@ -112,6 +132,10 @@ public class MainSceneController implements Initializable {
         setMenuVisibility(isLoggedIn); 
 
         if (isLoggedIn) {
+            if (!sessionDeadlineAlertsRegistered) {
+                Fabrique.getService().addSessionDeadlineListener(sessionDeadlineAlerts);
+                sessionDeadlineAlertsRegistered = true;
+            }
             if (lblUserRole != null) {
                 lblUserRole.setText(user.getName() + " : (" + user.getRole().name() + ")");
             }
@@ -155,6 +179,11 @@ public class MainSceneController implements Initializable {
                 btnPromotions.setVisible(isSuperAdmin);
                 btnPromotions.setManaged(isSuperAdmin);
             }
+
+            if (btnRestore != null) {
+                btnRestore.setVisible(isSuperAdmin);
+                btnRestore.setManaged(isSuperAdmin);
+            }
             
         } else {
             // Si l'utilisateur n'est pas loggé (user est null), on s'assure que tout le menu est caché
@@ -180,6 +209,7 @@ public class MainSceneController implements Initializable {
         if (btnProduits != null) { btnProduits.setManaged(visible); btnProduits.setVisible(visible); }
         if (btnFinances != null) { btnFinances.setManaged(visible); btnFinances.setVisible(visible); }
         if (btnPromotions != null) { btnPromotions.setManaged(visible); btnPromotions.setVisible(visible); }
+        if (btnRestore != null) { btnRestore.setManaged(visible); btnRestore.setVisible(visible); }
         if (btnDeconnexion != null) { btnDeconnexion.setManaged(visible); btnDeconnexion.setVisible(visible); }
     }
 
@@ -233,6 +263,8 @@ public class MainSceneController implements Initializable {
      * @param fxmlName Le nom du fichier FXML (sans l'extension .fxml)
      */
     public void loadView(String fxmlName) {
+        // Les chargements encore en cours de la vue quittée ne doivent plus être publiés
+        AsyncLoader.cancelAll();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/views/" + fxmlName + ".fxml"));
             Parent view = loader.load();
@@ -303,6 +335,8 @@ public class MainSceneController implements Initializable {
         Optional<ButtonType> option = alert.showAndWait();
 
         if (option.isPresent() && option.get().equals(ButtonType.OK)) {
+            Fabrique.getService().removeSessionDeadlineListener(sessionDeadlineAlerts);
+            sessionDeadlineAlertsRegistered = false;
             Fabrique.getService().setCurrentUser(null);
             loadView("connexion");
             setWindowTitle("GESTION KAYPLAY - Connexion");
@@ -311,17 +345,96 @@ public class MainSceneController implements Initializable {
 
     @FXML
     public void handleBackup() {
-        Path saved = BackupService.backupNow();
-        Alert alert = new Alert(AlertType.INFORMATION);
-        alert.setTitle("Sauvegarde");
-        if (saved != null) {
-            alert.setHeaderText("Sauvegarde effectuée");
-            alert.setContentText("La base a été sauvegardée dans :\n" + saved.toAbsolutePath());
-        } else {
-            alert.setHeaderText("Échec de la sauvegarde");
-            alert.setContentText("Impossible de créer la sauvegarde. Consultez les logs.");
+        // Première sauvegarde : les anciennes copies complètes sont versées dans le stockage, ce qui peut prendre du temps
+        btnBackup.setDisable(true);
+        Thread.ofVirtual().name("GestionSalles-backup").start(() -> {
+            BackupStore.Snapshot saved = BackupService.backupNow();
+            String folder = null;
+            try {
+                folder = BackupService.getStore().getDirectory().toAbsolutePath().toString();
+            } catch (IOException ignored) {}
+            String backupFolder = folder;
+            Platform.runLater(() -> {
+                btnBackup.setDisable(false);
+                Alert alert = new Alert(AlertType.INFORMATION);
+                alert.setTitle("Sauvegarde");
+                if (saved != null) {
+                    alert.setHeaderText("Sauvegarde effectuée");
+                    alert.setContentText("Sauvegarde du " + formatSnapshotDate(saved) + " enregistrée dans :\n" + backupFolder
+                        + "\n\nElle est vérifiée en arrière-plan. Utilisez « Restaurer une sauvegarde » pour en extraire une base.");
+                } else {
+                    alert.setHeaderText("Échec de la sauvegarde");
+                    alert.setContentText("Impossible de créer la sauvegarde. Consultez les logs.");
+                }
+                alert.showAndWait();
+            });
+        });
+    }
+
+    /**
+     * Reconstruit une sauvegarde dans un fichier .sqlite choisi par l'utilisateur (SuperAdmin). La base en
+     * service n'est pas modifiée : pour remettre la sauvegarde en service, fermer l'application et
+     * remplacer gestionsalles.sqlite par ce fichier.
+     */
+    @FXML
+    public void handleRestore() {
+        List<BackupStore.Snapshot> snapshots;
+        try {
+            snapshots = BackupService.listSnapshots();
+        } catch (IOException e) {
+            ControllerUtils.showErrorAlert("Erreur", "Lecture des sauvegardes impossible : " + e.getMessage());
+            return;
+        }
+        if (snapshots.isEmpty()) {
+            ControllerUtils.showErrorAlert("Restauration", "Aucune sauvegarde disponible.");
+            return;
+        }
+        Map<String, BackupStore.Snapshot> byLabel = new LinkedHashMap<>();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            byLabel.put(snapshotLabel(snapshots.get(i)), snapshots.get(i));
         }
-        alert.showAndWait();
+        ChoiceDialog<String> choice = new ChoiceDialog<>(byLabel.keySet().iterator().next(), byLabel.keySet());
+        choice.setTitle("Restaurer une sauvegarde");
+        choice.setHeaderText(null);
+        choice.setContentText("Sauvegarde :");
+        String label = choice.showAndWait().orElse(null);
+        if (label == null) return;
+        BackupStore.Snapshot snapshot = byLabel.get(label);
+        String date = formatSnapshotDate(snapshot);
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Enregistrer la base restaurée");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Base SQLite", "*.sqlite"));
+        fileChooser.setInitialFileName("gestionsalles_restauree_" + snapshot.getId() + ".sqlite");
+        File file = fileChooser.showSaveDialog(App.getMainStage());
+        if (file == null) return;
+
+        Task<File> task = new Task<>() {
+            @Override
+            protected File call() throws Exception {
+                updateMessage("Reconstruction de la sauvegarde du " + date + "...");
+                return BackupService.restoreSnapshot(snapshot.getId(), file.toPath()).toFile();
+            }
+        };
+        ReportProgressDialog.run("Restauration", task, restored -> {
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Restauration");
+            alert.setHeaderText("Sauvegarde du " + date + " restaurée");
+            alert.setContentText("Base enregistrée dans :\n" + restored.getAbsolutePath()
+                + "\n\nPour la remettre en service, fermez l'application et remplacez gestionsalles.sqlite par ce fichier.");
+            alert.showAndWait();
+        });
+    }
+
+    // Résultat de la vérification d'arrière-plan affiché dans la liste : une sauvegarde invalide est signalée
+    private static String snapshotLabel(BackupStore.Snapshot snapshot) {
+        String date = formatSnapshotDate(snapshot);
+        if (snapshot.getCheck() == null) return date + " (non vérifiée)";
+        return snapshot.isVerified() ? date : date + " (INVALIDE)";
+    }
+
+    private static String formatSnapshotDate(BackupStore.Snapshot snapshot) {
+        return SNAPSHOT_DATE_FORMAT.format(Instant.ofEpochMilli(snapshot.getCreatedAt()).atZone(ZoneId.systemDefault()));
     }
 
     @FXML
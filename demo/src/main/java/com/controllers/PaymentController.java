@@ -1,7 +1,6 @@
 package com.controllers;
 
 import com.core.Fabrique;
-import com.entities.Client;
 import com.entities.Payment;
 import com.entities.Produit;
 import com.entities.User;
@@ -19,7 +18,6 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
 
 public class PaymentController {
@@ -46,7 +44,7 @@ public class PaymentController {
     }
 
     // Mise à jour : ajout du paramètre detailReservations
-    public void initializeData(List<Client> clients, double montantTotal, String detailsProduits, String detailReservations, Map<Produit, Integer> produitsDansLePanier) {
+    public void initializeData(double montantTotal, String detailsProduits, String detailReservations, Map<Produit, Integer> produitsDansLePanier) {
         this.montantTotal = montantTotal;
         this.detailsProduits = detailsProduits;
         this.detailReservations = detailReservations; // Initialisation du nouveau champ
@@ -82,8 +80,8 @@ public class PaymentController {
         );
 
         try {
-            enregistrerPaiement(payment);
-            diminuerStockProduits();
+            // Paiement et sortie de stock : une seule opération journalisée
+            enregistrerVente(payment);
 
             javafx.scene.control.Alert printConfirm = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.CONFIRMATION);
             printConfirm.setTitle("Impression du ticket");
@@ -111,15 +109,9 @@ public class PaymentController {
         }
     }
 
-    private void enregistrerPaiement(Payment payment) throws Exception {
-        Fabrique.getService().addPayment(payment);
-    }
-
-    private void diminuerStockProduits() throws Exception {
-        if (produitsDansLePanier == null || produitsDansLePanier.isEmpty()) {
-            return;
-        }
-        Fabrique.getService().updateProduitStocks(produitsDansLePanier);
+    private void enregistrerVente(Payment payment) throws Exception {
+        Map<Produit, Integer> produits = produitsDansLePanier != null ? produitsDansLePanier : Map.of();
+        Fabrique.getService().recordSale(payment, produits);
     }
 
     private void showAlert(String title, String message) {
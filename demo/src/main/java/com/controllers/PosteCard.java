@@ -0,0 +1,224 @@
+package com.controllers;
+
+import com.entities.Game;
+import com.entities.GameSession;
+import com.entities.Poste;
+import com.services.LiveSessionRegistry;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.text.Font;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Carte d'un poste dans la grille Postes & Jeux : le nœud est construit une seule fois puis réutilisé,
+ * ses libellés sont liés à des propriétés (statut, temps restant, jeux) qui ne changent que si la
+ * valeur change. Le décompte est avancé par tick(), appelé par l'AnimationTimer du contrôleur.
+ */
+class PosteCard {
+
+    static final String STATUS_AVAILABLE = "Disponible";
+    static final String STATUS_BUSY = "Occupé";
+    static final String STATUS_OUT_OF_ORDER = "Hors service";
+
+    private static final String COLOR_AVAILABLE = "#00C853";
+    private static final String COLOR_BUSY = "#e67e22";
+    private static final String COLOR_BUSY_CIRCLE = "#FFA500";
+    private static final String COLOR_OUT_OF_ORDER = "#D50000";
+
+    private final StringProperty name = new SimpleStringProperty();
+    private final StringProperty status = new SimpleStringProperty(STATUS_AVAILABLE);
+    // Fin de la session active la plus proche du poste (null = pas de décompte)
+    private final ObjectProperty<LocalDateTime> sessionEnd = new SimpleObjectProperty<>();
+    // Temps restant arrondi à la seconde : ne change qu'une fois par seconde
+    private final ObjectProperty<Duration> remaining = new SimpleObjectProperty<>();
+    private final ObservableList<String> games = FXCollections.observableArrayList();
+
+    private final VBox node = new VBox(10);
+    private Poste poste;
+
+    PosteCard(Poste poste, Consumer<Poste> onEdit, Consumer<Poste> onDelete) {
+        this.poste = poste;
+        node.setPadding(new Insets(15));
+        node.setAlignment(Pos.CENTER_LEFT);
+        node.setStyle("-fx-background-color: #ffffff; -fx-background-radius: 10px; -fx-border-radius: 10px; " +
+                      "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.15), 10, 0, 0, 4);");
+        node.setMaxWidth(Double.MAX_VALUE);
+        node.setPrefHeight(Region.USE_COMPUTED_SIZE);
+
+        Circle statusCircle = new Circle(10);
+        statusCircle.setStroke(Color.web("#bdc3c7"));
+        statusCircle.setStrokeWidth(1);
+        statusCircle.fillProperty().bind(Bindings.createObjectBinding(() -> Color.web(circleColor(status.get())), status));
+
+        Label posteName = new Label();
+        posteName.setFont(Font.font("Arial", 18));
+        posteName.setStyle("-fx-font-weight: bold; -fx-text-fill: #2c3e50;");
+        posteName.textProperty().bind(name);
+
+        Label statusLabel = new Label();
+        statusLabel.textProperty().bind(Bindings.createStringBinding(this::statusText, status, remaining));
+        statusLabel.styleProperty().bind(Bindings.createStringBinding(
+            () -> "-fx-font-size: 13px; -fx-text-fill: " + textColor(status.get()) + "; -fx-font-weight: bold;", status));
+
+        HBox statusBox = new HBox(10, statusCircle, posteName);
+        statusBox.setAlignment(Pos.CENTER_LEFT);
+        VBox.setMargin(statusBox, new Insets(0, 0, 5, 0));
+
+        Label gamesHeader = new Label("Jeux installés:");
+        gamesHeader.setFont(Font.font("Arial", 14));
+        gamesHeader.setStyle("-fx-font-weight: bold; -fx-text-fill: #34495e;");
+
+        VBox gamesList = new VBox(5);
+        games.addListener((javafx.collections.ListChangeListener<String>) c -> fillGames(gamesList));
+        fillGames(gamesList);
+
+        ScrollPane scrollJeux = new ScrollPane(gamesList);
+        scrollJeux.setFitToWidth(true);
+        scrollJeux.setPrefHeight(Region.USE_COMPUTED_SIZE);
+        scrollJeux.setMaxHeight(80);
+        scrollJeux.setStyle("-fx-background-color: transparent; -fx-border-color: #ecf0f1; -fx-border-radius: 5px;");
+
+        node.getChildren().addAll(statusBox, statusLabel, gamesHeader, scrollJeux);
+
+        if (onEdit != null && onDelete != null) {
+            HBox adminButtons = new HBox(10);
+            adminButtons.setAlignment(Pos.CENTER_RIGHT);
+            VBox.setMargin(adminButtons, new Insets(10, 0, 0, 0));
+
+            Button btnModifier = new Button("Modifier");
+            btnModifier.getStyleClass().add("card-button-modify");
+            btnModifier.setOnAction(e -> onEdit.accept(this.poste));
+            btnModifier.setStyle("-fx-background-color: #95a5a6; -fx-text-fill: white; -fx-font-size: 12px; " +
+                                 "-fx-padding: 8px 15px; -fx-background-radius: 5px; -fx-cursor: hand;");
+
+            Button btnSupprimer = new Button("Supprimer");
+            btnSupprimer.getStyleClass().add("card-button-delete");
+            btnSupprimer.setOnAction(e -> onDelete.accept(this.poste));
+            btnSupprimer.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-size: 12px; " +
+                                  "-fx-padding: 8px 15px; -fx-background-radius: 5px; -fx-cursor: hand;");
+
+            adminButtons.getChildren().addAll(btnModifier, btnSupprimer);
+            node.getChildren().add(adminButtons);
+        }
+    }
+
+    VBox getNode() {
+        return node;
+    }
+
+    Poste getPoste() {
+        return poste;
+    }
+
+    /**
+     * Reporte l'état du poste et de ses sessions vivantes sur la carte. Les sessions en pause sont
+     * ignorées : un poste dont les sessions sont en pause reste "Disponible".
+     */
+    void update(Poste poste, List<GameSession> liveSessions, LocalDateTime now) {
+        this.poste = poste;
+        setIfChanged(name, poste.getName());
+
+        List<String> gameNames = new ArrayList<>();
+        if (poste.getGames() != null) {
+            for (Game jeu : poste.getGames()) {
+                gameNames.add(jeu.getName());
+            }
+        }
+        if (!games.equals(gameNames)) {
+            games.setAll(gameNames);
+        }
+
+        LocalDateTime end = null;
+        boolean hasActiveSession = false;
+        if (!poste.isHorsService()) {
+            for (GameSession session : liveSessions) {
+                if (!LiveSessionRegistry.STATUS_ACTIVE.equals(session.getStatus())) continue;
+                hasActiveSession = true;
+                if (session.getStartTime() == null || session.getPaidDuration() == null) continue;
+                LocalDateTime sessionEnd = session.getStartTime().plus(session.getPaidDuration());
+                if (sessionEnd.isAfter(now) && (end == null || sessionEnd.isBefore(end))) {
+                    end = sessionEnd;
+                }
+            }
+        }
+        setIfChanged(status, poste.isHorsService() ? STATUS_OUT_OF_ORDER : hasActiveSession ? STATUS_BUSY : STATUS_AVAILABLE);
+        setIfChanged(sessionEnd, end);
+        tick(now);
+    }
+
+    /** Avance le décompte ; le libellé n'est mis à jour que lorsque la seconde affichée change. */
+    void tick(LocalDateTime now) {
+        LocalDateTime end = sessionEnd.get();
+        Duration left = null;
+        if (end != null && STATUS_BUSY.equals(status.get())) {
+            left = Duration.ofSeconds(Duration.between(now, end).getSeconds());
+            if (!left.isPositive()) left = null;
+        }
+        setIfChanged(remaining, left);
+    }
+
+    private String statusText() {
+        Duration left = remaining.get();
+        if (left == null) {
+            return "Statut: " + status.get();
+        }
+        return String.format("Statut: %s (Reste: %02d:%02d)", status.get(), left.toMinutes(), left.toSeconds() % 60);
+    }
+
+    private void fillGames(VBox gamesList) {
+        gamesList.getChildren().clear();
+        if (games.isEmpty()) {
+            Label noGamesLabel = new Label("Aucun jeu associé.");
+            noGamesLabel.setFont(Font.font("Arial", 12));
+            noGamesLabel.setStyle("-fx-text-fill: #95a5a6; -fx-font-style: italic;");
+            gamesList.getChildren().add(noGamesLabel);
+            return;
+        }
+        for (String game : games) {
+            Label gameLabel = new Label("• " + game);
+            gameLabel.setFont(Font.font("Arial", 12));
+            gameLabel.setStyle("-fx-text-fill: #34495e;");
+            gamesList.getChildren().add(gameLabel);
+        }
+    }
+
+    private static String circleColor(String status) {
+        if (STATUS_BUSY.equals(status)) return COLOR_BUSY_CIRCLE;
+        if (STATUS_OUT_OF_ORDER.equals(status)) return COLOR_OUT_OF_ORDER;
+        return COLOR_AVAILABLE;
+    }
+
+    private static String textColor(String status) {
+        if (STATUS_BUSY.equals(status)) return COLOR_BUSY;
+        if (STATUS_OUT_OF_ORDER.equals(status)) return COLOR_OUT_OF_ORDER;
+        return COLOR_AVAILABLE;
+    }
+
+    // Les propriétés JavaFX notifient sur simple changement de référence : on compare les valeurs
+    private static <T> void setIfChanged(javafx.beans.property.Property<T> property, T value) {
+        if (!Objects.equals(property.getValue(), value)) {
+            property.setValue(value);
+        }
+    }
+}
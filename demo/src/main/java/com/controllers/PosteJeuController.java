@@ -3,28 +3,20 @@ package com.controllers;
 import com.core.Fabrique;
 import com.core.WindowManager;
 import com.entities.Game;
-import com.entities.GameSession;
 import com.entities.Poste;
 import com.entities.User;
 import com.entities.Role;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.application.Platform;
+import javafx.animation.AnimationTimer;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
-import javafx.geometry.Insets;
-import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.text.Font;
 import javafx.scene.text.Text; // Although not strictly used for Text in current logic, keep if you plan to use it
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -51,8 +43,13 @@ public class PosteJeuController {
     private boolean isSuperAdmin;
     private static PosteJeuController instance;
 
-    private final Set<Integer> notifiedSessionsEnded = new HashSet<>();
-    private final Set<Integer> notifiedSessionsTwoMinutes = new HashSet<>();
+    // Une carte persistante par poste (réutilisée d'un rafraîchissement à l'autre)
+    private final Map<Integer, PosteCard> cards = new HashMap<>();
+    private final List<PosteCard> visibleCards = new ArrayList<>();
+    // Décompte des cartes (1 fois par seconde) et resynchronisation périodique avec le registre
+    private AnimationTimer countdownTimer;
+    private long lastTickSecond;
+    private static final long RESYNC_SECONDS = 15;
 
     public PosteJeuController() {
         instance = this;
@@ -76,21 +73,35 @@ public class PosteJeuController {
         }
 
         postes = Fabrique.getService().getPostes();
+        gridPostes.setHgap(20);
+        gridPostes.setVgap(20);
         displayPage(currentPage);
 
-        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(15), ev -> {
-            Platform.runLater(() -> {
-                try {
-                    displayPage(currentPage);
-                } catch (Exception e) {
-                    e.printStackTrace();
+        countdownTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                long second = now / 1_000_000_000L;
+                if (second == lastTickSecond) return;
+                lastTickSecond = second;
+                if (second % RESYNC_SECONDS == 0) {
+                    syncVisibleCards();
+                } else {
+                    LocalDateTime time = LocalDateTime.now();
+                    for (PosteCard card : visibleCards) {
+                        card.tick(time);
+                    }
                 }
-            });
-        }));
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.play();
+            }
+        };
+        countdownTimer.start();
 
         gridPostes.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            // Vue remplacée (loadView) : le timer ne doit plus retenir les cartes
+            if (newScene == null) {
+                countdownTimer.stop();
+            } else {
+                countdownTimer.start();
+            }
             if (newScene != null) {
                 newScene.windowProperty().addListener((obs2, oldWindow, newWindow) -> {
                     if (newWindow instanceof Stage) {
@@ -119,6 +130,7 @@ public class PosteJeuController {
         } else {
             newColumns = 2;
         }
+        if (newColumns == gridPostes.getColumnConstraints().size()) return;
 
         gridPostes.getColumnConstraints().clear();
         for (int i = 0; i < newColumns; i++) {
@@ -131,221 +143,59 @@ public class PosteJeuController {
         displayPage(currentPage);
     }
 
+    /**
+     * Place les cartes de la page dans la grille. Les cartes existantes sont réutilisées et mises à
+     * jour ; les enfants de la grille ne sont remplacés que si la page ou le nombre de colonnes change.
+     */
     private void displayPage(int page) throws Exception {
-        // Une seule alerte "2 minutes restantes" pour toutes les sessions concernées (pas une par poste)
-        showTwoMinutesLeftNotificationOnceIfNeeded();
-
-        gridPostes.getChildren().clear();
-        gridPostes.setHgap(20);
-        gridPostes.setVgap(20);
-
         int currentColumns = gridPostes.getColumnConstraints().isEmpty() ? BASE_COLUMNS : gridPostes.getColumnConstraints().size();
         int itemsPerPage = currentColumns * BASE_ROWS;
 
         int startIndex = page * itemsPerPage;
         int endIndex = Math.min(startIndex + itemsPerPage, postes.size());
 
-        int row = 0, col = 0;
+        // Cartes des postes supprimés
+        Set<Integer> posteIds = postes.stream().map(Poste::getId).collect(Collectors.toSet());
+        cards.keySet().retainAll(posteIds);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PosteCard> pageCards = new ArrayList<>();
         for (int i = startIndex; i < endIndex; i++) {
             Poste poste = postes.get(i);
-            VBox card = createPosteCard(poste);
-            gridPostes.add(card, col, row);
+            PosteCard card = cards.computeIfAbsent(poste.getId(), id -> isSuperAdmin
+                ? new PosteCard(poste, this::modifierPoste, this::supprimerPoste)
+                : new PosteCard(poste, null, null));
+            card.update(poste, Fabrique.getService().getLiveSessionsForPoste(poste.getId()), now);
+            pageCards.add(card);
+        }
+        visibleCards.clear();
+        visibleCards.addAll(pageCards);
 
+        List<Node> nodes = new ArrayList<>();
+        int row = 0, col = 0;
+        for (PosteCard card : pageCards) {
+            GridPane.setConstraints(card.getNode(), col, row);
+            nodes.add(card.getNode());
             col++;
             if (col >= currentColumns) {
                 col = 0;
                 row++;
             }
         }
-    }
-
-    /** Affiche une seule alerte si au moins une session a 2 min ou moins, puis marque toutes ces sessions comme notifiées. */
-    private void showTwoMinutesLeftNotificationOnceIfNeeded() {
-        if (postes == null) return;
-        List<String> postesNames = new ArrayList<>();
-        List<Integer> sessionIdsToMark = new ArrayList<>();
-        List<GameSession> allSessions = Fabrique.getService().getAllGameSessions();
-        if (allSessions == null) return;
-        for (GameSession session : allSessions) {
-            if (session.getPoste() == null || !"Active".equals(session.getStatus())) continue;
-            java.time.Duration remaining = session.getRemainingTime();
-            if (remaining == null || !remaining.isPositive() || remaining.toMinutes() > 2) continue;
-            if (notifiedSessionsTwoMinutes.contains(session.getId())) continue;
-            Poste p = session.getPoste();
-            String name = p != null ? p.getName() : ("Session " + session.getId());
-            if (!postesNames.contains(name)) postesNames.add(name);
-            sessionIdsToMark.add(session.getId());
-        }
-        if (postesNames.isEmpty()) return;
-        notifiedSessionsTwoMinutes.addAll(sessionIdsToMark);
-        String postesList = String.join(", ", postesNames);
-        final String message = postesList.length() > 60
-            ? "Il reste 2 minutes pour une ou plusieurs sessions."
-            : "Il reste 2 minutes pour la session du poste " + (postesNames.size() == 1 ? postesNames.get(0) : postesList) + ".";
-        Platform.runLater(() -> {
-            Alert alert = new Alert(Alert.AlertType.WARNING);
-            alert.setTitle("Attention");
-            alert.setHeaderText("Temps restant faible");
-            alert.setContentText(message);
-            alert.show();
-            com.utils.NotificationUtil.playAlertSound();
-        });
-    }
-
-
-    
-/**
- * Creates a modern, styled VBox representing a single Poste card.
- * Includes status logic and admin buttons.
- *
- * @param poste The Poste data to display.
- * @return A VBox styled as a poste card.
- * @throws Exception If there's an error retrieving game sessions.
- */
-private VBox createPosteCard(Poste poste) throws Exception {
-    VBox cardContent = new VBox(10);
-    cardContent.setPadding(new Insets(15));
-    cardContent.setAlignment(Pos.CENTER_LEFT);
-    cardContent.setStyle("-fx-background-color: #ffffff; -fx-background-radius: 10px; -fx-border-radius: 10px; " +
-                         "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.15), 10, 0, 0, 4);");
-    cardContent.setMaxWidth(Double.MAX_VALUE);
-    cardContent.setPrefHeight(Region.USE_COMPUTED_SIZE);
-
-    String finalStatus;
-    String statusColorHex;
-    java.time.Duration shortestRemaining = null;
-
-    if (poste.isHorsService()) {
-        finalStatus = "Hors service";
-        statusColorHex = "#D50000";
-    } else {
-        List<GameSession> allSessions = Fabrique.getService().getAllGameSessions();
-        
-        // Filtrer UNIQUEMENT les sessions ACTIVES sur ce poste
-        // IGNORER COMPLÈTEMENT les sessions en pause pour l'affichage du statut
-        List<GameSession> activeSessionsOnThisPoste = allSessions.stream()
-            .filter(session -> session.getPoste() != null &&
-                            session.getPoste().getId() == poste.getId() &&
-                            "Active".equals(session.getStatus())) // ← SEULEMENT "Active"
-            .collect(Collectors.toList());
-
-        boolean hasActiveSession = !activeSessionsOnThisPoste.isEmpty();
-
-        // Calcul du temps restant pour les sessions ACTIVES uniquement
-        for (GameSession session : activeSessionsOnThisPoste) {
-            java.time.Duration remaining = session.getRemainingTime();
-            if (remaining != null && remaining.isPositive()) {
-                if (shortestRemaining == null || remaining.compareTo(shortestRemaining) < 0) {
-                    shortestRemaining = remaining;
-                }
-                // Marquer comme notifié (l'alerte unique est gérée dans showTwoMinutesLeftNotificationOnceIfNeeded)
-                if (remaining.toMinutes() <= 2 && !notifiedSessionsTwoMinutes.contains(session.getId())) {
-                    notifiedSessionsTwoMinutes.add(session.getId());
-                }
-            } else {
-                // Session active expirée - la terminer
-                if (!notifiedSessionsEnded.contains(session.getId())) {
-                    notifiedSessionsEnded.add(session.getId());
-                    session.setStatus("Terminée");
-                    Fabrique.getService().updateGameSession(session);
-                    openSessionEndDialog(session);
-                }
-            }
-        }
-
-        // DÉTERMINATION DU STATUT - IGNORER LES SESSIONS EN PAUSE
-        if (hasActiveSession) {
-            finalStatus = "Occupé";
-            statusColorHex = "#FFA500";
-        } else {
-            // Le poste est "Disponible" même s'il a des sessions en pause associées
-            finalStatus = "Disponible";
-            statusColorHex = "#00C853";
-        }
-    }
-
-    Circle statusCircle = new Circle(10);
-    statusCircle.setFill(Color.web(statusColorHex));
-    statusCircle.setStroke(Color.web("#bdc3c7"));
-    statusCircle.setStrokeWidth(1);
-    Label posteName = new Label(poste.getName());
-    posteName.setFont(Font.font("Arial", 18));
-    posteName.setStyle("-fx-font-weight: bold; -fx-text-fill: #2c3e50;");
-    Label statusLabel = new Label("Statut: " + finalStatus);
-
-    // Gestion de l'affichage du temps restant - UNIQUEMENT pour "Occupé"
-    if (shortestRemaining != null && !poste.isHorsService() && "Occupé".equals(finalStatus)) {
-        long minutes = shortestRemaining.toMinutes();
-        long seconds = shortestRemaining.toSeconds() % 60;
-        
-        statusLabel.setText(String.format("Statut: %s (Reste: %02d:%02d)", finalStatus, minutes, seconds));
-        statusLabel.setStyle("-fx-font-size: 13px; -fx-text-fill: #e67e22; -fx-font-weight: bold;");
-    } else {
-        // Style selon le statut sans temps restant
-        if ("Occupé".equals(finalStatus)) {
-            statusLabel.setStyle("-fx-font-size: 13px; -fx-text-fill: #e67e22; -fx-font-weight: bold;");
-        } else if ("Hors service".equals(finalStatus)) {
-            statusLabel.setStyle("-fx-font-size: 13px; -fx-text-fill: #D50000; -fx-font-weight: bold;");
-        } else {
-            statusLabel.setStyle("-fx-font-size: 13px; -fx-text-fill: #00C853; -fx-font-weight: bold;");
+        if (!gridPostes.getChildren().equals(nodes)) {
+            gridPostes.getChildren().setAll(nodes);
         }
     }
 
-    HBox statusBox = new HBox(10, statusCircle, posteName);
-    statusBox.setAlignment(Pos.CENTER_LEFT);
-    VBox.setMargin(statusBox, new Insets(0, 0, 5, 0));
-
-    Label gamesHeader = new Label("Jeux installés:");
-    gamesHeader.setFont(Font.font("Arial", 14));
-    gamesHeader.setStyle("-fx-font-weight: bold; -fx-text-fill: #34495e;");
-
-    VBox gamesList = new VBox(5);
-    if (poste.getGames() != null && !poste.getGames().isEmpty()) {
-        for (Game jeu : poste.getGames()) {
-            Label gameLabel = new Label("• " + jeu.getName());
-            gameLabel.setFont(Font.font("Arial", 12));
-            gameLabel.setStyle("-fx-text-fill: #34495e;");
-            gamesList.getChildren().add(gameLabel);
+    /** Reporte sur les cartes visibles l'état des postes et des sessions (registre en mémoire, sans requête). */
+    private void syncVisibleCards() {
+        LocalDateTime now = LocalDateTime.now();
+        for (PosteCard card : visibleCards) {
+            Poste poste = card.getPoste();
+            card.update(poste, Fabrique.getService().getLiveSessionsForPoste(poste.getId()), now);
         }
-    } else {
-        Label noGamesLabel = new Label("Aucun jeu associé.");
-        noGamesLabel.setFont(Font.font("Arial", 12));
-        noGamesLabel.setStyle("-fx-text-fill: #95a5a6; -fx-font-style: italic;");
-        gamesList.getChildren().add(noGamesLabel);
     }
 
-    ScrollPane scrollJeux = new ScrollPane(gamesList);
-    scrollJeux.setFitToWidth(true);
-    scrollJeux.setPrefHeight(Region.USE_COMPUTED_SIZE);
-    scrollJeux.setMaxHeight(80);
-    scrollJeux.setStyle("-fx-background-color: transparent; -fx-border-color: #ecf0f1; -fx-border-radius: 5px;");
-
-    cardContent.getChildren().addAll(statusBox, statusLabel, gamesHeader, scrollJeux);
-
-    if (this.isSuperAdmin) {
-        HBox adminButtons = new HBox(10);
-        adminButtons.setAlignment(Pos.CENTER_RIGHT);
-        VBox.setMargin(adminButtons, new Insets(10, 0, 0, 0));
-
-        Button btnModifier = new Button("Modifier");
-        btnModifier.getStyleClass().add("card-button-modify");
-        btnModifier.setOnAction(e -> modifierPoste(poste));
-        btnModifier.setStyle("-fx-background-color: #95a5a6; -fx-text-fill: white; -fx-font-size: 12px; " +
-                             "-fx-padding: 8px 15px; -fx-background-radius: 5px; -fx-cursor: hand;");
-
-        Button btnSupprimer = new Button("Supprimer");
-        btnSupprimer.getStyleClass().add("card-button-delete");
-        btnSupprimer.setOnAction(e -> supprimerPoste(poste));
-        btnSupprimer.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-size: 12px; " +
-                              "-fx-padding: 8px 15px; -fx-background-radius: 5px; -fx-cursor: hand;");
-
-        adminButtons.getChildren().addAll(btnModifier, btnSupprimer);
-        cardContent.getChildren().add(adminButtons);
-    }
-
-    return cardContent;
-}
-
     private void modifierPoste(Poste poste) {
         try {
             WindowManager.closeWindowsForView("EditPosteWindow");
@@ -385,7 +235,7 @@ private VBox createPosteCard(Poste poste) throws Exception {
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
                 Fabrique.getService().deletePoste(poste);
-                postes.remove(poste);
+                postes = Fabrique.getService().getPostes(); // liste partagée non modifiable : relue après suppression
                 displayPage(currentPage);
 
                 Alert info = new Alert(Alert.AlertType.INFORMATION);
@@ -466,27 +316,4 @@ private VBox createPosteCard(Poste poste) throws Exception {
             displayPage(currentPage);
         }
     }
-
-    private void openSessionEndDialog(GameSession session) {
-        Platform.runLater(() -> {
-            try {
-                WindowManager.closeWindowsForView("SessionEndDialog");
-                com.utils.NotificationUtil.playAlertSound();
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/views/SessionEndDialog.fxml"));
-                Scene scene = new Scene(loader.load());
-                scene.getStylesheets().add(getClass().getResource("/com/css/style.css").toExternalForm());
-                Stage dialogStage = new Stage();
-                dialogStage.initModality(javafx.stage.Modality.APPLICATION_MODAL);
-                dialogStage.setScene(scene);
-                dialogStage.setTitle("Session terminée");
-                WindowManager.register("SessionEndDialog", dialogStage);
-                dialogStage.show();
-
-                SessionEndDialogController controller = loader.getController();
-                controller.setSession(session);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        });
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.controllers;
+
+import com.utils.PrintSpooler;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+
+/**
+ * Informe le caissier de l'état des tickets mis en file d'impression, sans bloquer la caisse (alertes
+ * non modales) : imprimante indisponible au premier échec, puis impression différée réussie ou ticket
+ * abandonné. Les impressions réussies du premier coup restent silencieuses.
+ * Enregistré par MainSceneController pour toute la durée de l'application.
+ */
+public class PrintStatusAlerts implements PrintSpooler.Listener {
+
+    @Override
+    public void onStatus(String ticket, PrintSpooler.Status status, int attempts, String message) {
+        switch (status) {
+            case RETRYING:
+                // Un seul avertissement par ticket : les tentatives suivantes sont silencieuses
+                if (attempts == 1) {
+                    show(Alert.AlertType.WARNING, "Impression en attente",
+                        "Le ticket " + ticket + " n'a pas pu être imprimé (" + message + ").\n"
+                            + "Il sera imprimé automatiquement dès que l'imprimante sera disponible.");
+                }
+                break;
+            case PRINTED:
+                if (attempts > 0) {
+                    show(Alert.AlertType.INFORMATION, "Ticket imprimé",
+                        "Le ticket " + ticket + " en attente a été imprimé.");
+                }
+                break;
+            case FAILED:
+                show(Alert.AlertType.ERROR, "Impression abandonnée",
+                    "Le ticket " + ticket + " n'a pas pu être imprimé : " + message);
+                break;
+        }
+    }
+
+    private static void show(Alert.AlertType type, String title, String message) {
+        Platform.runLater(() -> {
+            Alert alert = new Alert(type);
+            alert.setTitle(title);
+            alert.setHeaderText(null);
+            alert.setContentText(message);
+            alert.show();
+        });
+    }
+}
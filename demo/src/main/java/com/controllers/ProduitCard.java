@@ -0,0 +1,180 @@
+package com.controllers;
+
+import com.entities.Produit;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Carte produit du catalogue (même rendu que l'ancienne carte construite par produit), créée une fois
+ * par cellule de la grille virtualisée puis rebindée sur le produit affiché.
+ */
+class ProduitCard implements VirtualGridView.Card<Produit> {
+
+    private static final String CARD_STYLE = "-fx-background-color: #ffffff; -fx-background-radius: 10px; -fx-border-radius: 10px;";
+    private static final String EXPIRED_STYLE = "-fx-border-color: #e74c3c; -fx-border-width: 3px;";
+    private static final DateTimeFormatter DLC_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final VBox produitCard = new VBox(10);
+    private final ImageView imageView = new ImageView();
+    private final Label produitName = new Label();
+    // Prix normal
+    private final Label produitPrix = new Label();
+    // Prix promotionnel : badge, ancien prix barré, prix actuel
+    private final StackPane promoBadge;
+    private final Label produitPrixAncien = new Label();
+    private final Label produitPrixPromo = new Label();
+    private final VBox priceContainer = new VBox(2);
+    private final Label produitStock = new Label();
+    private final Label produitDateLimite = new Label();
+    private final Label alerteExpiration = new Label("⚠ Expired");
+
+    private final Function<Produit, Image> imageLoader;
+    private final Function<Produit, Image> placeholderLoader;
+    private Produit produit;
+
+    ProduitCard(boolean isSuperAdmin, int imageWidth, int imageHeight,
+                Function<Produit, Image> imageLoader, Function<Produit, Image> placeholderLoader,
+                Consumer<Produit> onAdd, Consumer<Produit> onEdit, Consumer<Produit> onDelete) {
+        this.imageLoader = imageLoader;
+        this.placeholderLoader = placeholderLoader;
+
+        // Style du conteneur principal de la carte
+        produitCard.setPrefWidth(220);
+        produitCard.setPrefHeight(280);
+        produitCard.setAlignment(Pos.TOP_CENTER);
+        produitCard.setPadding(new Insets(15));
+        produitCard.setStyle(CARD_STYLE);
+
+        DropShadow dropShadow = new DropShadow();
+        dropShadow.setColor(Color.rgb(0, 0, 0, 0.1));
+        dropShadow.setRadius(10);
+        dropShadow.setOffsetX(0);
+        dropShadow.setOffsetY(3);
+        produitCard.setEffect(dropShadow);
+
+        imageView.setFitHeight(imageHeight);
+        imageView.setFitWidth(imageWidth);
+        imageView.setPreserveRatio(true);
+        imageView.setCache(true);
+        VBox.setMargin(imageView, new Insets(0, 0, 5, 0));
+
+        produitName.setFont(Font.font("Arial", 16));
+        produitName.setStyle("-fx-text-fill: #34495e; -fx-font-weight: bold;");
+
+        priceContainer.setAlignment(Pos.CENTER);
+        produitPrix.setFont(Font.font("Arial", 14));
+        produitPrix.setStyle("-fx-text-fill: #34495e; -fx-font-weight: bold;");
+
+        Label promoLabel = new Label("PROMO");
+        promoLabel.setStyle("-fx-background-color: #2ecc71; -fx-text-fill: white; -fx-font-size: 11px; " +
+                            "-fx-padding: 3px 6px; -fx-background-radius: 4px; -fx-font-weight: bold;");
+        promoBadge = new StackPane(promoLabel);
+        promoBadge.setAlignment(Pos.CENTER);
+        VBox.setMargin(promoBadge, new Insets(0, 0, 5, 0));
+        produitPrixAncien.setFont(Font.font("Arial", 12));
+        produitPrixAncien.setStyle("-fx-text-fill: #95a5a6; -fx-strikethrough: true;");
+        produitPrixPromo.setFont(Font.font("Arial", 15));
+        produitPrixPromo.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+
+        produitStock.setFont(Font.font("Arial", 12));
+        produitStock.setStyle("-fx-text-fill: #7f8c8d;");
+        produitDateLimite.setFont(Font.font("Arial", 11));
+        produitDateLimite.setStyle("-fx-text-fill: #7f8c8d;");
+        alerteExpiration.setFont(Font.font("Arial", 11));
+        alerteExpiration.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+
+        // Conteneur des boutons d'action
+        HBox buttonBox = new HBox(8);
+        buttonBox.setAlignment(Pos.CENTER);
+        VBox.setMargin(buttonBox, new Insets(10, 0, 0, 0));
+        DropShadow btnShadow = new DropShadow();
+        btnShadow.setColor(Color.rgb(0, 0, 0, 0.2));
+        btnShadow.setOffsetX(0);
+        btnShadow.setOffsetY(2);
+        btnShadow.setRadius(3);
+
+        if (!isSuperAdmin) {
+            Button btnAjouter = new Button("➕ Ajouter");
+            btnAjouter.setStyle("-fx-background-color: #3498db; -fx-text-fill: white; -fx-font-size: 11px; " +
+                                "-fx-padding: 6px 12px; -fx-background-radius: 5px; -fx-cursor: hand;");
+            btnAjouter.setEffect(btnShadow);
+            btnAjouter.setOnAction(event -> onAdd.accept(produit));
+            buttonBox.getChildren().add(btnAjouter);
+        } else {
+            Button btnModifier = new Button("⚙ Modifier");
+            btnModifier.setStyle("-fx-background-color: #95a5a6; -fx-text-fill: white; -fx-font-size: 11px; " +
+                                 "-fx-padding: 6px 12px; -fx-background-radius: 5px; -fx-cursor: hand;");
+            btnModifier.setEffect(btnShadow);
+            btnModifier.setOnAction(event -> onEdit.accept(produit));
+
+            Button btnSupprimer = new Button("🗑 Supprimer");
+            btnSupprimer.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-size: 11px; " +
+                                  "-fx-padding: 6px 12px; -fx-background-radius: 5px; -fx-cursor: hand;");
+            btnSupprimer.setEffect(btnShadow);
+            btnSupprimer.setOnAction(event -> onDelete.accept(produit));
+            buttonBox.getChildren().addAll(btnModifier, btnSupprimer);
+        }
+
+        produitCard.getChildren().addAll(imageView, produitName, priceContainer, produitStock,
+                                         produitDateLimite, alerteExpiration, buttonBox);
+    }
+
+    @Override
+    public Node getNode() {
+        return produitCard;
+    }
+
+    @Override
+    public void update(Produit produit) {
+        this.produit = produit;
+
+        boolean expired = produit.getDateLimiteConsommation() != null
+            && !produit.getDateLimiteConsommation().isAfter(LocalDate.now());
+        // Mettre en évidence les produits périmés avec une bordure rouge
+        produitCard.setStyle(expired ? CARD_STYLE + EXPIRED_STYLE : CARD_STYLE);
+        alerteExpiration.setVisible(expired);
+        alerteExpiration.setManaged(expired);
+
+        Image image = imageLoader.apply(produit);
+        imageView.setImage(image);
+        if (image != null && image.getProgress() < 1.0) {
+            // Décodage en arrière-plan : placeholder si l'image s'avère illisible (et si la carte n'a pas été réutilisée)
+            image.errorProperty().addListener((obs, wasError, isError) -> {
+                if (isError && this.produit == produit) imageView.setImage(placeholderLoader.apply(produit));
+            });
+        }
+
+        produitName.setText(produit.getNom());
+
+        // Prix remisé calculé au chargement (PromotionEngine), prix de base barré
+        if (produit.isEnPromotion()) {
+            produitPrixAncien.setText(produit.getPrix().toPlainString() + " FCFA");
+            produitPrixPromo.setText(produit.getPrixPromo().toPlainString() + " FCFA");
+            priceContainer.getChildren().setAll(promoBadge, produitPrixAncien, produitPrixPromo);
+        } else {
+            produitPrix.setText("Prix : " + produit.getPrix().toPlainString() + " FCFA");
+            priceContainer.getChildren().setAll(produitPrix);
+        }
+
+        produitStock.setText("Stock : " + produit.getStock());
+        produitDateLimite.setText(produit.getDateLimiteConsommation() != null
+            ? "DLC : " + produit.getDateLimiteConsommation().format(DLC_FORMAT)
+            : "DLC : Non définie");
+    }
+}
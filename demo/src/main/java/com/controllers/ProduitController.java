@@ -6,15 +6,13 @@ import com.entities.Categorie;
 import com.entities.Produit;
 import com.entities.Role;
 import com.entities.User;
+import com.utils.ImageCache;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
-import javafx.geometry.Insets;
-import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.control.Label;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonType;
@@ -24,15 +22,10 @@ import javafx.util.StringConverter;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
-import javafx.scene.layout.StackPane; // Pour le badge PROMO
-import javafx.scene.layout.VBox;
+import javafx.scene.layout.StackPane; // Conteneur de la grille des produits
 import javafx.scene.effect.DropShadow;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.scene.text.Text; // Pour le compteur du panier
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -57,7 +50,10 @@ import java.util.stream.Collectors;
 public class ProduitController {
 
     @FXML
-    private GridPane gridProduits;
+    private StackPane produitsContainer;
+
+    // Catalogue virtualisé : cartes créées pour les lignes visibles seulement, puis réutilisées
+    private VirtualGridView<Produit> produitsGrid;
 
     @FXML
     private Button btnAjouterProduit;
@@ -79,6 +75,7 @@ public class ProduitController {
 
     private List<Produit> produits;
     private List<Produit> allProduits;
+    private DataTask<?> produitsTask;
     private int currentPage = 0;
     // Ajustez ces valeurs pour un affichage optimal avec la nouvelle taille de carte
     private final int COLUMNS_PER_PAGE = 4;
@@ -93,14 +90,11 @@ public class ProduitController {
     // Constantes pour les dimensions des images des produits
     private static final int PRODUCT_IMAGE_WIDTH = 120; // Largeur fixe pour les images
     private static final int PRODUCT_IMAGE_HEIGHT = 120; // Hauteur fixe pour les images
+    private static final String APPDATA_PATH = System.getenv("APPDATA");
+    private static final Map<String, File> RESOLVED_IMAGE_FILES = new HashMap<>();
 
     @FXML
     public void initialize() {
-        // Initialisation des propriétés du GridPane
-        gridProduits.setHgap(20);
-        gridProduits.setVgap(20);
-        gridProduits.setPadding(new Insets(10)); // Marge autour du GridPane
-
         // Assigner la référence statique pour le compteur du panier
         cartCounterGlobal = cartCounter;
 
@@ -112,6 +106,11 @@ public class ProduitController {
         isAdmin = currentUser.getRole() == Role.Admin || currentUser.getRole() == Role.SuperAdmin;
         isSuperAdmin = currentUser.getRole() == Role.SuperAdmin;
 
+        produitsGrid = new VirtualGridView<>(COLUMNS_PER_PAGE, 20, 20, () -> new ProduitCard(
+            isSuperAdmin, PRODUCT_IMAGE_WIDTH, PRODUCT_IMAGE_HEIGHT, this::productImage, this::placeholderImage,
+            this::ajouterAuPanier, this::modifierProduit, this::supprimerProduit));
+        produitsContainer.getChildren().setAll(produitsGrid);
+
         // v1.3.5 : bouton Catégories (super admin uniquement)
         if (btnGererCategories != null) {
             btnGererCategories.setVisible(isSuperAdmin);
@@ -169,8 +168,7 @@ public class ProduitController {
         if (btnPrecedent != null) { btnPrecedent.setVisible(false); btnPrecedent.setManaged(false); }
         if (btnSuivant != null) { btnSuivant.setVisible(false); btnSuivant.setManaged(false); }
 
-        refreshProduitList(); // Charger les produits au démarrage
-        checkExpiredProducts(); // Vérifier les produits expirés
+        refreshProduitList(); // Charger les produits au démarrage (puis vérifier les produits expirés)
         updateCartCounterDisplay(); // Mettre à jour l'affichage du compteur du panier au démarrage
     }
 
@@ -181,8 +179,8 @@ public class ProduitController {
      */
     public void refreshProduitList() {
         try {
-            applyCategoryAndSearchFilter();
-            checkExpiredProducts();
+            // La vérification des produits expirés porte sur la liste chargée
+            applyCategoryAndSearchFilter(this::checkExpiredProducts);
         } catch (Exception e) {
             ControllerUtils.showErrorAlert("Erreur de chargement", "Impossible de charger les produits : " + e.getMessage());
             e.printStackTrace();
@@ -191,11 +189,20 @@ public class ProduitController {
 
     /** v1.3.5 : applique filtre catégorie puis filtre recherche par nom. */
     private void applyCategoryAndSearchFilter() {
-        try {
-            Categorie selectedCat = categoryFilterComboBox != null ? categoryFilterComboBox.getValue() : null;
-            Integer catId = selectedCat != null ? selectedCat.getId() : null;
-            allProduits = Fabrique.getService().findProduitsByCategorieId(catId);
-            String q = searchProduitField != null && searchProduitField.getText() != null ? searchProduitField.getText().trim().toLowerCase() : "";
+        applyCategoryAndSearchFilter(null);
+    }
+
+    /**
+     * Charge les produits de la catégorie hors du thread JavaFX, puis filtre et affiche. Une nouvelle
+     * saisie remplace le chargement en cours. afterLoad (optionnel) est exécuté après l'affichage.
+     */
+    private void applyCategoryAndSearchFilter(Runnable afterLoad) {
+        Categorie selectedCat = categoryFilterComboBox != null ? categoryFilterComboBox.getValue() : null;
+        Integer catId = selectedCat != null ? selectedCat.getId() : null;
+        String q = searchProduitField != null && searchProduitField.getText() != null ? searchProduitField.getText().trim().toLowerCase() : "";
+        DataTask.cancel(produitsTask);
+        produitsTask = AsyncLoader.load(() -> Fabrique.getService().findProduitsByCategorieId(catId), loaded -> {
+            allProduits = loaded;
             if (q.isEmpty()) {
                 produits = allProduits != null ? allProduits : List.of();
             } else {
@@ -204,10 +211,11 @@ public class ProduitController {
                     .collect(Collectors.toList());
             }
             displayPage(0);
-        } catch (Exception e) {
+            if (afterLoad != null) afterLoad.run();
+        }, error -> {
             produits = List.of();
             displayPage(0);
-        }
+        });
     }
 
     @FXML
@@ -252,224 +260,38 @@ public class ProduitController {
     }
 
     /**
-     * Affiche les produits pour le numéro de page donné dans le GridPane.
+     * Affiche la liste filtrée dans la grille virtualisée : seules les lignes visibles ont des cartes,
+     * rebindées au défilement (v1.3.5 : liste "sans fin", le numéro de page n'est plus utilisé).
      *
      * @param page Le numéro de page à afficher.
      */
     private void displayPage(int page) {
-        gridProduits.getChildren().clear(); // Effacer les cartes existantes
-
-        // v1.3.5 : afficher toute la liste (scroll "sans fin")
-        int startIndex = 0;
-        int endIndex = produits != null ? produits.size() : 0;
-
-        int row = 0;
-        int col = 0;
-
-        for (int i = startIndex; i < endIndex; i++) {
-            Produit produit = produits.get(i);
-            System.out.println("DEBUG: Ajout du produit à la grille: " + produit.getNom() + " (ID: " + produit.getId() + ") à la colonne " + col + ", ligne " + row); // DEBUG
-            VBox produitCardContainer = createProduitCard(produit);
-            gridProduits.add(produitCardContainer, col, row);
-
-            col++; // Passer à la colonne suivante
-            if (col >= COLUMNS_PER_PAGE) { // Si la limite de colonnes est atteinte, passer à la ligne suivante
-                col = 0;
-                row++;
-            }
-        }
-        if (startIndex >= endIndex && produits.isEmpty()) { // Condition ajustée
-            System.out.println("DEBUG: Aucune carte de produit ajoutée pour cette page. La liste des produits est vide.");
-        } else if (startIndex >= endIndex && !produits.isEmpty()) {
-            System.out.println("DEBUG: Aucune carte de produit ajoutée pour cette page. La page est en dehors des limites pour les produits restants.");
-        }
+        produitsGrid.setAll(produits != null ? produits : List.of());
     }
 
-    /**
-     * Crée une VBox stylisée et moderne représentant une seule carte de produit.
-     * Inclut le nom, le prix, le stock, l'image et les boutons d'administration/ajout au panier.
-     *
-     * @param produit Les données du produit à afficher.
-     * @return Une VBox stylisée comme une carte de produit.
-     */
-    private VBox createProduitCard(Produit produit) {
-        // Style du conteneur principal de la carte
-        VBox produitCard = new VBox(10); // Espacement entre les éléments à l'intérieur de la carte
-        produitCard.setPrefWidth(220); // Largeur fixe ajustée pour des cartes cohérentes
-        produitCard.setPrefHeight(280); // Hauteur fixe ajustée
-        produitCard.setAlignment(Pos.TOP_CENTER); // Centrer le contenu horizontalement
-        produitCard.setPadding(new Insets(15)); // Rembourrage intérieur
-        produitCard.setStyle("-fx-background-color: #ffffff; -fx-background-radius: 10px; -fx-border-radius: 10px;");
-
-        // Ajout d'un effet d'ombre portée pour la profondeur
-        DropShadow dropShadow = new DropShadow();
-        dropShadow.setColor(Color.rgb(0, 0, 0, 0.1)); // Ombre noire douce
-        dropShadow.setRadius(10);
-        dropShadow.setOffsetX(0);
-        dropShadow.setOffsetY(3);
-        produitCard.setEffect(dropShadow);
-
-        // Mettre en évidence les produits périmés avec une bordure rouge
-        if (produit.getDateLimiteConsommation() != null &&
-            !produit.getDateLimiteConsommation().isAfter(LocalDate.now())) {
-            produitCard.setStyle(produitCard.getStyle() + "-fx-border-color: #e74c3c; -fx-border-width: 3px;"); // Bordure rouge vibrante
-        }
-
-        // Configuration de l'image du produit
-        ImageView imageView = new ImageView();
+    /** Vignette du produit (ImageCache), ou placeholder s'il n'a pas d'image lisible. */
+    private Image productImage(Produit produit) {
         try {
             String imagePath = produit.getImage();
-            if (imagePath != null && !imagePath.isEmpty()) {
-                // Essayer de charger l'image du produit
-                File imageFile = resolveImageFile(imagePath);
-                
-                if (imageFile != null && imageFile.exists()) {
-                    // CHARGEMENT DE L'IMAGE DU PRODUIT
-                    Image image = new Image(imageFile.toURI().toURL().toExternalForm(), 
-                                        PRODUCT_IMAGE_WIDTH, PRODUCT_IMAGE_HEIGHT, false, true);
-                    imageView.setImage(image);
-                } else {
-                    // Image produit non trouvée → utiliser un placeholder
-                    createDynamicPlaceholder(imageView, produit.getNom());
-                }
-            } else {
-                // Pas d'image spécifiée → utiliser un placeholder
-                createDynamicPlaceholder(imageView, produit.getNom());
+            Image image = imagePath != null && !imagePath.isEmpty()
+                ? ImageCache.getThumbnail(resolveImageFile(imagePath), PRODUCT_IMAGE_WIDTH, PRODUCT_IMAGE_HEIGHT)
+                : null;
+            if (image != null && !image.isError()) {
+                return image;
             }
         } catch (Exception e) {
             System.err.println("Erreur chargement image pour " + produit.getNom() + ": " + e.getMessage());
-            createDynamicPlaceholder(imageView, produit.getNom());
-        }
-        
-        // Configuration de la taille
-        imageView.setFitHeight(PRODUCT_IMAGE_HEIGHT);
-        imageView.setFitWidth(PRODUCT_IMAGE_WIDTH);
-        imageView.setPreserveRatio(true); // Garder les proportions
-        imageView.setCache(true);
-        VBox.setMargin(imageView, new Insets(0, 0, 5, 0)); // Marge sous l'image
-
-        // Nom du produit (utilisant Label pour un style cohérent)
-        Label produitName = new Label(produit.getNom());
-        produitName.setFont(Font.font("Arial", 16));
-        produitName.setStyle("-fx-text-fill: #34495e; -fx-font-weight: bold;");
-
-        // Logique d'affichage de la promotion et du prix
-        boolean isEnPromotion = produit.getAncienPrix() != null &&
-                                 produit.getPrix().compareTo(produit.getAncienPrix()) < 0;
-
-        VBox priceContainer = new VBox(2); // Conteneur pour les éléments de prix
-        priceContainer.setAlignment(Pos.CENTER);
-
-        if (isEnPromotion) {
-            // Badge "PROMO"
-            Label promoLabel = new Label("PROMO");
-            promoLabel.setStyle("-fx-background-color: #2ecc71; -fx-text-fill: white; -fx-font-size: 11px; " +
-                                 "-fx-padding: 3px 6px; -fx-background-radius: 4px; -fx-font-weight: bold;");
-            StackPane promoBadge = new StackPane(promoLabel);
-            promoBadge.setAlignment(Pos.CENTER);
-            VBox.setMargin(promoBadge, new Insets(0, 0, 5, 0));
-
-            // Ancien prix (barré)
-            Label produitPrixAncien = new Label(produit.getAncienPrix().toPlainString() + " FCFA");
-            produitPrixAncien.setFont(Font.font("Arial", 12));
-            produitPrixAncien.setStyle("-fx-text-fill: #95a5a6; -fx-strikethrough: true;");
-
-            // Prix actuel (promotionnel)
-            Label produitPrixActuel = new Label(produit.getPrix().toPlainString() + " FCFA");
-            produitPrixActuel.setFont(Font.font("Arial", 15));
-            produitPrixActuel.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-
-            priceContainer.getChildren().addAll(promoBadge, produitPrixAncien, produitPrixActuel);
-        } else {
-            // Affichage du prix normal
-            Label produitPrixActuel = new Label("Prix : " + produit.getPrix().toPlainString() + " FCFA");
-            produitPrixActuel.setFont(Font.font("Arial", 14));
-            produitPrixActuel.setStyle("-fx-text-fill: #34495e; -fx-font-weight: bold;");
-            priceContainer.getChildren().add(produitPrixActuel);
-        }
-
-        // Informations sur le stock
-        Label produitStock = new Label("Stock : " + produit.getStock());
-        produitStock.setFont(Font.font("Arial", 12));
-        produitStock.setStyle("-fx-text-fill: #7f8c8d;");
-
-        // Informations sur la date limite de consommation (DLC)
-        Label produitDateLimite = new Label();
-        if (produit.getDateLimiteConsommation() != null) {
-            produitDateLimite.setText("DLC : " + produit.getDateLimiteConsommation().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-        } else {
-            produitDateLimite.setText("DLC : Non définie");
-        }
-        produitDateLimite.setFont(Font.font("Arial", 11));
-        produitDateLimite.setStyle("-fx-text-fill: #7f8c8d;");
-
-        // Alerte d'expiration
-        Label alerteExpiration = null;
-        if (produit.getDateLimiteConsommation() != null && !produit.getDateLimiteConsommation().isAfter(LocalDate.now())) {
-            alerteExpiration = new Label("⚠ Expired");
-            alerteExpiration.setFont(Font.font("Arial", 11));
-            alerteExpiration.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-        }
-
-        // Conteneur des boutons d'action
-        HBox buttonBox = new HBox(8); // Espacement entre les boutons
-        buttonBox.setAlignment(Pos.CENTER); // Centrer les boutons
-        VBox.setMargin(buttonBox, new Insets(10, 0, 0, 0)); // Marge au-dessus des boutons
-
-        // Bouton "Ajouter au Panier" (visible uniquement pour les non-SuperAdmin)
-        if (!isSuperAdmin) {
-            Button btnAjouter = new Button("➕ Ajouter"); // Icône d'ajout
-            btnAjouter.setStyle("-fx-background-color: #3498db; -fx-text-fill: white; -fx-font-size: 11px; " +
-                                 "-fx-padding: 6px 12px; -fx-background-radius: 5px; -fx-cursor: hand;");
-            // Ajout d'une ombre portée au bouton
-            DropShadow btnShadow = new DropShadow();
-            btnShadow.setColor(Color.rgb(0, 0, 0, 0.2));
-            btnShadow.setOffsetX(0);
-            btnShadow.setOffsetY(2);
-            btnShadow.setRadius(3);
-            btnAjouter.setEffect(btnShadow);
-            
-            btnAjouter.setOnAction(event -> ajouterAuPanier(produit));
-            buttonBox.getChildren().add(btnAjouter);
-        }
-
-        // Boutons "Modifier" et "Supprimer" (visibles pour Admin ou SuperAdmin)
-        if (isSuperAdmin) {
-            Button btnModifier = new Button("⚙ Modifier"); // Icône d'engrenage
-            btnModifier.setStyle("-fx-background-color: #95a5a6; -fx-text-fill: white; -fx-font-size: 11px; " +
-                                 "-fx-padding: 6px 12px; -fx-background-radius: 5px; -fx-cursor: hand;");
-            // Ajout d'une ombre portée au bouton
-            DropShadow btnShadow = new DropShadow();
-            btnShadow.setColor(Color.rgb(0, 0, 0, 0.2));
-            btnShadow.setOffsetX(0);
-            btnShadow.setOffsetY(2);
-            btnShadow.setRadius(3);
-            btnModifier.setEffect(btnShadow);
-
-            btnModifier.setOnAction(event -> modifierProduit(produit));
-
-            Button btnSupprimer = new Button("🗑 Supprimer"); // Icône de poubelle
-            btnSupprimer.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-size: 11px; " +
-                                 "-fx-padding: 6px 12px; -fx-background-radius: 5px; -fx-cursor: hand;");
-            // Ajout d'une ombre portée au bouton
-            btnSupprimer.setEffect(btnShadow); // Réutiliser la même ombre pour la cohérence
-
-            btnSupprimer.setOnAction(event -> supprimerProduit(produit)); // Appel direct, la gestion d'erreur est dans la méthode
-            buttonBox.getChildren().addAll(btnModifier, btnSupprimer);
-        }
-
-        // Ajouter tous les éléments construits à la carte du produit
-        produitCard.getChildren().addAll(imageView, produitName, priceContainer, produitStock, produitDateLimite);
-        if (alerteExpiration != null) {
-            produitCard.getChildren().add(alerteExpiration);
         }
-        produitCard.getChildren().add(buttonBox);
-
-        return produitCard;
+        // Pas d'image, ou image produit non trouvée → utiliser un placeholder
+        return placeholderImage(produit);
     }
 
-    // Méthode pour résoudre le fichier image
+    // Méthode pour résoudre le fichier image (résultat mémorisé par chemin stocké en base)
 private File resolveImageFile(String imagePath) {
+    return RESOLVED_IMAGE_FILES.computeIfAbsent(imagePath, this::doResolveImageFile);
+}
+
+private File doResolveImageFile(String imagePath) {
     try {
         // 1. Si c'est un chemin absolu Windows
         if (imagePath.contains(":\\")) {
@@ -483,9 +305,8 @@ private File resolveImageFile(String imagePath) {
             System.out.println("DEBUG - Nom de fichier extrait: " + fileName);
             
             // Chercher dans APPDATA/GestionSalles/produits/
-            String appDataPath = System.getenv("APPDATA");
-            if (appDataPath != null) {
-                Path newPath = Paths.get(appDataPath, "GestionSalles", "produits", fileName);
+            if (APPDATA_PATH != null) {
+                Path newPath = Paths.get(APPDATA_PATH, "GestionSalles", "produits", fileName);
                 File file = newPath.toFile();
                 System.out.println("DEBUG - Nouveau chemin: " + newPath + " existe: " + file.exists());
                 return file;
@@ -493,9 +314,8 @@ private File resolveImageFile(String imagePath) {
         }
         
         // 3. Chemin relatif vers APPDATA
-        String appDataPath = System.getenv("APPDATA");
-        if (appDataPath != null) {
-            Path absolutePath = Paths.get(appDataPath, "GestionSalles", imagePath);
+        if (APPDATA_PATH != null) {
+            Path absolutePath = Paths.get(APPDATA_PATH, "GestionSalles", imagePath);
             return absolutePath.toFile();
         }
         
@@ -508,55 +328,9 @@ private File resolveImageFile(String imagePath) {
     }
 }
 
-// Méthode pour créer un placeholder dynamique avec le nom du produit
-private void createDynamicPlaceholder(ImageView imageView, String productName) {
-    try {
-        // Créer une image simple
-        WritableImage placeholder = new WritableImage(PRODUCT_IMAGE_WIDTH, PRODUCT_IMAGE_HEIGHT);
-        PixelWriter pixelWriter = placeholder.getPixelWriter();
-        
-        // Couleur de fond basée sur le nom
-        int hash = Math.abs(productName.hashCode());
-        Color bgColor = Color.hsb(hash % 360, 0.2, 0.95);
-        
-        // Remplir l'arrière-plan
-        for (int y = 0; y < PRODUCT_IMAGE_HEIGHT; y++) {
-            for (int x = 0; x < PRODUCT_IMAGE_WIDTH; x++) {
-                pixelWriter.setColor(x, y, bgColor);
-            }
-        }
-        
-        // Ajouter un simple cadre
-        Color frameColor = Color.hsb((hash + 180) % 360, 0.5, 0.7);
-        drawSimpleFrame(pixelWriter, frameColor);
-        
-        imageView.setImage(placeholder);
-        
-    } catch (Exception e) {
-        // Fallback simple
-        System.err.println("Erreur création placeholder: " + e.getMessage());
-        imageView.setStyle("-fx-background-color: #f0f0f0; -fx-border-color: #d0d0d0; -fx-border-width: 1px;");
-    }
-}
-
-private void drawSimpleFrame(PixelWriter pw, Color color) {
-    int width = PRODUCT_IMAGE_WIDTH;
-    int height = PRODUCT_IMAGE_HEIGHT;
-    
-    // Simple cadre de 2 pixels
-    for (int x = 0; x < width; x++) {
-        pw.setColor(x, 0, color); // Haut
-        pw.setColor(x, 1, color);
-        pw.setColor(x, height - 1, color); // Bas
-        pw.setColor(x, height - 2, color);
-    }
-    
-    for (int y = 0; y < height; y++) {
-        pw.setColor(0, y, color); // Gauche
-        pw.setColor(1, y, color);
-        pw.setColor(width - 1, y, color); // Droite
-        pw.setColor(width - 2, y, color);
-    }
+// Placeholder dynamique (mémorisé par initiale du produit)
+private Image placeholderImage(Produit produit) {
+    return ImageCache.getPlaceholder(produit.getNom(), PRODUCT_IMAGE_WIDTH, PRODUCT_IMAGE_HEIGHT);
 }
 
 
@@ -611,16 +385,9 @@ private void drawPoint(PixelWriter pw, int x, int y, Color color) {
             return;
         }
 
-        // Recharger le produit depuis la base de données
+        // Recharger le produit depuis la base de données (prix remisé du jour calculé par le Service)
         Produit produitMisAJour = Fabrique.getService().findProduitById(produit.getId());
 
-        System.out.println("Prix avant promotion : " + produitMisAJour.getPrix());
-
-        // Appliquer la promotion si elle est valide
-        produitMisAJour.appliquerPromotion();
-
-        System.out.println("Prix après promotion : " + produitMisAJour.getPrix());
-
         int currentQuantityInCart = produitsDansLePanier.getOrDefault(produitMisAJour, 0);
         if (produitMisAJour.getStock() > currentQuantityInCart) {
             produitsDansLePanier.put(produitMisAJour, currentQuantityInCart + 1);
@@ -810,7 +577,7 @@ private void drawPoint(PixelWriter pw, int x, int y, Color color) {
         for (Map.Entry<Produit, Integer> entry : produitsDansLePanier.entrySet()) {
             Produit p = entry.getKey();
             int qte = entry.getValue();
-            total = total.add(p.getPrix().multiply(new BigDecimal(qte)));
+            total = total.add(p.getPrixEffectif().multiply(new BigDecimal(qte)));
         }
         return total;
     }
@@ -0,0 +1,58 @@
+package com.controllers;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.util.function.Consumer;
+
+/**
+ * Petite fenêtre non modale qui suit un rapport ou un export généré en arrière-plan sur un thread
+ * virtuel (barre de progression, message de la tâche, bouton Annuler) : le reste de l'application
+ * reste utilisable. onSuccess est appelé sur le thread JavaFX avec le fichier écrit ; une erreur est
+ * affichée en alerte.
+ */
+public final class ReportProgressDialog {
+
+    private ReportProgressDialog() {}
+
+    public static void run(String title, Task<File> task, Consumer<File> onSuccess) {
+        Label message = new Label();
+        message.textProperty().bind(task.messageProperty());
+        ProgressBar bar = new ProgressBar();
+        bar.setPrefWidth(320);
+        bar.progressProperty().bind(task.progressProperty());
+        Button cancel = new Button("Annuler");
+        cancel.setOnAction(e -> task.cancel());
+
+        VBox root = new VBox(10, message, bar, cancel);
+        root.setPadding(new Insets(16));
+        Stage stage = new Stage();
+        stage.setTitle(title);
+        stage.setScene(new Scene(root));
+        stage.setResizable(false);
+        stage.setOnCloseRequest(e -> task.cancel());
+
+        task.setOnSucceeded(e -> {
+            stage.close();
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            stage.close();
+            Throwable error = task.getException();
+            error.printStackTrace();
+            ControllerUtils.showErrorAlert("Erreur", title + " impossible : "
+                + (error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName()));
+        });
+        task.setOnCancelled(e -> stage.close());
+
+        stage.show();
+        Thread.ofVirtual().name("GestionSalles-report").start(task);
+    }
+}
@@ -11,10 +11,9 @@ import com.utils.ReservationDisplayUtils;
 import com.entities.GameSession;
 import com.core.Fabrique;
 import com.core.WindowManager;
-import com.entities.Parrain;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import com.repositories.ReservationCursor;
+import com.repositories.ReservationFilter;
+import com.repositories.ReservationRow;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -34,6 +33,7 @@ import javafx.stage.Stage;
 import javafx.util.Callback;
 import javafx.util.Pair;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 
 import java.io.IOException;
@@ -49,19 +49,25 @@ public class ReservationController implements Initializable {
     @FXML private TabPane mainTabPane;
     @FXML private Tab reservationsTab;
     @FXML private Tab activeSessionsTab;
-    @FXML private TableView<Reservation> reservationTable;
-    @FXML private TableColumn<Reservation, String> numeroTicketColumn;
-    @FXML private TableColumn<Reservation, String> clientColumn;
-    @FXML private TableColumn<Reservation, String> posteColumn;
-    @FXML private TableColumn<Reservation, String> gameColumn;
-    @FXML private TableColumn<Reservation, String> durationColumn;
-    @FXML private TableColumn<Reservation, String> reservationDateColumn;
-    @FXML private TableColumn<Reservation, String> totalPriceColumn;
-    @FXML private TableColumn<Reservation, String> parrainCodeColumn;
-    @FXML private TableColumn<Reservation, String> statusColumn;
-    @FXML private TableColumn<Reservation, Void> actionColumn;
+    @FXML private TableView<ReservationRow> reservationTable;
+    @FXML private TableColumn<ReservationRow, String> numeroTicketColumn;
+    @FXML private TableColumn<ReservationRow, String> clientColumn;
+    @FXML private TableColumn<ReservationRow, String> posteColumn;
+    @FXML private TableColumn<ReservationRow, String> gameColumn;
+    @FXML private TableColumn<ReservationRow, String> durationColumn;
+    @FXML private TableColumn<ReservationRow, String> reservationDateColumn;
+    @FXML private TableColumn<ReservationRow, String> totalPriceColumn;
+    @FXML private TableColumn<ReservationRow, String> parrainCodeColumn;
+    @FXML private TableColumn<ReservationRow, String> statusColumn;
+    @FXML private TableColumn<ReservationRow, Void> actionColumn;
     @FXML private TextField searchReservationField;
-    private ObservableList<Reservation> reservations;
+    private ObservableList<ReservationRow> reservations;
+
+    // Pagination par clé de la liste des réservations
+    private static final int RESERVATION_PAGE_SIZE = 100;
+    private ReservationFilter reservationFilter;
+    private ReservationCursor nextReservationCursor;
+    private boolean hasMoreReservations;
     @FXML private TableView<GameSession> activeSessionsTable;
     @FXML private TableColumn<GameSession, String> sessionClientColumn;
     @FXML private TableColumn<GameSession, String> sessionPosteColumn;
@@ -74,7 +80,6 @@ public class ReservationController implements Initializable {
     private ObservableList<GameSession> activeSessions;
     private String connectedUserName;
     private User connectedUser;
-    private Set<Integer> notifiedSessions = new HashSet<>();
     private static ReservationController instance;
     private PosteJeuController posteJeuController;
 
@@ -95,13 +100,11 @@ public class ReservationController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         SessionEndDialogController.setReservationController(this);
         setupReservationTable();
+        installReservationPaging();
         loadReservations();
         setupActiveSessionsTable();
         loadActiveSessions();
         searchReservationField.textProperty().addListener((observable, oldValue, newValue) -> filterReservations(newValue));
-        Timeline sessionChecker = new Timeline(new KeyFrame(javafx.util.Duration.minutes(1), e -> checkExpiredSessions()));
-        sessionChecker.setCycleCount(Animation.INDEFINITE);
-        sessionChecker.play();
     }
 
     private UserController getUserControllerInstance() {
@@ -119,25 +122,23 @@ public class ReservationController implements Initializable {
 
     private void setupReservationTable() {
         numeroTicketColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getNumeroTicket()));
-        clientColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getClient() != null ? cellData.getValue().getClient().getName() : "N/A"));
-        posteColumn.setCellValueFactory(cellData -> new SimpleStringProperty(ReservationDisplayUtils.safeGetPosteName(cellData.getValue())));
-        gameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(ReservationDisplayUtils.safeGetGameName(cellData.getValue())));
+        clientColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getClientName() != null ? cellData.getValue().getClientName() : "N/A"));
+        posteColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getPosteName()));
+        gameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getGameName()));
         reservationDateColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getReservationDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
         durationColumn.setCellValueFactory(cellData -> {
             Duration duration = cellData.getValue().getDuration();
+            if (duration == null) return new SimpleStringProperty("N/A");
             long totalMinutes = duration.toMinutes();
             long hours = totalMinutes / 60;
             long minutes = totalMinutes % 60;
             return new SimpleStringProperty(hours > 0 ? String.format("%dh %02dmin", hours, minutes) : String.format("%dmin", minutes));
         });
         totalPriceColumn.setCellValueFactory(cellData -> new SimpleStringProperty(String.format("%.2f FCFA", cellData.getValue().getTotalPrice())));
+        // Nom du parrain obtenu par jointure dans la requête de la page (plus de requête par ligne)
         parrainCodeColumn.setCellValueFactory(cellData -> {
-            String codeParrainage = cellData.getValue().getCodeParrainage();
-            if (codeParrainage != null && !codeParrainage.isEmpty()) {
-                Parrain parrain = Fabrique.getService().getParrainByCodeParrainage(codeParrainage);
-                return new SimpleStringProperty(parrain != null ? parrain.getName() : "N/A");
-            }
-            return new SimpleStringProperty("N/A");
+            String parrainName = cellData.getValue().getParrainName();
+            return new SimpleStringProperty(parrainName != null ? parrainName : "N/A");
         });
         statusColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getStatus()));
        actionColumn.setCellFactory(param -> new TableCell<>() {
@@ -147,9 +148,13 @@ public class ReservationController implements Initializable {
             startButton.setStyle("-fx-background-color: #2ecc71; -fx-text-fill: white; -fx-font-size: 11px; -fx-padding: 5px 8px; -fx-border-radius: 3px; -fx-background-radius: 3px; -fx-cursor: hand;");
             startButton.setEffect(new DropShadow(5, Color.web("#00000033")));
             startButton.setOnAction(event -> {
-                Reservation reservation = getTableView().getItems().get(getIndex());
+                ReservationRow row = getTableView().getItems().get(getIndex());
                 try {
-                    startReservationSession(reservation);
+                    // L'entité complète n'est chargée qu'au moment d'agir sur la ligne
+                    Reservation reservation = Fabrique.getService().findReservationById(row.getId());
+                    if (reservation != null) {
+                        startReservationSession(reservation);
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -162,22 +167,19 @@ public class ReservationController implements Initializable {
             if (empty) {
                 setGraphic(null);
             } else {
-                Reservation reservation = getTableView().getItems().get(getIndex());
+                ReservationRow row = getTableView().getItems().get(getIndex());
                 pane.getChildren().clear();
                 // Afficher le bouton "Démarrer" SI ET SEULEMENT si la réservation est "En attente"
-                if ("En attente".equals(reservation.getStatus())) {
-                    Poste poste = reservation.getPoste();
-                    GameSession activeSessionOnPoste = Fabrique.getService().getActiveSessionForPoste(poste);
+                if ("En attente".equals(row.getStatus()) && row.hasPoste() && row.getClientId() != null) {
+                    // Sessions vivantes lues dans le registre en mémoire (aucune requête par ligne)
+                    boolean posteOccupied = Fabrique.getService().getLiveSessionsForPoste(row.getPosteId()).stream()
+                        .anyMatch(s -> "Active".equalsIgnoreCase(s.getStatus()));
 
                     // Vérifier si le client a déjà une session active ou en pause
-                    Client client = reservation.getClient();
-                    List<GameSession> clientSessions = Fabrique.getService().getAllGameSessions().stream()
-                        .filter(s -> s.getClient() != null && s.getClient().getId() == client.getId())
-                        .filter(s -> "Active".equalsIgnoreCase(s.getStatus()) || "En pause".equalsIgnoreCase(s.getStatus()))
-                        .collect(Collectors.toList());
+                    List<GameSession> clientSessions = Fabrique.getService().getLiveSessionsForClient(row.getClientId());
 
                     // Le bouton est actif si le poste n'est pas hors service, n'a pas de session ACTIVE et que le client n'a pas de session active/en pause
-                    if (!poste.isHorsService() && activeSessionOnPoste == null && clientSessions.isEmpty()) {
+                    if (!row.isPosteHorsService() && !posteOccupied && clientSessions.isEmpty()) {
                         startButton.setDisable(false);
                         pane.getChildren().addAll(startButton);
                     } else {
@@ -321,71 +323,73 @@ public class ReservationController implements Initializable {
         });
     }
 
+    /** Recharge la première page de la liste (les suivantes arrivent au défilement). */
     public void loadReservations() {
+        reservations = FXCollections.observableArrayList();
+        reservationTable.setItems(reservations);
+        hasMoreReservations = false;
+        nextReservationCursor = null;
         User connectedUser = Fabrique.getService().getCurrentUser();
         if (connectedUser == null) {
-            reservations = FXCollections.observableArrayList();
-            reservationTable.setItems(reservations);
             return;
         }
+        reservationFilter = new ReservationFilter();
+        if (connectedUser.getRole() != Role.SuperAdmin) {
+            reservationFilter.setCreatedById(connectedUser.getId());
+        }
+        String query = searchReservationField.getText();
+        if (query != null && !query.trim().isEmpty()) {
+            reservationFilter.setSearch(query.trim());
+        }
+        hasMoreReservations = true;
+        loadNextReservationPage();
+    }
+
+    /** Ajoute la page suivante ; tri "En attente" d'abord puis date décroissante, fait en SQL. */
+    private void loadNextReservationPage() {
+        if (!hasMoreReservations) return;
         try {
-            List<Reservation> reservationList = connectedUser.getRole() == Role.SuperAdmin
-                    ? Fabrique.getService().findAllReservations()
-                    : Fabrique.getService().findReservationsByUser(connectedUser);
-            reservations = FXCollections.observableArrayList(reservationList);
-            sortReservations();
-            reservationTable.setItems(reservations);
+            List<ReservationRow> page = Fabrique.getService().findReservationPage(reservationFilter, nextReservationCursor, RESERVATION_PAGE_SIZE);
+            reservations.addAll(page);
+            hasMoreReservations = page.size() == RESERVATION_PAGE_SIZE;
+            if (!page.isEmpty()) {
+                nextReservationCursor = ReservationCursor.after(page.get(page.size() - 1));
+            }
         } catch (Exception e) {
-            reservations = FXCollections.observableArrayList();
-            reservationTable.setItems(reservations);
+            hasMoreReservations = false;
             ControllerUtils.showErrorAlert("Erreur", "Impossible de charger les réservations");
         }
     }
 
-    private void sortReservations() {
-        reservations.sort((r1, r2) -> {
-            boolean isPending1 = "En attente".equals(r1.getStatus());
-            boolean isPending2 = "En attente".equals(r2.getStatus());
-            if (isPending1 != isPending2) return isPending1 ? -1 : 1;
-            return r2.getReservationDate().compareTo(r1.getReservationDate());
-        });
+    /** Charge la page suivante lorsque la barre de défilement verticale atteint le bas du tableau. */
+    private void installReservationPaging() {
+        reservationTable.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(() -> {
+            for (javafx.scene.Node node : reservationTable.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    ScrollBar bar = (ScrollBar) node;
+                    bar.valueProperty().addListener((o, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= bar.getMax()) loadNextReservationPage();
+                    });
+                }
+            }
+        }));
     }
 
     public void loadActiveSessions() {
-        List<GameSession> sessionList = Fabrique.getService().getAllGameSessions()
-                .stream()
-                .filter(session -> "Active".equalsIgnoreCase(session.getStatus()) || "En pause".equalsIgnoreCase(session.getStatus()))
-                .collect(Collectors.toList());
-        activeSessions = FXCollections.observableArrayList(sessionList);
-        activeSessionsTable.setItems(activeSessions);
+        try {
+            List<GameSession> sessionList = Fabrique.getService().findGameSessionsByStatus(Set.of("Active", "En pause"));
+            activeSessions = FXCollections.observableArrayList(sessionList);
+            activeSessionsTable.setItems(activeSessions);
+        } catch (RuntimeException e) {
+            // Liste laissée en l'état : une liste vidée ferait croire qu'aucune session n'est en cours
+            System.err.println("Erreur lors du chargement des sessions en cours : " + e.getMessage());
+            ControllerUtils.showErrorAlert("Erreur", "Impossible de charger les sessions en cours : " + e.getMessage());
+        }
     }
 
     private void filterReservations(String query) {
-        if (query == null || query.isEmpty()) {
-            reservationTable.setItems(reservations);
-        } else {
-            ObservableList<Reservation> filteredReservations = FXCollections.observableArrayList(
-                    reservations.stream()
-                            .filter(reservation -> {
-                                Client client = reservation.getClient();
-                                String gameName = ReservationDisplayUtils.safeGetGameName(reservation);
-                                String posteName = ReservationDisplayUtils.safeGetPosteName(reservation);
-                                double totalPrice = reservation.getTotalPrice();
-                                String parrainCode = reservation.getCodeParrainage();
-                                Parrain parrain = parrainCode != null && !parrainCode.isEmpty() ? Fabrique.getService().getParrainByCodeParrainage(parrainCode) : null;
-                                boolean matchesClient = client != null && client.getName().toLowerCase().contains(query.toLowerCase());
-                                boolean matchesTicket = reservation.getNumeroTicket() != null && reservation.getNumeroTicket().toLowerCase().contains(query.toLowerCase());
-                                boolean matchesGame = gameName != null && gameName.toLowerCase().contains(query.toLowerCase());
-                                boolean matchesPoste = posteName != null && posteName.toLowerCase().contains(query.toLowerCase());
-                                boolean matchesPrice = String.format("%.2f", totalPrice).toLowerCase().contains(query.toLowerCase());
-                                boolean matchesParrain = (parrain != null && parrain.getName().toLowerCase().contains(query.toLowerCase())) || (parrainCode != null && parrainCode.toLowerCase().contains(query.toLowerCase()));
-                                boolean matchesStatus = reservation.getStatus() != null && reservation.getStatus().toLowerCase().contains(query.toLowerCase());
-                                return matchesClient || matchesTicket || matchesGame || matchesPoste || matchesPrice || matchesParrain || matchesStatus;
-                            })
-                            .collect(Collectors.toList())
-            );
-            reservationTable.setItems(filteredReservations);
-        }
+        // Recherche exécutée en SQL sur la liste paginée
+        loadReservations();
     }
 
 private void startReservationSession(Reservation reservation) throws Exception {
@@ -416,9 +420,7 @@ private void startReservationSession(Reservation reservation) throws Exception {
     Client client = reservation.getClient();
     
     // CORRECTION : Vérifier seulement les sessions ACTIVES d'autres réservations
-    List<GameSession> clientActiveSessionsFromOtherReservations = Fabrique.getService().getAllGameSessions().stream()
-        .filter(s -> s.getClient() != null && s.getClient().getId() == client.getId())
-        .filter(s -> "Active".equalsIgnoreCase(s.getStatus()))
+    List<GameSession> clientActiveSessionsFromOtherReservations = Fabrique.getService().findActiveSessionsByClientId(client.getId()).stream()
         .filter(s -> s.getReservation() != null && s.getReservation().getId() != reservation.getId()) // EXCLURE la réservation actuelle
         .collect(Collectors.toList());
 
@@ -665,61 +667,6 @@ private void startReservationSession(Reservation reservation) throws Exception {
         }
     }
 
-    private void checkExpiredSessions() {
-        List<GameSession> activeSessions = Fabrique.getService().getAllGameSessions()
-                .stream()
-                .filter(s -> "Active".equalsIgnoreCase(s.getStatus())) // SEULEMENT les sessions actives, pas les pauses
-                .collect(Collectors.toList());
-        
-        boolean sessionsUpdated = false;
-        for (GameSession session : activeSessions) {
-            if (session.getStartTime() != null && session.getPaidDuration() != null) {
-                LocalDateTime endTime = session.getStartTime().plus(session.getPaidDuration());
-                if (LocalDateTime.now().isAfter(endTime)) {
-                    try {
-                        if (!notifiedSessions.contains(session.getId())) {
-                            notifiedSessions.add(session.getId());
-                            Platform.runLater(() -> openSessionEndDialog(session));
-                        }
-                        sessionsUpdated = true;
-                    } catch (Exception e) {
-                        System.err.println("Erreur lors de la notification de la session " + session.getId() + ": " + e.getMessage());
-                    }
-                }
-            }
-        }
-        if (sessionsUpdated) {
-            Platform.runLater(this::loadActiveSessions);
-        }
-    }
-
-
-
-
-private void openSessionEndDialog(GameSession session) {
-    try {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/views/SessionEndDialog.fxml"));
-        Scene scene = new Scene(loader.load());
-        scene.getStylesheets().add(getClass().getResource("/com/css/style.css").toExternalForm());
-        Stage stage = new Stage();
-        SessionEndDialogController controller = loader.getController();
-        controller.setSession(session);
-        controller.setConnectedUserName(connectedUserName); // Passe le nom de l'utilisateur connecté
-        stage.setScene(scene);
-        stage.initModality(Modality.APPLICATION_MODAL);
-        stage.showAndWait();
-
-        loadActiveSessions();
-        loadReservations();
-    } catch (IOException e) {
-        ControllerUtils.showErrorAlert("Erreur", "Erreur lors de l'ouverture de la fenêtre de prolongation.");
-    }
-}
-
-
-
-
-
     @FXML
 private void openAddReservationWindow() {
     try {
@@ -773,15 +720,21 @@ private void openAddReservationWindow() {
 
     @FXML
     private void openEditReservationWindow() {
-        Reservation selectedReservation = reservationTable.getSelectionModel().getSelectedItem();
-        if (selectedReservation == null) {
+        ReservationRow selectedRow = reservationTable.getSelectionModel().getSelectedItem();
+        if (selectedRow == null) {
             ControllerUtils.showErrorAlert("Aucune réservation sélectionnée", "Veuillez sélectionner une réservation.");
             return;
         }
-        if ("Active".equals(selectedReservation.getStatus()) || "Terminée".equals(selectedReservation.getStatus()) || "Annulée".equals(selectedReservation.getStatus())) {
+        if ("Active".equals(selectedRow.getStatus()) || "Terminée".equals(selectedRow.getStatus()) || "Annulée".equals(selectedRow.getStatus())) {
             ControllerUtils.showErrorAlert("Modification impossible", "Cette réservation ne peut pas être modifiée.");
             return;
         }
+        Reservation selectedReservation = Fabrique.getService().findReservationById(selectedRow.getId());
+        if (selectedReservation == null) {
+            ControllerUtils.showErrorAlert("Réservation introuvable", "Cette réservation n'existe plus.");
+            loadReservations();
+            return;
+        }
         try {
             WindowManager.closeWindowsForView("EditReservationWindow");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/views/EditReservationWindow.fxml"));
@@ -806,7 +759,7 @@ private void openAddReservationWindow() {
 
     @FXML
     private void deleteReservation() {
-        Reservation selectedReservation = reservationTable.getSelectionModel().getSelectedItem();
+        ReservationRow selectedReservation = reservationTable.getSelectionModel().getSelectedItem();
         if (selectedReservation == null) {
             ControllerUtils.showErrorAlert("Aucune réservation sélectionnée", "Veuillez sélectionner une réservation.");
             return;
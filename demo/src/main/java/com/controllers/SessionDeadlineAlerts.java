@@ -0,0 +1,155 @@
+package com.controllers;
+
+import com.core.Fabrique;
+import com.core.WindowManager;
+import com.entities.GameSession;
+import com.entities.User;
+import com.services.LiveSessionRegistry;
+import com.services.SessionDeadlineScheduler;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Alertes de fin de session, déclenchées par le SessionDeadlineScheduler (plus de Timeline de polling
+ * dans les vues) : une alerte groupée "2 minutes restantes", puis à l'échéance la session est terminée
+ * et la fenêtre de fin de session s'ouvre (une à la fois, les suivantes sont mises en file).
+ * Enregistré par MainSceneController à la connexion, retiré à la déconnexion.
+ */
+public class SessionDeadlineAlerts implements SessionDeadlineScheduler.Listener {
+
+    // Postes à annoncer dans la prochaine alerte (plusieurs échéances proches = une seule alerte)
+    private final Set<String> pendingWarnings = new LinkedHashSet<>();
+    // Accédés sur le thread JavaFX uniquement
+    private final Deque<GameSession> pendingDialogs = new ArrayDeque<>();
+    private final Set<Integer> terminating = new HashSet<>();
+    private boolean dialogShowing;
+
+    @Override
+    public void onTwoMinutesLeft(GameSession session) {
+        String name = session.getPoste() != null ? session.getPoste().getName() : ("Session " + session.getId());
+        boolean first;
+        synchronized (pendingWarnings) {
+            first = pendingWarnings.isEmpty();
+            pendingWarnings.add(name);
+        }
+        if (first) {
+            Platform.runLater(this::showTwoMinutesWarning);
+        }
+    }
+
+    @Override
+    public void onExpired(GameSession session) {
+        Platform.runLater(() -> handleExpired(session));
+    }
+
+    private static boolean isLoggedIn() {
+        return Fabrique.getService().getCurrentUser() != null;
+    }
+
+    private void showTwoMinutesWarning() {
+        String postesList;
+        int count;
+        synchronized (pendingWarnings) {
+            postesList = String.join(", ", pendingWarnings);
+            count = pendingWarnings.size();
+            pendingWarnings.clear();
+        }
+        if (count == 0 || !isLoggedIn()) return;
+        String message = postesList.length() > 60
+            ? "Il reste 2 minutes pour une ou plusieurs sessions."
+            : "Il reste 2 minutes pour la session du poste " + postesList + ".";
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Attention");
+        alert.setHeaderText("Temps restant faible");
+        alert.setContentText(message);
+        alert.show();
+        com.utils.NotificationUtil.playAlertSound();
+    }
+
+    private void handleExpired(GameSession session) {
+        // Hors connexion : l'échéance sera rejouée à la prochaine inscription de l'écouteur
+        if (!isLoggedIn()) return;
+        // Déjà terminée ou mise en pause entre l'échéance et son traitement
+        if (!LiveSessionRegistry.STATUS_ACTIVE.equalsIgnoreCase(session.getStatus())) return;
+        // Prolongée entre-temps (la tolérance couvre l'arrondi à la milliseconde de l'échéancier)
+        java.time.Duration remaining = session.getRemainingTime();
+        if (remaining != null && remaining.getSeconds() >= 1) return;
+
+        if (!terminating.add(session.getId())) return;
+
+        // Écriture hors du thread JavaFX ; la session et le registre ne passent à "Terminée" qu'après commit
+        Thread.ofVirtual().name("GestionSalles-session-end-" + session.getId()).start(() -> {
+            try {
+                Fabrique.getService().terminateSessionAndReservation(session);
+                Platform.runLater(() -> {
+                    terminating.remove(session.getId());
+                    refreshViews();
+                    pendingDialogs.add(session);
+                    showNextDialog();
+                });
+            } catch (Exception e) {
+                System.err.println("Erreur lors de la fin de la session " + session.getId() + ": " + e.getMessage());
+                Platform.runLater(() -> {
+                    terminating.remove(session.getId());
+                    ControllerUtils.showErrorAlert("Erreur", "Impossible de terminer la session "
+                        + session.getId() + " : " + e.getMessage());
+                });
+            }
+        });
+    }
+
+    private void showNextDialog() {
+        if (dialogShowing || pendingDialogs.isEmpty()) return;
+        GameSession session = pendingDialogs.poll();
+        try {
+            com.utils.NotificationUtil.playAlertSound();
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/views/SessionEndDialog.fxml"));
+            Scene scene = new Scene(loader.load());
+            scene.getStylesheets().add(getClass().getResource("/com/css/style.css").toExternalForm());
+            Stage dialogStage = new Stage();
+            dialogStage.initModality(javafx.stage.Modality.APPLICATION_MODAL);
+            dialogStage.setScene(scene);
+            dialogStage.setTitle("Session terminée");
+            dialogStage.setOnHidden(e -> {
+                dialogShowing = false;
+                showNextDialog();
+            });
+            WindowManager.register("SessionEndDialog", dialogStage);
+
+            SessionEndDialogController controller = loader.getController();
+            controller.setSession(session);
+            User user = Fabrique.getService().getCurrentUser();
+            if (user != null) controller.setConnectedUserName(user.getName());
+
+            dialogShowing = true;
+            dialogStage.show();
+        } catch (IOException e) {
+            e.printStackTrace();
+            dialogShowing = false;
+            showNextDialog();
+        }
+    }
+
+    private static void refreshViews() {
+        if (ReservationController.getInstance() != null) {
+            ReservationController.getInstance().loadActiveSessions();
+        }
+        if (PosteJeuController.getInstance() != null) {
+            try {
+                PosteJeuController.getInstance().refreshPostes();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -8,11 +8,17 @@ import com.entities.Role;
 import com.entities.User;
 import com.entities.Reservation;
 import com.entities.GameSession;
+import com.repositories.ClientFilter;
+import com.repositories.ClientPage;
+import com.repositories.ClientSummary;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ModifiableObservableListBase;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Orientation;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.Alert.AlertType;
@@ -25,6 +31,7 @@ import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -47,11 +54,11 @@ public class UserController {
 
     // Élément FXML pour la gestion des clients (Clients)
     @FXML
-    private TableView<Client> clientTable;
+    private TableView<ClientSummary> clientTable;
     @FXML
-    private TableColumn<Client, String> nameClientColumn, phoneClientColumn, addressClientColumn;
+    private TableColumn<ClientSummary, String> nameClientColumn, phoneClientColumn, addressClientColumn;
     @FXML
-    private TableColumn<Client, Integer> loyaltyClientColumn;
+    private TableColumn<ClientSummary, Integer> loyaltyClientColumn;
     @FXML
     private Button addClientButton, editClientButton, deleteClientButton;
     @FXML
@@ -81,15 +88,15 @@ public class UserController {
 
     // Élément FXML pour la gestion des clients avec temps restant
     @FXML
-    private TableView<Client> remainingTimeClientsTable;
+    private TableView<ClientSummary> remainingTimeClientsTable;
     @FXML
-    private TableColumn<Client, String> nameRemainingClientColumn;
+    private TableColumn<ClientSummary, String> nameRemainingClientColumn;
     @FXML
-    private TableColumn<Client, String> phoneRemainingClientColumn;
+    private TableColumn<ClientSummary, String> phoneRemainingClientColumn;
     @FXML
-    private TableColumn<Client, String> remainingTimeColumn;
+    private TableColumn<ClientSummary, String> remainingTimeColumn;
     @FXML
-    private TableColumn<Client, Void> actionsRemainingTimeColumn;
+    private TableColumn<ClientSummary, Void> actionsRemainingTimeColumn;
 
     @FXML
     private Button btnVoirHistorique, btnGenererPdfHistorique, editCompteClientButton, deleteCompteClientButton;
@@ -107,24 +114,24 @@ public class UserController {
     private Pagination paginationRemainingTime;
 
     private static final int PAGE_SIZE = 25;
+    // Listes de clients : lignes résumées chargées par pages (pagination par clé) au défilement
+    private static final int CLIENT_PAGE_SIZE = 200;
+    private static final Duration LOYAL_PLAY_TIME = Duration.ofHours(50);
     // v1.3.5 : pagination -> liste sans fin (on désactive la pagination visuelle)
     private static final boolean INFINITE_LIST = true;
 
     // Listes de toutes les données (non filtrées)
     private ObservableList<User> allUsers = FXCollections.observableArrayList();
-    private ObservableList<Client> allClients = FXCollections.observableArrayList();
     private ObservableList<Parrain> allParrains = FXCollections.observableArrayList();
-    
-    // AJOUT: Liste pour les comptes client avec temps restant
-    private ObservableList<Client> allRemainingTimeClients = FXCollections.observableArrayList();
+    private DataTask<?> refreshTask;
 
     // Listes des données actuellement affichées (filtrées et paginées)
     private ObservableList<User> displayedUsers = FXCollections.observableArrayList();
-    private ObservableList<Client> displayedClients = FXCollections.observableArrayList();
+    private final ClientList displayedClients = new ClientList();
     private ObservableList<Parrain> displayedParrains = FXCollections.observableArrayList();
     
     // AJOUT: Liste pour les comptes client affichés
-    private ObservableList<Client> displayedRemainingTimeClients = FXCollections.observableArrayList();
+    private final ClientList displayedRemainingTimeClients = new ClientList();
 
     private static UserController instance;
 
@@ -147,21 +154,23 @@ public class UserController {
         refreshAllData();
 
         // 3. Configurer les écouteurs de texte pour les champs de recherche
-        searchClientField.textProperty().addListener((obs, oldVal, newVal) -> applyFilters());
-        searchAdminField.textProperty().addListener((obs, oldVal, newVal) -> applyFilters());
-        searchParrainField.textProperty().addListener((obs, oldVal, newVal) -> applyFilters());
+        searchClientField.textProperty().addListener((obs, oldVal, newVal) -> filterClients());
+        searchAdminField.textProperty().addListener((obs, oldVal, newVal) -> filterAdminsAndParrains());
+        searchParrainField.textProperty().addListener((obs, oldVal, newVal) -> filterAdminsAndParrains());
         
         // AJOUT: Écouteur pour la recherche des comptes client
-        searchRemainingTimeField.textProperty().addListener((obs, oldVal, newVal) -> applyFilters());
+        searchRemainingTimeField.textProperty().addListener((obs, oldVal, newVal) -> filterRemainingTimeClients());
 
         // 4. Configurer l'écouteur pour le DatePicker des clients
-        filterClientDatePicker.valueProperty().addListener((obs, oldDate, newDate) -> applyFilters());
+        filterClientDatePicker.valueProperty().addListener((obs, oldDate, newDate) -> filterClients());
 
         // 5. Mettre en place la gestion des permissions pour les boutons
         managePermissions();
 
         // 6. Configurer la pagination pour chaque TableView
         setupPagination();
+        installClientPaging(clientTable, displayedClients);
+        installClientPaging(remainingTimeClientsTable, displayedRemainingTimeClients);
 
         // 7. Charger les clients avec temps restant
         loadClientsWithRemainingTime();
@@ -207,32 +216,28 @@ public class UserController {
         nameRemainingClientColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
         phoneRemainingClientColumn.setCellValueFactory(new PropertyValueFactory<>("phone"));
 
-        remainingTimeColumn.setCellValueFactory(cellData -> {
-            Client client = cellData.getValue();
-            Duration remainingTime = calculateRemainingTimeForClient(client);
-            String formattedTime = formatDuration(remainingTime);
-            return new SimpleStringProperty(formattedTime);
-        });
+        remainingTimeColumn.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatDuration(cellData.getValue().getPausedRemainingTime())));
 
         setupActionsRemainingTimeColumn();
     }
 
     private void setupActionsRemainingTimeColumn() {
-        actionsRemainingTimeColumn.setCellFactory(param -> new TableCell<Client, Void>() {
+        actionsRemainingTimeColumn.setCellFactory(param -> new TableCell<ClientSummary, Void>() {
             private final Button restartSessionButton = new Button("Reprendre session");
             private final Button newReservationButton = new Button("Nouvelle réservation");
 
             {
                 restartSessionButton.setStyle("-fx-background-color: #27ae60; -fx-text-fill: white; -fx-font-size: 12px; -fx-padding: 5px 10px; -fx-border-radius: 5px; -fx-background-radius: 5px;");
                 restartSessionButton.setOnAction(event -> {
-                    Client client = getTableView().getItems().get(getIndex());
-                    restartSessionWithRemainingTime(client);
+                    Client client = loadClient(getTableView().getItems().get(getIndex()));
+                    if (client != null) restartSessionWithRemainingTime(client);
                 });
 
                 newReservationButton.setStyle("-fx-background-color: #34DBDBFF; -fx-text-fill: white; -fx-font-size: 12px; -fx-padding: 5px 10px; -fx-border-radius: 5px; -fx-background-radius: 5px;");
                 newReservationButton.setOnAction(event -> {
-                    Client client = getTableView().getItems().get(getIndex());
-                    openAddReservationWindowForClient(client);
+                    Client client = loadClient(getTableView().getItems().get(getIndex()));
+                    if (client != null) openAddReservationWindowForClient(client);
                 });
             }
 
@@ -242,8 +247,7 @@ public class UserController {
                 if (empty) {
                     setGraphic(null);
                 } else {
-                    Client client = getTableView().getItems().get(getIndex());
-                    Duration remainingTime = calculateRemainingTimeForClient(client);
+                    Duration remainingTime = getTableView().getItems().get(getIndex()).getPausedRemainingTime();
                     boolean hasRemainingTime = remainingTime != null && !remainingTime.isZero() && !remainingTime.isNegative();
                     restartSessionButton.setVisible(hasRemainingTime);
                     restartSessionButton.setManaged(hasRemainingTime);
@@ -339,7 +343,7 @@ public class UserController {
         return FXCollections.observableArrayList(displayedUsers.subList(fromIndex, toIndex));
     }
 
-    private ObservableList<Client> getClientsPage(int pageIndex) {
+    private ObservableList<ClientSummary> getClientsPage(int pageIndex) {
         if (INFINITE_LIST) return displayedClients;
         int fromIndex = pageIndex * PAGE_SIZE;
         int toIndex = Math.min(fromIndex + PAGE_SIZE, displayedClients.size());
@@ -354,7 +358,7 @@ public class UserController {
     }
 
     // AJOUT: Méthode de pagination pour les comptes client
-    private ObservableList<Client> getRemainingTimeClientsPage(int pageIndex) {
+    private ObservableList<ClientSummary> getRemainingTimeClientsPage(int pageIndex) {
         if (INFINITE_LIST) return displayedRemainingTimeClients;
         int fromIndex = pageIndex * PAGE_SIZE;
         int toIndex = Math.min(fromIndex + PAGE_SIZE, displayedRemainingTimeClients.size());
@@ -366,33 +370,23 @@ public class UserController {
      */
     @FXML
     private void applyFilters() {
-        // Filtrer les clients
-        String clientQuery = searchClientField.getText() == null ? "" : searchClientField.getText().toLowerCase();
-        LocalDate reservationDateFilter = filterClientDatePicker.getValue();
-        List<Client> filteredClientsList = allClients.stream()
-                .filter(client -> {
-                    boolean matchesName = client.getName().toLowerCase().contains(clientQuery);
-                    boolean matchesReservationDate = true;
-                    if (reservationDateFilter != null) {
-                        matchesReservationDate = client.getReservations().stream()
-                                .anyMatch(reservation -> {
-                                    if (reservation.getReservationDate() != null) {
-                                        LocalDate dateRes = reservation.getReservationDate().toLocalDate();
-                                        return dateRes.equals(reservationDateFilter);
-                                    }
-                                    return false;
-                                });
-                    }
-                    Duration totalPlayTime = Fabrique.getService().getTotalPlayTime(client.getId());
-                    boolean hasEnoughPlayTime = totalPlayTime != null && totalPlayTime.toHours() >= 50;
-                    return matchesName && matchesReservationDate && hasEnoughPlayTime;
-                })
-                .collect(Collectors.toList());
-        displayedClients.setAll(filteredClientsList);
-        updatePaginationPageCount(paginationClient, displayedClients.size());
+        filterClients();
+        filterAdminsAndParrains();
+        filterRemainingTimeClients();
+    }
+
+    /** Clients fidèles (au moins 50 h de jeu) : une requête par changement de saisie, pas de filtrage en mémoire. */
+    private void filterClients() {
+        ClientFilter clientFilter = new ClientFilter();
+        clientFilter.setSearch(searchClientField.getText());
+        clientFilter.setReservationDate(filterClientDatePicker.getValue());
+        clientFilter.setMinPlayTime(LOYAL_PLAY_TIME);
+        displayedClients.reload(clientFilter);
         paginationClient.setCurrentPageIndex(0);
         clientTable.setItems(getClientsPage(0));
+    }
 
+    private void filterAdminsAndParrains() {
         // Filtrer les administrateurs
         String adminQuery = searchAdminField.getText() == null ? "" : searchAdminField.getText().toLowerCase();
         List<User> filteredUsersList = allUsers.stream()
@@ -421,18 +415,15 @@ public class UserController {
         updatePaginationPageCount(paginationParrain, displayedParrains.size());
         paginationParrain.setCurrentPageIndex(0);
         parrainTable.setItems(getParrainsPage(0));
+    }
 
-        // AJOUT: Filtrer les comptes client avec temps restant
-        String remainingTimeQuery = searchRemainingTimeField.getText() == null ? "" : searchRemainingTimeField.getText().toLowerCase();
-        List<Client> filteredRemainingTimeClientsList = allRemainingTimeClients.stream()
-                .filter(client -> {
-                    boolean matchesName = client.getName().toLowerCase().contains(remainingTimeQuery);
-                    boolean matchesPhone = client.getPhone() != null && client.getPhone().toLowerCase().contains(remainingTimeQuery);
-                    return matchesName || matchesPhone;
-                })
-                .collect(Collectors.toList());
-        displayedRemainingTimeClients.setAll(filteredRemainingTimeClientsList);
-        updatePaginationPageCount(paginationRemainingTime, displayedRemainingTimeClients.size());
+    private void filterRemainingTimeClients() {
+        // AJOUT: Filtrer les comptes client avec temps restant (clients avec téléphone et réservations)
+        ClientFilter remainingTimeFilter = new ClientFilter();
+        remainingTimeFilter.setSearch(searchRemainingTimeField.getText());
+        remainingTimeFilter.setWithPhone(true);
+        remainingTimeFilter.setWithReservations(true);
+        displayedRemainingTimeClients.reload(remainingTimeFilter);
         paginationRemainingTime.setCurrentPageIndex(0);
         remainingTimeClientsTable.setItems(getRemainingTimeClientsPage(0));
     }
@@ -443,30 +434,95 @@ public class UserController {
     @FXML
     private void handleResetDateFilter() {
         filterClientDatePicker.setValue(null);
-        applyFilters();
+        filterClients();
     }
 
     /**
      * Recharge toutes les listes de données depuis le service et réapplique les filtres.
      */
     public void refreshAllData() {
-        allUsers.setAll(Fabrique.getService().findAllUsers());
-        allClients.setAll(Fabrique.getService().getAllClients());
-        allParrains.setAll(Fabrique.getService().getAllParrains());
-        
-        // AJOUT: Charger les clients avec temps restant
-        List<Client> allClientsData = Fabrique.getService().getAllClients();
-        List<Client> remainingTimeClients = allClientsData.stream()
-            .filter(client ->
-                client.getPhone() != null &&
-                !client.getPhone().trim().isEmpty() &&
-                client.getReservations() != null &&
-                !client.getReservations().isEmpty()
-            )
-            .collect(Collectors.toList());
-        allRemainingTimeClients.setAll(remainingTimeClients);
-        
-        applyFilters();
+        // Chargement hors du thread JavaFX ; un rafraîchissement plus récent remplace celui en cours
+        DataTask.cancel(refreshTask);
+        refreshTask = AsyncLoader.load(() -> {
+            UserData data = new UserData();
+            data.users = Fabrique.getService().findAllUsers();
+            data.parrains = Fabrique.getService().getAllParrains();
+            return data;
+        }, data -> {
+            allUsers.setAll(data.users);
+            allParrains.setAll(data.parrains);
+            // Les listes de clients sont rechargées par applyFilters
+            applyFilters();
+        });
+    }
+
+    /** Résultat du chargement de refreshAllData. */
+    private static final class UserData {
+        List<User> users;
+        List<Parrain> parrains;
+    }
+
+    /**
+     * Liste de clients affichée : première page chargée hors du thread JavaFX à chaque changement de
+     * filtre, pages suivantes au défilement.
+     */
+    private static final class ClientList extends ModifiableObservableListBase<ClientSummary> {
+        private final List<ClientSummary> rows = new ArrayList<>();
+        private ClientFilter filter;
+        private ClientPage nextPage;
+        private DataTask<?> task;
+
+        void reload(ClientFilter newFilter) {
+            filter = newFilter;
+            nextPage = ClientPage.first(CLIENT_PAGE_SIZE);
+            DataTask.cancel(task);
+            task = null;
+            clear();
+            loadNext();
+        }
+
+        void loadNext() {
+            if (nextPage == null || task != null) return;
+            ClientFilter f = filter;
+            ClientPage page = nextPage;
+            task = AsyncLoader.load(() -> Fabrique.getService().findClientSummaries(f, page), loaded -> {
+                task = null;
+                addAll(loaded);
+                nextPage = loaded.size() == page.getSize() ? ClientPage.after(loaded.get(loaded.size() - 1), CLIENT_PAGE_SIZE) : null;
+            }, error -> {
+                task = null;
+                nextPage = null;
+                ControllerUtils.showErrorAlert("Erreur", "Impossible de charger les clients");
+            });
+        }
+
+        @Override public ClientSummary get(int index) { return rows.get(index); }
+        @Override public int size() { return rows.size(); }
+        @Override protected void doAdd(int index, ClientSummary element) { rows.add(index, element); }
+        @Override protected ClientSummary doSet(int index, ClientSummary element) { return rows.set(index, element); }
+        @Override protected ClientSummary doRemove(int index) { return rows.remove(index); }
+    }
+
+    /** Charge la page suivante lorsque la barre de défilement verticale atteint le bas du tableau. */
+    private void installClientPaging(TableView<ClientSummary> table, ClientList list) {
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(() -> {
+            for (Node node : table.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    ScrollBar bar = (ScrollBar) node;
+                    bar.valueProperty().addListener((o, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= bar.getMax()) list.loadNext();
+                    });
+                }
+            }
+        }));
+    }
+
+    /** Client complet d'une ligne (actions) ; null si aucune ligne, ou liste rechargée si le client a été supprimé. */
+    private Client loadClient(ClientSummary row) {
+        if (row == null) return null;
+        Client client = Fabrique.getService().getClientById(row.getId());
+        if (client == null) refreshAllData();
+        return client;
     }
 
     /**
@@ -561,7 +617,7 @@ public class UserController {
             showAlert(AlertType.WARNING, "Accès refusé : Vous n'avez pas les permissions nécessaires pour modifier un client.");
             return;
         }
-        Client selectedClient = clientTable.getSelectionModel().getSelectedItem();
+        Client selectedClient = loadClient(clientTable.getSelectionModel().getSelectedItem());
         if (selectedClient == null) {
             showAlert(AlertType.WARNING, "Veuillez sélectionner un client à modifier.");
             return;
@@ -576,7 +632,7 @@ public class UserController {
             showAlert(AlertType.WARNING, "Accès refusé : réservé au SuperAdmin.");
             return;
         }
-        Client selected = remainingTimeClientsTable != null ? remainingTimeClientsTable.getSelectionModel().getSelectedItem() : null;
+        Client selected = remainingTimeClientsTable != null ? loadClient(remainingTimeClientsTable.getSelectionModel().getSelectedItem()) : null;
         if (selected == null) {
             showAlert(AlertType.WARNING, "Veuillez sélectionner un client dans la liste Compte client.");
             return;
@@ -591,7 +647,7 @@ public class UserController {
             showAlert(AlertType.WARNING, "Accès refusé : réservé au SuperAdmin.");
             return;
         }
-        Client selected = remainingTimeClientsTable != null ? remainingTimeClientsTable.getSelectionModel().getSelectedItem() : null;
+        Client selected = remainingTimeClientsTable != null ? loadClient(remainingTimeClientsTable.getSelectionModel().getSelectedItem()) : null;
         if (selected == null) {
             showAlert(AlertType.WARNING, "Veuillez sélectionner un client dans la liste Compte client.");
             return;
@@ -662,7 +718,7 @@ public class UserController {
     @FXML
     private void deleteClient() {
         if (ConnexionController.user != null && ConnexionController.user.getRole().equals(Role.SuperAdmin)) {
-            Client selectedClient = clientTable.getSelectionModel().getSelectedItem();
+            Client selectedClient = loadClient(clientTable.getSelectionModel().getSelectedItem());
             if (selectedClient == null) {
                 showAlert(AlertType.WARNING, "Veuillez sélectionner un client à supprimer.");
                 return;
@@ -774,10 +830,7 @@ public class UserController {
         }
 
         // 2. Vérification CRITIQUE CORRIGÉE : seulement sessions ACTIVES
-        List<GameSession> activeSessions = Fabrique.getService().getAllGameSessions().stream()
-            .filter(s -> s.getClient() != null && s.getClient().getId() == client.getId())
-            .filter(s -> "Active".equalsIgnoreCase(s.getStatus()))
-            .collect(Collectors.toList());
+        List<GameSession> activeSessions = Fabrique.getService().findActiveSessionsByClientId(client.getId());
 
         if (!activeSessions.isEmpty()) {
             GameSession activeSession = activeSessions.get(0);
@@ -812,7 +865,7 @@ public class UserController {
     /** v1.3.5 : ouvrir la fenêtre Historique du client sélectionné (onglet Compte client). */
     @FXML
     private void openClientHistoryWindow() {
-        Client selected = remainingTimeClientsTable != null ? remainingTimeClientsTable.getSelectionModel().getSelectedItem() : null;
+        Client selected = remainingTimeClientsTable != null ? loadClient(remainingTimeClientsTable.getSelectionModel().getSelectedItem()) : null;
         if (selected == null) {
             showAlert(AlertType.WARNING, "Veuillez sélectionner un client dans la liste « Compte client ».");
             return;
@@ -836,13 +889,11 @@ public class UserController {
     /** v1.3.5 : générer le PDF historique du client sélectionné (onglet Compte client). */
     @FXML
     private void generateClientHistoryPdf() {
-        Client selected = remainingTimeClientsTable != null ? remainingTimeClientsTable.getSelectionModel().getSelectedItem() : null;
+        Client selected = remainingTimeClientsTable != null ? loadClient(remainingTimeClientsTable.getSelectionModel().getSelectedItem()) : null;
         if (selected == null) {
             showAlert(AlertType.WARNING, "Veuillez sélectionner un client dans la liste « Compte client ».");
             return;
         }
-        java.util.List<Reservation> reservations = Fabrique.getService().findReservationsByClientIdWithRelations(selected.getId());
-        if (reservations == null) reservations = java.util.List.of();
         javafx.stage.FileChooser fc = new javafx.stage.FileChooser();
         fc.setTitle("Enregistrer l'historique client");
         fc.getExtensionFilters().add(new javafx.stage.FileChooser.ExtensionFilter("PDF", "*.pdf"));
@@ -850,11 +901,6 @@ public class UserController {
         fc.setInitialFileName(safeName);
         java.io.File file = fc.showSaveDialog(remainingTimeClientsTable.getScene().getWindow());
         if (file == null) return;
-        try {
-            ClientHistoryController.genererPdfLandscape(selected, reservations, file);
-            showAlert(AlertType.INFORMATION, "PDF enregistré : " + file.getAbsolutePath());
-        } catch (Exception e) {
-            showAlert(AlertType.ERROR, "Erreur PDF : " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
-        }
+        ClientHistoryController.genererPdfLandscape(selected, file);
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.controllers;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Grille virtualisée : une ListView dont chaque ligne regroupe 'columns' éléments. Seules les lignes
+ * visibles ont une cellule (VirtualFlow), et chaque cellule réutilise ses cartes en les rebindant sur
+ * les éléments de la ligne affichée : le nombre de nœuds reste fixe quelle que soit la taille de la liste.
+ */
+class VirtualGridView<T> extends ListView<List<T>> {
+
+    /** Carte réutilisable d'une grille : un nœud construit une fois, mis à jour pour chaque élément. */
+    interface Card<T> {
+        Node getNode();
+
+        void update(T item);
+    }
+
+    private final int columns;
+
+    VirtualGridView(int columns, double hgap, double vgap, Supplier<? extends Card<T>> cardFactory) {
+        this.columns = columns;
+        setFocusTraversable(false);
+        setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 10;");
+        setCellFactory(list -> new RowCell<>(columns, hgap, vgap, cardFactory));
+    }
+
+    /** Remplace le contenu de la grille (les cellules visibles sont rebindées, pas recréées). */
+    void setAll(List<T> items) {
+        ObservableList<List<T>> rows = FXCollections.observableArrayList();
+        for (int i = 0; i < items.size(); i += columns) {
+            rows.add(new ArrayList<>(items.subList(i, Math.min(i + columns, items.size()))));
+        }
+        setItems(rows);
+        scrollTo(0);
+    }
+
+    private static final class RowCell<T> extends ListCell<List<T>> {
+        private final HBox row;
+        private final List<Card<T>> cards = new ArrayList<>();
+
+        RowCell(int columns, double hgap, double vgap, Supplier<? extends Card<T>> cardFactory) {
+            row = new HBox(hgap);
+            row.setAlignment(Pos.TOP_LEFT);
+            row.setPadding(new Insets(0, 0, vgap, 0));
+            for (int i = 0; i < columns; i++) {
+                Card<T> card = cardFactory.get();
+                cards.add(card);
+                row.getChildren().add(card.getNode());
+            }
+            // Pas de surlignage de sélection : la ligne n'est qu'un conteneur de cartes
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+            setText(null);
+        }
+
+        @Override
+        protected void updateItem(List<T> items, boolean empty) {
+            super.updateItem(items, empty);
+            if (empty || items == null) {
+                setGraphic(null);
+                return;
+            }
+            for (int i = 0; i < cards.size(); i++) {
+                Card<T> card = cards.get(i);
+                boolean used = i < items.size();
+                // Carte masquée mais gardée dans la mise en page : alignement des colonnes de la dernière ligne
+                card.getNode().setVisible(used);
+                if (used) card.update(items.get(i));
+            }
+            setGraphic(row);
+        }
+    }
+}
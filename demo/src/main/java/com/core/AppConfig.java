@@ -29,6 +29,11 @@ public final class AppConfig {
         props = new Properties();
         // Valeurs par défaut (dev)
         props.setProperty("db.path", "");
+        props.setProperty("db.pool.readers", "3");
+        props.setProperty("db.busyTimeoutMs", "5000");
+        props.setProperty("db.cacheSizeKb", "16384");
+        props.setProperty("db.mmapSizeMb", "128");
+        props.setProperty("jpa.profile", "production");
         props.setProperty("current_version", "1.3.6");
         props.setProperty("backup.dir", "");
         props.setProperty("backup.maxCount", "30");
@@ -97,6 +102,28 @@ public final class AppConfig {
         return get("db.path");
     }
 
+    /** Taille du pool principal et du pool en lecture seule (la connexion d'écriture est à part). */
+    public static int getDbPoolReaders() {
+        return getInt("db.pool.readers", 3);
+    }
+
+    public static int getDbBusyTimeoutMs() {
+        return getInt("db.busyTimeoutMs", 5000);
+    }
+
+    public static int getDbCacheSizeKb() {
+        return getInt("db.cacheSizeKb", 16384);
+    }
+
+    public static int getDbMmapSizeMb() {
+        return getInt("db.mmapSizeMb", 128);
+    }
+
+    /** Profil de l'unité de persistance : production (par défaut) ou debug (traces SQL et statistiques). */
+    public static boolean isJpaDebug() {
+        return "debug".equalsIgnoreCase(get("jpa.profile"));
+    }
+
     public static String getCurrentVersion() {
         return get("current_version", "1.3.6");
     }
@@ -114,6 +141,16 @@ public final class AppConfig {
         return getInt("backup.intervalMinutes", 60);
     }
 
+    /** Nom de l'imprimante des tickets de caisse. */
+    public static String getPrinterName() {
+        return get("printer.name", "XP-80C");
+    }
+
+    /** Impression brute ESC/POS des tickets (au lieu du rendu graphique par le pilote). */
+    public static boolean isPrinterEscPos() {
+        return "true".equalsIgnoreCase(get("printer.escpos"));
+    }
+
     public static int getLoginMaxAttempts() {
         return getInt("login.maxAttempts", 5);
     }
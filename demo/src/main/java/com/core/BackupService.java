@@ -2,30 +2,53 @@ package com.core;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 /**
  * Sauvegardes automatiques et manuelles de la base SQLite, avec rétention limitée.
+ *
+ * La copie est faite par l'API de sauvegarde en ligne de SQLite sur une connexion du pool en lecture
+ * seule, en une seule étape : l'image est cohérente (une transaction de lecture) et, en WAL, n'empêche
+ * jamais la caisse d'écrire. Elle est ensuite versée dans le BackupStore (compressé, dédupliqué par blocs)
+ * puis supprimée ; chaque instantané est ensuite vérifié en tâche de fond (restauration puis
+ * PRAGMA integrity_check).
+ *
+ * Les anciennes copies complètes (gestionsalles_yyyyMMdd_HHmm.sqlite) sont versées une fois dans le
+ * stockage lors de la première sauvegarde, puis supprimées.
  */
 public final class BackupService {
 
     private static final Logger log = LoggerFactory.getLogger(BackupService.class);
-    private static final String BACKUP_PREFIX = "gestionsalles_";
-    private static final String BACKUP_SUFFIX = ".sqlite";
-    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+    private static final String STORE_DIR = "store";
+    private static final String LEGACY_PREFIX = "gestionsalles_";
+    private static final String LEGACY_SUFFIX = ".sqlite";
+    private static final Pattern LEGACY_NAME = Pattern.compile("gestionsalles_\\d{8}_\\d{4}\\.sqlite");
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    // Lignes d'erreur de integrity_check conservées au plus
+    private static final int MAX_CHECK_LINES = 20;
 
     private static volatile ScheduledExecutorService scheduler;
     private static volatile boolean autoBackupStarted;
+    private static volatile ExecutorService verifier;
+    private static BackupStore store;
 
     private BackupService() {}
 
@@ -44,50 +67,178 @@ public final class BackupService {
         return backupDir;
     }
 
-    /** Effectue une sauvegarde manuelle. Retourne le chemin du fichier créé ou null en cas d'erreur. */
-    public static Path backupNow() {
+    /** Stockage des instantanés, dans le répertoire des sauvegardes. */
+    public static synchronized BackupStore getStore() throws IOException {
+        Path dir = getBackupDir().resolve(STORE_DIR);
+        if (store == null || !store.getDirectory().equals(dir)) {
+            store = new BackupStore(dir);
+        }
+        return store;
+    }
+
+    /** Effectue une sauvegarde manuelle. Retourne l'instantané créé ou null en cas d'erreur. */
+    public static synchronized BackupStore.Snapshot backupNow() {
         String sourcePath = JpaUtil.getDbFilePath();
-        if (sourcePath == null || sourcePath.isEmpty()) {
-            log.warn("Chemin de la base inconnu, sauvegarde ignorée");
+        if (sourcePath == null || sourcePath.isEmpty() || !Files.isRegularFile(Paths.get(sourcePath))) {
+            log.warn("Fichier base introuvable, sauvegarde ignorée : {}", sourcePath);
             return null;
         }
-        Path source = Paths.get(sourcePath);
-        if (!Files.isRegularFile(source)) {
-            log.warn("Fichier base introuvable: {}", sourcePath);
+        Path image = null;
+        try {
+            BackupStore backupStore = getStore();
+            migrateLegacyBackups(getBackupDir(), backupStore);
+            String id = nextId(backupStore);
+            image = backupStore.getDirectory().resolve(id + ".sqlite.tmp");
+            long start = System.nanoTime();
+            copyOnline(image);
+            backupStore.add(id, image);
+            backupStore.retain(AppConfig.getBackupMaxCount());
+            List<BackupStore.Snapshot> snapshots = backupStore.list();
+            BackupStore.Snapshot saved = snapshots.get(snapshots.size() - 1);
+            log.info("Sauvegarde {} créée en {} ms ({} octets ajoutés au stockage)", id,
+                (System.nanoTime() - start) / 1_000_000, saved.getStoredBytes());
+            verifyInBackground(id);
+            return saved;
+        } catch (IOException | SQLException e) {
+            log.error("Erreur lors de la sauvegarde", e);
             return null;
+        } finally {
+            if (image != null) {
+                try { Files.deleteIfExists(image); } catch (IOException ignored) {}
+            }
         }
+    }
+
+    /** Instantanés disponibles, du plus ancien au plus récent. */
+    public static List<BackupStore.Snapshot> listSnapshots() throws IOException {
+        return getStore().list();
+    }
+
+    /** Reconstruit l'instantané id dans le fichier target (la base en service n'est pas modifiée). */
+    public static Path restoreSnapshot(String id, Path target) throws IOException {
+        return getStore().restore(id, target);
+    }
+
+    /**
+     * Vérifie un instantané : restauration dans un fichier temporaire (empreintes des blocs contrôlées)
+     * puis PRAGMA integrity_check. Le résultat ("ok" ou les erreurs) est enregistré avec l'instantané et
+     * retourné.
+     */
+    public static String verify(String id) throws IOException {
+        BackupStore backupStore = getStore();
+        Path tmp = backupStore.getDirectory().resolve("verify_" + id + ".sqlite");
+        String result;
         try {
-            Path backupDir = getBackupDir();
-            String name = BACKUP_PREFIX + LocalDateTime.now().format(FORMAT) + BACKUP_SUFFIX;
-            Path target = backupDir.resolve(name);
-            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
-            log.info("Sauvegarde créée: {}", target);
-            purgeOldBackups(backupDir);
-            return target;
+            backupStore.restore(id, tmp);
+            result = integrityCheck(tmp);
         } catch (IOException e) {
-            log.error("Erreur lors de la sauvegarde", e);
-            return null;
+            result = "Restauration impossible : " + e.getMessage();
+        } finally {
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(tmp.resolveSibling(tmp.getFileName() + suffix));
+            }
+        }
+        backupStore.recordCheck(id, result);
+        return result;
+    }
+
+    private static void verifyInBackground(String id) {
+        ExecutorService executor = verifier;
+        if (executor == null) {
+            synchronized (BackupService.class) {
+                if (verifier == null) {
+                    verifier = Executors.newSingleThreadExecutor(r -> {
+                        Thread t = new Thread(r, "BackupService-verify");
+                        t.setDaemon(true);
+                        t.setPriority(Thread.MIN_PRIORITY);
+                        return t;
+                    });
+                }
+                executor = verifier;
+            }
+        }
+        executor.execute(() -> {
+            try {
+                String result = verify(id);
+                if ("ok".equals(result)) log.info("Sauvegarde {} vérifiée", id);
+                else log.error("Sauvegarde {} invalide : {}", id, result);
+            } catch (Exception e) {
+                log.error("Vérification de la sauvegarde {} impossible", id, e);
+            }
+        });
+    }
+
+    private static String integrityCheck(Path db) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        try (Connection c = config.createConnection("jdbc:sqlite:" + db);
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA integrity_check(" + MAX_CHECK_LINES + ")")) {
+            StringBuilder sb = new StringBuilder();
+            while (rs.next()) {
+                if (sb.length() > 0) sb.append('\n');
+                sb.append(rs.getString(1));
+            }
+            return sb.toString();
+        } catch (SQLException e) {
+            return "Base illisible : " + e.getMessage();
         }
     }
 
-    /** Supprime les sauvegardes les plus anciennes au-delà du nombre max autorisé. */
-    public static void purgeOldBackups(Path backupDir) throws IOException {
+    /**
+     * Anciennes copies complètes : versées dans le stockage (de la plus ancienne à la plus récente) tant
+     * qu'il est vide, sinon seules les backup.maxCount plus récentes sont gardées. Le nom contient la date :
+     * il donne l'ordre, sans dépendre des dates de modification des fichiers.
+     */
+    private static void migrateLegacyBackups(Path backupDir, BackupStore backupStore) throws IOException {
+        List<Path> legacy = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(backupDir, LEGACY_PREFIX + "*" + LEGACY_SUFFIX)) {
+            for (Path p : stream) {
+                if (LEGACY_NAME.matcher(p.getFileName().toString()).matches()) legacy.add(p);
+            }
+        }
+        if (legacy.isEmpty()) return;
+        legacy.sort(Comparator.comparing(p -> p.getFileName().toString()));
+
+        if (backupStore.list().isEmpty()) {
+            for (Path p : legacy) {
+                String name = p.getFileName().toString();
+                String id = name.substring(LEGACY_PREFIX.length(), name.length() - LEGACY_SUFFIX.length()) + "00";
+                try {
+                    // Le stockage ne fait que lire l'image : la copie est versée telle quelle
+                    backupStore.add(id, p);
+                    Files.delete(p);
+                    log.info("Ancienne sauvegarde {} versée dans le stockage", name);
+                } catch (IOException e) {
+                    log.warn("Ancienne sauvegarde {} ignorée : {}", name, e.getMessage());
+                }
+            }
+            backupStore.retain(AppConfig.getBackupMaxCount());
+            legacy.removeIf(p -> !Files.exists(p));
+        }
         int maxCount = AppConfig.getBackupMaxCount();
-        List<Path> list = new ArrayList<>();
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(backupDir, BACKUP_PREFIX + "*" + BACKUP_SUFFIX)) {
-            for (Path p : stream) list.add(p);
+        for (int i = 0; i < legacy.size() - maxCount; i++) {
+            Files.deleteIfExists(legacy.get(i));
+            log.debug("Sauvegarde ancienne supprimée: {}", legacy.get(i));
         }
-        list.sort(Comparator.comparing(p -> {
-            try { return Files.getLastModifiedTime(p); }
-            catch (IOException e) { return java.nio.file.attribute.FileTime.fromMillis(0); }
-        }, Comparator.reverseOrder()));
-        if (list.size() <= maxCount) return;
-        for (int i = maxCount; i < list.size(); i++) {
-            Files.deleteIfExists(list.get(i));
-            log.debug("Sauvegarde ancienne supprimée: {}", list.get(i));
+    }
+
+    // Copie de la base par sqlite3_backup en une étape (-1 page par pas : pas de redémarrage si la base change)
+    private static void copyOnline(Path target) throws SQLException {
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection()) {
+            c.unwrap(SQLiteConnection.class).getDatabase().backup("main", target.toString(), null, 100, 50, -1);
         }
     }
 
+    private static String nextId(BackupStore backupStore) throws IOException {
+        String id = LocalDateTime.now().format(FORMAT);
+        List<BackupStore.Snapshot> snapshots = backupStore.list();
+        if (!snapshots.isEmpty() && snapshots.get(snapshots.size() - 1).getId().startsWith(id)) {
+            id += "_" + (snapshots.size() + 1);
+        }
+        return id;
+    }
+
     /** Démarre les sauvegardes automatiques (intervalle en minutes depuis la config). */
     public static synchronized void startAutoBackup() {
         if (autoBackupStarted) return;
@@ -121,6 +272,11 @@ public final class BackupService {
             }
             scheduler = null;
         }
+        if (verifier != null) {
+            // Vérification en cours abandonnée : elle sera refaite à la demande (RestoreBackup --verify)
+            verifier.shutdownNow();
+            verifier = null;
+        }
         autoBackupStarted = false;
     }
 }
@@ -0,0 +1,474 @@
+package com.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stockage des sauvegardes compressé et dédupliqué par contenu.
+ *
+ * Une image de la base est découpée en blocs de CHUNK_SIZE octets (multiple de toute taille de page
+ * SQLite), identifiés par leur SHA-256. Seuls les blocs encore inconnus du stockage sont compressés
+ * (deflate) et ajoutés au pack de l'instantané ; l'instantané lui-même n'est que la liste ordonnée
+ * des empreintes de ses blocs. Entre deux sauvegardes, seuls les blocs modifiés coûtent de la place :
+ * 30 instantanés occupent à peine plus qu'une seule image compressée.
+ *
+ * Répertoire :
+ * - packs/&lt;id&gt;.pack : blocs apparus avec l'instantané id (empreinte, tailles, données compressées) ;
+ * - snapshots/&lt;id&gt;.snap : taille de la base et empreintes de ses blocs ;
+ * - snapshots/&lt;id&gt;.check : résultat de la vérification (PRAGMA integrity_check sur l'image restaurée).
+ *
+ * Les identifiants (date yyyyMMdd_HHmmss) donnent l'ordre chronologique. Un pack est écrit avant son
+ * instantané : une interruption laisse au pire des blocs non référencés, supprimés au prochain nettoyage.
+ * À la restauration, chaque bloc est recontrôlé contre son empreinte.
+ */
+public final class BackupStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BackupStore.class);
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SNAP_MAGIC = 0x47534E50; // "GSNP"
+    private static final int PACK_MAGIC = 0x4753504B; // "GSPK"
+    private static final int HASH_SIZE = 32;
+    private static final String PACK_SUFFIX = ".pack";
+    private static final String SNAP_SUFFIX = ".snap";
+    private static final String CHECK_SUFFIX = ".check";
+    // Un pack est réécrit quand plus de ce ratio de son contenu n'est plus référencé
+    private static final double REPACK_DEAD_RATIO = 0.25;
+
+    /** Un instantané conservé. */
+    public static final class Snapshot {
+        private final String id;
+        private final long createdAt;
+        private final long databaseSize;
+        private final int chunkCount;
+        private final long storedBytes;
+        private final String check;
+
+        Snapshot(String id, long createdAt, long databaseSize, int chunkCount, long storedBytes, String check) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.databaseSize = databaseSize;
+            this.chunkCount = chunkCount;
+            this.storedBytes = storedBytes;
+            this.check = check;
+        }
+
+        public String getId() { return id; }
+        /** Date de l'instantané (millisecondes epoch). */
+        public long getCreatedAt() { return createdAt; }
+        /** Taille de la base restaurée, en octets. */
+        public long getDatabaseSize() { return databaseSize; }
+        public int getChunkCount() { return chunkCount; }
+        /** Octets compressés ajoutés au stockage par cet instantané. */
+        public long getStoredBytes() { return storedBytes; }
+        /** "ok", erreurs de integrity_check, ou null si la vérification n'a pas encore eu lieu. */
+        public String getCheck() { return check; }
+        public boolean isVerified() { return "ok".equals(check); }
+    }
+
+    // Emplacement d'un bloc compressé dans un pack
+    private static final class Location {
+        final Path pack;
+        final long offset;
+        final int rawLength;
+        final int compressedLength;
+
+        Location(Path pack, long offset, int rawLength, int compressedLength) {
+            this.pack = pack;
+            this.offset = offset;
+            this.rawLength = rawLength;
+            this.compressedLength = compressedLength;
+        }
+    }
+
+    private final Path dir;
+    private final Path packs;
+    private final Path snapshots;
+    // Empreinte (hex) -> bloc ; construit au premier usage en parcourant les en-têtes des packs
+    private Map<String, Location> index;
+
+    public BackupStore(Path dir) throws IOException {
+        this.dir = dir;
+        this.packs = dir.resolve("packs");
+        this.snapshots = dir.resolve("snapshots");
+        Files.createDirectories(packs);
+        Files.createDirectories(snapshots);
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /** Instantanés conservés, du plus ancien au plus récent. */
+    public synchronized List<Snapshot> list() throws IOException {
+        List<Snapshot> list = new ArrayList<>();
+        for (String id : snapshotIds()) {
+            list.add(readSnapshot(id));
+        }
+        return list;
+    }
+
+    /**
+     * Ajoute l'image d'une base (copie cohérente, non modifiée) comme instantané id. Retourne le fichier
+     * de l'instantané.
+     */
+    public synchronized Path add(String id, Path image) throws IOException {
+        Map<String, Location> idx = index();
+        MessageDigest sha = sha256();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        Path pack = packs.resolve(id + PACK_SUFFIX);
+        Path packTmp = packs.resolve(id + PACK_SUFFIX + ".tmp");
+        long databaseSize = Files.size(image);
+        int chunkCount = (int) ((databaseSize + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        byte[][] hashes = new byte[chunkCount][];
+        Map<String, Location> added = new HashMap<>();
+        long storedBytes = 0;
+
+        try (FileChannel in = FileChannel.open(image, StandardOpenOption.READ);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(packTmp), 256 * 1024))) {
+            out.writeInt(PACK_MAGIC);
+            long offset = 4;
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            byte[] compressed = new byte[CHUNK_SIZE + CHUNK_SIZE / 8 + 64];
+            for (int i = 0; i < chunkCount; i++) {
+                int length = readChunk(in, (long) i * CHUNK_SIZE, chunk);
+                sha.update(chunk.array(), 0, length);
+                byte[] hash = sha.digest();
+                hashes[i] = hash;
+                String key = HexFormat.of().formatHex(hash);
+                if (idx.containsKey(key) || added.containsKey(key)) continue;
+
+                deflater.reset();
+                deflater.setInput(chunk.array(), 0, length);
+                deflater.finish();
+                int compressedLength = 0;
+                while (!deflater.finished()) {
+                    compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+                }
+                out.write(hash);
+                out.writeInt(length);
+                out.writeInt(compressedLength);
+                out.write(compressed, 0, compressedLength);
+                long dataOffset = offset + HASH_SIZE + 8;
+                added.put(key, new Location(pack, dataOffset, length, compressedLength));
+                offset = dataOffset + compressedLength;
+                storedBytes += compressedLength;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(packTmp);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+
+        if (added.isEmpty()) {
+            Files.delete(packTmp);
+        } else {
+            force(packTmp);
+            Files.move(packTmp, pack, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path snap = writeSnapshot(id, System.currentTimeMillis(), databaseSize, storedBytes, hashes);
+        idx.putAll(added);
+        log.debug("Instantané {} : {} bloc(s), {} nouveau(x), {} octets compressés", id, chunkCount, added.size(), storedBytes);
+        return snap;
+    }
+
+    /** Ne garde que les maxCount instantanés les plus récents puis libère les blocs qui ne servent plus. */
+    public synchronized void retain(int maxCount) throws IOException {
+        List<String> ids = snapshotIds();
+        if (maxCount < 1 || ids.size() <= maxCount) return;
+        for (String id : ids.subList(0, ids.size() - maxCount)) {
+            Files.deleteIfExists(snapshots.resolve(id + SNAP_SUFFIX));
+            Files.deleteIfExists(snapshots.resolve(id + CHECK_SUFFIX));
+            log.debug("Instantané {} supprimé", id);
+        }
+        collectGarbage();
+    }
+
+    /** Reconstruit la base telle qu'au moment de l'instantané id dans target. */
+    public synchronized Path restore(String id, Path target) throws IOException {
+        Path snapFile = snapshots.resolve(id + SNAP_SUFFIX);
+        if (!Files.isRegularFile(snapFile)) throw new IOException("Instantané introuvable : " + id);
+        Map<String, Location> idx = index();
+        MessageDigest sha = sha256();
+        Inflater inflater = new Inflater();
+        Map<Path, FileChannel> channels = new HashMap<>();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataInputStream snap = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapFile)));
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SnapshotHeader header = readHeader(snap, id);
+            byte[] hash = new byte[HASH_SIZE];
+            byte[] raw = new byte[CHUNK_SIZE];
+            for (int i = 0; i < header.chunkCount; i++) {
+                snap.readFully(hash);
+                String key = HexFormat.of().formatHex(hash);
+                Location loc = idx.get(key);
+                if (loc == null) throw new IOException("Bloc manquant dans le stockage (" + id + ", bloc " + i + ")");
+                FileChannel pack = channels.get(loc.pack);
+                if (pack == null) {
+                    pack = FileChannel.open(loc.pack, StandardOpenOption.READ);
+                    channels.put(loc.pack, pack);
+                }
+                ByteBuffer compressed = ByteBuffer.allocate(loc.compressedLength);
+                while (compressed.hasRemaining()) {
+                    if (pack.read(compressed, loc.offset + compressed.position()) < 0) throw new EOFException("Pack tronqué : " + loc.pack);
+                }
+                inflater.reset();
+                inflater.setInput(compressed.array());
+                int length = 0;
+                while (length < loc.rawLength && !inflater.finished()) {
+                    int n = inflater.inflate(raw, length, loc.rawLength - length);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    length += n;
+                }
+                sha.update(raw, 0, length);
+                if (length != loc.rawLength || !Arrays.equals(sha.digest(), hash)) {
+                    throw new IOException("Bloc corrompu dans " + loc.pack.getFileName() + " (" + id + ", bloc " + i + ")");
+                }
+                ByteBuffer bb = ByteBuffer.wrap(raw, 0, length);
+                long pos = (long) i * CHUNK_SIZE;
+                while (bb.hasRemaining()) pos += out.write(bb, pos);
+            }
+            out.truncate(header.databaseSize);
+            out.force(true);
+        } catch (DataFormatException e) {
+            Files.deleteIfExists(tmp);
+            throw new IOException("Bloc illisible dans l'instantané " + id, e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        } finally {
+            inflater.end();
+            for (FileChannel ch : channels.values()) ch.close();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /** Enregistre le résultat de la vérification de l'instantané id ("ok" ou les erreurs). */
+    public synchronized void recordCheck(String id, String result) throws IOException {
+        if (Files.isRegularFile(snapshots.resolve(id + SNAP_SUFFIX))) {
+            Files.writeString(snapshots.resolve(id + CHECK_SUFFIX), result, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Espace disque occupé par le stockage, en octets. */
+    public synchronized long diskUsage() throws IOException {
+        long total = 0;
+        for (Path sub : new Path[]{packs, snapshots}) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(sub)) {
+                for (Path p : stream) total += Files.size(p);
+            }
+        }
+        return total;
+    }
+
+    // Supprime les packs sans bloc référencé et réécrit ceux qui contiennent trop de blocs morts
+    private void collectGarbage() throws IOException {
+        Set<String> live = new HashSet<>();
+        for (String id : snapshotIds()) {
+            try (DataInputStream snap = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshots.resolve(id + SNAP_SUFFIX))))) {
+                SnapshotHeader header = readHeader(snap, id);
+                byte[] hash = new byte[HASH_SIZE];
+                for (int i = 0; i < header.chunkCount; i++) {
+                    snap.readFully(hash);
+                    live.add(HexFormat.of().formatHex(hash));
+                }
+            }
+        }
+        Map<Path, long[]> usage = new HashMap<>(); // pack -> {octets vivants, octets morts}
+        for (Map.Entry<String, Location> e : index().entrySet()) {
+            long[] u = usage.computeIfAbsent(e.getValue().pack, p -> new long[2]);
+            u[live.contains(e.getKey()) ? 0 : 1] += e.getValue().compressedLength;
+        }
+        boolean changed = false;
+        for (Map.Entry<Path, long[]> e : usage.entrySet()) {
+            long liveBytes = e.getValue()[0];
+            long deadBytes = e.getValue()[1];
+            if (deadBytes == 0) continue;
+            if (liveBytes == 0) {
+                Files.deleteIfExists(e.getKey());
+                log.debug("Pack {} supprimé", e.getKey().getFileName());
+                changed = true;
+            } else if (deadBytes > REPACK_DEAD_RATIO * (liveBytes + deadBytes)) {
+                repack(e.getKey(), live);
+                changed = true;
+            }
+        }
+        if (changed) index = null;
+    }
+
+    // Réécrit un pack en ne gardant que les blocs vivants
+    private void repack(Path pack, Set<String> live) throws IOException {
+        Path tmp = pack.resolveSibling(pack.getFileName() + ".tmp");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pack), 256 * 1024));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 256 * 1024))) {
+            if (in.readInt() != PACK_MAGIC) throw new IOException("Pack invalide : " + pack);
+            out.writeInt(PACK_MAGIC);
+            byte[] hash = new byte[HASH_SIZE];
+            while (readFullyOrEof(in, hash)) {
+                int rawLength = in.readInt();
+                int compressedLength = in.readInt();
+                byte[] data = in.readNBytes(compressedLength);
+                if (data.length != compressedLength) throw new EOFException("Pack tronqué : " + pack);
+                if (!live.contains(HexFormat.of().formatHex(hash))) continue;
+                out.write(hash);
+                out.writeInt(rawLength);
+                out.writeInt(compressedLength);
+                out.write(data);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        force(tmp);
+        Files.move(tmp, pack, StandardCopyOption.REPLACE_EXISTING);
+        log.debug("Pack {} compacté", pack.getFileName());
+    }
+
+    private Map<String, Location> index() throws IOException {
+        if (index != null) return index;
+        Map<String, Location> idx = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(packs, "*" + PACK_SUFFIX)) {
+            for (Path pack : stream) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pack), 64 * 1024))) {
+                    if (in.readInt() != PACK_MAGIC) {
+                        log.warn("Pack ignoré (en-tête invalide) : {}", pack);
+                        continue;
+                    }
+                    long offset = 4;
+                    byte[] hash = new byte[HASH_SIZE];
+                    while (readFullyOrEof(in, hash)) {
+                        int rawLength = in.readInt();
+                        int compressedLength = in.readInt();
+                        in.skipNBytes(compressedLength);
+                        offset += HASH_SIZE + 8;
+                        idx.putIfAbsent(HexFormat.of().formatHex(hash), new Location(pack, offset, rawLength, compressedLength));
+                        offset += compressedLength;
+                    }
+                } catch (EOFException e) {
+                    // Pack tronqué (écriture interrompue) : les blocs complets restent utilisables
+                    log.warn("Pack tronqué : {}", pack);
+                }
+            }
+        }
+        index = idx;
+        return idx;
+    }
+
+    private List<String> snapshotIds() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(snapshots, "*" + SNAP_SUFFIX)) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                ids.add(name.substring(0, name.length() - SNAP_SUFFIX.length()));
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static final class SnapshotHeader {
+        long createdAt;
+        long databaseSize;
+        long storedBytes;
+        int chunkCount;
+    }
+
+    private Path writeSnapshot(String id, long createdAt, long databaseSize, long storedBytes, byte[][] hashes) throws IOException {
+        Path snap = snapshots.resolve(id + SNAP_SUFFIX);
+        Path tmp = snapshots.resolve(id + SNAP_SUFFIX + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAP_MAGIC);
+            out.writeLong(createdAt);
+            out.writeLong(databaseSize);
+            out.writeLong(storedBytes);
+            out.writeInt(CHUNK_SIZE);
+            out.writeInt(hashes.length);
+            for (byte[] hash : hashes) out.write(hash);
+        }
+        force(tmp);
+        Files.move(tmp, snap, StandardCopyOption.REPLACE_EXISTING);
+        return snap;
+    }
+
+    private Snapshot readSnapshot(String id) throws IOException {
+        SnapshotHeader header;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshots.resolve(id + SNAP_SUFFIX)), 64))) {
+            header = readHeader(in, id);
+        }
+        Path checkFile = snapshots.resolve(id + CHECK_SUFFIX);
+        String check = Files.isRegularFile(checkFile) ? Files.readString(checkFile, StandardCharsets.UTF_8) : null;
+        return new Snapshot(id, header.createdAt, header.databaseSize, header.chunkCount, header.storedBytes, check);
+    }
+
+    private static SnapshotHeader readHeader(DataInputStream in, String id) throws IOException {
+        if (in.readInt() != SNAP_MAGIC) throw new IOException("Instantané invalide : " + id);
+        SnapshotHeader h = new SnapshotHeader();
+        h.createdAt = in.readLong();
+        h.databaseSize = in.readLong();
+        h.storedBytes = in.readLong();
+        if (in.readInt() != CHUNK_SIZE) throw new IOException("Taille de bloc non supportée : " + id);
+        h.chunkCount = in.readInt();
+        return h;
+    }
+
+    // Lit un bloc de l'image ; retourne sa longueur (le dernier bloc peut être plus court)
+    private static int readChunk(FileChannel in, long position, ByteBuffer chunk) throws IOException {
+        chunk.clear();
+        while (chunk.hasRemaining()) {
+            if (in.read(chunk, position + chunk.position()) < 0) break;
+        }
+        return chunk.position();
+    }
+
+    // false en fin de fichier propre (avant le premier octet)
+    private static boolean readFullyOrEof(InputStream in, byte[] buf) throws IOException {
+        int n = in.readNBytes(buf, 0, buf.length);
+        if (n == 0) return false;
+        if (n < buf.length) throw new EOFException();
+        return true;
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.core;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Table de cumul daily_revenue (jour, utilisateur, type) : montant et nombre d'opérations, pour que les
+ * rapports multi-jours lisent quelques lignes au lieu de parcourir l'historique des paiements.
+ *
+ * Types : product (vente de produits), reservation (prix des réservations, au jour de la réservation),
+ * extension (paiements de prolongation). Les paiements de réservation ne sont pas cumulés : la
+ * réservation l'est déjà.
+ *
+ * La table est tenue à jour par des triggers SQLite sur payments et reservations : chaque écriture
+ * (insert, merge, dirty checking, suppression) met le cumul à jour dans sa propre transaction.
+ */
+public final class DailyRevenueRollup {
+
+    public static final String KIND_PRODUCT = "product";
+    public static final String KIND_RESERVATION = "reservation";
+    public static final String KIND_EXTENSION = "extension";
+
+    // Jour local d'une date stockée en millisecondes epoch
+    private static String day(String column) {
+        return "date(" + column + " / 1000, 'unixepoch', 'localtime')";
+    }
+
+    private static String paymentKind(String row) {
+        return "CASE WHEN trim(coalesce(" + row + ".detailsProduits, '')) <> '' THEN '" + KIND_PRODUCT + "' " +
+               "WHEN " + row + ".detailReservations LIKE 'Prolongation%' THEN '" + KIND_EXTENSION + "' END";
+    }
+
+    // Ajoute (sign = +1) ou retire (sign = -1) la ligne 'row' du cumul
+    private static String applyPayment(String row, int sign) {
+        return "INSERT INTO daily_revenue(day, user_id, kind, amount, operations) " +
+               "SELECT " + day(row + ".dateHeure") + ", " + row + ".created_by, " + paymentKind(row) + ", " +
+               sign + " * " + row + ".montantTotal, " + sign + " " +
+               "WHERE " + row + ".created_by IS NOT NULL AND " + paymentKind(row) + " IS NOT NULL " +
+               "ON CONFLICT(day, user_id, kind) DO UPDATE SET amount = amount + excluded.amount, operations = operations + excluded.operations;";
+    }
+
+    private static String applyReservation(String row, int sign) {
+        return "INSERT INTO daily_revenue(day, user_id, kind, amount, operations) " +
+               "SELECT " + day(row + ".reservationDate") + ", " + row + ".user_id, '" + KIND_RESERVATION + "', " +
+               sign + " * coalesce(" + row + ".total_price, 0), " + sign + " " +
+               "WHERE " + row + ".user_id IS NOT NULL " +
+               "ON CONFLICT(day, user_id, kind) DO UPDATE SET amount = amount + excluded.amount, operations = operations + excluded.operations;";
+    }
+
+    // Lignes vidées par des retraits (montant résiduel d'arrondi)
+    private static final String PRUNE =
+        "DELETE FROM daily_revenue WHERE operations <= 0 AND abs(amount) < 0.005;";
+
+    /** Table et triggers (idempotent). */
+    static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS daily_revenue (" +
+            "day TEXT NOT NULL, user_id INTEGER NOT NULL, kind TEXT NOT NULL, " +
+            "amount REAL NOT NULL DEFAULT 0, operations INTEGER NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (day, user_id, kind)) WITHOUT ROWID",
+        "CREATE TRIGGER IF NOT EXISTS trg_daily_revenue_payment_insert AFTER INSERT ON payments BEGIN " +
+            applyPayment("NEW", 1) + " END",
+        "CREATE TRIGGER IF NOT EXISTS trg_daily_revenue_payment_delete AFTER DELETE ON payments BEGIN " +
+            applyPayment("OLD", -1) + PRUNE + " END",
+        "CREATE TRIGGER IF NOT EXISTS trg_daily_revenue_payment_update " +
+            "AFTER UPDATE OF dateHeure, montantTotal, created_by, detailsProduits, detailReservations ON payments BEGIN " +
+            applyPayment("OLD", -1) + applyPayment("NEW", 1) + PRUNE + " END",
+        "CREATE TRIGGER IF NOT EXISTS trg_daily_revenue_reservation_insert AFTER INSERT ON reservations BEGIN " +
+            applyReservation("NEW", 1) + " END",
+        "CREATE TRIGGER IF NOT EXISTS trg_daily_revenue_reservation_delete AFTER DELETE ON reservations BEGIN " +
+            applyReservation("OLD", -1) + PRUNE + " END",
+        "CREATE TRIGGER IF NOT EXISTS trg_daily_revenue_reservation_update " +
+            "AFTER UPDATE OF reservationDate, user_id, total_price ON reservations BEGIN " +
+            applyReservation("OLD", -1) + applyReservation("NEW", 1) + PRUNE + " END"
+    };
+
+    /** Recalcul complet du cumul depuis payments et reservations. */
+    static final String[] REBUILD = {
+        "DELETE FROM daily_revenue",
+        "INSERT INTO daily_revenue(day, user_id, kind, amount, operations) " +
+            "SELECT " + day("p.dateHeure") + " AS d, p.created_by, " + paymentKind("p") + " AS k, SUM(p.montantTotal), COUNT(*) " +
+            "FROM payments p WHERE p.created_by IS NOT NULL AND " + paymentKind("p") + " IS NOT NULL " +
+            "GROUP BY d, p.created_by, k",
+        "INSERT INTO daily_revenue(day, user_id, kind, amount, operations) " +
+            "SELECT " + day("r.reservationDate") + " AS d, r.user_id, '" + KIND_RESERVATION + "', SUM(coalesce(r.total_price, 0)), COUNT(*) " +
+            "FROM reservations r WHERE r.user_id IS NOT NULL " +
+            "GROUP BY d, r.user_id"
+    };
+
+    private DailyRevenueRollup() {}
+
+    /** Crée la table et les triggers si besoin, puis recalcule tout le cumul (base existante, réparation). */
+    public static void rebuild(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                st.execute(sql);
+            }
+            for (String sql : REBUILD) {
+                st.execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -22,11 +22,20 @@ import com.repositories.bd.ProduitRepositoryJpa;
 import com.repositories.bd.PromotionRepositoryJpa;
 import com.repositories.bd.ReservationRepositoryJpa;
 import com.repositories.bd.UserRepositoryJpa;
+import com.services.FinanceQueryService;
 import com.services.IService;
 import com.services.Service;
 
 public class Fabrique {
     private static IService serviceInstance;
+    private static FinanceQueryService financeQueryService;
+
+    public static synchronized FinanceQueryService getFinanceQueryService() {
+        if (financeQueryService == null) {
+            financeQueryService = new FinanceQueryService();
+        }
+        return financeQueryService;
+    }
 
     public static IService getService() {
         if (serviceInstance == null) {
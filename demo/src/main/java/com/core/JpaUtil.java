@@ -50,9 +50,22 @@ public class JpaUtil {
     public static void initEntityManagerFactory() {
         if (entityManagerFactory == null) {
             try {
-                Map<String, String> properties = new HashMap<>();
-                properties.put("javax.persistence.jdbc.url", "jdbc:sqlite:" + DB_FILE_PATH);
+                Map<String, Object> properties = new HashMap<>();
+                // Connexions fournies par le pool HikariCP (pragmas WAL, busy_timeout, cache...)
+                properties.put("javax.persistence.nonJtaDataSource", SqliteDataSources.getDataSource());
+                if (AppConfig.isJpaDebug()) {
+                    // Profil debug : requêtes SQL affichées, statistiques Hibernate (dont les caches)
+                    properties.put("hibernate.show_sql", "true");
+                    properties.put("hibernate.format_sql", "true");
+                    properties.put("hibernate.generate_statistics", "true");
+                }
                 entityManagerFactory = Persistence.createEntityManagerFactory("gestionSallesPU", properties);
+                EntityManager em = entityManagerFactory.createEntityManager();
+                try {
+                    SchemaMigrator.migrate(em);
+                } finally {
+                    em.close();
+                }
             } catch (Exception e) {
                 System.err.println("Erreur d'initialisation: " + e.getMessage());
                 e.printStackTrace();
@@ -61,7 +74,19 @@ public class JpaUtil {
         }
     }
 
+    /**
+     * EntityManager pour un dépôt. Dans une UnitOfWork, retourne l'EntityManager partagé de l'unité
+     * (close() et commit() y deviennent des participations).
+     */
     public static EntityManager getEntityManager() {
+        EntityManager shared = UnitOfWork.currentEntityManager();
+        if (shared != null) {
+            return shared;
+        }
+        return createEntityManager();
+    }
+
+    static EntityManager createEntityManager() {
         if (entityManagerFactory == null) {
             throw new IllegalStateException("EntityManagerFactory non initialisée.");
         }
@@ -69,9 +94,11 @@ public class JpaUtil {
     }
 
     public static void closeEntityManagerFactory() {
+        TransactionRunner.shutdown();
         if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
             entityManagerFactory.close();
             entityManagerFactory = null;
         }
+        SqliteDataSources.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,391 @@
+package com.core;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Journal des opérations métier (vente, prolongation, pause, reprise) écrit avant leur application :
+ * une opération interrompue par un arrêt brutal est rejouée au démarrage suivant.
+ *
+ * - chaque opération est d'abord ajoutée au journal (fichier projeté en mémoire, à côté de la base)
+ *   avec toutes les données nécessaires à son application, puis rendue durable : les ajouts
+ *   concurrents partagent un même force() ;
+ * - l'opération est ensuite appliquée par TransactionRunner en une seule transaction, qui enregistre
+ *   aussi son identifiant dans operation_journal_applied : la base indique sans ambiguïté si elle a été
+ *   validée, le marqueur "terminée" du journal n'a donc pas besoin d'être forcé ;
+ * - au démarrage, recover() rejoue les opérations ni terminées ni appliquées ; une opération que la
+ *   base refuse (stock insuffisant...) est marquée annulée : rien n'en a été écrit.
+ *
+ * Format : en-tête (magic, version, époque, dernier identifiant) puis enregistrements
+ * [longueur][crc][identifiant, type, nature, champs]. Le CRC couvre l'époque : quand plus aucune
+ * opération n'est en cours, le journal repart du début avec une nouvelle époque et les anciens
+ * enregistrements restés derrière ne sont plus lus.
+ */
+public final class OperationJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(OperationJournal.class);
+
+    /** Application d'une opération à partir de ses champs, dans la transaction de TransactionRunner. */
+    @FunctionalInterface
+    public interface Handler {
+        void apply(Map<String, String> fields) throws Exception;
+    }
+
+    private static final String FILE_SUFFIX = ".oplog";
+    private static final int MAGIC = 0x47534F4A; // "GSOJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_HEADER = 8;
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+
+    private static final byte BEGIN = 1;
+    private static final byte DONE = 2;
+    private static final byte ABORTED = 3;
+
+    /** Opération écrite dans le journal et pas encore terminée. */
+    private static final class Pending {
+        final String kind;
+        final Map<String, String> fields;
+
+        Pending(String kind, Map<String, String> fields) {
+            this.kind = kind;
+            this.fields = fields;
+        }
+    }
+
+    private static OperationJournal instance;
+
+    private final Path file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long epoch;
+    private long nextId;
+    private int position;
+    // Octets écrits depuis l'ouverture (position logique, ne revient pas à zéro avec l'époque)
+    private long written;
+    private final Map<Long, Pending> pending = new TreeMap<>();
+
+    private final Object syncLock = new Object();
+    private long durable;
+
+    /** Journal de la base en service (fichier gestionsalles.sqlite.oplog). */
+    public static synchronized OperationJournal get() {
+        if (instance == null) {
+            try {
+                instance = new OperationJournal(Paths.get(JpaUtil.getDbFilePath() + FILE_SUFFIX));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Journal des opérations inaccessible", e);
+            }
+        }
+        return instance;
+    }
+
+    OperationJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            epoch = 1;
+            writeHeader(0);
+        } else {
+            epoch = buffer.getLong(8);
+            nextId = buffer.getLong(16);
+        }
+        position = HEADER_SIZE;
+        scan();
+        nextId++;
+        if (!pending.isEmpty()) {
+            log.warn("{} opération(s) interrompue(s) dans {}", pending.size(), file.getFileName());
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Écrit l'opération dans le journal puis l'applique (work) dans une transaction de TransactionRunner.
+     * Retourne le résultat de work ; en cas d'échec, l'opération est marquée annulée et l'exception
+     * remonte à l'appelant.
+     */
+    public <T> T execute(String kind, Map<String, String> fields, TransactionRunner.Work<T> work) throws Exception {
+        long id = begin(kind, fields);
+        T result;
+        try {
+            result = TransactionRunner.call(() -> {
+                markApplied(id, kind);
+                return work.execute();
+            });
+        } catch (Exception | Error e) {
+            abort(id);
+            throw e;
+        }
+        complete(id);
+        return result;
+    }
+
+    /**
+     * Rejoue les opérations interrompues avec le handler de leur nature et retourne le nombre
+     * d'opérations rejouées. Une opération déjà validée en base est seulement marquée terminée.
+     */
+    public int recover(Map<String, Handler> handlers) {
+        List<Map.Entry<Long, Pending>> interrupted;
+        long firstNewId;
+        synchronized (this) {
+            interrupted = new ArrayList<>(pending.entrySet());
+            firstNewId = nextId;
+        }
+        int replayed = 0;
+        for (Map.Entry<Long, Pending> entry : interrupted) {
+            long id = entry.getKey();
+            Pending op = entry.getValue();
+            Handler handler = handlers.get(op.kind);
+            try {
+                if (handler == null) {
+                    throw new IllegalStateException("Aucun traitement pour les opérations « " + op.kind + " »");
+                }
+                boolean applied = TransactionRunner.call(() -> {
+                    if (isApplied(id)) return false;
+                    markApplied(id, op.kind);
+                    handler.apply(op.fields);
+                    return true;
+                });
+                complete(id);
+                if (applied) {
+                    replayed++;
+                    log.info("Opération {} ({}) rejouée : {}", id, op.kind, op.fields);
+                }
+            } catch (Exception e) {
+                abort(id);
+                log.error("Opération {} ({}) annulée, à reprendre manuellement : {}", id, op.kind, op.fields, e);
+            }
+        }
+        // Les opérations antérieures sont toutes terminées : leurs identifiants ne servent plus
+        try {
+            TransactionRunner.run(() -> JpaUtil.getEntityManager().unwrap(Session.class).doWork(c -> {
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM operation_journal_applied WHERE op_id < ?")) {
+                    ps.setLong(1, firstNewId);
+                    ps.executeUpdate();
+                }
+            }));
+        } catch (Exception e) {
+            log.warn("Nettoyage de operation_journal_applied impossible : {}", e.getMessage());
+        }
+        synchronized (this) {
+            if (pending.isEmpty()) reset();
+        }
+        return replayed;
+    }
+
+    /** Nombre d'opérations écrites et pas encore terminées. */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    // --- Écriture ---
+
+    /** Ajoute l'opération au journal et attend qu'elle soit durable ; retourne son identifiant. */
+    long begin(String kind, Map<String, String> fields) throws IOException {
+        // Champ null : absent de l'opération, comme au rejeu
+        Map<String, String> values = new LinkedHashMap<>();
+        fields.forEach((key, value) -> {
+            if (value != null) values.put(key, value);
+        });
+        Map<String, String> copy = Collections.unmodifiableMap(values);
+        long id;
+        long end;
+        synchronized (this) {
+            id = nextId++;
+            end = append(id, BEGIN, kind, copy);
+            pending.put(id, new Pending(kind, copy));
+        }
+        sync(end);
+        return id;
+    }
+
+    void complete(long id) {
+        synchronized (this) {
+            append(id, DONE, null, null);
+            pending.remove(id);
+            resetIfIdle();
+        }
+    }
+
+    // Forcé : sans ce marqueur, une opération refusée serait rejouée au démarrage suivant
+    void abort(long id) {
+        long end;
+        synchronized (this) {
+            end = append(id, ABORTED, null, null);
+            pending.remove(id);
+        }
+        sync(end);
+        synchronized (this) {
+            resetIfIdle();
+        }
+    }
+
+    private long append(long id, byte type, String kind, Map<String, String> fields) {
+        byte[] body = encode(id, type, kind, fields);
+        int length = RECORD_HEADER + body.length;
+        if (position + length > buffer.capacity()) grow(position + length);
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(0, epoch));
+        crc.update(body);
+        buffer.putInt(position, body.length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + RECORD_HEADER, body);
+        position += length;
+        written += length;
+        return written;
+    }
+
+    // Regroupement des force() : un appelant rend durable tout ce qui a été écrit avant lui
+    private void sync(long end) {
+        synchronized (syncLock) {
+            if (durable >= end) return;
+            MappedByteBuffer target;
+            long upTo;
+            synchronized (this) {
+                target = buffer;
+                upTo = written;
+            }
+            target.force();
+            durable = upTo;
+        }
+    }
+
+    private void resetIfIdle() {
+        if (pending.isEmpty() && position > buffer.capacity() / 2) reset();
+    }
+
+    // Nouvelle époque : les enregistrements existants deviennent illisibles (CRC)
+    private void reset() {
+        if (position == HEADER_SIZE) return;
+        epoch++;
+        writeHeader(nextId - 1);
+        position = HEADER_SIZE;
+    }
+
+    private void writeHeader(long lastId) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, epoch);
+        buffer.putLong(16, lastId);
+        buffer.force(0, HEADER_SIZE);
+    }
+
+    private void grow(int needed) {
+        int capacity = buffer.capacity();
+        while (capacity < needed) capacity *= 2;
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Agrandissement du journal des opérations impossible", e);
+        }
+    }
+
+    // --- Lecture ---
+
+    private void scan() {
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER + length > buffer.capacity()) break;
+            byte[] body = new byte[length];
+            buffer.get(position + RECORD_HEADER, body);
+            crc.reset();
+            crc.update(ByteBuffer.allocate(8).putLong(0, epoch));
+            crc.update(body);
+            // Fin du journal : enregistrement incomplet ou d'une époque précédente
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) break;
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+                long id = in.readLong();
+                byte type = in.readByte();
+                if (type == BEGIN) {
+                    String kind = in.readUTF();
+                    int count = in.readInt();
+                    Map<String, String> fields = new LinkedHashMap<>();
+                    for (int i = 0; i < count; i++) {
+                        fields.put(in.readUTF(), in.readUTF());
+                    }
+                    pending.put(id, new Pending(kind, Collections.unmodifiableMap(fields)));
+                } else {
+                    pending.remove(id);
+                }
+                nextId = Math.max(nextId, id);
+            } catch (IOException e) {
+                break;
+            }
+            position += RECORD_HEADER + length;
+        }
+    }
+
+    private static byte[] encode(long id, byte type, String kind, Map<String, String> fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(type == BEGIN ? 256 : 9);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(id);
+            out.writeByte(type);
+            if (type == BEGIN) {
+                out.writeUTF(kind);
+                out.writeInt(fields.size());
+                for (Map.Entry<String, String> field : fields.entrySet()) {
+                    out.writeUTF(field.getKey());
+                    out.writeUTF(field.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // --- Marqueur en base (dans la transaction de l'opération) ---
+
+    private static void markApplied(long id, String kind) {
+        JpaUtil.getEntityManager().unwrap(Session.class).doWork(c -> {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "INSERT INTO operation_journal_applied(op_id, kind, applied_at) VALUES (?, ?, ?)")) {
+                ps.setLong(1, id);
+                ps.setString(2, kind);
+                ps.setLong(3, System.currentTimeMillis());
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    private static boolean isApplied(long id) {
+        return JpaUtil.getEntityManager().unwrap(Session.class).doReturningWork(c -> {
+            try (PreparedStatement ps = c.prepareStatement("SELECT 1 FROM operation_journal_applied WHERE op_id = ?")) {
+                ps.setLong(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        });
+    }
+}
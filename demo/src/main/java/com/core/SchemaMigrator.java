@@ -0,0 +1,126 @@
+package com.core;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migrations de schéma SQLite appliquées au démarrage, après la création de l'EntityManagerFactory
+ * (hbm2ddl=update crée les tables mais pas les index ni les objets spécifiques à SQLite).
+ * La version appliquée est mémorisée dans PRAGMA user_version ; chaque instruction reste idempotente.
+ */
+public final class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /** Une étape de migration : numéro de version et instructions SQL associées. */
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        MIGRATIONS.add(new Migration(1, "Index sessions de jeu (statut, client, poste)",
+            "CREATE INDEX IF NOT EXISTS idx_game_sessions_status ON game_sessions(status)",
+            "CREATE INDEX IF NOT EXISTS idx_game_sessions_client_status ON game_sessions(client_id, status)",
+            "CREATE INDEX IF NOT EXISTS idx_game_sessions_poste_status ON game_sessions(poste_id, status)"));
+        MIGRATIONS.add(new Migration(2, "Index liste paginée des réservations (statut, utilisateur, date)",
+            "CREATE INDEX IF NOT EXISTS idx_reservations_status_date ON reservations(status, reservationDate, id)",
+            "CREATE INDEX IF NOT EXISTS idx_reservations_user_date ON reservations(user_id, reservationDate, id)",
+            "CREATE INDEX IF NOT EXISTS idx_reservations_date ON reservations(reservationDate, id)"));
+        MIGRATIONS.add(new Migration(3, "Index agrégats financiers des paiements (créateur, date)",
+            "CREATE INDEX IF NOT EXISTS idx_payments_created_date ON payments(created_by, dateHeure)",
+            "CREATE INDEX IF NOT EXISTS idx_payments_date ON payments(dateHeure)"));
+        MIGRATIONS.add(new Migration(4, "Cumul journalier daily_revenue (table, triggers, calcul initial)",
+            concat(DailyRevenueRollup.SCHEMA, DailyRevenueRollup.REBUILD)));
+        MIGRATIONS.add(new Migration(5, "File d'impression des tickets print_jobs",
+            "CREATE TABLE IF NOT EXISTS print_jobs (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, created_at INTEGER NOT NULL, description TEXT, " +
+                "payload BLOB NOT NULL, status TEXT NOT NULL DEFAULT 'pending', " +
+                "attempts INTEGER NOT NULL DEFAULT 0, last_error TEXT)",
+            "CREATE INDEX IF NOT EXISTS idx_print_jobs_status ON print_jobs(status, id)"));
+        MIGRATIONS.add(new Migration(6, "Opérations du journal appliquées operation_journal_applied",
+            "CREATE TABLE IF NOT EXISTS operation_journal_applied (" +
+                "op_id INTEGER PRIMARY KEY, kind TEXT NOT NULL, applied_at INTEGER NOT NULL)"));
+        MIGRATIONS.add(new Migration(7, "Index plein texte des clients clients_fts (table FTS5, triggers, remplissage)",
+            concat(ClientSearchIndex.SCHEMA, ClientSearchIndex.REBUILD)));
+        MIGRATIONS.add(new Migration(8, "Index résumés clients (réservations par client : nombre, durée, dernière visite)",
+            "CREATE INDEX IF NOT EXISTS idx_reservations_client_date ON reservations(client_id, reservationDate, duration)"));
+        // Les remises étaient écrites dans prix (prix d'origine dans ancienPrix) : prix de base restauré,
+        // la remise est désormais calculée à la lecture (PromotionEngine). Un ancienPrix à 0 n'est pas un prix.
+        MIGRATIONS.add(new Migration(9, "Prix de base des produits restaurés (remises calculées à la lecture)",
+            "UPDATE produits SET prix = ancienPrix, ancienPrix = NULL WHERE ancienPrix IS NOT NULL AND ancienPrix <> 0"));
+        // Fin de session calculée (startTime en ms, paidDuration en minutes) : même expression que findEndingBefore
+        MIGRATIONS.add(new Migration(10, "Index échéance des sessions de jeu (statut, début + durée payée)",
+            "CREATE INDEX IF NOT EXISTS idx_game_sessions_status_end ON game_sessions(status, startTime + paidDuration * 60000)"));
+    }
+
+    private SchemaMigrator() {}
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] all = new String[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    /**
+     * Applique les migrations dont la version est supérieure à PRAGMA user_version, chacune dans sa
+     * propre transaction. Une étape en échec est annulée (user_version reste à la dernière étape
+     * réussie) et l'exception remonte : l'application ne démarre pas sur un schéma partiellement migré.
+     */
+    public static void migrate(EntityManager em) {
+        int current = em.unwrap(Session.class).doReturningWork(SchemaMigrator::userVersion);
+        for (Migration m : MIGRATIONS) {
+            if (m.version <= current) continue;
+            EntityTransaction transaction = em.getTransaction();
+            try {
+                transaction.begin();
+                em.unwrap(Session.class).doWork(connection -> apply(connection, m));
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                log.error("Migration {} en échec ({}), schéma laissé en version {}", m.version, m.description, current, e);
+                throw new RuntimeException("Migration du schéma " + m.version + " en échec : " + m.description, e);
+            }
+            current = m.version;
+            log.info("Migration {} appliquée : {}", m.version, m.description);
+        }
+    }
+
+    private static int userVersion(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void apply(Connection connection, Migration m) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            for (String sql : m.statements) {
+                st.execute(sql);
+            }
+            st.execute("PRAGMA user_version = " + m.version);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.core;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Pools de connexions HikariCP vers la base SQLite, branchés sur l'unité de persistance gestionSallesPU.
+ * Chaque connexion est ouverte avec les pragmas WAL, synchronous=NORMAL, busy_timeout, cache_size,
+ * mmap_size et temp_store=MEMORY.
+ *
+ * - pool d'écriture : une seule connexion, réservée au thread d'écriture (TransactionRunner). Des
+ *   lectures nombreuses ne peuvent donc pas occuper toutes les connexions et faire attendre un commit ;
+ * - pool principal : N connexions (db.pool.readers) pour les EntityManager des autres threads
+ *   (lectures des contrôleurs, démarrage). En WAL, SQLite n'autorise qu'un écrivain à la fois et
+ *   busy_timeout fait patienter une écriture isolée faite hors du thread d'écriture ;
+ * - pool en lecture seule : travaux de fond (sauvegardes, rapports, exports) qui ne doivent jamais
+ *   bloquer les écritures de la caisse.
+ *
+ * Hibernate reçoit une seule DataSource qui choisit le pool selon le thread appelant.
+ */
+public final class SqliteDataSources {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteDataSources.class);
+
+    private static HikariDataSource writerDataSource;
+    private static HikariDataSource sharedDataSource;
+    private static HikariDataSource readOnlyDataSource;
+    private static final DataSource routingDataSource = new ThreadRoutingDataSource();
+
+    private SqliteDataSources() {}
+
+    /**
+     * DataSource utilisée par Hibernate : connexion du pool d'écriture pour le thread d'écriture,
+     * du pool principal pour les autres threads.
+     */
+    public static DataSource getDataSource() {
+        return routingDataSource;
+    }
+
+    /** Pool d'écriture : une connexion, utilisée uniquement par le thread de TransactionRunner. */
+    static synchronized HikariDataSource getWriterDataSource() {
+        if (writerDataSource == null) {
+            writerDataSource = createPool("GestionSalles-writer", false, 1);
+        }
+        return writerDataSource;
+    }
+
+    /** Pool principal des autres threads. */
+    static synchronized HikariDataSource getSharedDataSource() {
+        if (sharedDataSource == null) {
+            sharedDataSource = createPool("GestionSalles-rw", false, Math.max(1, AppConfig.getDbPoolReaders()));
+        }
+        return sharedDataSource;
+    }
+
+    /** Pool en lecture seule pour les traitements de fond. */
+    public static synchronized HikariDataSource getReadOnlyDataSource() {
+        if (readOnlyDataSource == null) {
+            readOnlyDataSource = createPool("GestionSalles-ro", true, Math.max(1, AppConfig.getDbPoolReaders()));
+        }
+        return readOnlyDataSource;
+    }
+
+    /** Ferme les pools (arrêt de l'application). */
+    public static synchronized void close() {
+        if (readOnlyDataSource != null) {
+            readOnlyDataSource.close();
+            readOnlyDataSource = null;
+        }
+        if (sharedDataSource != null) {
+            sharedDataSource.close();
+            sharedDataSource = null;
+        }
+        if (writerDataSource != null) {
+            writerDataSource.close();
+            writerDataSource = null;
+        }
+    }
+
+    private static HikariDataSource createPool(String name, boolean readOnly, int size) {
+        SQLiteConfig config = new SQLiteConfig();
+        if (!readOnly) {
+            // Le mode WAL est persistant dans le fichier : seuls les pools en lecture-écriture le positionnent
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        }
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(AppConfig.getDbBusyTimeoutMs());
+        // Valeur négative : taille exprimée en KiB (convention SQLite)
+        config.setCacheSize(-AppConfig.getDbCacheSizeKb());
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(AppConfig.getDbMmapSizeMb() * 1024L * 1024L));
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        config.setReadOnly(readOnly);
+
+        SQLiteDataSource sqlite = new SQLiteDataSource(config);
+        sqlite.setUrl("jdbc:sqlite:" + JpaUtil.getDbFilePath());
+
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName(name);
+        hikari.setDataSource(sqlite);
+        hikari.setMaximumPoolSize(size);
+        hikari.setMinimumIdle(1);
+        // Doit refléter le mode d'ouverture SQLite : le pilote refuse de changer ce drapeau après coup
+        hikari.setReadOnly(readOnly);
+        log.info("Pool SQLite {} : {} connexion(s), lecture seule={}", name, size, readOnly);
+        return new HikariDataSource(hikari);
+    }
+
+    /** Aiguillage des connexions demandées par Hibernate selon le thread appelant. */
+    private static final class ThreadRoutingDataSource implements DataSource {
+
+        private DataSource target() {
+            return TransactionRunner.isWriterThread() ? getWriterDataSource() : getSharedDataSource();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return target().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return target().getConnection(username, password);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return getSharedDataSource().getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            getSharedDataSource().setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            getSharedDataSource().setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return getSharedDataSource().getLoginTimeout();
+        }
+
+        @Override
+        public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) return iface.cast(this);
+            throw new SQLException("Pas d'interface " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return iface.isInstance(this);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.core;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+import javax.persistence.RollbackException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Exécuteur unique des écritures en base : toutes les méthodes d'écriture du Service passent par
+ * un thread dédié qui possède un EntityManager de longue durée.
+ *
+ * - un traitement (une méthode du Service) = une transaction, portée par une UnitOfWork : les
+ *   dépôts appelés à l'intérieur partagent le même EntityManager et les mêmes entités gérées ;
+ * - les traitements soumis en même temps par plusieurs threads sont regroupés dans un seul commit
+ *   (un seul fsync), chacun isolé par un savepoint : l'échec de l'un n'annule pas les autres ; si le
+ *   lot entier doit être annulé (transaction rollback-only, commit refusé), les traitements restants
+ *   sont rejoués chacun dans sa propre transaction ;
+ * - un appel depuis le thread d'écriture lui-même (Service qui appelle le Service) rejoint la
+ *   transaction en cours au lieu de se bloquer.
+ */
+public final class TransactionRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionRunner.class);
+
+    /** Nombre maximal de traitements regroupés dans un même commit. */
+    private static final int MAX_BATCH = 32;
+
+    /** Traitement transactionnel retournant une valeur. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute() throws Exception;
+    }
+
+    /** Traitement transactionnel sans valeur de retour. */
+    @FunctionalInterface
+    public interface Action {
+        void execute() throws Exception;
+    }
+
+    private static final class Task<T> {
+        final Work<T> work;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        UnitOfWork unit;
+        T value;
+        Throwable failure;
+
+        Task(Work<T> work) {
+            this.work = work;
+        }
+
+        void run() throws Exception {
+            value = work.execute();
+        }
+
+        void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    /** Marqueur d'arrêt déposé dans la file par shutdown(). */
+    private static final Task<Void> STOP = new Task<>(() -> null);
+
+    private static final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    private static volatile Thread writer;
+
+    // EntityManager de longue durée, propre au thread d'écriture
+    private static EntityManager entityManager;
+
+    private TransactionRunner() {}
+
+    /** Exécute le traitement dans une transaction du thread d'écriture et retourne son résultat. */
+    public static <T> T call(Work<T> work) throws Exception {
+        Task<T> task = new Task<>(work);
+        if (Thread.currentThread() == writer) {
+            if (UnitOfWork.inTransaction()) {
+                // Appel imbriqué : participe à la transaction en cours
+                return work.execute();
+            }
+            // Appel depuis un rappel après commit : transaction dédiée, exécutée sur place
+            runBatch(List.of(task));
+        } else {
+            ensureStarted();
+            queue.put(task);
+        }
+        try {
+            return task.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /** Exécute le traitement dans une transaction du thread d'écriture. */
+    public static void run(Action action) throws Exception {
+        call(() -> {
+            action.execute();
+            return null;
+        });
+    }
+
+    /** Indique si l'appelant est le thread d'écriture (connexion prise dans le pool d'écriture). */
+    public static boolean isWriterThread() {
+        return writer != null && Thread.currentThread() == writer;
+    }
+
+    /** Termine les écritures en attente puis arrête le thread d'écriture (arrêt de l'application). */
+    public static synchronized void shutdown() {
+        Thread t = writer;
+        if (t == null) return;
+        queue.add(STOP);
+        try {
+            t.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    private static synchronized void ensureStarted() {
+        if (writer != null) return;
+        Thread t = new Thread(TransactionRunner::loop, "GestionSalles-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    private static void loop() {
+        List<Task<?>> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.clear();
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                boolean stop = batch.remove(STOP);
+                if (!batch.isEmpty()) runBatch(batch);
+                if (stop) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeEntityManager();
+            log.info("Thread d'écriture arrêté");
+        }
+    }
+
+    private static void runBatch(List<Task<?>> batch) {
+        EntityManager em = entityManager();
+        EntityTransaction transaction = em.getTransaction();
+        Session session = em.unwrap(Session.class);
+        boolean grouped = batch.size() > 1;
+        boolean committed = false;
+        List<Task<?>> retry = List.of();
+        try {
+            transaction.begin();
+            for (Task<?> task : batch) {
+                Savepoint savepoint = grouped ? session.doReturningWork(c -> c.setSavepoint()) : null;
+                task.unit = UnitOfWork.begin(em);
+                try {
+                    task.run();
+                    em.flush();
+                    if (task.unit.isRollbackRequested()) {
+                        throw new RollbackException("Écriture annulée suite à une erreur dans un dépôt.");
+                    }
+                } catch (Throwable e) {
+                    task.failure = e;
+                } finally {
+                    task.unit.end();
+                }
+                if (task.failure == null) {
+                    if (savepoint != null) session.doWork(c -> c.releaseSavepoint(savepoint));
+                } else if (savepoint != null && !transaction.getRollbackOnly()) {
+                    // Seul ce traitement est annulé ; les écritures déjà flushées des autres sont conservées
+                    session.doWork(c -> c.rollback(savepoint));
+                    em.clear();
+                    task.unit.discardAfterCommit();
+                } else {
+                    throw new BatchAbortedException(task.failure);
+                }
+            }
+            transaction.commit();
+            committed = true;
+        } catch (Throwable e) {
+            Throwable cause = e instanceof BatchAbortedException ? e.getCause() : e;
+            rollbackQuietly(transaction);
+            if (grouped) {
+                // Les traitements sans échec propre sont rejoués un par un : seul le fautif échoue
+                log.warn("Lot d'écriture annulé ({} traitement(s)), rejeu individuel : {}", batch.size(), cause.toString());
+                retry = new ArrayList<>();
+                for (Task<?> task : batch) {
+                    if (task.unit != null) task.unit.discardAfterCommit();
+                    if (task.failure == null) {
+                        task.unit = null;
+                        task.value = null;
+                        retry.add(task);
+                    }
+                }
+            } else {
+                if (!(e instanceof BatchAbortedException)) {
+                    log.error("Transaction d'écriture annulée", cause);
+                }
+                Task<?> task = batch.get(0);
+                if (task.failure == null) {
+                    task.failure = new PersistenceException("Écriture annulée avec la transaction.", cause);
+                }
+                if (task.unit != null) task.unit.discardAfterCommit();
+            }
+        } finally {
+            try {
+                em.clear();
+            } catch (RuntimeException e) {
+                closeEntityManager();
+            }
+        }
+        for (Task<?> task : batch) {
+            if (retry.contains(task)) continue;
+            if (committed && task.failure == null) {
+                for (Runnable action : task.unit.afterCommitActions()) {
+                    try {
+                        action.run();
+                    } catch (RuntimeException e) {
+                        log.warn("Action après commit en échec : {}", e.getMessage(), e);
+                    }
+                }
+            }
+            task.complete();
+        }
+        for (Task<?> task : retry) {
+            runBatch(List.of(task));
+        }
+    }
+
+    private static void rollbackQuietly(EntityTransaction transaction) {
+        try {
+            if (transaction.isActive()) transaction.rollback();
+        } catch (RuntimeException e) {
+            log.warn("Rollback impossible : {}", e.getMessage());
+            closeEntityManager();
+        }
+    }
+
+    private static EntityManager entityManager() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            entityManager = JpaUtil.createEntityManager();
+        }
+        return entityManager;
+    }
+
+    private static void closeEntityManager() {
+        if (entityManager != null && entityManager.isOpen()) {
+            try {
+                entityManager.close();
+            } catch (RuntimeException e) {
+                log.warn("Fermeture de l'EntityManager d'écriture : {}", e.getMessage());
+            }
+        }
+        entityManager = null;
+    }
+
+    /** Echec qui impose l'annulation du lot entier (transaction marquée rollback-only). */
+    private static final class BatchAbortedException extends RuntimeException {
+        BatchAbortedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
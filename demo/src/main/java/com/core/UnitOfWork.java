@@ -0,0 +1,168 @@
+package com.core;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.RollbackException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Unité de travail liée au thread courant : un seul EntityManager, partagé par tous les dépôts appelés
+ * dans sa portée (JpaUtil.getEntityManager() le retourne). Les entités chargées y restent gérées : les
+ * relations LAZY sont accessibles et les modifications sont écrites par le dirty checking, sans merge
+ * de graphes détachés ni rechargement.
+ *
+ * - en écriture : ouverte par TransactionRunner sur le thread d'écriture, validée en un seul commit ;
+ *   les begin/commit des dépôts deviennent des participations, close() ne ferme rien ;
+ * - en lecture : UnitOfWork.read(...) sur n'importe quel thread, sans transaction.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final EntityManager target;
+    private final EntityManager shared;
+    private final boolean transactional;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private boolean rollbackRequested;
+
+    private UnitOfWork(EntityManager target, boolean transactional) {
+        this.target = target;
+        this.transactional = transactional;
+        this.shared = createSharedProxy(target, new ParticipatingTransaction());
+    }
+
+    /**
+     * Exécute plusieurs lectures de dépôts avec un seul EntityManager. Dans une unité de travail déjà
+     * ouverte (lecture ou écriture), le traitement la rejoint.
+     */
+    public static <T> T read(Supplier<T> work) {
+        if (CURRENT.get() != null) {
+            return work.get();
+        }
+        EntityManager em = JpaUtil.createEntityManager();
+        CURRENT.set(new UnitOfWork(em, false));
+        try {
+            return work.get();
+        } finally {
+            CURRENT.remove();
+            em.close();
+        }
+    }
+
+    /**
+     * Enregistre une action à exécuter une fois l'unité de travail validée (mise à jour des caches
+     * mémoire, par exemple). Hors unité de travail en écriture, l'action est exécutée immédiatement.
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current != null && current.transactional) {
+            current.afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /** Indique si le thread courant est dans une unité de travail en écriture. */
+    static boolean inTransaction() {
+        UnitOfWork current = CURRENT.get();
+        return current != null && current.transactional;
+    }
+
+    /** EntityManager partagé de l'unité de travail du thread courant, ou null. */
+    static EntityManager currentEntityManager() {
+        UnitOfWork current = CURRENT.get();
+        return current == null ? null : current.shared;
+    }
+
+    /** Ouvre une unité de travail en écriture sur l'EntityManager du runner (transaction déjà commencée). */
+    static UnitOfWork begin(EntityManager em) {
+        UnitOfWork unit = new UnitOfWork(em, true);
+        CURRENT.set(unit);
+        return unit;
+    }
+
+    /** Détache l'unité de travail du thread courant. */
+    void end() {
+        if (CURRENT.get() == this) CURRENT.remove();
+    }
+
+    /** Un dépôt a demandé l'annulation (rollback intercepté). */
+    boolean isRollbackRequested() {
+        return rollbackRequested;
+    }
+
+    /** Oublie les actions après commit (unité de travail annulée). */
+    void discardAfterCommit() {
+        afterCommit.clear();
+    }
+
+    List<Runnable> afterCommitActions() {
+        return afterCommit;
+    }
+
+    private static EntityManager createSharedProxy(EntityManager target, EntityTransaction participating) {
+        return (EntityManager) Proxy.newProxyInstance(
+            EntityManager.class.getClassLoader(),
+            new Class<?>[] { EntityManager.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        return null;
+                    case "isOpen":
+                        return target.isOpen();
+                    case "getTransaction":
+                        return participating;
+                    default:
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            });
+    }
+
+    /** Transaction vue par un dépôt dans l'unité de travail : la vraie transaction reste au runner. */
+    private final class ParticipatingTransaction implements EntityTransaction {
+
+        @Override
+        public void begin() {
+            if (!transactional) {
+                throw new IllegalStateException("Écriture impossible dans une unité de travail en lecture : passer par TransactionRunner.");
+            }
+        }
+
+        @Override
+        public void commit() {
+            if (rollbackRequested) {
+                throw new RollbackException("Transaction marquée pour annulation.");
+            }
+            // Les erreurs de contraintes remontent dans le dépôt qui les a provoquées
+            target.flush();
+        }
+
+        @Override
+        public void rollback() {
+            rollbackRequested = true;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            rollbackRequested = true;
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return rollbackRequested;
+        }
+
+        @Override
+        public boolean isActive() {
+            return transactional;
+        }
+    }
+}
@@ -1,29 +1,40 @@
 package com.entities;
 
 import java.time.LocalDate;
-import java.util.List;
 
+/**
+ * Ligne du journal financier : totaux d'un admin pour une journée, calculés en SQL par
+ * FinanceQueryService. Le détail des opérations n'est chargé qu'à la génération du PDF.
+ */
 public class AdminDailyReport {
-    private User admin;
+    private int adminId;
+    private String adminName;
     private LocalDate date;
-    private List<Payment> payments;
-    private List<Reservation> reservations;
-    private double totalAmount;
+    private int productSalesCount;
+    private double productSalesTotal;
+    private int reservationCount;
+    private double reservationTotal;
 
-    public AdminDailyReport(User admin, LocalDate date, List<Payment> payments, List<Reservation> reservations) {
-        this.admin = admin;
+    public AdminDailyReport(int adminId, String adminName, LocalDate date,
+                            int productSalesCount, double productSalesTotal,
+                            int reservationCount, double reservationTotal) {
+        this.adminId = adminId;
+        this.adminName = adminName;
         this.date = date;
-        this.payments = payments;
-        this.reservations = reservations;
-        this.totalAmount = payments.stream().mapToDouble(Payment::getMontantTotal).sum() +
-                           reservations.stream().mapToDouble(Reservation::getTotalPrice).sum();
+        this.productSalesCount = productSalesCount;
+        this.productSalesTotal = productSalesTotal;
+        this.reservationCount = reservationCount;
+        this.reservationTotal = reservationTotal;
     }
 
     // Getters
-    public User getAdmin() { return admin; }
+    public int getAdminId() { return adminId; }
+    public String getAdminName() { return adminName != null ? adminName : "N/A"; }
     public LocalDate getDate() { return date; }
-    public List<Payment> getPayments() { return payments; }
-    public List<Reservation> getReservations() { return reservations; }
-    public double getTotalAmount() { return totalAmount; }
-    public int getTotalOperations() { return payments.size() + reservations.size(); }
+    public int getProductSalesCount() { return productSalesCount; }
+    public double getProductSalesTotal() { return productSalesTotal; }
+    public int getReservationCount() { return reservationCount; }
+    public double getReservationTotal() { return reservationTotal; }
+    public double getTotalAmount() { return productSalesTotal + reservationTotal; }
+    public int getTotalOperations() { return productSalesCount + reservationCount; }
 }
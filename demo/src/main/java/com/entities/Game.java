@@ -1,12 +1,17 @@
 package com.entities;
 
 import javax.persistence.*;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects; // Ajout de l'import pour Objects.hash
 
 @Entity
 @Table(name = "games")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "games")
 public class Game {
     
     @Id
@@ -6,8 +6,13 @@ import java.util.Objects; // Ajout de l'import pour Objects.hash
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
 @Table(name = "postes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "postes")
 public class Poste {
 
     @Id
@@ -21,6 +26,7 @@ public class Poste {
     private boolean horsService; 
 
     @ManyToMany(fetch = FetchType.LAZY) // FetchType.LAZY est la valeur par défaut, mais explicite c'est bien.
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "poste-games")
     @JoinTable(
         name = "poste_game",
         joinColumns = @JoinColumn(name = "poste_id"),
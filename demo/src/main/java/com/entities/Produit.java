@@ -1,8 +1,10 @@
 package com.entities;
 
 import javax.persistence.*;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -11,6 +13,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "produits")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produits")
 public class Produit {
 
     @Id
@@ -34,6 +38,7 @@ public class Produit {
     private Categorie categorie;
 
     @ManyToMany(fetch = FetchType.EAGER) // Chargement immédiat
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produit-promotions")
     @JoinTable(
         name = "promotion_produit",
         joinColumns = @JoinColumn(name = "produit_id"),
@@ -42,8 +47,13 @@ public class Produit {
     private Set<Promotion> promotions = new HashSet<>();
 
 
+    // Ancien mécanisme (prix remisé écrit en base) : plus renseigné, la remise est calculée à la lecture
     private BigDecimal ancienPrix;
 
+    // Prix remisé du jour, calculé par PromotionEngine au chargement (null hors promotion, non persisté)
+    @Transient
+    private BigDecimal prixPromo;
+
     public Produit() {}
 
     public Produit(String nom, BigDecimal prix, int stock, String image, LocalDate dateLimiteConsommation) {
@@ -69,16 +79,13 @@ public class Produit {
         stock += quantite;
     }
 
-    public void appliquerPromotion() {
-        for (Promotion promo : promotions) {
-            if (promo.isValid()) {
-                this.ancienPrix = this.prix;
-                BigDecimal taux = BigDecimal.valueOf(promo.getTauxReduction());
-                BigDecimal remise = prix.multiply(taux).setScale(2, RoundingMode.HALF_UP);
-                this.prix = prix.subtract(remise);
-                break;
-            }
-        }
+    /** Prix à encaisser : prix remisé du jour s'il y en a un, sinon prix de base. */
+    public BigDecimal getPrixEffectif() {
+        return prixPromo != null ? prixPromo : prix;
+    }
+
+    public boolean isEnPromotion() {
+        return prixPromo != null && prix != null && prixPromo.compareTo(prix) < 0;
     }
 
 
@@ -132,6 +139,14 @@ public class Produit {
         this.ancienPrix = ancienPrix;
     }
 
+    public BigDecimal getPrixPromo() {
+        return prixPromo;
+    }
+
+    public void setPrixPromo(BigDecimal prixPromo) {
+        this.prixPromo = prixPromo;
+    }
+
     public int getStock() {
         return stock;
     }
@@ -1,6 +1,9 @@
 package com.entities;
 
 import javax.persistence.*;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate; // Importation pour LocalDate
 import java.util.HashSet;
 import java.util.Set;
@@ -8,6 +11,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "promotions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "promotions")
 public class Promotion {
 
     @Id
@@ -137,19 +142,6 @@ public class Promotion {
         }
     }
 
-    /**
-     * Restaure les prix originaux de tous les produits associés à cette promotion.
-     * Cette méthode doit être appelée quand la promotion est désactivée.
-     */
-   // Remove this method from Promotion.java
-    public void restoreOriginalPrices() {
-        for (Produit p : produits) {
-            if (p.getAncienPrix() != null) {
-                p.setPrix(p.getAncienPrix());
-                p.setAncienPrix(null);
-            }
-        }
-    }
     /**
      * Vérifie si la promotion est actuellement valide.
      * Une promotion est valide si elle est active et que la date actuelle est entre sa date de début et sa date de fin (incluses).
@@ -0,0 +1,96 @@
+package com.reports;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * CSV au format attendu par Excel en français : UTF-8 avec BOM, séparateur point-virgule, virgule
+ * décimale, dates jj/mm/aaaa hh:mm:ss. Les champs contenant un séparateur, un guillemet ou un retour à
+ * la ligne sont entre guillemets.
+ */
+public final class CsvTableWriter implements TableWriter {
+
+    private static final char SEPARATOR = ';';
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private final Writer out;
+    private boolean firstCell;
+
+    public CsvTableWriter(File file) throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024);
+        out.write('\uFEFF');
+    }
+
+    @Override
+    public void header(String... names) throws IOException {
+        startRow();
+        for (String name : names) {
+            text(name);
+        }
+        endRow();
+    }
+
+    @Override
+    public void startRow() {
+        firstCell = true;
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        separator();
+        if (value == null) return;
+        if (value.indexOf(SEPARATOR) >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        } else {
+            out.write(value);
+        }
+    }
+
+    @Override
+    public void integer(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    public void amount(double value) throws IOException {
+        separator();
+        out.write(String.format(Locale.FRANCE, "%.2f", value));
+    }
+
+    @Override
+    public void dateTime(LocalDateTime value) throws IOException {
+        separator();
+        if (value != null) out.write(DATE_FORMAT.format(value));
+    }
+
+    @Override
+    public void empty() throws IOException {
+        separator();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separator() throws IOException {
+        if (!firstCell) out.write(SEPARATOR);
+        firstCell = false;
+    }
+}
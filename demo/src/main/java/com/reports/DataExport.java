@@ -0,0 +1,212 @@
+package com.reports;
+
+import com.core.SqliteDataSources;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.LongConsumer;
+
+/**
+ * Exports bruts pour la comptabilité (paiements, réservations, sessions, sorties de stock) sur une
+ * période, écrits dans un TableWriter (CSV ou XLSX).
+ *
+ * Les lignes sont lues sur le pool en lecture seule par un ResultSet en avant seulement, par lots de
+ * FETCH_SIZE, et écrites aussitôt : aucune entité, aucune liste. La mémoire utilisée ne dépend pas de la
+ * taille de l'export, qui peut couvrir tout l'historique.
+ *
+ * Dates stockées en millisecondes epoch, période découpée dans le fuseau local ; bornes nulles =
+ * période non limitée.
+ */
+public final class DataExport {
+
+    private static final int FETCH_SIZE = 500;
+    // Fréquence des notifications d'avancement
+    private static final int PROGRESS_EVERY = 1000;
+
+    /** Contenu exportable. */
+    public enum Dataset {
+        PAYMENTS("Paiements",
+            "SELECT p.id, p.numeroTicket, p.dateHeure, p.montantTotal, p.modePaiement, c.name, u.name, p.detailsProduits, p.detailReservations " +
+            "FROM payments p LEFT JOIN users c ON c.id = p.client_id LEFT JOIN users u ON u.id = p.created_by " +
+            "WHERE p.dateHeure >= ? AND p.dateHeure < ? ORDER BY p.dateHeure, p.id",
+            "Id", "N° Ticket", "Date", "Montant", "Mode de paiement", "Client", "Admin", "Type", "Détail produits", "Détail réservation"),
+
+        RESERVATIONS("Réservations",
+            "SELECT r.id, r.numeroTicket, r.reservationDate, c.name, po.name, g.name, r.duration, r.status, r.total_price, r.codeParrainage, u.name " +
+            "FROM reservations r LEFT JOIN users c ON c.id = r.client_id LEFT JOIN postes po ON po.id = r.poste_id " +
+            "LEFT JOIN games g ON g.id = r.game_id LEFT JOIN users u ON u.id = r.user_id " +
+            "WHERE r.reservationDate >= ? AND r.reservationDate < ? ORDER BY r.reservationDate, r.id",
+            "Id", "N° Ticket", "Date", "Client", "Poste", "Jeu", "Durée (min)", "Statut", "Montant", "Code parrainage", "Admin"),
+
+        SESSIONS("Sessions",
+            "SELECT s.id, s.startTime, s.endTime, s.paidDuration, s.status, c.name, po.name, g.name, r.numeroTicket " +
+            "FROM game_sessions s LEFT JOIN users c ON c.id = s.client_id LEFT JOIN postes po ON po.id = s.poste_id " +
+            "LEFT JOIN games g ON g.id = s.game_id LEFT JOIN reservations r ON r.id = s.reservation_id " +
+            "WHERE s.startTime >= ? AND s.startTime < ? ORDER BY s.startTime, s.id",
+            "Id", "Début", "Fin", "Durée payée (min)", "Statut", "Client", "Poste", "Jeu", "N° Ticket réservation"),
+
+        // Pas de table de mouvements : les sorties de stock sont les articles des ventes de produits
+        STOCK_MOVEMENTS("Sorties de stock",
+            "SELECT p.dateHeure, p.numeroTicket, p.detailsProduits, u.name " +
+            "FROM payments p LEFT JOIN users u ON u.id = p.created_by " +
+            "WHERE trim(coalesce(p.detailsProduits, '')) <> '' AND p.dateHeure >= ? AND p.dateHeure < ? ORDER BY p.dateHeure, p.id",
+            "Date", "N° Ticket", "Produit", "Quantité", "Admin");
+
+        private final String label;
+        private final String sql;
+        private final String[] columns;
+
+        Dataset(String label, String sql, String... columns) {
+            this.label = label;
+            this.sql = sql;
+            this.columns = columns;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private DataExport() {}
+
+    /**
+     * Écrit l'en-tête puis toutes les lignes de la période et retourne leur nombre. progress reçoit le
+     * nombre de lignes écrites toutes les PROGRESS_EVERY lignes (peut lever une exception pour annuler).
+     */
+    public static long export(Dataset dataset, LocalDate from, LocalDate to, TableWriter out, LongConsumer progress) throws IOException {
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+             PreparedStatement ps = c.prepareStatement(dataset.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, from == null ? Long.MIN_VALUE : from.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            ps.setLong(2, to == null ? Long.MAX_VALUE : to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            out.header(dataset.columns);
+            long rows = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows += writeRow(dataset, rs, out);
+                    if (progress != null && rows / PROGRESS_EVERY != (rows - 1) / PROGRESS_EVERY) progress.accept(rows);
+                }
+            }
+            if (progress != null) progress.accept(rows);
+            return rows;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors de l'export " + dataset.getLabel(), e);
+        }
+    }
+
+    // Écrit la ligne courante (plusieurs pour une vente de plusieurs articles) et retourne le nombre écrit
+    private static int writeRow(Dataset dataset, ResultSet rs, TableWriter out) throws SQLException, IOException {
+        switch (dataset) {
+            case PAYMENTS: {
+                String detailsProduits = rs.getString(8);
+                String detailReservations = rs.getString(9);
+                out.startRow();
+                out.integer(rs.getInt(1));
+                out.text(rs.getString(2));
+                out.dateTime(dateTime(rs, 3));
+                out.amount(rs.getDouble(4));
+                out.text(rs.getString(5));
+                out.text(rs.getString(6));
+                out.text(rs.getString(7));
+                out.text(paymentType(detailsProduits, detailReservations));
+                out.text(detailsProduits);
+                out.text(detailReservations);
+                out.endRow();
+                return 1;
+            }
+            case RESERVATIONS: {
+                out.startRow();
+                out.integer(rs.getInt(1));
+                out.text(rs.getString(2));
+                out.dateTime(dateTime(rs, 3));
+                out.text(rs.getString(4));
+                out.text(rs.getString(5));
+                out.text(rs.getString(6));
+                writeLong(rs, 7, out);
+                out.text(rs.getString(8));
+                out.amount(rs.getDouble(9));
+                out.text(rs.getString(10));
+                out.text(rs.getString(11));
+                out.endRow();
+                return 1;
+            }
+            case SESSIONS: {
+                out.startRow();
+                out.integer(rs.getInt(1));
+                out.dateTime(dateTime(rs, 2));
+                out.dateTime(dateTime(rs, 3));
+                writeLong(rs, 4, out);
+                out.text(rs.getString(5));
+                out.text(rs.getString(6));
+                out.text(rs.getString(7));
+                out.text(rs.getString(8));
+                out.text(rs.getString(9));
+                out.endRow();
+                return 1;
+            }
+            case STOCK_MOVEMENTS:
+                return writeStockMovements(dateTime(rs, 1), rs.getString(2), rs.getString(3), rs.getString(4), out);
+            default:
+                throw new IllegalArgumentException("Export inconnu : " + dataset);
+        }
+    }
+
+    // Même découpage que FinanceQueryService : "Nom xQté" séparés par des virgules, quantité 1 par défaut
+    private static int writeStockMovements(LocalDateTime date, String ticket, String details, String admin, TableWriter out) throws IOException {
+        int rows = 0;
+        for (String part : details.split(",\\s*")) {
+            String line = part.trim();
+            if (line.isEmpty()) continue;
+            String article = line;
+            int quantity = 1;
+            int xIdx = line.lastIndexOf(" x");
+            if (xIdx > 0 && xIdx < line.length() - 2) {
+                try {
+                    quantity = Integer.parseInt(line.substring(xIdx + 2).trim());
+                    article = line.substring(0, xIdx).trim();
+                } catch (NumberFormatException ignored) {
+                    quantity = 1;
+                }
+            }
+            out.startRow();
+            out.dateTime(date);
+            out.text(ticket);
+            out.text(article);
+            out.integer(quantity);
+            out.text(admin);
+            out.endRow();
+            rows++;
+        }
+        return rows;
+    }
+
+    private static String paymentType(String detailsProduits, String detailReservations) {
+        if (detailsProduits != null && !detailsProduits.trim().isEmpty()) return "Vente produits";
+        if (detailReservations != null && detailReservations.startsWith("Prolongation")) return "Prolongation";
+        if (detailReservations != null && !detailReservations.trim().isEmpty()) return "Réservation";
+        return "Autre";
+    }
+
+    private static void writeLong(ResultSet rs, int column, TableWriter out) throws SQLException, IOException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) out.empty();
+        else out.integer(value);
+    }
+
+    private static LocalDateTime dateTime(ResultSet rs, int column) throws SQLException {
+        long millis = rs.getLong(column);
+        return rs.wasNull() ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
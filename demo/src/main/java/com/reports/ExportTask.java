@@ -0,0 +1,43 @@
+package com.reports;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.concurrent.CancellationException;
+
+import javafx.concurrent.Task;
+
+/**
+ * Export CSV ou XLSX (selon l'extension du fichier) exécuté hors du thread JavaFX ; message suit le
+ * nombre de lignes écrites. Un export annulé ou en erreur ne laisse pas de fichier partiel.
+ */
+public final class ExportTask extends Task<File> {
+
+    private final File file;
+    private final DataExport.Dataset dataset;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    public ExportTask(File file, DataExport.Dataset dataset, LocalDate from, LocalDate to) {
+        this.file = file;
+        this.dataset = dataset;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected File call() throws Exception {
+        updateMessage("Export " + dataset.getLabel() + "...");
+        boolean xlsx = file.getName().toLowerCase().endsWith(".xlsx");
+        try (TableWriter out = xlsx ? new XlsxTableWriter(file, dataset.getLabel()) : new CsvTableWriter(file)) {
+            DataExport.export(dataset, from, to, out, rows -> {
+                if (isCancelled()) throw new CancellationException();
+                updateMessage(rows + " ligne(s) exportée(s)");
+            });
+        } catch (Exception | Error e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        return file;
+    }
+}
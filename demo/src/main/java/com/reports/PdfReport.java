@@ -0,0 +1,314 @@
+package com.reports;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+/**
+ * Document PDF en cours de mise en page : une position verticale y (ligne de base courante, en points
+ * depuis le bas de la page) descend au fil des éléments dessinés ; les méthodes de dessin écrivent à y
+ * sans le déplacer, space() le fait descendre.
+ *
+ * Les polices sont créées une seule fois par document (une ressource par police, partagée par toutes
+ * les pages). table() dessine les lignes au fil d'un RowCursor et change de page automatiquement en
+ * répétant l'en-tête ; chaque ligne écrite est signalée à Progress. Les pages terminées débordent dans
+ * un fichier temporaire : un rapport de plusieurs centaines de pages garde une empreinte mémoire bornée.
+ *
+ * Pas thread-safe : un document est construit par un seul thread (voir ReportTask).
+ */
+public final class PdfReport implements Closeable {
+
+    // Palette des rapports
+    public static final Color PRIMARY = new Color(26, 54, 93);
+    public static final Color SUCCESS = new Color(45, 125, 70);
+    public static final Color HEADER_BG = new Color(0.25f, 0.35f, 0.55f);
+    public static final Color FRAME_BG = new Color(0.94f, 0.95f, 0.97f);
+
+    /** Avancement de la mise en page, appelé après chaque ligne de tableau. */
+    @FunctionalInterface
+    public interface Progress {
+        void update(long rows, int pages);
+    }
+
+    // Contenu des pages en mémoire jusqu'à 8 Mo, au-delà dans un fichier temporaire
+    private static final long MAX_MAIN_MEMORY_BYTES = 8L * 1024 * 1024;
+
+    private final PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES).streamCache);
+    private final PDRectangle pageSize;
+    private final float margin;
+    private final Progress progress;
+    private final PDFont regular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    private final PDFont bold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    private PDPageContentStream content;
+    private float y;
+    private int pages;
+    private long rows;
+
+    public PdfReport(PDRectangle pageSize, float margin, Progress progress) throws IOException {
+        this.pageSize = pageSize;
+        this.margin = margin;
+        this.progress = progress;
+        newPage();
+    }
+
+    public PDFont regular() {
+        return regular;
+    }
+
+    public PDFont bold() {
+        return bold;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getMargin() {
+        return margin;
+    }
+
+    public float getPageWidth() {
+        return pageSize.getWidth();
+    }
+
+    /** Largeur entre les marges. */
+    public float getContentWidth() {
+        return pageSize.getWidth() - 2 * margin;
+    }
+
+    /** Descend la position courante. */
+    public void space(float height) {
+        y -= height;
+    }
+
+    /** Passe à la page suivante si la hauteur demandée ne tient plus au-dessus de la marge basse. */
+    public void ensureSpace(float height) throws IOException {
+        if (y - height < margin) newPage();
+    }
+
+    public void newPage() throws IOException {
+        if (content != null) content.close();
+        PDPage page = new PDPage(pageSize);
+        document.addPage(page);
+        content = new PDPageContentStream(document, page);
+        y = pageSize.getHeight() - margin;
+        pages++;
+    }
+
+    /** Texte à l'abscisse x, sur la ligne de base courante. */
+    public void text(String text, float x, PDFont font, float size, Color color) throws IOException {
+        content.setNonStrokingColor(color);
+        content.setFont(font, size);
+        content.beginText();
+        content.newLineAtOffset(x, y);
+        content.showText(encodable(font, text));
+        content.endText();
+        content.setNonStrokingColor(Color.BLACK);
+    }
+
+    /** Texte centré sur la largeur de la page. */
+    public void centered(String text, PDFont font, float size, Color color) throws IOException {
+        String safe = encodable(font, text);
+        text(safe, (getPageWidth() - width(font, size, safe)) / 2, font, size, color);
+    }
+
+    /** Bandeau pleine largeur sous la position courante : titre et sous-titre centrés en blanc. */
+    public void banner(String title, String subtitle, float height) throws IOException {
+        content.setNonStrokingColor(PRIMARY);
+        content.addRect(0, y - height, getPageWidth(), height);
+        content.fill();
+        float top = y;
+        y = top - height + 18;
+        centered(title, bold, 20, Color.WHITE);
+        y = top - height + 4;
+        centered(subtitle, regular, 10, Color.WHITE);
+        y = top - height;
+    }
+
+    /** Titre de section à la marge, souligné sur underline points. */
+    public void sectionTitle(String text, float size, float underline) throws IOException {
+        text(text, margin, bold, size, PRIMARY);
+        content.setStrokingColor(new Color(0.85f, 0.85f, 0.85f));
+        content.moveTo(margin, y - 4);
+        content.lineTo(margin + underline, y - 4);
+        content.stroke();
+        content.setStrokingColor(Color.BLACK);
+    }
+
+    /** Trait gris sur toute la largeur utile, à la position courante. */
+    public void rule() throws IOException {
+        content.setStrokingColor(new Color(0.7f, 0.7f, 0.7f));
+        content.moveTo(margin, y);
+        content.lineTo(getPageWidth() - margin, y);
+        content.stroke();
+        content.setStrokingColor(Color.BLACK);
+    }
+
+    /** Total centré dans un cadre de hauteur boxHeight, sous la position courante. */
+    public void framedTotal(String text, float size, float boxHeight) throws IOException {
+        String safe = encodable(bold, text);
+        float textWidth = width(bold, size, safe);
+        float x = (getPageWidth() - textWidth) / 2;
+        float pad = 12;
+        float bottom = y - boxHeight + 6;
+        content.setNonStrokingColor(FRAME_BG);
+        content.addRect(x - pad, bottom, textWidth + 2 * pad, boxHeight);
+        content.fill();
+        content.setStrokingColor(PRIMARY);
+        content.setLineWidth(1.2f);
+        content.addRect(x - pad, bottom, textWidth + 2 * pad, boxHeight);
+        content.stroke();
+        content.setLineWidth(1f);
+        content.setStrokingColor(Color.BLACK);
+        float top = y;
+        y = bottom + 6;
+        text(safe, x, bold, size, PRIMARY);
+        y = top;
+    }
+
+    /**
+     * Dessine les lignes du curseur sous la position courante et retourne leur nombre. L'en-tête est
+     * répété en haut de chaque nouvelle page ; un texte trop large pour sa colonne est tronqué ("...").
+     * Rien n'est dessiné si le curseur est vide.
+     */
+    public <T> long table(PdfTable<T> table, RowCursor<T> cursor) throws IOException {
+        if (!cursor.hasNext()) return 0;
+        float rowHeight = table.rowHeight();
+        float[] widths = columnWidths(table.widths());
+        // En-tête et au moins une ligne sur la même page
+        ensureSpace(2 * rowHeight);
+        drawHeader(table, widths);
+        long count = 0;
+        while (cursor.hasNext()) {
+            T row = cursor.next();
+            if (y - rowHeight < margin) {
+                newPage();
+                drawHeader(table, widths);
+            }
+            drawRow(table, widths, table.cells(row));
+            count++;
+            rows++;
+            if (progress != null) progress.update(rows, pages);
+        }
+        return count;
+    }
+
+    public void save(File file) throws IOException {
+        content.close();
+        content = null;
+        document.save(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (content != null) content.close();
+        } finally {
+            document.close();
+        }
+    }
+
+    private float[] columnWidths(List<Float> fractions) {
+        float[] widths = new float[fractions.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = fractions.get(i) * getContentWidth();
+        }
+        return widths;
+    }
+
+    private void drawHeader(PdfTable<?> table, float[] widths) throws IOException {
+        float rowHeight = table.rowHeight();
+        content.setNonStrokingColor(table.headerFill());
+        content.addRect(margin, y - rowHeight, getContentWidth(), rowHeight);
+        content.fill();
+        drawCells(table.headers().toArray(new String[0]), widths, bold, table.headerFontSize(), table.headerText(), table);
+        y -= rowHeight;
+        if (table.borders()) {
+            content.moveTo(margin, y);
+            content.lineTo(margin + getContentWidth(), y);
+            content.stroke();
+        }
+    }
+
+    private void drawRow(PdfTable<?> table, float[] widths, String[] cells) throws IOException {
+        float rowHeight = table.rowHeight();
+        drawCells(cells, widths, regular, table.bodyFontSize(), Color.BLACK, table);
+        if (table.borders()) {
+            float x = margin;
+            for (int i = 0; i <= widths.length; i++) {
+                content.moveTo(x, y);
+                content.lineTo(x, y - rowHeight);
+                if (i < widths.length) x += widths[i];
+            }
+            content.moveTo(margin, y - rowHeight);
+            content.lineTo(margin + getContentWidth(), y - rowHeight);
+            content.stroke();
+        }
+        y -= rowHeight;
+    }
+
+    private void drawCells(String[] cells, float[] widths, PDFont font, float size, Color color, PdfTable<?> table) throws IOException {
+        content.setNonStrokingColor(color);
+        content.setFont(font, size);
+        float x = margin;
+        for (int i = 0; i < widths.length && i < cells.length; i++) {
+            String cell = fit(font, size, cells[i] != null ? cells[i] : "", widths[i] - 2 * table.padding());
+            if (!cell.isEmpty()) {
+                content.beginText();
+                content.newLineAtOffset(x + table.padding(), y - table.rowHeight() + table.baseline());
+                content.showText(cell);
+                content.endText();
+            }
+            x += widths[i];
+        }
+        content.setNonStrokingColor(Color.BLACK);
+    }
+
+    // Tronque le texte pour qu'il tienne dans maxWidth points
+    private static String fit(PDFont font, float size, String text, float maxWidth) throws IOException {
+        String safe = encodable(font, text);
+        if (width(font, size, safe) <= maxWidth) return safe;
+        float ellipsis = width(font, size, "...");
+        int end = safe.length();
+        while (end > 0 && width(font, size, safe.substring(0, end)) + ellipsis > maxWidth) {
+            end--;
+        }
+        return end > 0 ? safe.substring(0, end) + "..." : "";
+    }
+
+    private static float width(PDFont font, float size, String text) throws IOException {
+        return font.getStringWidth(text) / 1000 * size;
+    }
+
+    // Les polices standard n'encodent que WinAnsi : les autres caractères (emoji, écritures non
+    // latines dans un nom de client) sont remplacés par '?' au lieu de faire échouer le rapport
+    private static String encodable(PDFont font, String text) throws IOException {
+        try {
+            font.encode(text);
+            return text;
+        } catch (IllegalArgumentException e) {
+            StringBuilder sb = new StringBuilder(text.length());
+            text.codePoints().forEach(cp -> {
+                String ch = new String(Character.toChars(cp));
+                try {
+                    font.encode(ch);
+                    sb.append(ch);
+                } catch (IllegalArgumentException | IOException unsupported) {
+                    sb.append('?');
+                }
+            });
+            return sb.toString();
+        }
+    }
+}
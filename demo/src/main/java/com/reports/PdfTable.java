@@ -0,0 +1,112 @@
+package com.reports;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Description d'un tableau de rapport : colonnes (titre et largeur) et conversion d'une ligne en
+ * cellules. Le dessin est fait par PdfReport.table, qui répète l'en-tête à chaque saut de page.
+ * Un même PdfTable peut servir à plusieurs rapports (il ne garde aucun état de mise en page).
+ *
+ * Par défaut : style des tableaux financiers (en-tête bleu, lignes de 20 pt encadrées).
+ */
+public final class PdfTable<T> {
+
+    private final Function<T, String[]> cells;
+    private final List<String> headers = new ArrayList<>();
+    private final List<Float> widths = new ArrayList<>();
+    private float rowHeight = 20;
+    private float padding = 5;
+    private float baseline = 5;
+    private float headerFontSize = 10;
+    private float bodyFontSize = 9;
+    private Color headerFill = PdfReport.HEADER_BG;
+    private Color headerText = Color.WHITE;
+    private boolean borders = true;
+
+    public PdfTable(Function<T, String[]> cells) {
+        this.cells = cells;
+    }
+
+    /** Ajoute une colonne ; width = fraction de la largeur utile de la page. */
+    public PdfTable<T> column(String header, float width) {
+        headers.add(header);
+        widths.add(width);
+        return this;
+    }
+
+    public PdfTable<T> rowHeight(float rowHeight) {
+        this.rowHeight = rowHeight;
+        return this;
+    }
+
+    /** Marge gauche du texte dans la cellule et hauteur de sa ligne de base au-dessus du bas de ligne. */
+    public PdfTable<T> textOffsets(float padding, float baseline) {
+        this.padding = padding;
+        this.baseline = baseline;
+        return this;
+    }
+
+    public PdfTable<T> fontSizes(float header, float body) {
+        this.headerFontSize = header;
+        this.bodyFontSize = body;
+        return this;
+    }
+
+    public PdfTable<T> headerColors(Color fill, Color text) {
+        this.headerFill = fill;
+        this.headerText = text;
+        return this;
+    }
+
+    public PdfTable<T> borders(boolean borders) {
+        this.borders = borders;
+        return this;
+    }
+
+    String[] cells(T row) {
+        return cells.apply(row);
+    }
+
+    List<String> headers() {
+        return headers;
+    }
+
+    List<Float> widths() {
+        return widths;
+    }
+
+    float rowHeight() {
+        return rowHeight;
+    }
+
+    float padding() {
+        return padding;
+    }
+
+    float baseline() {
+        return baseline;
+    }
+
+    float headerFontSize() {
+        return headerFontSize;
+    }
+
+    float bodyFontSize() {
+        return bodyFontSize;
+    }
+
+    Color headerFill() {
+        return headerFill;
+    }
+
+    Color headerText() {
+        return headerText;
+    }
+
+    boolean borders() {
+        return borders;
+    }
+}
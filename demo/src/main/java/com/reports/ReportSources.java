@@ -0,0 +1,212 @@
+package com.reports;
+
+import com.core.SqliteDataSources;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Lignes des rapports PDF, lues en SQL sur le pool en lecture seule et projetées en objets légers
+ * (aucune entité, aucune relation chargée) : les curseurs retournés sont parcourus au fil du dessin,
+ * quel que soit le nombre d'opérations de la période.
+ *
+ * Même découpage que FinanceQueryService : dates en millisecondes epoch, journées dans le fuseau local,
+ * vente de produits = paiement avec un détail d'articles. adminId null = tous les admins.
+ */
+public final class ReportSources {
+
+    private static final String IS_PRODUCT_SALE = "trim(coalesce(p.detailsProduits, '')) <> ''";
+
+    private static final String PRODUCT_SALES_SQL =
+        "SELECT p.numeroTicket, c.name, p.montantTotal, p.modePaiement, p.dateHeure, p.detailsProduits " +
+        "FROM payments p LEFT JOIN users c ON c.id = p.client_id " +
+        "WHERE " + IS_PRODUCT_SALE + " AND p.dateHeure >= ? AND p.dateHeure < ? AND (? IS NULL OR p.created_by = ?) " +
+        "ORDER BY p.dateHeure, p.id";
+
+    private static final String RESERVATION_COLUMNS =
+        "SELECT r.numeroTicket, c.name, r.poste_id, po.name, r.game_id, g.name, r.reservationDate, r.duration, r.status, r.total_price " +
+        "FROM reservations r LEFT JOIN users c ON c.id = r.client_id " +
+        "LEFT JOIN postes po ON po.id = r.poste_id LEFT JOIN games g ON g.id = r.game_id ";
+
+    private static final String RESERVATIONS_SQL = RESERVATION_COLUMNS +
+        "WHERE r.reservationDate >= ? AND r.reservationDate < ? AND (? IS NULL OR r.user_id = ?) " +
+        "ORDER BY r.reservationDate, r.id";
+
+    private static final String CLIENT_RESERVATIONS_SQL = RESERVATION_COLUMNS +
+        "WHERE r.client_id = ? ORDER BY r.reservationDate DESC, r.id DESC";
+
+    private static final String CLIENT_TOTALS_SQL =
+        "SELECT count(*), coalesce(sum(r.duration), 0), coalesce(sum(r.total_price), 0) FROM reservations r WHERE r.client_id = ?";
+
+    private static final String HAS_OPERATIONS_SQL =
+        "SELECT EXISTS (SELECT 1 FROM payments p WHERE " + IS_PRODUCT_SALE + " AND p.dateHeure >= ? AND p.dateHeure < ? AND (? IS NULL OR p.created_by = ?)) " +
+        "    OR EXISTS (SELECT 1 FROM reservations r WHERE r.reservationDate >= ? AND r.reservationDate < ? AND (? IS NULL OR r.user_id = ?))";
+
+    /** Vente de produits (paiement avec détail d'articles). */
+    public static final class ProductSale {
+        private final String numeroTicket;
+        private final String clientName;
+        private final double amount;
+        private final String modePaiement;
+        private final LocalDateTime dateHeure;
+        private final String details;
+
+        ProductSale(String numeroTicket, String clientName, double amount, String modePaiement, LocalDateTime dateHeure, String details) {
+            this.numeroTicket = numeroTicket;
+            this.clientName = clientName;
+            this.amount = amount;
+            this.modePaiement = modePaiement;
+            this.dateHeure = dateHeure;
+            this.details = details;
+        }
+
+        public String getNumeroTicket() { return numeroTicket; }
+        public String getClientName() { return clientName; }
+        public double getAmount() { return amount; }
+        public String getModePaiement() { return modePaiement; }
+        public LocalDateTime getDateHeure() { return dateHeure; }
+        /** Articles au format "Nom xQté, ...". */
+        public String getDetails() { return details; }
+    }
+
+    /** Réservation avec les noms du client, du poste et du jeu. */
+    public static final class ReservationLine {
+        private final String numeroTicket;
+        private final String clientName;
+        private final String posteName;
+        private final String gameName;
+        private final LocalDateTime reservationDate;
+        private final Duration duration;
+        private final String status;
+        private final double totalPrice;
+
+        ReservationLine(String numeroTicket, String clientName, String posteName, String gameName,
+                        LocalDateTime reservationDate, Duration duration, String status, double totalPrice) {
+            this.numeroTicket = numeroTicket;
+            this.clientName = clientName;
+            this.posteName = posteName;
+            this.gameName = gameName;
+            this.reservationDate = reservationDate;
+            this.duration = duration;
+            this.status = status;
+            this.totalPrice = totalPrice;
+        }
+
+        public String getNumeroTicket() { return numeroTicket; }
+        public String getClientName() { return clientName; }
+        /** Nom du poste, "N/A" sans poste, "Poste supprimé" si le poste n'existe plus. */
+        public String getPosteName() { return posteName; }
+        /** Nom du jeu, "N/A" sans jeu, "Jeu supprimé" si le jeu n'existe plus. */
+        public String getGameName() { return gameName; }
+        public LocalDateTime getReservationDate() { return reservationDate; }
+        public Duration getDuration() { return duration; }
+        public String getStatus() { return status; }
+        public double getTotalPrice() { return totalPrice; }
+    }
+
+    /** Cumul des réservations d'un client. */
+    public static final class ClientTotals {
+        private final int reservationCount;
+        private final long durationMinutes;
+        private final double amount;
+
+        ClientTotals(int reservationCount, long durationMinutes, double amount) {
+            this.reservationCount = reservationCount;
+            this.durationMinutes = durationMinutes;
+            this.amount = amount;
+        }
+
+        public int getReservationCount() { return reservationCount; }
+        public long getDurationMinutes() { return durationMinutes; }
+        public double getAmount() { return amount; }
+    }
+
+    private ReportSources() {}
+
+    /** Ventes de produits de la période, par heure croissante. */
+    public static RowCursor<ProductSale> productSales(Integer adminId, LocalDate from, LocalDate to) {
+        return SqlCursor.open(PRODUCT_SALES_SQL, rs -> new ProductSale(
+                rs.getString(1), rs.getString(2), rs.getDouble(3), rs.getString(4), dateTime(rs, 5), rs.getString(6)),
+            startMillis(from), endMillis(to), adminId, adminId);
+    }
+
+    /** Réservations de la période, par heure croissante. */
+    public static RowCursor<ReservationLine> reservations(Integer adminId, LocalDate from, LocalDate to) {
+        return SqlCursor.open(RESERVATIONS_SQL, ReportSources::reservationLine,
+            startMillis(from), endMillis(to), adminId, adminId);
+    }
+
+    /** Historique des réservations d'un client, de la plus récente à la plus ancienne. */
+    public static RowCursor<ReservationLine> clientReservations(int clientId) {
+        return SqlCursor.open(CLIENT_RESERVATIONS_SQL, ReportSources::reservationLine, clientId);
+    }
+
+    public static ClientTotals clientTotals(int clientId) {
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+             PreparedStatement ps = c.prepareStatement(CLIENT_TOTALS_SQL)) {
+            ps.setInt(1, clientId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new ClientTotals(rs.getInt(1), rs.getLong(2), rs.getDouble(3));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors du calcul des totaux du client", e);
+        }
+    }
+
+    /** Au moins une vente de produits ou une réservation sur la période. */
+    public static boolean hasOperations(Integer adminId, LocalDate from, LocalDate to) {
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+             PreparedStatement ps = c.prepareStatement(HAS_OPERATIONS_SQL)) {
+            for (int offset : new int[]{0, 4}) {
+                ps.setLong(offset + 1, startMillis(from));
+                ps.setLong(offset + 2, endMillis(to));
+                ps.setObject(offset + 3, adminId);
+                ps.setObject(offset + 4, adminId);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors de la recherche des opérations de la période", e);
+        }
+    }
+
+    private static ReservationLine reservationLine(ResultSet rs) throws SQLException {
+        long minutes = rs.getLong(8);
+        Duration duration = rs.wasNull() ? null : Duration.ofMinutes(minutes);
+        return new ReservationLine(
+            rs.getString(1), rs.getString(2),
+            displayName(rs, 3, "Poste supprimé"), displayName(rs, 5, "Jeu supprimé"),
+            dateTime(rs, 7), duration, rs.getString(9), rs.getDouble(10));
+    }
+
+    // Même libellé que ReservationRow : "N/A" sans relation, libellé de suppression si la ligne n'existe plus
+    private static String displayName(ResultSet rs, int idColumn, String deleted) throws SQLException {
+        rs.getInt(idColumn);
+        if (rs.wasNull()) return "N/A";
+        String name = rs.getString(idColumn + 1);
+        return name != null ? name : deleted;
+    }
+
+    private static LocalDateTime dateTime(ResultSet rs, int column) throws SQLException {
+        long millis = rs.getLong(column);
+        return rs.wasNull() ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static long startMillis(LocalDate from) {
+        return from.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Borne exclusive : début du jour suivant
+    private static long endMillis(LocalDate to) {
+        return to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,56 @@
+package com.reports;
+
+import java.io.File;
+import java.util.concurrent.CancellationException;
+
+import javafx.concurrent.Task;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * Génération d'un rapport PDF hors du thread JavaFX : le contenu est écrit par un Writer dans un
+ * PdfReport, puis le document est enregistré dans le fichier cible. progress et message suivent le
+ * nombre de lignes écrites (progression déterminée si le nombre de lignes attendu est connu).
+ *
+ * L'annulation est prise en compte à la ligne suivante : le fichier n'est alors pas écrit.
+ */
+public final class ReportTask extends Task<File> {
+
+    /** Contenu du rapport, écrit sur le thread de la tâche. */
+    @FunctionalInterface
+    public interface Writer {
+        void write(PdfReport report) throws Exception;
+    }
+
+    private final File file;
+    private final PDRectangle pageSize;
+    private final float margin;
+    private final long expectedRows;
+    private final Writer writer;
+
+    /** expectedRows : nombre de lignes de tableau attendu, 0 si inconnu. */
+    public ReportTask(File file, PDRectangle pageSize, float margin, long expectedRows, Writer writer) {
+        this.file = file;
+        this.pageSize = pageSize;
+        this.margin = margin;
+        this.expectedRows = expectedRows;
+        this.writer = writer;
+    }
+
+    @Override
+    protected File call() throws Exception {
+        updateMessage("Préparation du rapport...");
+        try (PdfReport report = new PdfReport(pageSize, margin, this::progress)) {
+            writer.write(report);
+            if (isCancelled()) throw new CancellationException();
+            updateMessage("Enregistrement du fichier...");
+            report.save(file);
+        }
+        return file;
+    }
+
+    private void progress(long rows, int pages) {
+        if (isCancelled()) throw new CancellationException();
+        if (expectedRows > 0) updateProgress(Math.min(rows, expectedRows), expectedRows);
+        updateMessage(rows + " ligne(s) · " + pages + " page(s)");
+    }
+}
@@ -0,0 +1,54 @@
+package com.reports;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Lignes d'un tableau de rapport, lues une à une : le moteur de mise en page dessine chaque ligne dès
+ * qu'elle est lue, sans jamais charger la liste complète. Un curseur SQL garde sa connexion ouverte
+ * jusqu'à close().
+ */
+public interface RowCursor<T> extends Iterator<T>, AutoCloseable {
+
+    @Override
+    default void close() {}
+
+    /** Curseur sur des lignes déjà en mémoire (sélection d'un tableau, par exemple). */
+    static <T> RowCursor<T> of(Iterable<? extends T> rows) {
+        Iterator<? extends T> it = rows.iterator();
+        return new RowCursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return it.next();
+            }
+        };
+    }
+
+    /** Même curseur, qui appelle action sur chaque ligne lue (cumul des totaux pendant le dessin). */
+    default RowCursor<T> onEach(Consumer<? super T> action) {
+        RowCursor<T> source = this;
+        return new RowCursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public T next() {
+                T row = source.next();
+                action.accept(row);
+                return row;
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.reports;
+
+import com.core.SqliteDataSources;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+/**
+ * Curseur JDBC sur le pool en lecture seule : les lignes sont lues au fil du ResultSet, par lots de
+ * FETCH_SIZE, et converties une à une. La connexion est rendue au pool à la fermeture.
+ */
+final class SqlCursor<T> implements RowCursor<T> {
+
+    /** Conversion de la ligne courante du ResultSet. */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private static final int FETCH_SIZE = 200;
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> mapper;
+    private T next;
+    private boolean fetched;
+
+    private SqlCursor(Connection connection, PreparedStatement statement, ResultSet resultSet, RowMapper<T> mapper) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+    }
+
+    static <T> SqlCursor<T> open(String sql, RowMapper<T> mapper, Object... params) {
+        Connection c = null;
+        PreparedStatement ps = null;
+        try {
+            c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+            ps = c.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return new SqlCursor<>(c, ps, ps.executeQuery(), mapper);
+        } catch (SQLException e) {
+            closeQuietly(ps);
+            closeQuietly(c);
+            throw new RuntimeException("Erreur lors de la lecture des lignes du rapport", e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!fetched) {
+            try {
+                next = resultSet.next() ? mapper.map(resultSet) : null;
+            } catch (SQLException e) {
+                throw new RuntimeException("Erreur lors de la lecture des lignes du rapport", e);
+            }
+            fetched = true;
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        fetched = false;
+        return next;
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(resultSet);
+        closeQuietly(statement);
+        closeQuietly(connection);
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) return;
+        try {
+            resource.close();
+        } catch (Exception e) {
+            System.err.println("Fermeture du curseur de rapport : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.reports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Sortie tabulaire écrite au fil de l'eau (CSV, XLSX) : une ligne d'en-tête, puis les lignes cellule
+ * par cellule. Rien n'est gardé en mémoire d'une ligne à l'autre ; close() termine le fichier.
+ */
+public interface TableWriter extends Closeable {
+
+    void header(String... names) throws IOException;
+
+    void startRow() throws IOException;
+
+    void text(String value) throws IOException;
+
+    void integer(long value) throws IOException;
+
+    /** Montant, arrondi à deux décimales à l'affichage. */
+    void amount(double value) throws IOException;
+
+    void dateTime(LocalDateTime value) throws IOException;
+
+    /** Cellule vide (valeur NULL). */
+    void empty() throws IOException;
+
+    void endRow() throws IOException;
+}
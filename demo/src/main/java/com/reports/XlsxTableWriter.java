@@ -0,0 +1,259 @@
+package com.reports;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Classeur XLSX écrit en flux : le XML des feuilles est produit ligne par ligne directement dans
+ * l'archive ZIP (textes en ligne, sans table de chaînes partagées), comme le ferait un écrivain SAX.
+ * Aucune ligne n'est gardée en mémoire : la taille de l'export n'est limitée que par le disque.
+ *
+ * Une feuille Excel est limitée à 1 048 576 lignes : au-delà, une nouvelle feuille est ouverte avec le
+ * même en-tête ("Paiements (2)", ...). Le classeur, ses relations et les styles sont écrits à close(),
+ * quand le nombre de feuilles est connu.
+ */
+public final class XlsxTableWriter implements TableWriter {
+
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PACKAGE_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    // Index des styles de cellule (cellXfs de styles.xml)
+    private static final int STYLE_DATE = 1;
+    private static final int STYLE_HEADER = 2;
+    private static final int STYLE_AMOUNT = 3;
+    // Origine des dates Excel (système 1900, décalé du faux 29/02/1900)
+    private static final LocalDateTime EXCEL_EPOCH = LocalDateTime.of(1899, 12, 30, 0, 0);
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final String sheetName;
+    private String[] header;
+    private int sheets;
+    private int rowInSheet;
+    private int column;
+
+    public XlsxTableWriter(File file, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        this.out = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        this.sheetName = sheetName;
+        openSheet();
+    }
+
+    @Override
+    public void header(String... names) throws IOException {
+        header = names.clone();
+        writeHeader();
+    }
+
+    @Override
+    public void startRow() throws IOException {
+        if (rowInSheet == MAX_ROWS_PER_SHEET) {
+            closeSheet();
+            openSheet();
+            if (header != null) writeHeader();
+        }
+        rowInSheet++;
+        column = 0;
+        out.write("<row r=\"");
+        out.write(Integer.toString(rowInSheet));
+        out.write("\">");
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        text(value, 0);
+    }
+
+    @Override
+    public void integer(long value) throws IOException {
+        number(Long.toString(value), 0);
+    }
+
+    @Override
+    public void amount(double value) throws IOException {
+        number(Double.toString(value), STYLE_AMOUNT);
+    }
+
+    @Override
+    public void dateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            empty();
+            return;
+        }
+        double serial = ChronoUnit.MILLIS.between(EXCEL_EPOCH, value) / 86_400_000d;
+        number(Double.toString(serial), STYLE_DATE);
+    }
+
+    @Override
+    public void empty() {
+        column++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write("</row>\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeSheet();
+            writePackageParts();
+            out.flush();
+            zip.finish();
+        } finally {
+            zip.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        startRow();
+        for (String name : header) {
+            text(name, STYLE_HEADER);
+        }
+        endRow();
+    }
+
+    private void text(String value, int style) throws IOException {
+        if (value == null) {
+            empty();
+            return;
+        }
+        startCell(style);
+        out.write(" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+        escape(value);
+        out.write("</t></is></c>");
+    }
+
+    private void number(String value, int style) throws IOException {
+        startCell(style);
+        out.write("><v>");
+        out.write(value);
+        out.write("</v></c>");
+    }
+
+    private void startCell(int style) throws IOException {
+        out.write("<c r=\"");
+        out.write(columnName(column++));
+        out.write(Integer.toString(rowInSheet));
+        out.write('"');
+        if (style != 0) {
+            out.write(" s=\"");
+            out.write(Integer.toString(style));
+            out.write('"');
+        }
+    }
+
+    private void openSheet() throws IOException {
+        sheets++;
+        rowInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        out.write("<worksheet xmlns=\"" + MAIN_NS + "\">");
+        // En-tête figé en haut de la feuille
+        out.write("<sheetViews><sheetView workbookViewId=\"0\"><pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/></sheetView></sheetViews>");
+        out.write("<sheetData>\n");
+    }
+
+    private void closeSheet() throws IOException {
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private void writePackageParts() throws IOException {
+        StringBuilder contentTypes = new StringBuilder()
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+            .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+            .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+            .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+            .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+            .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        StringBuilder workbook = new StringBuilder()
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+            .append("<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + REL_NS + "\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder()
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+            .append("<Relationships xmlns=\"" + PACKAGE_REL_NS + "\">");
+        for (int i = 1; i <= sheets; i++) {
+            String name = i == 1 ? sheetName : sheetName + " (" + i + ")";
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbook.append("<sheet name=\"").append(escapeAttribute(name)).append("\" sheetId=\"").append(i)
+                .append("\" r:id=\"rId").append(i).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(i)
+                .append("\" Type=\"" + REL_NS + "/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("<Relationship Id=\"rId").append(sheets + 1)
+            .append("\" Type=\"" + REL_NS + "/styles\" Target=\"styles.xml\"/></Relationships>");
+
+        entry("[Content_Types].xml", contentTypes.toString());
+        entry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Relationships xmlns=\"" + PACKAGE_REL_NS + "\">"
+            + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>");
+        entry("xl/workbook.xml", workbook.toString());
+        entry("xl/_rels/workbook.xml.rels", workbookRels.toString());
+        entry("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+            + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"dd/mm/yyyy hh:mm:ss\"/></numFmts>"
+            + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font><font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"4\">"
+            + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+            + "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "</cellXfs>"
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+            + "</styleSheet>");
+    }
+
+    private void entry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    // A, B, ..., Z, AA, AB...
+    private static String columnName(int index) {
+        StringBuilder sb = new StringBuilder(3);
+        for (int n = index + 1; n > 0; n = (n - 1) / 26) {
+            sb.insert(0, (char) ('A' + (n - 1) % 26));
+        }
+        return sb.toString();
+    }
+
+    // Caractères spéciaux XML ; les caractères de contrôle, interdits en XML 1.0, sont ignorés
+    private void escape(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '&': out.write("&amp;"); break;
+                case '<': out.write("&lt;"); break;
+                case '>': out.write("&gt;"); break;
+                case '"': out.write("&quot;"); break;
+                default:
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') out.write(ch);
+            }
+        }
+    }
+
+    private static String escapeAttribute(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    }
+}
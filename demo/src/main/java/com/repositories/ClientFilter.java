@@ -0,0 +1,88 @@
+package com.repositories;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Critères des listes de clients (findClientSummaries). Tous les critères sont optionnels (null ou false =
+ * pas de filtre).
+ */
+public class ClientFilter {
+
+    private String search;
+    private Collection<Integer> clientIds;
+    private LocalDate reservationDate;
+    private Duration minPlayTime;
+    private boolean withPhone;
+    private boolean withReservations;
+
+    public ClientFilter() {}
+
+    /** Copie des critères. */
+    public ClientFilter(ClientFilter other) {
+        this.search = other.search;
+        this.clientIds = other.clientIds;
+        this.reservationDate = other.reservationDate;
+        this.minPlayTime = other.minPlayTime;
+        this.withPhone = other.withPhone;
+        this.withReservations = other.withReservations;
+    }
+
+    /**
+     * Saisie de recherche (préfixe de téléphone, mots du nom, de l'email ou de l'adresse) ; résolue par le
+     * Service en identifiants (clientIds) grâce aux index de recherche.
+     */
+    public String getSearch() {
+        return search;
+    }
+
+    public void setSearch(String search) {
+        this.search = search;
+    }
+
+    /** Restreint la liste à ces clients (vide = aucun client). */
+    public Collection<Integer> getClientIds() {
+        return clientIds;
+    }
+
+    public void setClientIds(Collection<Integer> clientIds) {
+        this.clientIds = clientIds;
+    }
+
+    /** Clients ayant une réservation ce jour-là. */
+    public LocalDate getReservationDate() {
+        return reservationDate;
+    }
+
+    public void setReservationDate(LocalDate reservationDate) {
+        this.reservationDate = reservationDate;
+    }
+
+    /** Durée cumulée minimale des réservations (clients fidèles). */
+    public Duration getMinPlayTime() {
+        return minPlayTime;
+    }
+
+    public void setMinPlayTime(Duration minPlayTime) {
+        this.minPlayTime = minPlayTime;
+    }
+
+    /** Clients ayant un numéro de téléphone renseigné. */
+    public boolean isWithPhone() {
+        return withPhone;
+    }
+
+    public void setWithPhone(boolean withPhone) {
+        this.withPhone = withPhone;
+    }
+
+    /** Clients ayant au moins une réservation. */
+    public boolean isWithReservations() {
+        return withReservations;
+    }
+
+    public void setWithReservations(boolean withReservations) {
+        this.withReservations = withReservations;
+    }
+}
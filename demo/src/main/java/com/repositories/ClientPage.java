@@ -0,0 +1,34 @@
+package com.repositories;
+
+/**
+ * Page des listes de clients (pagination par clé sur l'identifiant, sans OFFSET) : les clients dont l'id
+ * est supérieur à afterId, au plus size.
+ */
+public final class ClientPage {
+
+    private final int afterId;
+    private final int size;
+
+    public ClientPage(int afterId, int size) {
+        this.afterId = afterId;
+        this.size = size;
+    }
+
+    /** Première page. */
+    public static ClientPage first(int size) {
+        return new ClientPage(0, size);
+    }
+
+    /** Page suivant la ligne donnée (dernière ligne de la page courante). */
+    public static ClientPage after(ClientSummary last, int size) {
+        return new ClientPage(last.getId(), size);
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,87 @@
+package com.repositories;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne des listes de clients : projection SQL avec agrégats sur les réservations et les sessions en
+ * pause (aucune entité ni réservation chargée), construite par IClientRepository.findClientSummaries.
+ */
+public class ClientSummary {
+
+    private final int id;
+    private final String name;
+    private final String email;
+    private final String phone;
+    private final String address;
+    private final int loyaltyPoints;
+    private final long reservationCount;
+    private final Duration totalPlayTime;
+    private final LocalDateTime lastVisit;
+    private final Duration pausedRemainingTime;
+
+    public ClientSummary(int id, String name, String email, String phone, String address, Integer loyaltyPoints,
+                         long reservationCount, Duration totalPlayTime, LocalDateTime lastVisit,
+                         Duration pausedRemainingTime) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.address = address;
+        this.loyaltyPoints = loyaltyPoints != null ? loyaltyPoints : 0;
+        this.reservationCount = reservationCount;
+        this.totalPlayTime = totalPlayTime != null ? totalPlayTime : Duration.ZERO;
+        this.lastVisit = lastVisit;
+        this.pausedRemainingTime = pausedRemainingTime != null && !pausedRemainingTime.isNegative()
+            ? pausedRemainingTime : Duration.ZERO;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getLoyaltyPoints() {
+        return loyaltyPoints;
+    }
+
+    /** Nombre de réservations du client. */
+    public long getReservationCount() {
+        return reservationCount;
+    }
+
+    /** Durée cumulée de ses réservations. */
+    public Duration getTotalPlayTime() {
+        return totalPlayTime;
+    }
+
+    /** Date de sa réservation la plus récente, null s'il n'en a aucune. */
+    public LocalDateTime getLastVisit() {
+        return lastVisit;
+    }
+
+    /** Plus grand temps restant de ses sessions en pause (zéro si aucune). */
+    public Duration getPausedRemainingTime() {
+        return pausedRemainingTime;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
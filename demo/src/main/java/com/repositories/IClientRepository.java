@@ -2,6 +2,7 @@ package com.repositories;
 
 import com.entities.Client;
 import java.util.List;
+import java.util.Map;
 
 public interface IClientRepository {
 
@@ -27,8 +28,23 @@ public interface IClientRepository {
 
     public boolean existsByName(String name);
 
-    /** Recherche des clients dont le nom contient la chaîne donnée (insensible à la casse). */
-    List<Client> findByNameContaining(String name);
+    /**
+     * Identifiants des clients dont le nom, l'email ou l'adresse contiennent des mots commençant par
+     * ceux de la requête (index plein texte), les plus pertinents d'abord, au plus limit.
+     */
+    List<Integer> searchIds(String query, int limit);
+
+    /** Clients correspondant aux identifiants, dans le même ordre (identifiants inconnus ignorés). */
+    List<Client> findByIds(List<Integer> ids);
+
+    /** Téléphone de chaque client qui en a un, par identifiant (chargement de l'index des téléphones). */
+    Map<Integer, String> findClientPhones();
+
+    /**
+     * Lignes des listes de clients (agrégats SQL sur les réservations et les sessions en pause, aucune
+     * réservation chargée), triées par identifiant ; filter.getSearch() n'est pas lu ici.
+     */
+    List<ClientSummary> findClientSummaries(ClientFilter filter, ClientPage page);
 
     // Récupérer les clients ayant un certain nombre de points de fidélité
     List<Client> findByLoyaltyPointsGreaterThan(int points);
@@ -4,7 +4,9 @@ import com.entities.GameSession;
 import com.entities.Poste;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 public interface IGameSessionRepository {
     List<GameSession> getAllGameSessions();
@@ -22,4 +24,13 @@ public interface IGameSessionRepository {
     // Dans com.repositories.IGameSessionRepository.java
     GameSession findActiveSessionForPoste(int posteId);
     GameSession findGameSessionByIdWithRelations(int id);
+
+    // Requêtes ciblées sur le statut (index idx_game_sessions_status / client_status / poste_status)
+    /** Sessions dont le statut figure dans la liste, avec client, jeu, poste et réservation chargés. */
+    List<GameSession> findByStatusIn(Set<String> statuses);
+    /** Sessions actives du client, avec relations chargées. */
+    List<GameSession> findActiveByClientId(int clientId);
+    boolean existsActiveForClient(int clientId);
+    /** Sessions actives dont la fin (début + durée payée) est antérieure à l'instant donné (index idx_game_sessions_status_end). */
+    List<GameSession> findEndingBefore(LocalDateTime instant);
 }
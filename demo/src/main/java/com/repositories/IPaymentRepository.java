@@ -1,6 +1,7 @@
 package com.repositories;
 
 import com.entities.Payment;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,6 +9,9 @@ public interface IPaymentRepository {
     
     // Récupérer tous les paiements
     List<Payment> getAllPayments();
+
+    // Paiements enregistrés par un utilisateur (client et créateur chargés)
+    List<Payment> getPaymentsByUser(int userId);
     
     // Ajouter un nouveau paiement
     void addPayment(Payment payment);
@@ -22,4 +26,7 @@ public interface IPaymentRepository {
     void deletePayment(int id);
 
     boolean existsById(int id);
+
+    // Paiements d'une période [from, to[ (client et créateur chargés), éventuellement limités à un utilisateur
+    List<Payment> findPaymentsBetween(Date from, Date to, Integer createdById);
 }
@@ -2,7 +2,6 @@ package com.repositories;
 
 import com.entities.Produit;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
 
@@ -29,10 +28,6 @@ public interface IProduitRepository {
     boolean checkIfProduitExists(String nom);
     
 
-    // ✅ Mettre à jour le prix et l'ancien prix d'un produit
-    void updatePrixEtAncienPrix(int produitId, BigDecimal ancienPrix, BigDecimal nouveauPrix);
-    void restaurerPrixInitial(int produitId, BigDecimal ancienPrix) throws Exception;
-
     Produit findByIdWithPromotions(int produitId);
 
     Set<Produit> findByPromotionId(int promotionId);
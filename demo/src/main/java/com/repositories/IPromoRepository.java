@@ -5,10 +5,9 @@ import com.entities.TypePromotion;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import javax.transaction.Transactional;
-
 public interface IPromoRepository {
     Promotion insert(Promotion promo);
     void update(Promotion promo);
@@ -24,11 +23,12 @@ public interface IPromoRepository {
      */
     Optional<Promotion> findByNom(String nom);
        
-    @Transactional
     Promotion findByIdWithProduits(int id);
 
-    @Transactional
     List<Promotion> findAllWithProduits();
+
+    /** Identifiants des promotions actives de chaque produit (produit -> promotions), sans charger les entités. */
+    Map<Integer, List<Integer>> findActivePromotionIdsByProduit();
     boolean existsById(int id);
 
 }
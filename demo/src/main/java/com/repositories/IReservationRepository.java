@@ -38,4 +38,13 @@ public interface IReservationRepository {
     boolean existsById(int id);
 
     List<Reservation> findReservationsByUser(User user);
+
+    // Réservations d'une période [from, to[ (client et poste chargés), éventuellement limitées à un utilisateur
+    List<Reservation> findReservationsBetween(LocalDateTime from, LocalDateTime to, Integer createdById);
+
+    /**
+     * Page de la liste des réservations, projetée en lignes légères : "En attente" d'abord, puis par date
+     * décroissante. Filtre et tri sont exécutés en SQL ; cursor null = première page.
+     */
+    List<ReservationRow> findPage(ReservationFilter filter, ReservationCursor cursor, int limit);
 }
@@ -15,6 +15,7 @@ public interface IUserRepository {
     void updateUser(User user);
     void delete(int id);
     Client findById(int id);
+    User findUserById(int id);
     public boolean existsByName(String name);
      /**
      * Checks if a user with the given ID exists in the repository.
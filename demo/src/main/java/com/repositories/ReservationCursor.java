@@ -0,0 +1,37 @@
+package com.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position dans la liste paginée des réservations (pagination par clé, sans OFFSET) : les réservations
+ * "En attente" viennent d'abord, puis les autres, chaque groupe trié par date décroissante puis id.
+ */
+public final class ReservationCursor {
+
+    private final boolean pending;
+    private final LocalDateTime reservationDate;
+    private final int id;
+
+    public ReservationCursor(boolean pending, LocalDateTime reservationDate, int id) {
+        this.pending = pending;
+        this.reservationDate = reservationDate;
+        this.id = id;
+    }
+
+    /** Curseur placé juste après la ligne donnée (dernière ligne de la page courante). */
+    public static ReservationCursor after(ReservationRow row) {
+        return new ReservationCursor(ReservationFilter.PENDING.equals(row.getStatus()), row.getReservationDate(), row.getId());
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public LocalDateTime getReservationDate() {
+        return reservationDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,65 @@
+package com.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Critères de la liste paginée des réservations. Tous les critères sont optionnels (null = pas de filtre).
+ */
+public class ReservationFilter {
+
+    /** Statut des réservations listées en tête. */
+    public static final String PENDING = "En attente";
+
+    private String status;
+    private Integer createdById;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String search;
+
+    public ReservationFilter() {}
+
+    /** Statut exact ("En attente", "Active", "Terminée"...). */
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /** Identifiant de l'utilisateur ayant créé la réservation (vue d'un Admin). */
+    public Integer getCreatedById() {
+        return createdById;
+    }
+
+    public void setCreatedById(Integer createdById) {
+        this.createdById = createdById;
+    }
+
+    /** Date de réservation minimale (incluse). */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    /** Date de réservation maximale (exclue). */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    /** Texte recherché dans le ticket, le client, le poste, le jeu, le statut ou le parrain. */
+    public String getSearch() {
+        return search;
+    }
+
+    public void setSearch(String search) {
+        this.search = search;
+    }
+}
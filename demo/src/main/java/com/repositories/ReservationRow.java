@@ -0,0 +1,117 @@
+package com.repositories;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de la liste des réservations : projection SQL (aucune entité chargée), construite par
+ * IReservationRepository.findPage.
+ */
+public class ReservationRow {
+
+    private final int id;
+    private final String numeroTicket;
+    private final Integer clientId;
+    private final String clientName;
+    private final Integer posteId;
+    private final String posteName;
+    private final boolean posteHorsService;
+    private final Integer gameId;
+    private final String gameName;
+    private final LocalDateTime reservationDate;
+    private final Duration duration;
+    private final String status;
+    private final double totalPrice;
+    private final String codeParrainage;
+    private final String parrainName;
+
+    public ReservationRow(Integer id, String numeroTicket, Integer clientId, String clientName,
+                          Integer posteId, String posteName, Boolean posteHorsService,
+                          Integer gameId, String gameName, LocalDateTime reservationDate, Duration duration,
+                          String status, Double totalPrice, String codeParrainage, String parrainName) {
+        this.id = id;
+        this.numeroTicket = numeroTicket;
+        this.clientId = clientId;
+        this.clientName = clientName;
+        this.posteId = posteId;
+        this.posteName = posteName;
+        this.posteHorsService = posteHorsService != null && posteHorsService;
+        this.gameId = gameId;
+        this.gameName = gameName;
+        this.reservationDate = reservationDate;
+        this.duration = duration;
+        this.status = status;
+        this.totalPrice = totalPrice != null ? totalPrice : 0.0;
+        this.codeParrainage = codeParrainage;
+        this.parrainName = parrainName;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getNumeroTicket() {
+        return numeroTicket;
+    }
+
+    public Integer getClientId() {
+        return clientId;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public Integer getPosteId() {
+        return posteId;
+    }
+
+    /** Nom du poste, "Poste supprimé" si la réservation pointe vers un poste qui n'existe plus. */
+    public String getPosteName() {
+        if (posteId == null) return "N/A";
+        return posteName != null ? posteName : "Poste supprimé";
+    }
+
+    /** Le poste existe encore en base. */
+    public boolean hasPoste() {
+        return posteId != null && posteName != null;
+    }
+
+    public boolean isPosteHorsService() {
+        return posteHorsService;
+    }
+
+    public Integer getGameId() {
+        return gameId;
+    }
+
+    /** Nom du jeu, "Jeu supprimé" si la réservation pointe vers un jeu qui n'existe plus. */
+    public String getGameName() {
+        if (gameId == null) return "N/A";
+        return gameName != null ? gameName : "Jeu supprimé";
+    }
+
+    public LocalDateTime getReservationDate() {
+        return reservationDate;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public String getCodeParrainage() {
+        return codeParrainage;
+    }
+
+    public String getParrainName() {
+        return parrainName;
+    }
+}
@@ -8,6 +8,9 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
+
+import org.hibernate.jpa.QueryHints;
+
 import java.util.List;
 
 public class CategorieRepositoryJpa implements ICategorieRepository {
@@ -92,6 +95,7 @@ public class CategorieRepositoryJpa implements ICategorieRepository {
         try {
             Long count = em.createQuery("SELECT COUNT(c) FROM Categorie c WHERE LOWER(TRIM(c.nom)) = LOWER(TRIM(:nom))", Long.class)
                 .setParameter("nom", nom)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .getSingleResult();
             return count != null && count > 0;
         } finally {
@@ -106,6 +110,7 @@ public class CategorieRepositoryJpa implements ICategorieRepository {
         try {
             TypedQuery<Categorie> q = em.createQuery("SELECT c FROM Categorie c WHERE LOWER(TRIM(c.nom)) = LOWER(TRIM(:nom))", Categorie.class);
             q.setParameter("nom", nom);
+            q.setHint(QueryHints.HINT_CACHEABLE, true);
             return q.getSingleResult();
         } catch (NoResultException e) {
             return null;
@@ -1,7 +1,11 @@
 package com.repositories.bd; // Vous pouvez le placer dans com.repositories.bd si vous préférez
 
+import com.core.ClientSearchIndex;
 import com.core.JpaUtil; // Importez votre classe utilitaire JPA
 import com.entities.Client;
+import com.repositories.ClientFilter;
+import com.repositories.ClientPage;
+import com.repositories.ClientSummary;
 import com.repositories.IClientRepository;
 
 import javax.persistence.EntityManager;
@@ -9,7 +13,13 @@ import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ClientRepositoryJpa implements IClientRepository {
 
@@ -41,9 +51,8 @@ public class ClientRepositoryJpa implements IClientRepository {
         EntityManager em = JpaUtil.getEntityManager();
         List<Client> clients = null;
         try {
-            // Charge les clients ET leurs réservations en une seule requête
-            clients = em.createQuery(
-                "SELECT DISTINCT c FROM Client c LEFT JOIN FETCH c.reservations", Client.class)
+            // Réservations non chargées : les listes de clients passent par findClientSummaries
+            clients = em.createQuery("SELECT c FROM Client c", Client.class)
                 .getResultList();
         } catch (Exception e) {
             System.err.println("Erreur lors de la récupération de tous les clients : " + e.getMessage());
@@ -184,25 +193,150 @@ public class ClientRepositoryJpa implements IClientRepository {
     }
 
     @Override
-    public List<Client> findByNameContaining(String name) {
-        if (name == null || name.trim().isEmpty()) {
-            return java.util.Collections.emptyList();
+    public List<Integer> searchIds(String query, int limit) {
+        String match = ClientSearchIndex.matchQuery(query);
+        if (match == null || limit <= 0) {
+            return Collections.emptyList();
         }
         EntityManager em = JpaUtil.getEntityManager();
-        List<Client> clients = null;
+        List<Integer> ids = new ArrayList<>();
         try {
-            TypedQuery<Client> query = em.createQuery(
-                "SELECT c FROM Client c WHERE LOWER(c.name) LIKE LOWER(:pattern)", Client.class);
-            query.setParameter("pattern", "%" + name.trim() + "%");
-            clients = query.getResultList();
+            // Index plein texte clients_fts : classement bm25, sans parcourir la table users
+            List<?> rows = em.createNativeQuery(ClientSearchIndex.SEARCH_SQL)
+                .setParameter(1, match)
+                .setParameter(2, limit)
+                .getResultList();
+            for (Object row : rows) {
+                ids.add(((Number) row).intValue());
+            }
         } catch (Exception e) {
-            System.err.println("Erreur lors de la recherche des clients par nom : " + e.getMessage());
+            System.err.println("Erreur lors de la recherche plein texte des clients : " + e.getMessage());
             e.printStackTrace();
-            clients = java.util.Collections.emptyList();
         } finally {
             em.close();
         }
-        return clients != null ? clients : java.util.Collections.emptyList();
+        return ids;
+    }
+
+    @Override
+    public List<Client> findByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        EntityManager em = JpaUtil.getEntityManager();
+        List<Client> clients = new ArrayList<>();
+        try {
+            Map<Integer, Client> byId = new HashMap<>();
+            for (Client c : em.createQuery("SELECT c FROM Client c WHERE c.id IN :ids", Client.class)
+                    .setParameter("ids", ids)
+                    .getResultList()) {
+                byId.put(c.getId(), c);
+            }
+            // Même ordre que les identifiants (classement de la recherche)
+            for (Integer id : ids) {
+                Client c = byId.get(id);
+                if (c != null) clients.add(c);
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la récupération des clients par identifiants : " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            em.close();
+        }
+        return clients;
+    }
+
+    @Override
+    public Map<Integer, String> findClientPhones() {
+        EntityManager em = JpaUtil.getEntityManager();
+        Map<Integer, String> phones = new HashMap<>();
+        try {
+            List<Object[]> rows = em.createQuery(
+                "SELECT c.id, c.phone FROM Client c WHERE c.phone IS NOT NULL", Object[].class)
+                .getResultList();
+            for (Object[] row : rows) {
+                phones.put((Integer) row[0], (String) row[1]);
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la récupération des téléphones des clients : " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            em.close();
+        }
+        return phones;
+    }
+
+    @Override
+    public List<ClientSummary> findClientSummaries(ClientFilter filter, ClientPage page) {
+        ClientFilter f = filter != null ? filter : new ClientFilter();
+        if (f.getClientIds() != null && f.getClientIds().isEmpty()) {
+            return Collections.emptyList();
+        }
+        EntityManager em = JpaUtil.getEntityManager();
+        List<ClientSummary> summaries = new ArrayList<>();
+        try {
+            // Agrégats des réservations par client, sans charger les réservations
+            StringBuilder jpql = new StringBuilder(
+                "SELECT c.id, c.name, c.email, c.phone, c.address, c.loyaltyPoints, " +
+                "COUNT(r.id), SUM(r.duration), MAX(r.reservationDate) " +
+                "FROM Client c LEFT JOIN c.reservations r WHERE c.id > :afterId ");
+            if (f.getClientIds() != null) jpql.append("AND c.id IN :ids ");
+            if (f.isWithPhone()) jpql.append("AND c.phone IS NOT NULL AND trim(c.phone) <> '' ");
+            if (f.getReservationDate() != null) {
+                jpql.append("AND EXISTS (SELECT d.id FROM Reservation d WHERE d.client = c " +
+                            "AND d.reservationDate >= :dayStart AND d.reservationDate < :dayEnd) ");
+            }
+            jpql.append("GROUP BY c.id, c.name, c.email, c.phone, c.address, c.loyaltyPoints ");
+            if (f.isWithReservations() || f.getMinPlayTime() != null) {
+                jpql.append("HAVING COUNT(r.id) > 0 ");
+                if (f.getMinPlayTime() != null) jpql.append("AND SUM(r.duration) >= :minPlayTime ");
+            }
+            jpql.append("ORDER BY c.id");
+
+            TypedQuery<Object[]> query = em.createQuery(jpql.toString(), Object[].class)
+                .setParameter("afterId", page.getAfterId());
+            if (f.getClientIds() != null) query.setParameter("ids", f.getClientIds());
+            if (f.getReservationDate() != null) {
+                query.setParameter("dayStart", f.getReservationDate().atStartOfDay());
+                query.setParameter("dayEnd", f.getReservationDate().plusDays(1).atStartOfDay());
+            }
+            if (f.getMinPlayTime() != null) query.setParameter("minPlayTime", f.getMinPlayTime().toMinutes());
+            List<Object[]> rows = query.setMaxResults(page.getSize()).getResultList();
+            if (rows.isEmpty()) {
+                return summaries;
+            }
+
+            // Temps restant des sessions en pause, pour les clients de la page seulement
+            List<Integer> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) ids.add((Integer) row[0]);
+            Map<Integer, Duration> paused = new HashMap<>();
+            for (Object[] row : em.createQuery(
+                    "SELECT s.client.id, MAX(s.pausedRemainingTime) FROM GameSession s " +
+                    "WHERE s.status = :paused AND s.client.id IN :ids GROUP BY s.client.id", Object[].class)
+                    .setParameter("paused", "En pause")
+                    .setParameter("ids", ids)
+                    .getResultList()) {
+                paused.put((Integer) row[0], (Duration) row[1]);
+            }
+
+            for (Object[] row : rows) {
+                summaries.add(new ClientSummary((Integer) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (Integer) row[5], ((Number) row[6]).longValue(), minutes(row[7]),
+                    (LocalDateTime) row[8], paused.get((Integer) row[0])));
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la récupération des résumés clients : " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            em.close();
+        }
+        return summaries;
+    }
+
+    // SUM d'une durée convertie en minutes (DurationConverter) : nombre de minutes ou Duration
+    private static Duration minutes(Object sum) {
+        if (sum instanceof Duration) return (Duration) sum;
+        return sum != null ? Duration.ofMinutes(((Number) sum).longValue()) : Duration.ZERO;
     }
 
     @Override
@@ -10,6 +10,8 @@ import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 
+import org.hibernate.jpa.QueryHints;
+
 import java.util.List;
 
 public class GameRepositoryJpa implements IGameRepository {
@@ -144,6 +146,7 @@ public class GameRepositoryJpa implements IGameRepository {
             // JPQL pour vérifier l'existence par nom
             Long count = em.createQuery("SELECT COUNT(g) FROM Game g WHERE g.name = :name", Long.class)
                            .setParameter("name", name)
+                           .setHint(QueryHints.HINT_CACHEABLE, true)
                            .getSingleResult();
             return count > 0;
         } catch (NoResultException e) {
@@ -9,8 +9,12 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
+import java.sql.Timestamp;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class GameSessionRepositoryJpa implements IGameSessionRepository {
 
@@ -41,6 +45,9 @@ public class GameSessionRepositoryJpa implements IGameSessionRepository {
         try {
             return em.createQuery(
                 "SELECT gs FROM GameSession gs " +
+                "LEFT JOIN FETCH gs.client " +
+                "LEFT JOIN FETCH gs.game " +
+                "LEFT JOIN FETCH gs.poste " +
                 "LEFT JOIN FETCH gs.reservation r " +
                 "LEFT JOIN FETCH r.client c " +
                 "LEFT JOIN FETCH r.appliedPromotion ap " +
@@ -61,62 +68,32 @@ public class GameSessionRepositoryJpa implements IGameSessionRepository {
     public GameSession addGameSession(GameSession gameSession) throws Exception {
         EntityManager em = JpaUtil.getEntityManager();
         EntityTransaction transaction = null;
-        int retryCount = 0;
-        final int maxRetries = 3;
-        
-        while (retryCount < maxRetries) {
-            try {
-                transaction = em.getTransaction();
-                transaction.begin();
-                
-                if (gameSession.getPoste() != null && !em.contains(gameSession.getPoste())) {
-                    gameSession.setPoste(em.merge(gameSession.getPoste()));
-                }
-                if (gameSession.getClient() != null && !em.contains(gameSession.getClient())) {
-                    gameSession.setClient(em.merge(gameSession.getClient()));
-                }
-                
-                em.persist(gameSession);
-                em.flush();
-                transaction.commit();
-                
-                System.out.println("Session ajoutée. ID: " + gameSession.getId());
-                return gameSession;
-                
-            } catch (Exception e) {
-                if (transaction != null && transaction.isActive()) {
-                    try {
-                        transaction.rollback();
-                    } catch (Exception rollbackEx) {
-                        System.err.println("Erreur lors du rollback: " + rollbackEx.getMessage());
-                    }
-                }
-                
-                if (e.getCause() instanceof org.sqlite.SQLiteException 
-                    && e.getCause().getMessage().contains("locked")) {
-                    
-                    retryCount++;
-                    System.out.println("Tentative " + retryCount + "/" + maxRetries + " - Base verrouillée, nouvelle tentative...");
-                    
-                    if (retryCount < maxRetries) {
-                        try {
-                            Thread.sleep(100 * retryCount);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                        }
-                        continue;
-                    }
-                }
-                
-                System.err.println("Échec après " + retryCount + " tentatives: " + e.getMessage());
-                throw new RuntimeException("Échec de l'ajout de la session", e);
-            } finally {
-                if (em != null && em.isOpen() && (transaction == null || !transaction.isActive())) {
-                    em.close();
-                }
+        try {
+            transaction = em.getTransaction();
+            transaction.begin();
+
+            if (gameSession.getPoste() != null && !em.contains(gameSession.getPoste())) {
+                gameSession.setPoste(em.merge(gameSession.getPoste()));
+            }
+            if (gameSession.getClient() != null && !em.contains(gameSession.getClient())) {
+                gameSession.setClient(em.merge(gameSession.getClient()));
             }
+
+            em.persist(gameSession);
+            em.flush();
+            transaction.commit();
+
+            System.out.println("Session ajoutée. ID: " + gameSession.getId());
+            return gameSession;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            System.err.println("Erreur lors de l'ajout de la session : " + e.getMessage());
+            throw new RuntimeException("Échec de l'ajout de la session", e);
+        } finally {
+            em.close();
         }
-        return null;
     }
 
     @Override
@@ -145,7 +122,11 @@ public class GameSessionRepositoryJpa implements IGameSessionRepository {
         List<GameSession> sessions = null;
         try {
             TypedQuery<GameSession> query = em.createQuery(
-                "SELECT gs FROM GameSession gs WHERE gs.poste = :poste AND gs.status = 'En pause'", GameSession.class);
+                "SELECT gs FROM GameSession gs " +
+                "LEFT JOIN FETCH gs.client " +
+                "LEFT JOIN FETCH gs.game " +
+                "LEFT JOIN FETCH gs.reservation " +
+                "WHERE gs.poste = :poste AND gs.status = 'En pause'", GameSession.class);
             query.setParameter("poste", poste);
             sessions = query.getResultList();
         } catch (Exception e) {
@@ -370,5 +351,97 @@ public List<GameSession> findPausedSessionsByClientIdWithRelations(int clientId)
     return gameSessions;
 }
 
+    @Override
+    public List<GameSession> findByStatusIn(Set<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            return em.createQuery(
+                "SELECT gs FROM GameSession gs " +
+                "LEFT JOIN FETCH gs.client " +
+                "LEFT JOIN FETCH gs.game " +
+                "LEFT JOIN FETCH gs.poste " +
+                "LEFT JOIN FETCH gs.reservation " +
+                "WHERE gs.status IN :statuses", GameSession.class)
+                .setParameter("statuses", statuses)
+                .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la recherche des sessions par statut", e);
+        } finally {
+            em.close();
+        }
+    }
 
-}
\ No newline at end of file
+    @Override
+    public List<GameSession> findActiveByClientId(int clientId) {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            return em.createQuery(
+                "SELECT gs FROM GameSession gs " +
+                "LEFT JOIN FETCH gs.client " +
+                "LEFT JOIN FETCH gs.game " +
+                "LEFT JOIN FETCH gs.poste " +
+                "LEFT JOIN FETCH gs.reservation " +
+                "WHERE gs.client.id = :clientId AND gs.status = 'Active'", GameSession.class)
+                .setParameter("clientId", clientId)
+                .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la recherche des sessions actives du client", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public boolean existsActiveForClient(int clientId) {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            List<Integer> ids = em.createQuery(
+                "SELECT gs.id FROM GameSession gs WHERE gs.client.id = :clientId AND gs.status = 'Active'", Integer.class)
+                .setParameter("clientId", clientId)
+                .setMaxResults(1)
+                .getResultList();
+            return !ids.isEmpty();
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la vérification des sessions actives du client", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public List<GameSession> findEndingBefore(LocalDateTime instant) {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            // La fin n'est pas stockée (endTime n'est renseigné qu'à la clôture) : l'expression début (ms)
+            // + durée payée (minutes) est indexée avec le statut (migration 10) et doit être écrite à l'identique.
+            List<?> rows = em.createNativeQuery(
+                "SELECT id FROM game_sessions " +
+                "WHERE status = 'Active' AND startTime + paidDuration * 60000 < ?1 ORDER BY id")
+                .setParameter(1, Timestamp.valueOf(instant).getTime())
+                .getResultList();
+            if (rows.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<Integer> ids = new ArrayList<>();
+            for (Object row : rows) {
+                ids.add(((Number) row).intValue());
+            }
+            return em.createQuery(
+                "SELECT gs FROM GameSession gs " +
+                "LEFT JOIN FETCH gs.client " +
+                "LEFT JOIN FETCH gs.game " +
+                "LEFT JOIN FETCH gs.poste " +
+                "LEFT JOIN FETCH gs.reservation " +
+                "WHERE gs.id IN :ids ORDER BY gs.id", GameSession.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la recherche des sessions arrivées à échéance", e);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.repositories.bd; // Vous pouvez le placer dans com.repositories.bd s
 
 import com.core.JpaUtil;
 import com.entities.Payment;
-import com.entities.User;
 import com.repositories.IPaymentRepository;
 
 import javax.persistence.EntityManager;
@@ -11,6 +10,7 @@ import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,13 +33,15 @@ public class PaymentRepositoryJpa implements IPaymentRepository {
     }
 
 
-    public List<Payment> getPaymentsByUser(User user) {
+    @Override
+    public List<Payment> getPaymentsByUser(int userId) {
         EntityManager em = JpaUtil.getEntityManager();
         try {
             return em.createQuery(
-                "SELECT p FROM Payment p WHERE p.createdBy = :user", 
+                "SELECT p FROM Payment p LEFT JOIN FETCH p.client LEFT JOIN FETCH p.createdBy " +
+                "WHERE p.createdBy.id = :userId",
                 Payment.class)
-                .setParameter("user", user)
+                .setParameter("userId", userId)
                 .getResultList();
         } catch (Exception e) {
             System.err.println("Erreur lors de la récupération des paiements par user: " + e.getMessage());
@@ -49,6 +51,29 @@ public class PaymentRepositoryJpa implements IPaymentRepository {
         }
     }
 
+    @Override
+    public List<Payment> findPaymentsBetween(Date from, Date to, Integer createdById) {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            TypedQuery<Payment> query = em.createQuery(
+                "SELECT p FROM Payment p LEFT JOIN FETCH p.client LEFT JOIN FETCH p.createdBy " +
+                "WHERE p.dateHeure >= :from AND p.dateHeure < :to" +
+                (createdById != null ? " AND p.createdBy.id = :userId" : "") +
+                " ORDER BY p.dateHeure", Payment.class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+            if (createdById != null) {
+                query.setParameter("userId", createdById);
+            }
+            return query.getResultList();
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la récupération des paiements de la période: " + e.getMessage());
+            return Collections.emptyList();
+        } finally {
+            em.close();
+        }
+    }
+
     @Override
     public void addPayment(Payment payment) {
         EntityManager em = JpaUtil.getEntityManager();
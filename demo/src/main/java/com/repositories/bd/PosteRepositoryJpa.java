@@ -10,6 +10,8 @@ import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 
+import org.hibernate.jpa.QueryHints;
+
 import java.util.List;
 
 public class PosteRepositoryJpa implements IPosteRepository {
@@ -139,6 +141,7 @@ public class PosteRepositoryJpa implements IPosteRepository {
             // JPQL pour compter les postes disponibles (horsService = false)
             Long count = em.createQuery("SELECT COUNT(p) FROM Poste p WHERE p.id = :id AND p.horsService = false", Long.class)
                            .setParameter("id", id)
+                           .setHint(QueryHints.HINT_CACHEABLE, true)
                            .getSingleResult();
             return count > 0;
         } catch (NoResultException e) {
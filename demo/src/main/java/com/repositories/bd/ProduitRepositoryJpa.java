@@ -14,8 +14,8 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
 import org.hibernate.Hibernate;
+import org.hibernate.jpa.QueryHints;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
 
@@ -158,6 +158,7 @@ public class ProduitRepositoryJpa implements IProduitRepository {
         try {
             Long count = em.createQuery("SELECT COUNT(p) FROM Produit p WHERE p.nom = :nom", Long.class)
                            .setParameter("nom", nom)
+                           .setHint(QueryHints.HINT_CACHEABLE, true)
                            .getSingleResult();
             return count > 0;
         } catch (Exception e) {
@@ -167,56 +168,6 @@ public class ProduitRepositoryJpa implements IProduitRepository {
         }
     }
 
-    @Override
-    public void updatePrixEtAncienPrix(int produitId, BigDecimal ancienPrix, BigDecimal nouveauPrix) {
-        EntityManager em = JpaUtil.getEntityManager();
-        EntityTransaction transaction = null;
-        try {
-            transaction = em.getTransaction();
-            transaction.begin();
-            
-            Produit produit = em.find(Produit.class, produitId);
-            if (produit != null) {
-                produit.setAncienPrix(ancienPrix);
-                produit.setPrix(nouveauPrix);
-            }
-            
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Erreur lors de la mise à jour du prix et de l'ancien prix", e);
-        } finally {
-            em.close();
-        }
-    }
-
-    @Override
-    public void restaurerPrixInitial(int produitId, BigDecimal ancienPrix) {
-        EntityManager em = JpaUtil.getEntityManager();
-        EntityTransaction transaction = null;
-        try {
-            transaction = em.getTransaction();
-            transaction.begin();
-            
-            Produit produit = em.find(Produit.class, produitId);
-            if (produit != null) {
-                produit.setPrix(ancienPrix);
-                produit.setAncienPrix(null);
-            }
-            
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Erreur lors de la restauration du prix initial", e);
-        } finally {
-            em.close();
-        }
-    }
-
     @Override
     public Set<Produit> findByPromotionId(int promotionId) {
         EntityManager em = JpaUtil.getEntityManager();
@@ -15,9 +15,13 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
 import org.hibernate.Hibernate;
+import org.hibernate.jpa.QueryHints;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class PromotionRepositoryJpa implements IPromoRepository {
@@ -132,6 +136,25 @@ public class PromotionRepositoryJpa implements IPromoRepository {
         }
     }
 
+    @Override
+    public Map<Integer, List<Integer>> findActivePromotionIdsByProduit() {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            List<Object[]> rows = em.createQuery(
+                "SELECT pr.id, p.id FROM Promotion p JOIN p.produits pr WHERE p.actif = true", Object[].class)
+                .getResultList();
+            Map<Integer, List<Integer>> promotionIds = new HashMap<>();
+            for (Object[] row : rows) {
+                promotionIds.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((Integer) row[1]);
+            }
+            return promotionIds;
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la lecture des produits en promotion", e);
+        } finally {
+            em.close();
+        }
+    }
+
     @Override
     public List<Promotion> findValidPromotionsByTypeAndDate(TypePromotion type, LocalDate date) {
         EntityManager em = JpaUtil.getEntityManager();
@@ -141,6 +164,7 @@ public class PromotionRepositoryJpa implements IPromoRepository {
                 "AND p.dateDebut <= :date AND p.dateFin >= :date", Promotion.class);
             query.setParameter("type", type);
             query.setParameter("date", date);
+            query.setHint(QueryHints.HINT_CACHEABLE, true);
             return query.getResultList();
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la recherche des promotions valides", e);
@@ -157,6 +181,7 @@ public class PromotionRepositoryJpa implements IPromoRepository {
             TypedQuery<Promotion> query = em.createQuery(
                 "SELECT p FROM Promotion p WHERE p.nom = :nom", Promotion.class);
             query.setParameter("nom", nom);
+            query.setHint(QueryHints.HINT_CACHEABLE, true);
             return Optional.ofNullable(query.getSingleResult());
         } catch (NoResultException e) {
             return Optional.empty();
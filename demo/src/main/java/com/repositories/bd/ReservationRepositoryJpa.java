@@ -4,12 +4,17 @@ import com.core.JpaUtil;
 import com.entities.Reservation;
 import com.entities.User;
 import com.repositories.IReservationRepository;
+import com.repositories.ReservationCursor;
+import com.repositories.ReservationFilter;
+import com.repositories.ReservationRow;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ReservationRepositoryJpa implements IReservationRepository {
@@ -66,16 +71,19 @@ public class ReservationRepositoryJpa implements IReservationRepository {
         EntityManager em = JpaUtil.getEntityManager();
         Reservation reservation = null;
         try {
-            reservation = em.find(Reservation.class, id);
-            
-            if (reservation != null) {
-                // Force le chargement des relations LAZY
-                if (reservation.getClient() != null) reservation.getClient().getId();
-                if (reservation.getPoste() != null) reservation.getPoste().getId();
-                if (reservation.getGame() != null) reservation.getGame().getId();
-                if (reservation.getAppliedPromotion() != null) reservation.getAppliedPromotion().getId();
-                if (reservation.getCreatedBy() != null) reservation.getCreatedBy().getId(); // Nouveau
-            }
+            // Relations LAZY chargées dans la même requête (getId() sur un proxy ne l'initialise pas)
+            reservation = em.createQuery(
+                "SELECT r FROM Reservation r " +
+                "LEFT JOIN FETCH r.client " +
+                "LEFT JOIN FETCH r.poste " +
+                "LEFT JOIN FETCH r.game " +
+                "LEFT JOIN FETCH r.appliedPromotion " +
+                "LEFT JOIN FETCH r.createdBy " +
+                "WHERE r.id = :id", Reservation.class)
+                .setParameter("id", id)
+                .getSingleResult();
+        } catch (NoResultException e) {
+            reservation = null;
         } catch (Exception e) {
             System.err.println("Erreur lors de la recherche de la réservation par ID : " + e.getMessage());
             e.printStackTrace();
@@ -252,6 +260,32 @@ public class ReservationRepositoryJpa implements IReservationRepository {
         return reservations;
     }
 
+    @Override
+    public List<Reservation> findReservationsBetween(LocalDateTime from, LocalDateTime to, Integer createdById) {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            TypedQuery<Reservation> query = em.createQuery(
+                "SELECT r FROM Reservation r " +
+                "LEFT JOIN FETCH r.client " +
+                "LEFT JOIN FETCH r.poste " +
+                "WHERE r.reservationDate >= :from AND r.reservationDate < :to" +
+                (createdById != null ? " AND r.createdBy.id = :userId" : "") +
+                " ORDER BY r.reservationDate", Reservation.class);
+            query.setParameter("from", from);
+            query.setParameter("to", to);
+            if (createdById != null) {
+                query.setParameter("userId", createdById);
+            }
+            return query.getResultList();
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la recherche des réservations de la période : " + e.getMessage());
+            e.printStackTrace();
+            return Collections.emptyList();
+        } finally {
+            em.close();
+        }
+    }
+
     // Nouvelle méthode pour trouver les réservations par ID utilisateur
     public List<Reservation> findReservationsByUserId(int userId) {
         EntityManager em = JpaUtil.getEntityManager();
@@ -273,4 +307,83 @@ public class ReservationRepositoryJpa implements IReservationRepository {
         }
         return reservations;
     }
-}
\ No newline at end of file
+
+    // Projection des lignes de la liste : clés étrangères lues directement, noms par jointures externes
+    private static final String ROW_QUERY =
+        "SELECT new com.repositories.ReservationRow(" +
+        "r.id, r.numeroTicket, r.client.id, c.name, r.poste.id, p.name, p.horsService, " +
+        "r.game.id, g.name, r.reservationDate, r.duration, r.status, r.totalPrice, r.codeParrainage, par.name) " +
+        "FROM Reservation r " +
+        "LEFT JOIN r.client c " +
+        "LEFT JOIN r.poste p " +
+        "LEFT JOIN r.game g " +
+        "LEFT JOIN Parrain par ON par.codeParrainage = r.codeParrainage ";
+
+    @Override
+    public List<ReservationRow> findPage(ReservationFilter filter, ReservationCursor cursor, int limit) {
+        ReservationFilter f = filter != null ? filter : new ReservationFilter();
+        List<ReservationRow> rows = new ArrayList<>();
+        boolean inPendingGroup = cursor == null || cursor.isPending();
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            // Groupe 1 : réservations en attente ; groupe 2 : toutes les autres
+            if (inPendingGroup && (f.getStatus() == null || ReservationFilter.PENDING.equals(f.getStatus()))) {
+                rows.addAll(findPageInGroup(em, f, true, cursor, limit));
+            }
+            if (rows.size() < limit && !ReservationFilter.PENDING.equals(f.getStatus())) {
+                rows.addAll(findPageInGroup(em, f, false, inPendingGroup ? null : cursor, limit - rows.size()));
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la récupération d'une page de réservations : " + e.getMessage());
+            throw new RuntimeException("Erreur lors de la récupération d'une page de réservations", e);
+        } finally {
+            em.close();
+        }
+        return rows;
+    }
+
+    private List<ReservationRow> findPageInGroup(EntityManager em, ReservationFilter f, boolean pending,
+                                                 ReservationCursor cursor, int limit) {
+        StringBuilder jpql = new StringBuilder(ROW_QUERY);
+        if (pending) {
+            jpql.append("WHERE r.status = :pending ");
+        } else if (f.getStatus() != null) {
+            jpql.append("WHERE r.status = :status ");
+        } else {
+            jpql.append("WHERE (r.status IS NULL OR r.status <> :pending) ");
+        }
+        if (f.getCreatedById() != null) jpql.append("AND r.createdBy.id = :userId ");
+        if (f.getFrom() != null) jpql.append("AND r.reservationDate >= :from ");
+        if (f.getTo() != null) jpql.append("AND r.reservationDate < :to ");
+        String search = f.getSearch() != null ? f.getSearch().trim().toLowerCase() : "";
+        if (!search.isEmpty()) {
+            jpql.append("AND (lower(r.numeroTicket) LIKE :q OR lower(c.name) LIKE :q OR lower(p.name) LIKE :q " +
+                        "OR lower(g.name) LIKE :q OR lower(r.status) LIKE :q OR lower(r.codeParrainage) LIKE :q " +
+                        "OR lower(par.name) LIKE :q) ");
+        }
+        // Réservations sans date en fin de groupe : après une ligne sans date, le curseur ne porte plus que sur l'id
+        if (cursor != null && cursor.getReservationDate() != null) {
+            jpql.append("AND (r.reservationDate < :cursorDate OR (r.reservationDate = :cursorDate AND r.id < :cursorId) " +
+                        "OR r.reservationDate IS NULL) ");
+        } else if (cursor != null) {
+            jpql.append("AND r.reservationDate IS NULL AND r.id < :cursorId ");
+        }
+        jpql.append("ORDER BY r.reservationDate DESC NULLS LAST, r.id DESC");
+
+        TypedQuery<ReservationRow> query = em.createQuery(jpql.toString(), ReservationRow.class);
+        if (pending || f.getStatus() == null) {
+            query.setParameter("pending", ReservationFilter.PENDING);
+        } else {
+            query.setParameter("status", f.getStatus());
+        }
+        if (f.getCreatedById() != null) query.setParameter("userId", f.getCreatedById());
+        if (f.getFrom() != null) query.setParameter("from", f.getFrom());
+        if (f.getTo() != null) query.setParameter("to", f.getTo());
+        if (!search.isEmpty()) query.setParameter("q", "%" + search + "%");
+        if (cursor != null) {
+            if (cursor.getReservationDate() != null) query.setParameter("cursorDate", cursor.getReservationDate());
+            query.setParameter("cursorId", cursor.getId());
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
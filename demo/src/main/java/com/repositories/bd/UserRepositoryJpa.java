@@ -185,6 +185,21 @@ public class UserRepositoryJpa implements IUserRepository {
         return client;
     }
 
+    @Override
+    public User findUserById(int id) {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            // Utilisateur de tout rôle (caissier, admin...), contrairement à findById qui cible les clients
+            return em.find(User.class, id);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la recherche de l'utilisateur par ID : " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            em.close();
+        }
+    }
+
     @Override
     public boolean existsByName(String name) {
         EntityManager em = JpaUtil.getEntityManager();
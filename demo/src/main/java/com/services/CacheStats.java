@@ -0,0 +1,71 @@
+package com.services;
+
+import java.time.Duration;
+
+/** Compteurs d'un cache de données de référence à un instant donné (valeur immuable). */
+public final class CacheStats {
+
+    private final String name;
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final Duration loadTime;
+    private final long version;
+    private final int size;
+
+    public CacheStats(String name, long hits, long misses, long loads, Duration loadTime, long version, int size) {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.loadTime = loadTime;
+        this.version = version;
+        this.size = size;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Lectures servies par l'instantané en mémoire. */
+    public long getHits() {
+        return hits;
+    }
+
+    /** Lectures ayant dû charger la liste depuis la base. */
+    public long getMisses() {
+        return misses;
+    }
+
+    /** Chargements depuis la base effectués. */
+    public long getLoads() {
+        return loads;
+    }
+
+    /** Temps cumulé des chargements. */
+    public Duration getLoadTime() {
+        return loadTime;
+    }
+
+    /** Nombre d'invalidations depuis le démarrage. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Nombre d'éléments de l'instantané courant (0 s'il est périmé). */
+    public int getSize() {
+        return size;
+    }
+
+    /** Part des lectures servies par le cache, entre 0 et 1. */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s : %d lectures en cache, %d chargements (%d ms), version %d, %d éléments",
+            name, hits, misses, loadTime.toMillis(), version, size);
+    }
+}
@@ -0,0 +1,200 @@
+package com.services;
+
+import com.repositories.IClientRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie en mémoire des numéros de téléphone des clients, pour la recherche par préfixe à la saisie
+ * ("77 12" trouve tous les 7712...). Chargé une seule fois depuis la base, puis tenu à jour par le
+ * Service à chaque ajout, modification ou suppression de client.
+ *
+ * Les nœuds sont stockés dans des tableaux d'entiers (premier enfant, frère suivant, chiffre) plutôt
+ * qu'en objets : 50 000 numéros tiennent en quelques Mo. Les enfants sont rangés par chiffre croissant,
+ * le parcours rend donc les numéros dans l'ordre.
+ */
+public class ClientPhoneTrie {
+
+    private static final int NONE = -1;
+
+    private final IClientRepository clientRepository;
+
+    // Nœud i : chiffre, premier enfant, frère suivant, premier client (liste chaînée d'entrées)
+    private int[] digit;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] firstEntry;
+    private int nodeCount;
+    // Entrée j : identifiant du client, entrée suivante du même nœud ; entrées libérées réutilisées
+    private int[] entryClient;
+    private int[] entryNext;
+    private int entryCount;
+    private int freeEntry;
+    // Numéro indexé de chaque client : retrouvé à la suppression même si l'entité a changé
+    private final Map<Integer, String> phoneOf = new HashMap<>();
+    private boolean loaded;
+
+    public ClientPhoneTrie(IClientRepository clientRepository) {
+        this.clientRepository = clientRepository;
+        clear();
+    }
+
+    /** Chiffres du numéro (espaces, tirets, +, parenthèses ignorés). */
+    public static String normalize(String phone) {
+        if (phone == null) return "";
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') digits.append(c);
+        }
+        return digits.toString();
+    }
+
+    /** Identifiants des clients dont le numéro commence par prefix (chiffres seuls), au plus limit. */
+    public synchronized List<Integer> findByPrefix(String prefix, int limit) {
+        ensureLoaded();
+        List<Integer> ids = new ArrayList<>();
+        String digits = normalize(prefix);
+        if (digits.isEmpty() || limit <= 0) return ids;
+        int node = find(digits);
+        if (node == NONE) return ids;
+        // Parcours en profondeur : numéro du nœud avant ceux de ses enfants
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0 && ids.size() < limit) {
+            int n = stack[--top];
+            for (int e = firstEntry[n]; e != NONE && ids.size() < limit; e = entryNext[e]) {
+                ids.add(entryClient[e]);
+            }
+            // Enfants empilés du dernier au premier : le plus petit chiffre est dépilé d'abord
+            int childCount = 0;
+            for (int c = firstChild[n]; c != NONE; c = nextSibling[c]) childCount++;
+            if (top + childCount > stack.length) stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + childCount));
+            int i = top + childCount;
+            for (int c = firstChild[n]; c != NONE; c = nextSibling[c]) stack[--i] = c;
+            top += childCount;
+        }
+        return ids;
+    }
+
+    /** Indexe (ou réindexe) le numéro du client. */
+    public synchronized void put(int clientId, String phone) {
+        if (!loaded) return; // chargé plus tard depuis la base, avec ce client
+        remove(clientId);
+        add(clientId, normalize(phone));
+    }
+
+    /** Retire le client de l'index. */
+    public synchronized void remove(int clientId) {
+        String phone = phoneOf.remove(clientId);
+        if (phone == null) return;
+        int node = find(phone);
+        if (node == NONE) return;
+        int previous = NONE;
+        for (int e = firstEntry[node]; e != NONE; previous = e, e = entryNext[e]) {
+            if (entryClient[e] != clientId) continue;
+            if (previous == NONE) firstEntry[node] = entryNext[e];
+            else entryNext[previous] = entryNext[e];
+            entryNext[e] = freeEntry;
+            freeEntry = e;
+            return;
+        }
+    }
+
+    /** Force un rechargement complet depuis la base au prochain accès. */
+    public synchronized void invalidate() {
+        clear();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        for (Map.Entry<Integer, String> client : clientRepository.findClientPhones().entrySet()) {
+            add(client.getKey(), normalize(client.getValue()));
+        }
+        loaded = true;
+    }
+
+    private void clear() {
+        digit = new int[1024];
+        firstChild = new int[1024];
+        nextSibling = new int[1024];
+        firstEntry = new int[1024];
+        entryClient = new int[256];
+        entryNext = new int[256];
+        nodeCount = 0;
+        entryCount = 0;
+        freeEntry = NONE;
+        phoneOf.clear();
+        loaded = false;
+        newNode(NONE); // racine
+    }
+
+    private void add(int clientId, String digits) {
+        if (digits.isEmpty()) return;
+        int node = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            node = child(node, digits.charAt(i) - '0', true);
+        }
+        int e;
+        if (freeEntry != NONE) {
+            e = freeEntry;
+            freeEntry = entryNext[e];
+        } else {
+            if (entryCount == entryClient.length) {
+                entryClient = Arrays.copyOf(entryClient, entryCount * 2);
+                entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+            }
+            e = entryCount++;
+        }
+        entryClient[e] = clientId;
+        entryNext[e] = firstEntry[node];
+        firstEntry[node] = e;
+        phoneOf.put(clientId, digits);
+    }
+
+    private int find(String digits) {
+        int node = 0;
+        for (int i = 0; i < digits.length() && node != NONE; i++) {
+            node = child(node, digits.charAt(i) - '0', false);
+        }
+        return node;
+    }
+
+    // Enfant de parent portant le chiffre d ; créé à sa place dans l'ordre des chiffres si create
+    private int child(int parent, int d, boolean create) {
+        int previous = NONE;
+        int c = firstChild[parent];
+        while (c != NONE && digit[c] < d) {
+            previous = c;
+            c = nextSibling[c];
+        }
+        if (c != NONE && digit[c] == d) return c;
+        if (!create) return NONE;
+        int created = newNode(d);
+        nextSibling[created] = c;
+        if (previous == NONE) firstChild[parent] = created;
+        else nextSibling[previous] = created;
+        return created;
+    }
+
+    private int newNode(int d) {
+        if (nodeCount == digit.length) {
+            int capacity = nodeCount * 2;
+            digit = Arrays.copyOf(digit, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            firstEntry = Arrays.copyOf(firstEntry, capacity);
+        }
+        int n = nodeCount++;
+        digit[n] = d;
+        firstChild[n] = NONE;
+        nextSibling[n] = NONE;
+        firstEntry[n] = NONE;
+        return n;
+    }
+}
@@ -0,0 +1,191 @@
+package com.services;
+
+import com.core.DailyRevenueRollup;
+import com.core.SqliteDataSources;
+import com.entities.AdminDailyReport;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Requêtes d'agrégation des rapports financiers, exécutées directement en SQL (GROUP BY) sur le pool
+ * en lecture seule : seuls les totaux remontent en mémoire, quel que soit l'historique en base.
+ * Le journal par admin et par jour est lu dans le cumul daily_revenue (voir DailyRevenueRollup).
+ *
+ * Les dates (payments.dateHeure, reservations.reservationDate) sont stockées en millisecondes epoch ;
+ * les journées sont découpées dans le fuseau local. Bornes nulles = période non limitée.
+ */
+public class FinanceQueryService {
+
+    // Vente de produits : paiement avec un détail d'articles ; paiement de réservation : détail de réservation
+    private static final String IS_PRODUCT_SALE = "trim(coalesce(p.detailsProduits, '')) <> ''";
+    private static final String IS_RESERVATION_PAYMENT = "trim(coalesce(p.detailReservations, '')) <> ''";
+
+    // Lu dans la table de cumul daily_revenue (quelques lignes par jour), pas dans l'historique
+    private static final String DAILY_REPORTS_SQL =
+        "SELECT d.user_id, u.name, d.day, " +
+        "       SUM(CASE WHEN d.kind = '" + DailyRevenueRollup.KIND_PRODUCT + "' THEN d.operations ELSE 0 END), " +
+        "       SUM(CASE WHEN d.kind = '" + DailyRevenueRollup.KIND_PRODUCT + "' THEN d.amount ELSE 0 END), " +
+        "       SUM(CASE WHEN d.kind = '" + DailyRevenueRollup.KIND_RESERVATION + "' THEN d.operations ELSE 0 END), " +
+        "       SUM(CASE WHEN d.kind = '" + DailyRevenueRollup.KIND_RESERVATION + "' THEN d.amount ELSE 0 END) " +
+        "FROM daily_revenue d JOIN users u ON u.id = d.user_id " +
+        "WHERE d.kind IN ('" + DailyRevenueRollup.KIND_PRODUCT + "', '" + DailyRevenueRollup.KIND_RESERVATION + "') " +
+        "  AND d.day >= ? AND d.day <= ? AND (? IS NULL OR d.user_id = ?) " +
+        "GROUP BY d.user_id, u.name, d.day " +
+        "HAVING SUM(d.operations) > 0 " +
+        "ORDER BY d.day DESC, u.name";
+
+    private static final String SALES_SPLIT_SQL =
+        "SELECT SUM(CASE WHEN " + IS_PRODUCT_SALE + " THEN 1 ELSE 0 END), " +
+        "       SUM(CASE WHEN " + IS_PRODUCT_SALE + " THEN p.montantTotal ELSE 0 END), " +
+        "       SUM(CASE WHEN " + IS_RESERVATION_PAYMENT + " THEN 1 ELSE 0 END), " +
+        "       SUM(CASE WHEN " + IS_RESERVATION_PAYMENT + " THEN p.montantTotal ELSE 0 END) " +
+        "FROM payments p " +
+        "WHERE p.dateHeure >= ? AND p.dateHeure < ? AND (? IS NULL OR p.created_by = ?)";
+
+    private static final String PRODUCT_DETAILS_SQL =
+        "SELECT p.detailsProduits FROM payments p " +
+        "WHERE " + IS_PRODUCT_SALE + " AND p.dateHeure >= ? AND p.dateHeure < ?";
+
+    /** Répartition ventes de produits / paiements de réservations sur une période. */
+    public static final class SalesSplit {
+        private final int productSalesCount;
+        private final double productSalesTotal;
+        private final int reservationPaymentCount;
+        private final double reservationPaymentTotal;
+
+        public SalesSplit(int productSalesCount, double productSalesTotal, int reservationPaymentCount, double reservationPaymentTotal) {
+            this.productSalesCount = productSalesCount;
+            this.productSalesTotal = productSalesTotal;
+            this.reservationPaymentCount = reservationPaymentCount;
+            this.reservationPaymentTotal = reservationPaymentTotal;
+        }
+
+        public int getProductSalesCount() { return productSalesCount; }
+        public double getProductSalesTotal() { return productSalesTotal; }
+        public int getReservationPaymentCount() { return reservationPaymentCount; }
+        public double getReservationPaymentTotal() { return reservationPaymentTotal; }
+        public double getTotal() { return productSalesTotal + reservationPaymentTotal; }
+    }
+
+    /** Quantité vendue d'un produit sur une période. */
+    public static final class ProductSales {
+        private final String name;
+        private final int quantity;
+
+        public ProductSales(String name, int quantity) {
+            this.name = name;
+            this.quantity = quantity;
+        }
+
+        public String getName() { return name; }
+        public int getQuantity() { return quantity; }
+    }
+
+    /**
+     * Totaux journaliers par admin (ventes de produits et réservations), du plus récent au plus ancien.
+     * adminId null = tous les admins.
+     */
+    public List<AdminDailyReport> findDailyReports(Integer adminId, LocalDate from, LocalDate to) {
+        List<AdminDailyReport> reports = new ArrayList<>();
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+             PreparedStatement ps = c.prepareStatement(DAILY_REPORTS_SQL)) {
+            // Jours au format ISO (yyyy-MM-dd) : comparaison lexicographique = chronologique
+            ps.setString(1, from != null ? from.toString() : "0000-01-01");
+            ps.setString(2, to != null ? to.toString() : "9999-12-31");
+            ps.setObject(3, adminId);
+            ps.setObject(4, adminId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    reports.add(new AdminDailyReport(
+                        rs.getInt(1), rs.getString(2), LocalDate.parse(rs.getString(3)),
+                        rs.getInt(4), rs.getDouble(5), rs.getInt(6), rs.getDouble(7)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors du calcul des rapports journaliers", e);
+        }
+        return reports;
+    }
+
+    /** Ventes de produits vs paiements de réservations sur la période. adminId null = tous les admins. */
+    public SalesSplit getSalesSplit(Integer adminId, LocalDate from, LocalDate to) {
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+             PreparedStatement ps = c.prepareStatement(SALES_SPLIT_SQL)) {
+            ps.setLong(1, startMillis(from));
+            ps.setLong(2, endMillis(to));
+            ps.setObject(3, adminId);
+            ps.setObject(4, adminId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new SalesSplit(rs.getInt(1), rs.getDouble(2), rs.getInt(3), rs.getDouble(4));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors du calcul de la répartition des ventes", e);
+        }
+    }
+
+    /**
+     * Produits les plus vendus (en quantité) sur la période. Les articles d'un paiement ne sont stockés
+     * que dans detailsProduits ("Nom xQté, ...") : seule cette colonne est lue, puis cumulée par nom.
+     */
+    public List<ProductSales> findTopProducts(LocalDate from, LocalDate to, int limit) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+             PreparedStatement ps = c.prepareStatement(PRODUCT_DETAILS_SQL)) {
+            ps.setLong(1, startMillis(from));
+            ps.setLong(2, endMillis(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    accumulateDetails(rs.getString(1), quantities);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur lors du calcul des produits les plus vendus", e);
+        }
+        return quantities.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+            .limit(limit)
+            .map(e -> new ProductSales(e.getKey(), e.getValue()))
+            .collect(Collectors.toList());
+    }
+
+    // Même découpage que le détail des articles du rapport PDF : "Nom xQté" séparés par des virgules
+    private static void accumulateDetails(String details, Map<String, Integer> quantities) {
+        for (String part : details.split(",\\s*")) {
+            String line = part.trim();
+            if (line.isEmpty()) continue;
+            String article = line;
+            int quantity = 1;
+            int xIdx = line.lastIndexOf(" x");
+            if (xIdx > 0 && xIdx < line.length() - 2) {
+                try {
+                    quantity = Integer.parseInt(line.substring(xIdx + 2).trim());
+                    article = line.substring(0, xIdx).trim();
+                } catch (NumberFormatException ignored) {
+                    quantity = 1;
+                }
+            }
+            quantities.merge(article, quantity, Integer::sum);
+        }
+    }
+
+    private static long startMillis(LocalDate from) {
+        return from == null ? Long.MIN_VALUE : from.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Borne exclusive : début du jour suivant
+    private static long endMillis(LocalDate to) {
+        return to == null ? Long.MAX_VALUE : to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
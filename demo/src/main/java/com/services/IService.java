@@ -1,7 +1,12 @@
 package com.services;
 
 import com.entities.*; // Assurez-vous d'importer toutes les entités nécessaires
-import java.math.BigDecimal;
+import com.repositories.ClientFilter;
+import com.repositories.ClientPage;
+import com.repositories.ClientSummary;
+import com.repositories.ReservationCursor;
+import com.repositories.ReservationFilter;
+import com.repositories.ReservationRow;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -28,6 +33,19 @@ public interface IService {
     void extendGameSession(GameSession session, int additionalMinutes, String connectedUserName,String modePaiement) throws Exception;
     void resumeGameSession(GameSession session) throws Exception;
     void pauseGameSession(GameSession session) throws Exception;
+    /** Sessions Active et En pause, servies par le registre en mémoire (sans requête). */
+    List<GameSession> getLiveGameSessions();
+    List<GameSession> getLiveSessionsForPoste(int posteId);
+    List<GameSession> getLiveSessionsForClient(int clientId);
+    /** Écouteurs des échéances de sessions (2 minutes restantes, temps écoulé), notifiés sans polling. */
+    void addSessionDeadlineListener(SessionDeadlineScheduler.Listener listener);
+    void removeSessionDeadlineListener(SessionDeadlineScheduler.Listener listener);
+    /** Sessions filtrées par statut en base (requête indexée). */
+    List<GameSession> findGameSessionsByStatus(Set<String> statuses);
+    List<GameSession> findActiveSessionsByClientId(int clientId);
+    boolean hasActiveSession(int clientId);
+    /** Sessions actives dont la durée payée est écoulée à l'instant donné. */
+    List<GameSession> findSessionsEndingBefore(LocalDateTime instant);
 
     // Produit methods
     Produit insertProduit(Produit produit) throws Exception;
@@ -52,6 +70,8 @@ public interface IService {
     // Reservation methods
     Reservation insertReservation(Reservation reservation) throws Exception;
     List<Reservation> findAllReservations();
+    /** Page de la liste des réservations (lignes projetées, pagination par clé) ; cursor null = première page. */
+    List<ReservationRow> findReservationPage(ReservationFilter filter, ReservationCursor cursor, int limit);
     Reservation findReservationById(int id);
     boolean updateReservation(Reservation reservation) throws Exception;
     boolean deleteReservation(int id) throws Exception;
@@ -80,11 +100,18 @@ public interface IService {
     // Payment methods
     List<Payment> getAllPayments();
     void addPayment(Payment payment) throws Exception;
+    /** Vente au comptoir : paiement et sortie de stock journalisés puis appliqués en une seule transaction. */
+    void recordSale(Payment payment, Map<Produit, Integer> produitsEtQuantites) throws Exception;
+    /** Rejoue au démarrage les opérations du journal interrompues ; retourne leur nombre. */
+    int replayPendingOperations();
     Optional<Payment> getPaymentById(int id);
     void updatePayment(Payment payment) throws Exception;
     void deletePayment(int id) throws Exception;
     boolean existsPaymentById(int id); 
     List<Payment> getPaymentsByUser(User currentUser);
+    // Paiements / réservations des jours [from, to] inclus ; createdById null = tous les utilisateurs
+    List<Payment> findPaymentsBetween(LocalDate from, LocalDate to, Integer createdById);
+    List<Reservation> findReservationsBetween(LocalDate from, LocalDate to, Integer createdById);
 
     // Client methods
     List<Client> getAllClients();
@@ -95,8 +122,20 @@ public interface IService {
     Client findByTel(String tel);
     /** Recherche un client par numéro de téléphone ou par nom (premier résultat si plusieurs). */
     Client findClientByPhoneOrName(String search);
-    /** Liste des clients dont le nom contient la chaîne (pour filtre recherche réservation). */
-    List<Client> findClientsByNameContaining(String name);
+    /**
+     * Recherche à la saisie : préfixe de téléphone et mots du nom, de l'email ou de l'adresse
+     * ("dio" trouve "Diop", "sene" trouve "Séné"), les plus pertinents d'abord, au plus limit clients.
+     */
+    List<Client> searchClients(String query, int limit);
+    /** Identifiants des clients de {@link #searchClients}, dans le même ordre (sans charger les entités). */
+    List<Integer> searchClientIds(String query, int limit);
+    /**
+     * Page des listes de clients : lignes avec nombre de réservations, dernière visite et temps restant en
+     * pause, calculés en SQL ; filter.getSearch() passe par searchClientIds.
+     */
+    List<ClientSummary> findClientSummaries(ClientFilter filter, ClientPage page);
+    /** Client complet (actions sur une ligne de liste) ; null s'il n'existe plus. */
+    Client getClientById(int id);
     boolean existsClientById(int id); // Ajouté pour cohérence avec le dépôt JPA
     boolean existsClientByName(String name); // Ajouté pour cohérence avec le dépôt JPA
 
@@ -141,12 +180,9 @@ public interface IService {
     void removeProduitFromPromotion(int produitId, int promotionId) throws Exception; // Nécessitera une méthode dans IPromoRepository
     boolean existsProduitInPromotion(int produitId, int promotionId); // Nécessitera une méthode dans IPromoRepository
     void removeAllProduitsFromPromotion(int promotionId) throws Exception; // Nécessitera une méthode dans IPromoRepository
-    void updatePrixEtAncienPrix(int produitId, BigDecimal ancienPrix, BigDecimal nouveauPrix) throws Exception;
-    void restaurerPrixInitial(int produitId, BigDecimal ancienPrixPassed);
     List<Promotion> getValidPromotionsForDate(LocalDate date); // Nécessitera une méthode dans IPromoRepository
     Optional<Promotion> getPromotionByNom(String nom);
     List<Promotion> getActiveAndValidPromotions(LocalDate date); // Peut être une combinaison de méthodes de dépôt
-    void restoreProductPricesAfterAllPromotionsRemoved(int produitId) throws Exception;
     boolean existsPromotionById(int id); // Ajouté pour cohérence avec le dépôt JPA
     boolean existsPromotionByName(String name); // Ajouté pour cohérence (si la promotion a un champ 'name')
 
@@ -159,9 +195,18 @@ public interface IService {
     Duration getTotalPlayTime(int clientId); // CONSERVER CETTE MÉTHODE
     Optional<Promotion> getActivePromotionForToday();
     Optional<Promotion> getBestActivePromotionForToday();
+    /** Promotion RESERVATION au taux le plus élevé valide à la date (index compilé, sans requête). */
+    Optional<Promotion> getBestReservationPromotion(LocalDate date);
+    /** Meilleure promotion PRODUIT du produit valide à la date (index compilé, sans requête). */
+    Optional<Promotion> getBestProduitPromotion(int produitId, LocalDate date);
     Promotion getPromotionByIdWithProduits(int id);
     List<Promotion> getValidReservationsPromotionsForDate(LocalDate date);
     List<GameSession> findPausedSessionsByClientId(int clientId);
     void resumePausedSessionForClient(int clientId, int posteId, int gameId, Duration remainingTime) throws Exception;
+    /**
+     * Compteurs des caches de données de référence (jeux, postes, catégories, promotions) : lectures servies
+     * en mémoire, chargements depuis la base et leur durée.
+     */
+    List<CacheStats> getReferenceCacheStats();
     
 }
@@ -0,0 +1,161 @@
+package com.services;
+
+import com.entities.GameSession;
+import com.repositories.IGameSessionRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registre en mémoire des sessions "vivantes" (Active et En pause), indexées par poste et par client.
+ * Chargé une seule fois depuis la base, puis tenu à jour par le Service à chaque écriture de session,
+ * afin que l'affichage des postes ne recharge plus tout l'historique des sessions.
+ * Chaque mise à jour reprogramme aussi les échéances de la session (SessionDeadlineScheduler).
+ */
+public class LiveSessionRegistry {
+
+    public static final String STATUS_ACTIVE = "Active";
+    public static final String STATUS_PAUSED = "En pause";
+
+    private final IGameSessionRepository gameSessionRepository;
+    private final SessionDeadlineScheduler deadlines = new SessionDeadlineScheduler();
+
+    private final Map<Integer, GameSession> byId = new LinkedHashMap<>();
+    private final Map<Integer, Map<Integer, GameSession>> byPoste = new HashMap<>();
+    private final Map<Integer, Map<Integer, GameSession>> byClient = new HashMap<>();
+    // Clés d'indexation mémorisées : l'entité peut avoir été modifiée (poste retiré) avant track()
+    private final Map<Integer, Integer> posteOf = new HashMap<>();
+    private final Map<Integer, Integer> clientOf = new HashMap<>();
+    private boolean loaded;
+
+    public LiveSessionRegistry(IGameSessionRepository gameSessionRepository) {
+        this.gameSessionRepository = gameSessionRepository;
+    }
+
+    /** Indique si le statut correspond à une session suivie par le registre. */
+    public static boolean isLive(String status) {
+        return STATUS_ACTIVE.equalsIgnoreCase(status) || STATUS_PAUSED.equalsIgnoreCase(status);
+    }
+
+    /**
+     * Charge les sessions vivantes depuis la base (une seule fois). Si la requête échoue, l'exception
+     * remonte à l'appelant et le registre reste non chargé : un registre vide ferait apparaître tous
+     * les postes libres. Le chargement est retenté au prochain accès.
+     */
+    private void ensureLoaded() {
+        if (loaded) return;
+        List<GameSession> live = gameSessionRepository.findByStatusIn(Set.of(STATUS_ACTIVE, STATUS_PAUSED));
+        if (live == null) {
+            throw new IllegalStateException("Chargement des sessions en cours impossible");
+        }
+        for (GameSession s : live) {
+            index(s);
+            deadlines.schedule(s);
+        }
+        loaded = true;
+    }
+
+    /** Force un rechargement complet depuis la base au prochain accès. */
+    public synchronized void invalidate() {
+        byId.clear();
+        byPoste.clear();
+        byClient.clear();
+        posteOf.clear();
+        clientOf.clear();
+        deadlines.clear();
+        loaded = false;
+    }
+
+    /**
+     * Enregistre l'état courant d'une session après une écriture : elle est indexée si elle est
+     * Active ou En pause, retirée du registre sinon.
+     */
+    public synchronized void track(GameSession session) {
+        if (session == null) return;
+        ensureLoaded();
+        unindex(session.getId());
+        if (isLive(session.getStatus())) index(session);
+        // Prolongation, pause, reprise : nouvelle heure de fin, ou échéances annulées hors statut Active
+        deadlines.schedule(session);
+    }
+
+    /** Retire une session du registre (suppression ou fin de session). */
+    public synchronized void remove(int sessionId) {
+        ensureLoaded();
+        unindex(sessionId);
+        deadlines.cancel(sessionId);
+    }
+
+    /** Recharge une session depuis la base puis met le registre à jour (écriture faite hors entité). */
+    public void refresh(int sessionId) {
+        GameSession reloaded = gameSessionRepository.getGameSessionById(sessionId);
+        if (reloaded != null) {
+            track(reloaded);
+        } else {
+            remove(sessionId);
+        }
+    }
+
+    /**
+     * Échéancier des sessions Active (alertes 2 minutes et fin de temps). Le registre est chargé
+     * pour que les sessions déjà en cours soient programmées.
+     */
+    public synchronized SessionDeadlineScheduler getDeadlineScheduler() {
+        ensureLoaded();
+        return deadlines;
+    }
+
+    /** Toutes les sessions Active et En pause. */
+    public synchronized List<GameSession> getLiveSessions() {
+        ensureLoaded();
+        return new ArrayList<>(byId.values());
+    }
+
+    /** Sessions vivantes (Active ou En pause) associées à un poste. */
+    public synchronized List<GameSession> findByPoste(int posteId) {
+        ensureLoaded();
+        Map<Integer, GameSession> sessions = byPoste.get(posteId);
+        return sessions == null ? Collections.emptyList() : new ArrayList<>(sessions.values());
+    }
+
+    /** Sessions vivantes (Active ou En pause) d'un client. */
+    public synchronized List<GameSession> findByClient(int clientId) {
+        ensureLoaded();
+        Map<Integer, GameSession> sessions = byClient.get(clientId);
+        return sessions == null ? Collections.emptyList() : new ArrayList<>(sessions.values());
+    }
+
+    private void index(GameSession session) {
+        byId.put(session.getId(), session);
+        if (session.getPoste() != null) {
+            int posteId = session.getPoste().getId();
+            byPoste.computeIfAbsent(posteId, k -> new LinkedHashMap<>()).put(session.getId(), session);
+            posteOf.put(session.getId(), posteId);
+        }
+        if (session.getClient() != null) {
+            int clientId = session.getClient().getId();
+            byClient.computeIfAbsent(clientId, k -> new LinkedHashMap<>()).put(session.getId(), session);
+            clientOf.put(session.getId(), clientId);
+        }
+    }
+
+    private void unindex(int sessionId) {
+        if (byId.remove(sessionId) == null) return;
+        Integer posteId = posteOf.remove(sessionId);
+        if (posteId != null) removeFrom(byPoste, posteId, sessionId);
+        Integer clientId = clientOf.remove(sessionId);
+        if (clientId != null) removeFrom(byClient, clientId, sessionId);
+    }
+
+    private static void removeFrom(Map<Integer, Map<Integer, GameSession>> index, int key, int sessionId) {
+        Map<Integer, GameSession> sessions = index.get(key);
+        if (sessions == null) return;
+        sessions.remove(sessionId);
+        if (sessions.isEmpty()) index.remove(key);
+    }
+}
@@ -0,0 +1,208 @@
+package com.services;
+
+import com.entities.Produit;
+import com.entities.Promotion;
+import com.entities.TypePromotion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Promotions actives compilées pour les lectures de prix : construit une fois à partir de la liste des
+ * promotions (et des produits de chaque promotion), puis interrogé sans requête ni parcours de la table.
+ *
+ * - index par dates : la frise est découpée en segments entre deux débuts/fins de promotion ; chaque
+ *   segment connaît ses promotions valides et la meilleure. Une date se résout par recherche dichotomique ;
+ * - un index de même forme par produit, limité aux promotions de type PRODUIT qui le contiennent ;
+ * - le prix affiché est calculé à la lecture (prix de base moins la meilleure remise du jour) : le prix
+ *   enregistré du produit n'est jamais modifié.
+ *
+ * Immuable : le Service en reconstruit un quand la version du cache des promotions change.
+ */
+public final class PromotionEngine {
+
+    /** Meilleure promotion d'abord : taux le plus élevé, puis identifiant le plus petit. */
+    private static final Comparator<Promotion> BEST_FIRST =
+        Comparator.comparingDouble((Promotion p) -> p.getTauxReduction()).reversed()
+            .thenComparingInt(Promotion::getId);
+    private static final Comparator<Promotion> BY_ID = Comparator.comparingInt(Promotion::getId);
+
+    private final long version;
+    private final DateIndex all;
+    private final Map<TypePromotion, DateIndex> byType = new EnumMap<>(TypePromotion.class);
+    private final Map<Integer, DateIndex> byProduit = new HashMap<>();
+
+    private PromotionEngine(long version, List<Promotion> promotions, Map<Integer, ? extends Collection<Integer>> promotionIdsByProduit) {
+        this.version = version;
+        List<Promotion> active = new ArrayList<>();
+        Map<Integer, Promotion> byId = new HashMap<>();
+        for (Promotion p : promotions) {
+            if (!isActiveInterval(p)) continue;
+            active.add(p);
+            byId.put(p.getId(), p);
+        }
+        this.all = new DateIndex(active, true);
+        for (TypePromotion type : TypePromotion.values()) {
+            List<Promotion> ofType = new ArrayList<>();
+            for (Promotion p : active) {
+                if (p.getTypePromotion() == type) ofType.add(p);
+            }
+            byType.put(type, new DateIndex(ofType, true));
+        }
+        for (Map.Entry<Integer, ? extends Collection<Integer>> entry : promotionIdsByProduit.entrySet()) {
+            List<Promotion> ofProduit = new ArrayList<>();
+            for (Integer promotionId : entry.getValue()) {
+                Promotion p = byId.get(promotionId);
+                if (p != null && p.getTypePromotion() == TypePromotion.PRODUIT) ofProduit.add(p);
+            }
+            if (!ofProduit.isEmpty()) byProduit.put(entry.getKey(), new DateIndex(ofProduit, false));
+        }
+    }
+
+    /**
+     * Compile les promotions. promotionIdsByProduit associe à chaque produit les identifiants de ses
+     * promotions ; les promotions inactives ou sans période valide sont ignorées.
+     */
+    public static PromotionEngine compile(long version, List<Promotion> promotions,
+                                          Map<Integer, ? extends Collection<Integer>> promotionIdsByProduit) {
+        return new PromotionEngine(version, promotions, promotionIdsByProduit);
+    }
+
+    /** Version du cache des promotions à partir de laquelle ce moteur a été construit. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Promotions actives valides à la date, tous types confondus, par identifiant croissant. */
+    public List<Promotion> validOn(LocalDate date) {
+        return all.validOn(date);
+    }
+
+    /** Promotions actives d'un type valides à la date, par identifiant croissant. */
+    public List<Promotion> validOn(TypePromotion type, LocalDate date) {
+        return byType.get(type).validOn(date);
+    }
+
+    /** Promotion d'un type au taux le plus élevé valide à la date. */
+    public Optional<Promotion> bestOn(TypePromotion type, LocalDate date) {
+        return Optional.ofNullable(byType.get(type).bestOn(date));
+    }
+
+    /** Meilleure promotion PRODUIT du produit valide à la date. */
+    public Optional<Promotion> bestForProduit(int produitId, LocalDate date) {
+        DateIndex index = byProduit.get(produitId);
+        return index == null ? Optional.empty() : Optional.ofNullable(index.bestOn(date));
+    }
+
+    /** Prix du produit à la date : prix de base, remisé par sa meilleure promotion s'il en a une. */
+    public BigDecimal effectivePrice(Produit produit, LocalDate date) {
+        BigDecimal prix = produit.getPrix();
+        if (prix == null) return null;
+        return bestForProduit(produit.getId(), date).map(p -> discount(prix, p)).orElse(prix);
+    }
+
+    /** Renseigne le prix remisé du jour sur le produit (null s'il n'est pas en promotion). */
+    public void applyTo(Produit produit, LocalDate date) {
+        if (produit == null) return;
+        BigDecimal prix = produit.getPrix();
+        Optional<Promotion> best = bestForProduit(produit.getId(), date);
+        produit.setPrixPromo(prix != null && best.isPresent() ? discount(prix, best.get()) : null);
+    }
+
+    /** Prix remisé au centime : prix × (1 − taux). */
+    public static BigDecimal discount(BigDecimal prix, Promotion promotion) {
+        // Taux lu depuis sa représentation décimale : 0.1f donne 0.1 et non 0.100000001...
+        BigDecimal taux = new BigDecimal(Float.toString(promotion.getTauxReduction()));
+        return prix.multiply(BigDecimal.ONE.subtract(taux)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static boolean isActiveInterval(Promotion p) {
+        return p.isActif() && p.getDateDebut() != null && p.getDateFin() != null
+            && !p.getDateFin().isBefore(p.getDateDebut());
+    }
+
+    /**
+     * Frise découpée en segments [starts[i], starts[i + 1]) (jours depuis l'époque), avec pour chacun la
+     * meilleure promotion et, si demandé, la liste des promotions valides.
+     */
+    private static final class DateIndex {
+
+        private final long[] starts;
+        private final Promotion[] best;
+        private final List<List<Promotion>> valid;
+
+        DateIndex(List<Promotion> promotions, boolean withLists) {
+            // Bornes : chaque début, et le lendemain de chaque fin
+            long[] bounds = new long[promotions.size() * 2];
+            Promotion[] byStart = promotions.toArray(new Promotion[0]);
+            Promotion[] byEnd = promotions.toArray(new Promotion[0]);
+            Arrays.sort(byStart, Comparator.comparingLong(p -> p.getDateDebut().toEpochDay()));
+            Arrays.sort(byEnd, Comparator.comparingLong(p -> p.getDateFin().toEpochDay()));
+            int n = 0;
+            for (Promotion p : promotions) {
+                bounds[n++] = p.getDateDebut().toEpochDay();
+                bounds[n++] = p.getDateFin().toEpochDay() + 1;
+            }
+            Arrays.sort(bounds);
+            int segments = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                if (i == 0 || bounds[i] != bounds[i - 1]) bounds[segments++] = bounds[i];
+            }
+            starts = Arrays.copyOf(bounds, segments);
+            best = new Promotion[segments];
+            valid = withLists ? new ArrayList<>(segments) : null;
+
+            // Balayage : promotions entrées au début du segment, sorties au lendemain de leur fin
+            TreeSet<Promotion> ranked = new TreeSet<>(BEST_FIRST);
+            TreeSet<Promotion> ordered = withLists ? new TreeSet<>(BY_ID) : null;
+            int s = 0;
+            int e = 0;
+            for (int i = 0; i < segments; i++) {
+                long day = starts[i];
+                while (e < byEnd.length && byEnd[e].getDateFin().toEpochDay() + 1 <= day) {
+                    ranked.remove(byEnd[e]);
+                    if (ordered != null) ordered.remove(byEnd[e]);
+                    e++;
+                }
+                while (s < byStart.length && byStart[s].getDateDebut().toEpochDay() <= day) {
+                    ranked.add(byStart[s]);
+                    if (ordered != null) ordered.add(byStart[s]);
+                    s++;
+                }
+                best[i] = ranked.isEmpty() ? null : ranked.first();
+                if (valid != null) {
+                    valid.add(ordered.isEmpty() ? Collections.emptyList() : List.copyOf(ordered));
+                }
+            }
+        }
+
+        Promotion bestOn(LocalDate date) {
+            int i = segment(date);
+            return i < 0 ? null : best[i];
+        }
+
+        List<Promotion> validOn(LocalDate date) {
+            int i = segment(date);
+            return i < 0 ? Collections.emptyList() : valid.get(i);
+        }
+
+        // Dernier segment commençant au plus tard à la date, -1 avant le premier
+        private int segment(LocalDate date) {
+            if (date == null) return -1;
+            int i = Arrays.binarySearch(starts, date.toEpochDay());
+            return i >= 0 ? i : -i - 2;
+        }
+    }
+}
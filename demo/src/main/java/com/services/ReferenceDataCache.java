@@ -0,0 +1,95 @@
+package com.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache en lecture seule d'une liste de données de référence (jeux, postes, catégories, promotions), qui
+ * changent rarement mais sont relues à chaque ouverture de fenêtre.
+ *
+ * - get() rend un instantané non modifiable, chargé depuis la base au premier accès puis après chaque
+ *   invalidation ;
+ * - invalidate() incrémente la version : l'instantané courant est périmé, et un chargement commencé avant
+ *   l'invalidation n'est pas conservé (il pourrait précéder l'écriture) ;
+ * - un chargement en échec (dépôt retournant null) n'est pas mis en cache.
+ */
+public final class ReferenceDataCache<T> {
+
+    private static final class Snapshot<T> {
+        final long version;
+        final List<T> items;
+
+        Snapshot(long version, List<T> items) {
+            this.version = version;
+            this.items = items;
+        }
+    }
+
+    private final String name;
+    private final Supplier<List<T>> loader;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<T> snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    public ReferenceDataCache(String name, Supplier<List<T>> loader) {
+        this.name = name;
+        this.loader = loader;
+    }
+
+    /** Instantané courant, chargé depuis la base s'il est absent ou périmé. */
+    public List<T> get() {
+        Snapshot<T> current = snapshot;
+        if (current != null && current.version == version.get()) {
+            hits.increment();
+            return current.items;
+        }
+        synchronized (this) {
+            // Un autre thread a pu charger pendant l'attente
+            current = snapshot;
+            long expected = version.get();
+            if (current != null && current.version == expected) {
+                hits.increment();
+                return current.items;
+            }
+            misses.increment();
+            long start = System.nanoTime();
+            List<T> loaded = loader.get();
+            loads.incrementAndGet();
+            loadNanos.addAndGet(System.nanoTime() - start);
+            if (loaded == null) {
+                return Collections.emptyList();
+            }
+            List<T> items = Collections.unmodifiableList(new ArrayList<>(loaded));
+            if (version.get() == expected) {
+                snapshot = new Snapshot<>(expected, items);
+            }
+            return items;
+        }
+    }
+
+    /** Version courante : incrémentée à chaque invalidation. */
+    public long version() {
+        return version.get();
+    }
+
+    /** Périme l'instantané courant : la prochaine lecture recharge depuis la base. */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    public CacheStats stats() {
+        Snapshot<T> current = snapshot;
+        long v = version.get();
+        int size = current != null && current.version == v ? current.items.size() : 0;
+        return new CacheStats(name, hits.sum(), misses.sum(), loads.get(), Duration.ofNanos(loadNanos.get()), v, size);
+    }
+}
@@ -1,6 +1,9 @@
 package com.services;
 
 import com.core.AppConfig;
+import com.core.OperationJournal;
+import com.core.TransactionRunner;
+import com.core.UnitOfWork;
 import com.entities.*;
 import com.repositories.*; // Importe toutes les interfaces de dépôt
 import com.repositories.bd.*; // Importe les implémentations JPA spécifiques des dépôts
@@ -10,11 +13,15 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -23,7 +30,6 @@ import java.util.Set;
 import java.util.stream.Collectors; // Pour les opérations de stream
 
 import javax.persistence.EntityNotFoundException;
-import javax.transaction.Transactional;
 
 import org.hibernate.Hibernate;
 import org.mindrot.jbcrypt.BCrypt;
@@ -42,6 +48,25 @@ public class Service implements IService {
     private IParrainRepository parrainRepository; // Pour les opérations spécifiques aux parrains
     private IPromoRepository promoRepository;
     private ICategorieRepository categorieRepository;
+    private final LiveSessionRegistry liveSessions;
+    private final ClientPhoneTrie clientPhones;
+
+    // Données de référence relues à chaque ouverture de fenêtre : instantanés en mémoire, invalidés par les écritures
+    private final ReferenceDataCache<Game> gamesCache;
+    private final ReferenceDataCache<Poste> postesCache;
+    private final ReferenceDataCache<Categorie> categoriesCache;
+    private final ReferenceDataCache<Promotion> promotionsCache;
+    // Promotions actives compilées, reconstruites quand la version du cache des promotions change
+    private volatile PromotionEngine promotionEngine;
+
+    // Natures des opérations écrites dans le journal avant leur application
+    private static final String OP_SALE = "vente";
+    private static final String OP_EXTENSION = "prolongation";
+    private static final String OP_PAUSE = "pause";
+    private static final String OP_RESUME = "reprise";
+
+    // Nombre maximal de clients retenus par une recherche servant de filtre à une liste
+    private static final int CLIENT_SEARCH_MAX = 10_000;
 
     private User currentUser;
     private volatile String lastLoginFailureReason;
@@ -65,6 +90,97 @@ public class Service implements IService {
         this.parrainRepository = parrainRepository;
         this.promoRepository = promoRepository;
         this.categorieRepository = categorieRepository;
+        this.liveSessions = new LiveSessionRegistry(gameSessionRepository);
+        this.clientPhones = new ClientPhoneTrie(clientRepository);
+        this.gamesCache = new ReferenceDataCache<>("jeux", gameRepository::findAll);
+        this.postesCache = new ReferenceDataCache<>("postes", posteRepository::findAll);
+        this.categoriesCache = new ReferenceDataCache<>("catégories", categorieRepository::findAll);
+        this.promotionsCache = new ReferenceDataCache<>("promotions", promoRepository::findAll);
+    }
+
+    /**
+     * Écriture touchant des données de référence : les caches sont invalidés au commit, ou tout de suite
+     * en cas d'échec (l'appelant a pu modifier une entité de l'instantané avant l'appel).
+     */
+    private <T> T callAndInvalidate(TransactionRunner.Work<T> work, ReferenceDataCache<?>... caches) throws Exception {
+        try {
+            return TransactionRunner.call(() -> {
+                T result = work.execute();
+                UnitOfWork.afterCommit(() -> invalidate(caches));
+                return result;
+            });
+        } catch (Exception e) {
+            invalidate(caches);
+            throw e;
+        }
+    }
+
+    private void runAndInvalidate(TransactionRunner.Action action, ReferenceDataCache<?>... caches) throws Exception {
+        callAndInvalidate(() -> {
+            action.execute();
+            return null;
+        }, caches);
+    }
+
+    private static void invalidate(ReferenceDataCache<?>... caches) {
+        for (ReferenceDataCache<?> cache : caches) cache.invalidate();
+    }
+
+    /** Moteur de promotions à jour : recompilé après toute écriture sur les promotions ou leurs produits. */
+    private PromotionEngine promotionEngine() {
+        PromotionEngine engine = promotionEngine;
+        if (engine != null && engine.getVersion() == promotionsCache.version()) return engine;
+        synchronized (promotionsCache) {
+            engine = promotionEngine;
+            // Version lue avant le chargement : une invalidation pendant la compilation force la suivante
+            long version = promotionsCache.version();
+            if (engine == null || engine.getVersion() != version) {
+                engine = PromotionEngine.compile(version, promotionsCache.get(), promoRepository.findActivePromotionIdsByProduit());
+                promotionEngine = engine;
+            }
+            return engine;
+        }
+    }
+
+    /** Renseigne le prix remisé du jour des produits chargés. */
+    private <C extends Iterable<Produit>> C withPrices(C produits) {
+        if (produits == null) return null;
+        PromotionEngine engine = promotionEngine();
+        LocalDate today = LocalDate.now();
+        for (Produit p : produits) engine.applyTo(p, today);
+        return produits;
+    }
+
+    private Produit withPrice(Produit produit) {
+        if (produit != null) promotionEngine().applyTo(produit, LocalDate.now());
+        return produit;
+    }
+
+    @Override
+    public List<CacheStats> getReferenceCacheStats() {
+        return List.of(gamesCache.stats(), postesCache.stats(), categoriesCache.stats(), promotionsCache.stats());
+    }
+
+    private static OperationJournal journal() {
+        return OperationJournal.get();
+    }
+
+    /** Champs communs d'une opération sur une session : identifiant et instant de la demande. */
+    private static Map<String, String> sessionOperation(int sessionId) {
+        Map<String, String> op = new LinkedHashMap<>();
+        op.put("session", String.valueOf(sessionId));
+        op.put("at", LocalDateTime.now().toString());
+        return op;
+    }
+
+    @Override
+    public int replayPendingOperations() {
+        Map<String, OperationJournal.Handler> handlers = new HashMap<>();
+        handlers.put(OP_SALE, this::applySale);
+        handlers.put(OP_EXTENSION, op -> trackLiveSession(applyExtension(op).session));
+        handlers.put(OP_PAUSE, op -> trackLiveSession(applyPause(op)));
+        handlers.put(OP_RESUME, op -> trackLiveSession(applyResume(op)));
+        return journal().recover(handlers);
     }
 
     @Override
@@ -85,7 +201,7 @@ public class Service implements IService {
             user.setFailedLoginAttempts(0);
             user.setLockedUntil(null);
             try {
-                userRepository.updateUser(user);
+                TransactionRunner.run(() -> userRepository.updateUser(user));
             } catch (Exception ignored) {}
             return user;
         }
@@ -99,7 +215,7 @@ public class Service implements IService {
             lastLoginFailureReason = "Identifiants incorrects. (" + (maxAttempts - user.getFailedLoginAttempts()) + " tentative(s) restante(s))";
         }
         try {
-            userRepository.updateUser(user);
+            TransactionRunner.run(() -> userRepository.updateUser(user));
         } catch (Exception ignored) {}
         return null;
     }
@@ -116,25 +232,30 @@ public class Service implements IService {
 
     @Override
     public void addUser(User newUser) throws Exception {
-        // Logique métier avant l'ajout si nécessaire (ex: validation)
-        if (userRepository.existsByName(newUser.getName())) {
-            throw new Exception("Un utilisateur avec ce nom existe déjà.");
-        }
-        // Utilise la nouvelle méthode findByEmail du dépôt
-        if (newUser.getEmail() != null && userRepository.findByEmail(newUser.getEmail()) != null) {
-             throw new Exception("Un utilisateur avec cet email existe déjà.");
-        }
-        userRepository.addUser(newUser);
+        TransactionRunner.run(() -> {
+            // Logique métier avant l'ajout si nécessaire (ex: validation)
+            if (userRepository.existsByName(newUser.getName())) {
+                throw new Exception("Un utilisateur avec ce nom existe déjà.");
+            }
+            // Utilise la nouvelle méthode findByEmail du dépôt
+            if (newUser.getEmail() != null && userRepository.findByEmail(newUser.getEmail()) != null) {
+                 throw new Exception("Un utilisateur avec cet email existe déjà.");
+            }
+            userRepository.addUser(newUser);
+        });
     }
 
     @Override
     public void deleteUser(User user) throws Exception {
-        userRepository.delete(user.getId());
+        TransactionRunner.run(() -> {
+            userRepository.delete(user.getId());
+            UnitOfWork.afterCommit(() -> clientPhones.remove(user.getId()));
+        });
     }
 
     @Override
     public void updateUser(User user) throws Exception {
-        userRepository.updateUser(user);
+        TransactionRunner.run(() -> userRepository.updateUser(user));
     }
 
     @Override
@@ -174,38 +295,48 @@ public class Service implements IService {
 
     @Override
     public Client addClient(Client client) throws Exception {
-        if (clientRepository.findByTel(client.getPhone()) != null) {
-            throw new Exception("Un client avec ce numéro de téléphone existe déjà.");
-        }
-        if (client.getEmail() != null && clientRepository.findByEmail(client.getEmail()) != null) {
-            throw new Exception("Un client avec cet email existe déjà.");
-        }
-        return clientRepository.insert(client);
+        return TransactionRunner.call(() -> {
+            if (clientRepository.findByTel(client.getPhone()) != null) {
+                throw new Exception("Un client avec ce numéro de téléphone existe déjà.");
+            }
+            if (client.getEmail() != null && clientRepository.findByEmail(client.getEmail()) != null) {
+                throw new Exception("Un client avec cet email existe déjà.");
+            }
+            Client inserted = clientRepository.insert(client);
+            UnitOfWork.afterCommit(() -> clientPhones.put(inserted.getId(), inserted.getPhone()));
+            return inserted;
+        });
     }
 
     @Override
     public void updateClient(Client client) throws Exception {
-        if (client == null) {
-            throw new Exception("Client invalide.");
-        }
-        if (client.getPhone() != null && !client.getPhone().trim().isEmpty()) {
-            Client existingByTel = clientRepository.findByTel(client.getPhone().trim());
-            if (existingByTel != null && existingByTel.getId() != client.getId()) {
-                throw new Exception("Un client avec ce numéro de téléphone existe déjà.");
+        TransactionRunner.run(() -> {
+            if (client == null) {
+                throw new Exception("Client invalide.");
             }
-        }
-        if (client.getEmail() != null && !client.getEmail().trim().isEmpty()) {
-            Client existingByEmail = clientRepository.findByEmail(client.getEmail().trim());
-            if (existingByEmail != null && existingByEmail.getId() != client.getId()) {
-                throw new Exception("Un client avec cet email existe déjà.");
+            if (client.getPhone() != null && !client.getPhone().trim().isEmpty()) {
+                Client existingByTel = clientRepository.findByTel(client.getPhone().trim());
+                if (existingByTel != null && existingByTel.getId() != client.getId()) {
+                    throw new Exception("Un client avec ce numéro de téléphone existe déjà.");
+                }
             }
-        }
-        clientRepository.update(client);
+            if (client.getEmail() != null && !client.getEmail().trim().isEmpty()) {
+                Client existingByEmail = clientRepository.findByEmail(client.getEmail().trim());
+                if (existingByEmail != null && existingByEmail.getId() != client.getId()) {
+                    throw new Exception("Un client avec cet email existe déjà.");
+                }
+            }
+            clientRepository.update(client);
+            UnitOfWork.afterCommit(() -> clientPhones.put(client.getId(), client.getPhone()));
+        });
     }
 
     @Override
     public void deleteClient(Client client) throws Exception {
-        clientRepository.delete(client);
+        TransactionRunner.run(() -> {
+            clientRepository.delete(client);
+            UnitOfWork.afterCommit(() -> clientPhones.remove(client.getId()));
+        });
     }
 
     @Override
@@ -229,16 +360,50 @@ public class Service implements IService {
             Client byTel = clientRepository.findByTel(s);
             if (byTel != null) return byTel;
         }
-        List<Client> byName = clientRepository.findByNameContaining(s);
-        return byName.isEmpty() ? null : byName.get(0);
+        List<Client> found = searchClients(s, 1);
+        return found.isEmpty() ? null : found.get(0);
     }
 
     @Override
-    public List<Client> findClientsByNameContaining(String name) {
-        if (name == null || name.trim().isEmpty()) {
+    public List<Client> searchClients(String query, int limit) {
+        return clientRepository.findByIds(searchClientIds(query, limit));
+    }
+
+    @Override
+    public List<ClientSummary> findClientSummaries(ClientFilter filter, ClientPage page) {
+        ClientFilter f = filter != null ? new ClientFilter(filter) : new ClientFilter();
+        if (f.getSearch() != null && !f.getSearch().trim().isEmpty()) {
+            // Recherche résolue par les index (téléphones, plein texte), intersectée avec clientIds
+            Set<Integer> ids = new HashSet<>(searchClientIds(f.getSearch(), CLIENT_SEARCH_MAX));
+            if (f.getClientIds() != null) ids.retainAll(f.getClientIds());
+            f.setClientIds(ids);
+        }
+        return clientRepository.findClientSummaries(f, page);
+    }
+
+    @Override
+    public List<Integer> searchClientIds(String query, int limit) {
+        if (query == null || query.trim().isEmpty() || limit <= 0) {
             return new ArrayList<>();
         }
-        return clientRepository.findByNameContaining(name.trim());
+        String q = query.trim();
+        Set<Integer> ids = new LinkedHashSet<>();
+        // Saisie numérique : préfixe de téléphone d'abord (index en mémoire), puis le plein texte
+        if (q.matches("[0-9 +().-]+") && !ClientPhoneTrie.normalize(q).isEmpty()) {
+            ids.addAll(clientPhones.findByPrefix(q, limit));
+        }
+        if (ids.size() < limit) {
+            for (Integer id : clientRepository.searchIds(q, limit)) {
+                if (ids.size() >= limit) break;
+                ids.add(id);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    @Override
+    public Client getClientById(int id) {
+        return clientRepository.findById(id);
     }
 
     @Override
@@ -254,13 +419,15 @@ public class Service implements IService {
     // --- Parrain methods ---
     @Override
     public Parrain addParrain(Parrain parrain) throws Exception {
-        if (parrainRepository.findByCodeParrainage(parrain.getCodeParrainage()) != null) {
-            throw new Exception("Un parrain avec ce code de parrainage existe déjà.");
-        }
-        if (parrainRepository.findByEmail(parrain.getEmail()) != null) {
-            throw new Exception("Un parrain avec cet email existe déjà.");
-        }
-        return parrainRepository.insert(parrain);
+        return TransactionRunner.call(() -> {
+            if (parrainRepository.findByCodeParrainage(parrain.getCodeParrainage()) != null) {
+                throw new Exception("Un parrain avec ce code de parrainage existe déjà.");
+            }
+            if (parrainRepository.findByEmail(parrain.getEmail()) != null) {
+                throw new Exception("Un parrain avec cet email existe déjà.");
+            }
+            return parrainRepository.insert(parrain);
+        });
     }
 
     @Override
@@ -275,12 +442,12 @@ public class Service implements IService {
 
     @Override
     public void updateParrain(Parrain parrain) throws Exception {
-        parrainRepository.update(parrain);
+        TransactionRunner.run(() -> parrainRepository.update(parrain));
     }
 
     @Override
     public void deleteParrain(Parrain parrain) throws Exception {
-        parrainRepository.delete(parrain);
+        TransactionRunner.run(() -> parrainRepository.delete(parrain));
     }
 
     @Override
@@ -301,25 +468,27 @@ public class Service implements IService {
     // --- Game methods ---
     @Override
     public List<Game> getAllGames() {
-        return gameRepository.findAll();
+        return gamesCache.get();
     }
 
     @Override
     public void deleteGame(Game game) throws Exception {
-        gameRepository.delete(game.getId());
+        runAndInvalidate(() -> gameRepository.delete(game.getId()), gamesCache, postesCache);
     }
 
     @Override
     public void updateGame(Game game) throws Exception {
-        gameRepository.update(game);
+        runAndInvalidate(() -> gameRepository.update(game), gamesCache, postesCache);
     }
 
     @Override
     public void addGame(Game game) throws Exception {
-        if (gameRepository.existsByName(game.getName())) {
-            throw new Exception("Un jeu avec ce nom existe déjà.");
-        }
-        gameRepository.insert(game);
+        runAndInvalidate(() -> {
+            if (gameRepository.existsByName(game.getName())) {
+                throw new Exception("Un jeu avec ce nom existe déjà.");
+            }
+            gameRepository.insert(game);
+        }, gamesCache, postesCache);
     }
 
     @Override
@@ -335,7 +504,7 @@ public class Service implements IService {
     // --- Poste methods ---
     @Override
     public List<Poste> getPostes() {
-        return posteRepository.findAll();
+        return postesCache.get();
     }
 
     public List<Poste> getPostesSansJeux() 
@@ -346,26 +515,28 @@ public class Service implements IService {
 
     @Override
     public void deletePoste(Poste poste) throws Exception {
-        posteRepository.delete(poste);
+        runAndInvalidate(() -> posteRepository.delete(poste), postesCache, gamesCache);
     }
 
     @Override
     public void updatePoste(Poste poste) throws Exception {
-        posteRepository.update(poste);
+        runAndInvalidate(() -> posteRepository.update(poste), postesCache, gamesCache);
     }
 
     @Override
     public Poste addPoste(Poste poste) throws Exception {
-        // 1. Insérer le poste pour que l'ID soit généré
-        Poste newPoste = posteRepository.insert(poste);
-        
-        // 2. Mettre à jour le nom du poste avec l'ID généré
-        newPoste.setName("N°" + newPoste.getId());
-        
-        // 3. Persister la mise à jour du nom
-        posteRepository.update(newPoste);
-        
-        return newPoste;
+        return callAndInvalidate(() -> {
+            // 1. Insérer le poste pour que l'ID soit généré
+            Poste newPoste = posteRepository.insert(poste);
+
+            // 2. Mettre à jour le nom du poste avec l'ID généré
+            newPoste.setName("N°" + newPoste.getId());
+
+            // 3. Persister la mise à jour du nom
+            posteRepository.update(newPoste);
+
+            return newPoste;
+        }, postesCache, gamesCache);
     }
 
     @Override
@@ -375,12 +546,12 @@ public class Service implements IService {
 
     @Override
     public void addPosteToGame(Poste poste, Game game) throws Exception {
-        gameRepository.addPosteToGame(game.getId(), poste.getId());
+        runAndInvalidate(() -> gameRepository.addPosteToGame(game.getId(), poste.getId()), gamesCache, postesCache);
     }
 
     @Override
     public void removePosteFromGame(Poste poste, Game game) throws Exception {
-        gameRepository.removePosteFromGame(game.getId(), poste.getId());
+        runAndInvalidate(() -> gameRepository.removePosteFromGame(game.getId(), poste.getId()), gamesCache, postesCache);
     }
 
     @Override
@@ -396,11 +567,15 @@ public class Service implements IService {
 
     @Override
     public GameSession addGameSession(GameSession gameSession) throws Exception {
-        // Logique métier avant l'ajout si nécessaire (ex: vérifier la disponibilité du poste)
-        if (!posteRepository.checkAvailability(gameSession.getPoste().getId())) {
-            throw new Exception("Le poste sélectionné n'est pas disponible.");
-        }
-        return gameSessionRepository.addGameSession(gameSession);
+        return TransactionRunner.call(() -> {
+            // Logique métier avant l'ajout si nécessaire (ex: vérifier la disponibilité du poste)
+            if (!posteRepository.checkAvailability(gameSession.getPoste().getId())) {
+                throw new Exception("Le poste sélectionné n'est pas disponible.");
+            }
+            GameSession saved = gameSessionRepository.addGameSession(gameSession);
+            trackLiveSession(saved);
+            return saved;
+        });
     }
 
     @Override
@@ -410,12 +585,20 @@ public class Service implements IService {
 
     @Override
     public boolean updateGameSession(GameSession gameSession) throws Exception {
-        return gameSessionRepository.updateGameSession(gameSession);
+        return TransactionRunner.call(() -> {
+            boolean updated = gameSessionRepository.updateGameSession(gameSession);
+            trackLiveSession(gameSession);
+            return updated;
+        });
     }
 
     @Override
     public boolean deleteGameSession(int id) throws Exception {
-        return gameSessionRepository.deleteGameSession(id);
+        return TransactionRunner.call(() -> {
+            boolean deleted = gameSessionRepository.deleteGameSession(id);
+            UnitOfWork.afterCommit(() -> liveSessions.remove(id));
+            return deleted;
+        });
     }
 
     @Override
@@ -426,7 +609,125 @@ public class Service implements IService {
 
     @Override
     public boolean reduceRemainingTime(int gameSessionId, Duration timeElapsed) throws Exception {
-        return gameSessionRepository.reduceRemainingTime(gameSessionId, timeElapsed);
+        return TransactionRunner.call(() -> {
+            boolean reduced = gameSessionRepository.reduceRemainingTime(gameSessionId, timeElapsed);
+            UnitOfWork.afterCommit(() -> liveSessions.refresh(gameSessionId));
+            return reduced;
+        });
+    }
+
+    /**
+     * Session chargée avec sa réservation dans l'unité de travail en cours : les modifications qui lui
+     * sont appliquées sont écrites au commit, sans merge du graphe détaché de l'appelant.
+     */
+    private GameSession managedSession(int sessionId) throws Exception {
+        GameSession managed = gameSessionRepository.findGameSessionByIdWithRelations(sessionId);
+        if (managed == null) {
+            throw new Exception("Session introuvable avec l'ID : " + sessionId);
+        }
+        return managed;
+    }
+
+    /** Recopie l'état modifiable d'une session (statut, horaires, durées, pause) sur une autre instance. */
+    private static void copySessionState(GameSession from, GameSession to) {
+        to.setStatus(from.getStatus());
+        to.setStartTime(from.getStartTime());
+        to.setEndTime(from.getEndTime());
+        to.setPaidDuration(from.getPaidDuration());
+        to.setPaused(from.isPaused());
+        to.setPausedRemainingTime(from.getPausedRemainingTime());
+    }
+
+    /** Reporte le statut de la réservation sur le graphe de l'appelant, si sa réservation est chargée. */
+    private static void syncReservationStatus(GameSession session, String status) {
+        Reservation reservation = session.getReservation();
+        if (reservation != null && Hibernate.isInitialized(reservation)) {
+            reservation.setStatus(status);
+        }
+    }
+
+    /**
+     * Met à jour le registre des sessions vivantes une fois la transaction d'écriture validée. La session
+     * est relue dans la transaction avec client, jeu, poste et réservation chargés (l'instance de
+     * l'appelant peut porter des proxys non initialisés) ; le registre en reçoit une copie après commit,
+     * quand l'EntityManager d'écriture a été vidé : ces entités sont alors détachées et le thread
+     * d'écriture n'y touche plus.
+     */
+    private void trackLiveSession(GameSession session) {
+        GameSession loaded = gameSessionRepository.findGameSessionByIdWithRelations(session.getId());
+        GameSession committed = loaded != null ? loaded : session;
+        UnitOfWork.afterCommit(() -> liveSessions.track(detachedCopy(committed)));
+    }
+
+    /**
+     * Après commit uniquement : suit la session gérée dans le registre puis reporte son état validé sur
+     * l'instance de l'appelant (souvent celle du registre). En cas d'annulation, rien n'est modifié.
+     */
+    private void publishSession(GameSession managed, GameSession caller) {
+        trackLiveSession(managed);
+        UnitOfWork.afterCommit(() -> {
+            copySessionState(managed, caller);
+            Poste poste = managed.getPoste();
+            if (poste == null || caller.getPoste() == null || caller.getPoste().getId() != poste.getId()) {
+                caller.setPoste(poste);
+            }
+            if (managed.getReservation() != null) {
+                syncReservationStatus(caller, managed.getReservation().getStatus());
+            }
+        });
+    }
+
+    /** Copie de la session (identifiant, état et relations) indépendante de l'instance d'origine. */
+    private static GameSession detachedCopy(GameSession session) {
+        GameSession copy = new GameSession();
+        copy.setId(session.getId());
+        copySessionState(session, copy);
+        // Relations chargées par trackLiveSession : instances réelles plutôt que proxys Hibernate
+        copy.setClient((Client) Hibernate.unproxy(session.getClient()));
+        copy.setGame((Game) Hibernate.unproxy(session.getGame()));
+        copy.setPoste((Poste) Hibernate.unproxy(session.getPoste()));
+        copy.setReservation((Reservation) Hibernate.unproxy(session.getReservation()));
+        return copy;
+    }
+
+    @Override
+    public List<GameSession> getLiveGameSessions() {
+        return liveSessions.getLiveSessions();
+    }
+
+    @Override
+    public List<GameSession> getLiveSessionsForPoste(int posteId) {
+        return liveSessions.findByPoste(posteId);
+    }
+
+    @Override
+    public List<GameSession> getLiveSessionsForClient(int clientId) {
+        return liveSessions.findByClient(clientId);
+    }
+
+    @Override
+    public void addSessionDeadlineListener(SessionDeadlineScheduler.Listener listener) {
+        liveSessions.getDeadlineScheduler().addListener(listener);
+    }
+
+    @Override
+    public void removeSessionDeadlineListener(SessionDeadlineScheduler.Listener listener) {
+        liveSessions.getDeadlineScheduler().removeListener(listener);
+    }
+
+    @Override
+    public List<GameSession> findGameSessionsByStatus(Set<String> statuses) {
+        return gameSessionRepository.findByStatusIn(statuses);
+    }
+
+    @Override
+    public List<GameSession> findActiveSessionsByClientId(int clientId) {
+        return gameSessionRepository.findActiveByClientId(clientId);
+    }
+
+    @Override
+    public List<GameSession> findSessionsEndingBefore(LocalDateTime instant) {
+        return gameSessionRepository.findEndingBefore(instant);
     }
 
     @Override
@@ -447,35 +748,37 @@ public class Service implements IService {
     // --- Produit methods ---
     @Override
     public Produit insertProduit(Produit produit) throws Exception {
-        if (produitRepository.checkIfProduitExists(produit.getNom())) {
-            throw new Exception("Un produit avec ce nom existe déjà.");
-        }
-        return produitRepository.insert(produit);
+        return TransactionRunner.call(() -> {
+            if (produitRepository.checkIfProduitExists(produit.getNom())) {
+                throw new Exception("Un produit avec ce nom existe déjà.");
+            }
+            return produitRepository.insert(produit);
+        });
     }
 
     @Override
     public List<Produit> findAllProduits() {
-        return produitRepository.findAll();
+        return withPrices(produitRepository.findAll());
     }
 
     @Override
     public Produit findProduitById(int id) {
-        return produitRepository.findById(id);
+        return withPrice(produitRepository.findById(id));
     }
 
     @Override
     public void updateProduit(Produit produit) throws Exception {
-        produitRepository.update(produit);
+        TransactionRunner.run(() -> produitRepository.update(produit));
     }
 
     @Override
     public void deleteProduit(Produit produit) throws Exception {
-        produitRepository.delete(produit);
+        TransactionRunner.run(() -> produitRepository.delete(produit));
     }
 
     @Override
     public List<Produit> findProduitsEnStock() {
-        return produitRepository.findProduitsEnStock();
+        return withPrices(produitRepository.findProduitsEnStock());
     }
 
     @Override
@@ -485,19 +788,22 @@ public class Service implements IService {
 
     @Override
     public void updateProduitStocks(Map<Produit, Integer> produitsEtQuantites) throws Exception {
-        for (Map.Entry<Produit, Integer> entry : produitsEtQuantites.entrySet()) {
-            Produit produit = entry.getKey();
-            Integer quantite = entry.getValue();
-            Produit managedProduit = produitRepository.findById(produit.getId()); // Récupérer l'entité gérée
-            if (managedProduit != null) {
-                if (managedProduit.reducerStock(quantite)) { // Utilise la logique métier de l'entité
-                    produitRepository.update(managedProduit); // Persiste le changement
-                } else {
-                    throw new Exception("Stock insuffisant pour le produit : " + managedProduit.getNom());
-                }
-            } else {
-                throw new Exception("Produit non trouvé pour la mise à jour du stock : " + produit.getNom());
+        TransactionRunner.run(() -> {
+            for (Map.Entry<Produit, Integer> entry : produitsEtQuantites.entrySet()) {
+                reduceStock(entry.getKey().getId(), entry.getValue(), entry.getKey().getNom());
+            }
+        });
+    }
+
+    private void reduceStock(int produitId, int quantite, String nom) throws Exception {
+        Produit managedProduit = produitRepository.findById(produitId); // Récupérer l'entité gérée
+        if (managedProduit != null) {
+            // Entité gérée par l'unité de travail : le nouveau stock est écrit au commit
+            if (!managedProduit.reducerStock(quantite)) { // Utilise la logique métier de l'entité
+                throw new Exception("Stock insuffisant pour le produit : " + managedProduit.getNom());
             }
+        } else {
+            throw new Exception("Produit non trouvé pour la mise à jour du stock : " + nom);
         }
     }
 
@@ -510,7 +816,7 @@ public class Service implements IService {
 
     @Override
     public List<Produit> findProduitsByCategorieId(Integer categorieId) {
-        List<Produit> all = produitRepository.findAll();
+        List<Produit> all = withPrices(produitRepository.findAll());
         if (categorieId == null) return all;
         return all.stream()
             .filter(p -> p.getCategorie() != null && p.getCategorie().getId() == categorieId)
@@ -519,58 +825,66 @@ public class Service implements IService {
 
     @Override
     public List<Categorie> getAllCategories() {
-        return categorieRepository.findAll();
+        return categoriesCache.get();
     }
 
     @Override
     public Categorie addCategorie(Categorie categorie) throws Exception {
-        if (categorie.getNom() == null || categorie.getNom().trim().isEmpty()) {
-            throw new Exception("Le nom de la catégorie est obligatoire.");
-        }
-        if (categorieRepository.existsByNom(categorie.getNom().trim())) {
-            throw new Exception("Une catégorie avec ce nom existe déjà.");
-        }
-        categorie.setNom(categorie.getNom().trim());
-        return categorieRepository.insert(categorie);
+        return callAndInvalidate(() -> {
+            if (categorie.getNom() == null || categorie.getNom().trim().isEmpty()) {
+                throw new Exception("Le nom de la catégorie est obligatoire.");
+            }
+            if (categorieRepository.existsByNom(categorie.getNom().trim())) {
+                throw new Exception("Une catégorie avec ce nom existe déjà.");
+            }
+            categorie.setNom(categorie.getNom().trim());
+            return categorieRepository.insert(categorie);
+        }, categoriesCache);
     }
 
     @Override
     public void updateCategorie(Categorie categorie) throws Exception {
-        if (categorie.getNom() == null || categorie.getNom().trim().isEmpty()) {
-            throw new Exception("Le nom de la catégorie est obligatoire.");
-        }
-        Categorie existing = categorieRepository.findByNom(categorie.getNom().trim());
-        if (existing != null && existing.getId() != categorie.getId()) {
-            throw new Exception("Une autre catégorie avec ce nom existe déjà.");
-        }
-        categorie.setNom(categorie.getNom().trim());
-        categorieRepository.update(categorie);
+        runAndInvalidate(() -> {
+            if (categorie.getNom() == null || categorie.getNom().trim().isEmpty()) {
+                throw new Exception("Le nom de la catégorie est obligatoire.");
+            }
+            Categorie existing = categorieRepository.findByNom(categorie.getNom().trim());
+            if (existing != null && existing.getId() != categorie.getId()) {
+                throw new Exception("Une autre catégorie avec ce nom existe déjà.");
+            }
+            categorie.setNom(categorie.getNom().trim());
+            categorieRepository.update(categorie);
+        }, categoriesCache);
     }
 
     @Override
     public void deleteCategorie(Categorie categorie) throws Exception {
-        // Mettre à null la catégorie de tous les produits affiliés avant suppression
-        List<Produit> produits = findProduitsByCategorieId(categorie.getId());
-        if (produits != null) {
-            for (Produit p : produits) {
-                p.setCategorie(null);
-                updateProduit(p);
+        runAndInvalidate(() -> {
+            // Mettre à null la catégorie de tous les produits affiliés avant suppression
+            List<Produit> produits = findProduitsByCategorieId(categorie.getId());
+            if (produits != null) {
+                for (Produit p : produits) {
+                    p.setCategorie(null);
+                    updateProduit(p);
+                }
             }
-        }
-        categorieRepository.delete(categorie);
+            categorieRepository.delete(categorie);
+        }, categoriesCache);
     }
 
     // --- Reservation methods ---
     @Override
     public Reservation insertReservation(Reservation reservation) throws Exception {
-        // Logique métier avant l'insertion (ex: vérifier la disponibilité du poste, du jeu)
-        if (!posteRepository.checkAvailability(reservation.getPoste().getId())) {
-            throw new Exception("Le poste sélectionné n'est pas disponible.");
-        }
-        // Assurez-vous que les entités liées (Client, Poste, Game, Promotion) sont gérées
-        // ou rattachées si elles viennent d'un contexte détaché.
-        // Le dépôt JPA gérera cela avec em.persist().
-        return reservationRepository.insert(reservation);
+        return TransactionRunner.call(() -> {
+            // Logique métier avant l'insertion (ex: vérifier la disponibilité du poste, du jeu)
+            if (!posteRepository.checkAvailability(reservation.getPoste().getId())) {
+                throw new Exception("Le poste sélectionné n'est pas disponible.");
+            }
+            // Assurez-vous que les entités liées (Client, Poste, Game, Promotion) sont gérées
+            // ou rattachées si elles viennent d'un contexte détaché.
+            // Le dépôt JPA gérera cela avec em.persist().
+            return reservationRepository.insert(reservation);
+        });
     }
 
     @Override
@@ -578,6 +892,11 @@ public class Service implements IService {
         return reservationRepository.findAll();
     }
 
+    @Override
+    public List<ReservationRow> findReservationPage(ReservationFilter filter, ReservationCursor cursor, int limit) {
+        return reservationRepository.findPage(filter, cursor, limit);
+    }
+
     @Override
     public Reservation findReservationById(int id) {
         return reservationRepository.findById(id);
@@ -585,12 +904,12 @@ public class Service implements IService {
 
     @Override
     public boolean updateReservation(Reservation reservation) throws Exception {
-        return reservationRepository.update(reservation);
+        return TransactionRunner.call(() -> reservationRepository.update(reservation));
     }
 
     @Override
     public boolean deleteReservation(int id) throws Exception {
-        return reservationRepository.delete(id);
+        return TransactionRunner.call(() -> reservationRepository.delete(id));
     }
 
     @Override
@@ -626,37 +945,38 @@ public class Service implements IService {
     }
 
     @Override
-    @Transactional
     public Reservation saveReservation(Reservation reservation, Optional<Promotion> promotion) throws Exception {
-        // Applique la promotion si elle est présente
-        if (promotion.isPresent()) {
-            Promotion promo = promotion.get();
+        return TransactionRunner.call(() -> {
+            // Applique la promotion si elle est présente
+            if (promotion.isPresent()) {
+                Promotion promo = promotion.get();
+
+                // 1. Vérifie le type de promotion
+                if (promo.getTypePromotion() != TypePromotion.RESERVATION) {
+                    throw new Exception("Seules les promotions de type 'Réservation' peuvent être appliquées à une réservation.");
+                }
 
-            // 1. Vérifie le type de promotion
-            if (promo.getTypePromotion() != TypePromotion.RESERVATION) {
-                throw new Exception("Seules les promotions de type 'Réservation' peuvent être appliquées à une réservation.");
-            }
+                // 2. Vérifie la validité de la promotion pour la date de réservation
+                if (!promo.isValid(reservation.getReservationDate().toLocalDate())) {
+                    throw new Exception("La promotion n'est pas valide pour la date de cette réservation.");
+                }
 
-            // 2. Vérifie la validité de la promotion pour la date de réservation
-            if (!promo.isValid(reservation.getReservationDate().toLocalDate())) {
-                throw new Exception("La promotion n'est pas valide pour la date de cette réservation.");
+                // 3. Assigne la promotion à la réservation
+                reservation.setAppliedPromotion(promo);
             }
 
-            // 3. Assigne la promotion à la réservation
-            reservation.setAppliedPromotion(promo);
-        }
-
-        // Recalcule toujours le prix (avec ou sans promotion)
-        reservation.setTotalPrice(reservation.calculatePriceBasedOnDuration());
+            // Recalcule toujours le prix (avec ou sans promotion)
+            reservation.setTotalPrice(reservation.calculatePriceBasedOnDuration());
 
-        // Persiste la réservation
-        return insertReservation(reservation);
+            // Persiste la réservation
+            return insertReservation(reservation);
+        });
     }
 
 
     @Override
     public List<Promotion> getValidReservationsPromotionsForDate(LocalDate date) {
-        return promoRepository.findValidPromotionsByTypeAndDate(TypePromotion.RESERVATION, date);
+        return promotionEngine().validOn(TypePromotion.RESERVATION, date);
     }
 
 
@@ -668,7 +988,56 @@ public class Service implements IService {
 
     @Override
     public void addPayment(Payment payment) throws Exception {
+        TransactionRunner.run(() -> paymentRepository.addPayment(payment));
+    }
+
+    @Override
+    public void recordSale(Payment payment, Map<Produit, Integer> produitsEtQuantites) throws Exception {
+        Map<String, String> op = new LinkedHashMap<>();
+        op.put("ticket", payment.getNumeroTicket());
+        if (payment.getDateHeure() == null) payment.setDateHeure(new Date());
+        op.put("date", String.valueOf(payment.getDateHeure().getTime()));
+        op.put("montant", String.valueOf(payment.getMontantTotal()));
+        op.put("mode", payment.getModePaiement());
+        op.put("produits", payment.getDetailsProduits());
+        op.put("reservations", payment.getDetailReservations());
+        if (payment.getCreatedBy() != null) op.put("user", String.valueOf(payment.getCreatedBy().getId()));
+        if (payment.getClient() != null) op.put("client", String.valueOf(payment.getClient().getId()));
+        // Sortie de stock : "id:quantité;..."
+        StringBuilder stock = new StringBuilder();
+        for (Map.Entry<Produit, Integer> entry : produitsEtQuantites.entrySet()) {
+            if (stock.length() > 0) stock.append(';');
+            stock.append(entry.getKey().getId()).append(':').append(entry.getValue());
+        }
+        op.put("stock", stock.toString());
+
+        // Paiement et stock dans une seule transaction : jamais de stock décrémenté sans paiement
+        Payment saved = journal().execute(OP_SALE, op, () -> applySale(op));
+        payment.setId(saved.getId());
+    }
+
+    private Payment applySale(Map<String, String> op) throws Exception {
+        User createdBy = op.containsKey("user") ? userRepository.findUserById(Integer.parseInt(op.get("user"))) : null;
+        Payment payment = new Payment(
+            0,
+            op.get("ticket"),
+            new Date(Long.parseLong(op.get("date"))),
+            Double.parseDouble(op.get("montant")),
+            op.get("mode"),
+            op.get("produits"),
+            op.get("reservations"),
+            createdBy
+        );
+        if (op.containsKey("client")) payment.setClient(clientRepository.findById(Integer.parseInt(op.get("client"))));
         paymentRepository.addPayment(payment);
+        if (!op.get("stock").isEmpty()) {
+            for (String item : op.get("stock").split(";")) {
+                int separator = item.indexOf(':');
+                int produitId = Integer.parseInt(item.substring(0, separator));
+                reduceStock(produitId, Integer.parseInt(item.substring(separator + 1)), "#" + produitId);
+            }
+        }
+        return payment;
     }
 
     @Override
@@ -678,12 +1047,12 @@ public class Service implements IService {
 
     @Override
     public void updatePayment(Payment payment) throws Exception {
-        paymentRepository.updatePayment(payment);
+        TransactionRunner.run(() -> paymentRepository.updatePayment(payment));
     }
 
     @Override
     public void deletePayment(int id) throws Exception {
-        paymentRepository.deletePayment(id);
+        TransactionRunner.run(() -> paymentRepository.deletePayment(id));
     }
 
     @Override
@@ -694,47 +1063,51 @@ public class Service implements IService {
     // --- Promotion methods ---
     @Override
     public Promotion addPromotion(Promotion promo) throws Exception {
-        if (promoRepository.findByNom(promo.getNom()).isPresent()) {
-            throw new Exception("Une promotion avec ce nom existe déjà.");
-        }
-        return promoRepository.insert(promo);
+        return callAndInvalidate(() -> {
+            if (promoRepository.findByNom(promo.getNom()).isPresent()) {
+                throw new Exception("Une promotion avec ce nom existe déjà.");
+            }
+            return promoRepository.insert(promo);
+        }, promotionsCache);
     }
 
     @Override
     public void updatePromotion(Promotion promo) throws Exception {
-        promoRepository.update(promo);
+        runAndInvalidate(() -> promoRepository.update(promo), promotionsCache);
     }
 
     @Override
     public void deletePromotion(Promotion promo) throws Exception {
-        // Avant de supprimer la promotion, retirez-la des produits associés
-        // Ceci est une logique métier qui peut nécessiter une transaction.
-        // Si CascadeType.ALL est utilisé sur la relation Produit-Promotion,
-        // la suppression de la promotion pourrait aussi supprimer les produits,
-        // ce qui n'est probablement pas souhaité.
-        // Il est préférable de gérer la dissociation manuellement ou via une requête JPQL.
-
-        // Logique pour restaurer les prix des produits liés à cette promotion AVANT de la supprimer
-        // Ceci nécessiterait de récupérer tous les produits liés à cette promotion
-        // et de restaurer leurs prix.
-        // Exemple (nécessiterait une méthode dans ProduitRepository pour trouver par promotion) :
-        // List<Produit> produitsAssocies = produitRepository.findByPromotionId(promo.getId());
-        // for (Produit p : produitsAssocies) {
-        //     // Logique pour restaurer le prix du produit p
-        //     // p.setPrix(p.getAncienPrix()); // Ou une autre logique de restauration
-        //     // produitRepository.update(p);
-        // }
-        
-        // Ou, si la relation ManyToMany est gérée côté Promotion, vous pouvez simplement vider la liste:
-        // promo.getProduits().clear();
-        // promoRepository.update(promo); // Pour persister le changement de relation
-
-        promoRepository.delete(promo);
+        runAndInvalidate(() -> {
+            // Avant de supprimer la promotion, retirez-la des produits associés
+            // Ceci est une logique métier qui peut nécessiter une transaction.
+            // Si CascadeType.ALL est utilisé sur la relation Produit-Promotion,
+            // la suppression de la promotion pourrait aussi supprimer les produits,
+            // ce qui n'est probablement pas souhaité.
+            // Il est préférable de gérer la dissociation manuellement ou via une requête JPQL.
+
+            // Logique pour restaurer les prix des produits liés à cette promotion AVANT de la supprimer
+            // Ceci nécessiterait de récupérer tous les produits liés à cette promotion
+            // et de restaurer leurs prix.
+            // Exemple (nécessiterait une méthode dans ProduitRepository pour trouver par promotion) :
+            // List<Produit> produitsAssocies = produitRepository.findByPromotionId(promo.getId());
+            // for (Produit p : produitsAssocies) {
+            //     // Logique pour restaurer le prix du produit p
+            //     // p.setPrix(p.getAncienPrix()); // Ou une autre logique de restauration
+            //     // produitRepository.update(p);
+            // }
+
+            // Ou, si la relation ManyToMany est gérée côté Promotion, vous pouvez simplement vider la liste:
+            // promo.getProduits().clear();
+            // promoRepository.update(promo); // Pour persister le changement de relation
+
+            promoRepository.delete(promo);
+        }, promotionsCache);
     }
 
     @Override
     public List<Promotion> getAllPromotions() {
-        return promoRepository.findAll();
+        return promotionsCache.get();
     }
 
     @Override
@@ -743,216 +1116,113 @@ public class Service implements IService {
         return promoRepository.findById(id);
     }
 
-    @Transactional
     @Override
     public void appliquerPromotion(Promotion promo) throws Exception {
-        Promotion managedPromo = getPromotionByIdWithProduits(promo.getId());
-        if (managedPromo == null) {
-            throw new Exception("Promotion non trouvée");
-        }
-
-        // Activer la promotion
-        managedPromo.setActif(true);
-        promoRepository.update(managedPromo);
-
-        // Appliquer la promotion
-        if (managedPromo.getTypePromotion() == TypePromotion.PRODUIT) {
-            for (Produit p : managedPromo.getProduits()) {
-                // Trouver toutes les promotions actives pour ce produit
-                List<Promotion> activePromotionsForProduit = p.getPromotions().stream()
-                    .filter(pr -> pr.isActif() && pr.getTypePromotion() == TypePromotion.PRODUIT)
-                    .collect(Collectors.toList());
-
-                // Si d'autres promotions actives existent, comparer les taux de réduction
-                if (!activePromotionsForProduit.isEmpty()) {
-                    // Trouver la promotion avec le taux de réduction le plus élevé
-                    Promotion highestRatePromo = activePromotionsForProduit.stream()
-                        .max(Comparator.comparingDouble(Promotion::getTauxReduction))
-                        .orElse(null);
-
-                    // Si la promotion actuelle a un taux de réduction plus élevé, l'appliquer
-                    if (highestRatePromo == null || managedPromo.getTauxReduction() > highestRatePromo.getTauxReduction()) {
-                        // Appliquer la réduction au produit
-                        BigDecimal prixOriginal = p.getAncienPrix() != null ? p.getAncienPrix() : p.getPrix();
-                        BigDecimal nouveauPrix = prixOriginal.multiply(BigDecimal.ONE.subtract(BigDecimal.valueOf(managedPromo.getTauxReduction())));
-                        p.setAncienPrix(prixOriginal);
-                        p.setPrix(nouveauPrix);
-                        produitRepository.update(p);
-                    }
-                } else {
-                    // Aucune autre promotion active, appliquer la réduction
-                    BigDecimal prixOriginal = p.getPrix();
-                    BigDecimal nouveauPrix = prixOriginal.multiply(BigDecimal.ONE.subtract(BigDecimal.valueOf(managedPromo.getTauxReduction())));
-                    p.setAncienPrix(prixOriginal);
-                    p.setPrix(nouveauPrix);
-                    produitRepository.update(p);
-                }
-            }
-        } else if (managedPromo.getTypePromotion() == TypePromotion.RESERVATION) {
-            // Pour les promotions de type RESERVATION, on ne fait rien ici
-            // car elles sont appliquées directement lors de la création ou de la mise à jour d'une réservation
-        }
+        setPromotionActive(promo, true);
     }
 
-    @Transactional
     @Override
     public void retirerPromotion(Promotion promo) throws Exception {
-        Promotion managedPromo = promoRepository.findByIdWithProduits(promo.getId());
-        if (managedPromo == null) {
-            throw new Exception("Promotion non trouvée");
-        }
-
-        // Désactiver la promotion
-        managedPromo.setActif(false);
-        promoRepository.update(managedPromo);
-
-        // Restaurer les prix originaux des produits si nécessaire
-        if (managedPromo.getTypePromotion() == TypePromotion.PRODUIT) {
-            for (Produit p : managedPromo.getProduits()) {
-                // Vérifier si le produit a encore d'autres promotions actives
-                List<Promotion> activePromotionsForProduit = p.getPromotions().stream()
-                    .filter(pr -> pr.isActif() && pr.getTypePromotion() == TypePromotion.PRODUIT && !pr.equals(managedPromo))
-                    .collect(Collectors.toList());
-
-                // Si aucune autre promotion active n'existe, restaurer le prix original
-                if (activePromotionsForProduit.isEmpty()) {
-                    if (p.getAncienPrix() != null) {
-                        p.setPrix(p.getAncienPrix());
-                        p.setAncienPrix(null);
-                        produitRepository.update(p);
-                    }
-                } else {
-                    // Sinon, appliquer la promotion avec le taux de réduction le plus élevé
-                    Promotion highestRatePromo = activePromotionsForProduit.stream()
-                        .max(Comparator.comparingDouble(Promotion::getTauxReduction))
-                        .orElse(null);
-
-                    if (highestRatePromo != null) {
-                        BigDecimal prixOriginal = p.getAncienPrix() != null ? p.getAncienPrix() : p.getPrix();
-                        BigDecimal nouveauPrix = prixOriginal.multiply(BigDecimal.ONE.subtract(BigDecimal.valueOf(highestRatePromo.getTauxReduction())));
-                        p.setAncienPrix(prixOriginal);
-                        p.setPrix(nouveauPrix);
-                        produitRepository.update(p);
-                    }
-                }
+        setPromotionActive(promo, false);
+    }
+
+    /**
+     * Active ou désactive une promotion : une seule ligne écrite. Les prix des produits ne sont pas
+     * modifiés, la remise est calculée à la lecture par le moteur de promotions (recompilé au commit).
+     */
+    private void setPromotionActive(Promotion promo, boolean actif) throws Exception {
+        runAndInvalidate(() -> {
+            Promotion managedPromo = promoRepository.findById(promo.getId());
+            if (managedPromo == null) {
+                throw new Exception("Promotion non trouvée");
             }
-        } else if (managedPromo.getTypePromotion() == TypePromotion.RESERVATION) {
-            // Pour les promotions de type RESERVATION, on ne fait rien ici
-            // car elles ne modifient pas directement les prix des produits
-        }
+            // Promotion gérée par l'unité de travail : écrite au commit
+            managedPromo.setActif(actif);
+        }, promotionsCache);
     }
 
 
-   @Transactional
     @Override
     public void addProduitToPromotion(int produitId, int promotionId) throws Exception {
-        // 1. Trouver les entités gérées avec leurs relations
-        Promotion promo = promoRepository.findByIdWithProduits(promotionId);
-        Produit produit = produitRepository.findByIdWithPromotions(produitId);
+        runAndInvalidate(() -> {
+            // 1. Trouver les entités gérées avec leurs relations
+            Promotion promo = promoRepository.findByIdWithProduits(promotionId);
+            Produit produit = produitRepository.findByIdWithPromotions(produitId);
 
-        if (promo == null || produit == null) {
-            throw new Exception("Produit ou Promotion non trouvé pour l'ajout de relation.");
-        }
+            if (promo == null || produit == null) {
+                throw new Exception("Produit ou Promotion non trouvé pour l'ajout de relation.");
+            }
 
-        // 2. Vérifier que le produit n'est pas déjà associé
-        if (promo.getProduits().contains(produit)) {
-            throw new Exception("Le produit est déjà associé à cette promotion.");
-        }
+            // 2. Vérifier que le produit n'est pas déjà associé
+            if (promo.getProduits().contains(produit)) {
+                throw new Exception("Le produit est déjà associé à cette promotion.");
+            }
 
-        // 3. Ajouter le produit à la promotion et vice-versa
-        promo.addProduit(produit);
-        produit.addPromotion(promo);
+            // 3. Ajouter le produit à la promotion et vice-versa
+            promo.addProduit(produit);
+            produit.addPromotion(promo);
 
-        // 4. Sauvegarder les modifications
-        promoRepository.update(promo);
-        produitRepository.update(produit);
+            // 4. Entités gérées par l'unité de travail : la relation (côté Produit) est écrite au commit
+        }, promotionsCache);
     }
 
     @Override
-    @Transactional
     public void removeProduitFromPromotion(int produitId, int promotionId) throws Exception {
-        // 1. Trouver les entités gérées
-        Promotion promo = promoRepository.findById(promotionId);
-        Produit produit = produitRepository.findById(produitId);
-
-        if (promo == null || produit == null) {
-            throw new Exception("Produit ou Promotion non trouvé pour la suppression de relation.");
-        }
+        runAndInvalidate(() -> {
+            // 1. Trouver les entités gérées
+            Promotion promo = promoRepository.findById(promotionId);
+            Produit produit = produitRepository.findById(produitId);
 
-        // 2. Vérifier que le produit est associé à la promotion
-        if (!promo.getProduits().contains(produit)) {
-            throw new Exception("Le produit n'est pas associé à cette promotion.");
-        }
+            if (promo == null || produit == null) {
+                throw new Exception("Produit ou Promotion non trouvé pour la suppression de relation.");
+            }
 
-        // 3. Retirer le produit de la promotion
-        promo.removeProduit(produit);
-        promoRepository.update(promo);
+            // 2. Vérifier que le produit est associé à la promotion
+            if (!promo.getProduits().contains(produit)) {
+                throw new Exception("Le produit n'est pas associé à cette promotion.");
+            }
 
-        // 4. Restaurer le prix du produit si c'était la seule promotion active
-        if (produit.getPromotions().isEmpty() && produit.getAncienPrix() != null) {
-            produit.setPrix(produit.getAncienPrix());
-            produit.setAncienPrix(null);
-            produitRepository.update(produit);
-        }
+            // 3. Retirer le produit de la promotion (entités gérées : écrites au commit)
+            promo.removeProduit(produit);
+        }, promotionsCache);
     }
 
 
     @Override
     public boolean existsProduitInPromotion(int produitId, int promotionId) {
-        Promotion promo = promoRepository.findById(promotionId);
-        Produit produit = produitRepository.findById(produitId);
-        return promo != null && produit != null && promo.getProduits().contains(produit);
+        // Une seule unité de travail : la collection LAZY des produits reste accessible
+        return UnitOfWork.read(() -> {
+            Promotion promo = promoRepository.findById(promotionId);
+            Produit produit = produitRepository.findById(produitId);
+            return promo != null && produit != null && promo.getProduits().contains(produit);
+        });
     }
 
     @Override
-    @Transactional
     public void removeAllProduitsFromPromotion(int promotionId) throws Exception {
-        // 1. Trouver la promotion gérée
-        Promotion promo = promoRepository.findById(promotionId);
-        if (promo == null) {
-            throw new Exception("Promotion non trouvée.");
-        }
+        runAndInvalidate(() -> {
+            // 1. Trouver la promotion gérée
+            Promotion promo = promoRepository.findById(promotionId);
+            if (promo == null) {
+                throw new Exception("Promotion non trouvée.");
+            }
 
-        // 2. Restaurer les prix des produits et retirer la promotion
-        if (promo.getProduits() != null) {
-            // Utiliser une copie pour éviter ConcurrentModificationException
-            for (Produit p : new HashSet<>(promo.getProduits())) {
-                if (p.getAncienPrix() != null) {
-                    p.setPrix(p.getAncienPrix());
-                    p.setAncienPrix(null);
-                    produitRepository.update(p);
+            // 2. Retirer la promotion de ses produits (entités gérées : écrites au commit)
+            if (promo.getProduits() != null) {
+                // Utiliser une copie pour éviter ConcurrentModificationException
+                for (Produit p : new HashSet<>(promo.getProduits())) {
+                    // Retirer la promotion du côté du produit
+                    p.getPromotions().remove(promo);
                 }
-                // Retirer la promotion du côté du produit
-                p.getPromotions().remove(promo);
-                produitRepository.update(p);
+                promo.getProduits().clear(); // Vider la collection de la promotion
             }
-            promo.getProduits().clear(); // Vider la collection de la promotion
-            promoRepository.update(promo);
-        }
-    }
-
-
-    @Override
-    public void updatePrixEtAncienPrix(int produitId, BigDecimal ancienPrix, BigDecimal nouveauPrix) throws Exception {
-        produitRepository.updatePrixEtAncienPrix(produitId, ancienPrix, nouveauPrix);
+        }, promotionsCache);
     }
 
-    @Override
-    public void restaurerPrixInitial(int produitId, BigDecimal ancienPrixPassed) {
-        try {
-            produitRepository.restaurerPrixInitial(produitId, ancienPrixPassed);
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la restauration du prix initial du produit : " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Erreur lors de la restauration du prix initial du produit", e);
-        }
-    }
 
     @Override
     public List<Promotion> getValidPromotionsForDate(LocalDate date) {
-        return promoRepository.findAll().stream()
-                .filter(p -> p.isValid(date))  // Utilise la méthode isValid(LocalDate) de Promotion
-                .collect(Collectors.toList());
+        return promotionEngine().validOn(date);
     }
 
 
@@ -963,61 +1233,41 @@ public class Service implements IService {
 
     @Override
     public List<Promotion> getActiveAndValidPromotions(LocalDate date) {
-        return promoRepository.findAll().stream()
-                .filter(p -> p.isActif() && p.isValid(date))  // Utilise la méthode isValid(LocalDate) de Promotion
-                .collect(Collectors.toList());
+        return promotionEngine().validOn(date);
     }
 
 
-    @Override
-    @Transactional
-    public void restoreProductPricesAfterAllPromotionsRemoved(int produitId) throws Exception {
-        Produit produit = produitRepository.findById(produitId);
-        if (produit == null) {
-            throw new Exception("Produit non trouvé pour la restauration des prix.");
-        }
-
-        // S'il n'y a plus de promotions associées et qu'un ancien prix existe
-        if (produit.getPromotions().isEmpty() && produit.getAncienPrix() != null) {
-            produit.setPrix(produit.getAncienPrix());
-            produit.setAncienPrix(null);
-            produitRepository.update(produit);
-        }
-    }
-
     // Dans ton Service.java
     public Optional<Promotion> getActivePromotionForToday() {
-        LocalDate today = LocalDate.now();
-        return promoRepository.findAll().stream()
-            .filter(p -> p.isActif()
-                && p.getTypePromotion() == TypePromotion.RESERVATION  // Filtre par type RESERVATION
-                && p.isValid(today))
-            .findFirst();
+        return promotionEngine().validOn(TypePromotion.RESERVATION, LocalDate.now()).stream().findFirst();
     }
 
     public Optional<Promotion> getBestActivePromotionForToday() {
-        LocalDate today = LocalDate.now();
-        return promoRepository.findAll().stream()
-            .filter(p -> p.isActif()
-                && p.getTypePromotion() == TypePromotion.RESERVATION
-                && p.isValid(today))
-            .max(Comparator.comparingDouble(Promotion::getTauxReduction)); // Sélectionne la promotion avec le taux le plus élevé
+        return getBestReservationPromotion(LocalDate.now());
+    }
+
+    @Override
+    public Optional<Promotion> getBestReservationPromotion(LocalDate date) {
+        return promotionEngine().bestOn(TypePromotion.RESERVATION, date);
+    }
+
+    @Override
+    public Optional<Promotion> getBestProduitPromotion(int produitId, LocalDate date) {
+        return promotionEngine().bestForProduit(produitId, date);
     }
 
 
 
-    @Transactional
     public Promotion getPromotionByIdWithProduits(int id) {
         return promoRepository.findByIdWithProduits(id);
     }
 
 
 
-    @Transactional
     public List<Produit> getProduitsByPromotionId(int promotionId) {
         Promotion promo = getPromotionByIdWithProduits(promotionId);
         if (promo != null) {
-            return new ArrayList<>(promo.getProduits());
+            return withPrices(new ArrayList<>(promo.getProduits()));
         }
         return Collections.emptyList();
     }
@@ -1053,68 +1303,75 @@ public class Service implements IService {
     // Dans votre Service.java
     public List<Reservation> findReservationsByUser(User user) {
         if (user == null) return Collections.emptyList();
-        
-        // Solution 1: Utilisation directe du repository si vous utilisez Spring Data JPA
-        // return reservationRepository.findByCreatedBy(user);
-        
-        // Solution 2: Filtrage manuel
-        return reservationRepository.findAll().stream()
-            .filter(r -> {
-                User createdBy = r.getCreatedBy();
-                return createdBy != null && createdBy.getId() == user.getId(); // Compare par ID
-            })
-            .collect(Collectors.toList());
+        // Filtre createdBy exécuté en SQL
+        return reservationRepository.findReservationsByUser(user);
     }
 
 @Override
-@Transactional
 public void pauseGameSession(GameSession session) throws Exception {
-    if (!"Active".equalsIgnoreCase(session.getStatus())) {
+    Map<String, String> op = sessionOperation(session.getId());
+    journal().execute(OP_PAUSE, op, () -> {
+        // Seule la session gérée est modifiée : l'instance de l'appelant n'est mise à jour qu'après commit
+        publishSession(applyPause(op), session);
+        return null;
+    });
+}
+
+/** Pause à l'instant enregistré dans l'opération (rejouable au démarrage suivant). */
+private GameSession applyPause(Map<String, String> op) throws Exception {
+    GameSession managed = managedSession(Integer.parseInt(op.get("session")));
+    LocalDateTime at = LocalDateTime.parse(op.get("at"));
+    if (!"Active".equalsIgnoreCase(managed.getStatus())) {
         throw new Exception("Seules les sessions actives peuvent être mises en pause.");
     }
 
     // Calculer le temps restant ACTUEL au moment de la pause
-    LocalDateTime endTime = session.getStartTime().plus(session.getPaidDuration());
-    Duration remainingTime = Duration.between(LocalDateTime.now(), endTime);
+    LocalDateTime endTime = managed.getStartTime().plus(managed.getPaidDuration());
+    Duration remainingTime = Duration.between(at, endTime);
 
     // Sauvegarder le temps restant exact au moment de la pause
-    session.setPausedRemainingTime(remainingTime.isNegative() ? Duration.ZERO : remainingTime);
-    session.setPaused(true);
-    session.setStatus("En pause");
+    managed.setPausedRemainingTime(remainingTime.isNegative() ? Duration.ZERO : remainingTime);
+    managed.setPaused(true);
+    managed.setStatus("En pause");
 
     // NE PAS dissocier le poste - garder l'association pour la reprise
     // Le poste reste associé mais l'interface l'ignorera pour l'affichage "Disponible"
-    Poste posteActuel = session.getPoste();
+    Poste posteActuel = managed.getPoste();
 
-    // Mettre à jour la session (sans dissociation du poste)
-    gameSessionRepository.updateGameSession(session);
-
-    // Mettre à jour la réservation associée
-    Reservation reservation = session.getReservation();
+    Reservation reservation = managed.getReservation();
     if (reservation != null) {
         reservation.setStatus("En pause");
-        reservationRepository.update(reservation);
     }
 
     // Logger pour débogage
-    System.out.println("Session " + session.getId() + " mise en pause sur le poste " + 
+    System.out.println("Session " + managed.getId() + " mise en pause sur le poste " + 
                       (posteActuel != null ? posteActuel.getName() : "null") + 
                       ". Poste reste associé mais sera ignoré dans l'affichage.");
+    return managed;
 }
 
 @Override
-@Transactional
 public void resumeGameSession(GameSession session) throws Exception {
-    if (!"En pause".equalsIgnoreCase(session.getStatus())) {
+    Map<String, String> op = sessionOperation(session.getId());
+    journal().execute(OP_RESUME, op, () -> {
+        // Seule la session gérée est modifiée : l'instance de l'appelant n'est mise à jour qu'après commit
+        publishSession(applyResume(op), session);
+        return null;
+    });
+}
+
+/** Reprise à l'instant enregistré dans l'opération (rejouable au démarrage suivant). */
+private GameSession applyResume(Map<String, String> op) throws Exception {
+    GameSession managed = managedSession(Integer.parseInt(op.get("session")));
+    LocalDateTime at = LocalDateTime.parse(op.get("at"));
+    if (!"En pause".equalsIgnoreCase(managed.getStatus())) {
         throw new Exception("Seules les sessions en pause peuvent être reprises.");
     }
 
     // Vérifier si le client a déjà une session active (autre que celle en cours de reprise)
-    Client client = session.getClient();
-    List<GameSession> clientActiveSessions = getAllGameSessions().stream()
-        .filter(s -> s.getClient() != null && s.getClient().getId() == client.getId())
-        .filter(s -> "Active".equalsIgnoreCase(s.getStatus()))
-        .filter(s -> s.getId() != session.getId()) // Exclure la session actuelle (corrigé)
+    Client client = managed.getClient();
+    List<GameSession> clientActiveSessions = gameSessionRepository.findActiveByClientId(client.getId()).stream()
+        .filter(s -> s.getId() != managed.getId()) // Exclure la session actuelle (corrigé)
         .collect(Collectors.toList());
 
     if (!clientActiveSessions.isEmpty()) {
@@ -1123,9 +1380,9 @@ public void resumeGameSession(GameSession session) throws Exception {
     }
 
     // IMPORTANT: La session en pause n'a plus de poste associé après la pause
-    // On doit donc récupérer le poste depuis la réservation
+    // On doit donc récupérer le poste depuis la réservation (chargée avec la session gérée)
     Poste poste = null;
-    Reservation reservation = session.getReservation();
+    Reservation reservation = managed.getReservation();
     if (reservation != null) {
         poste = reservation.getPoste();
     }
@@ -1145,86 +1402,83 @@ public void resumeGameSession(GameSession session) throws Exception {
     if (!pausedSessionsOnPoste.isEmpty()) {
         // Dissocier les sessions en pause de ce poste (nettoyage de sécurité)
         for (GameSession pausedSession : pausedSessionsOnPoste) {
-            if (pausedSession.getId() != session.getId()) {  // Utilisez != au lieu de !equals()
-                pausedSession.setPoste(null);
-                gameSessionRepository.updateGameSession(pausedSession);
+            if (pausedSession.getId() != managed.getId()) {  // Utilisez != au lieu de !equals()
+                pausedSession.setPoste(null); // entité gérée : écrite au commit
+                trackLiveSession(pausedSession);
                 System.out.println("Session en pause " + pausedSession.getId() + " dissociée du poste " + poste.getName());
             }
         }
     }
 
     // Vérifier que le temps restant est valide
-    Duration remainingTime = session.getPausedRemainingTime();
+    Duration remainingTime = managed.getPausedRemainingTime();
     if (remainingTime == null || remainingTime.isNegative()) {
         throw new Exception("Le temps restant pour cette session est invalide.");
     }
 
     // Réassocier la session au poste original
-    session.setPoste(poste);
+    managed.setPoste(poste);
     if (remainingTime.isZero()) {
         // Si le temps restant est zéro, terminer la session
-        session.setStatus("Terminée");
-        session.setEndTime(LocalDateTime.now());
-        session.setPaused(false);
-        session.setPausedRemainingTime(null);
+        managed.setStatus("Terminée");
+        managed.setEndTime(at);
+        managed.setPaused(false);
+        managed.setPausedRemainingTime(null);
     } else {
         // Reprendre la session avec le temps restant exact
         // Calculer le nouveau startTime pour que le temps restant soit respecté
-        LocalDateTime newStartTime = LocalDateTime.now().minus(session.getPaidDuration().minus(remainingTime));
-        session.setStartTime(newStartTime);
-        session.setEndTime(LocalDateTime.now().plus(remainingTime));
-        session.setPaused(false);
-        session.setStatus("Active");
-        session.setPausedRemainingTime(null); // Réinitialiser après reprise
+        LocalDateTime newStartTime = at.minus(managed.getPaidDuration().minus(remainingTime));
+        managed.setStartTime(newStartTime);
+        managed.setEndTime(at.plus(remainingTime));
+        managed.setPaused(false);
+        managed.setStatus("Active");
+        managed.setPausedRemainingTime(null); // Réinitialiser après reprise
     }
 
-    // Mettre à jour la session
-    gameSessionRepository.updateGameSession(session);
-
-    // Mettre à jour la réservation associée
     if (reservation != null) {
-        reservation.setStatus(session.getStatus());
-        reservationRepository.update(reservation);
+        reservation.setStatus(managed.getStatus());
     }
 
-    System.out.println("Session " + session.getId() + " reprise sur le poste " + poste.getName() +
+    System.out.println("Session " + managed.getId() + " reprise sur le poste " + poste.getName() +
                       " avec " + remainingTime.toMinutes() + " minutes restantes.");
+    return managed;
 }
 
 
 
 @Override
-@Transactional
 public void resumePausedSessionForClient(int clientId, int posteId, int gameId, Duration remainingTime) throws Exception {
-    
-    // 1. Vérifier sessions ACTIVES uniquement
-    if (hasActiveSession(clientId)) {
-        throw new Exception("Client a déjà une session active. Terminez-la d'abord.");
-    }
+    TransactionRunner.run(() -> {
 
-    // 2. Trouver la meilleure session en pause à reprendre
-    GameSession sessionToResume = findBestPausedSession(clientId);
-    
-    // 3. Vérifier disponibilité poste
-    Poste poste = posteRepository.findById(posteId);
-    if (isPosteOccupied(poste)) {
-        throw new Exception("Poste " + poste.getName() + " déjà occupé.");
-    }
+        // 1. Vérifier sessions ACTIVES uniquement
+        if (hasActiveSession(clientId)) {
+            throw new Exception("Client a déjà une session active. Terminez-la d'abord.");
+        }
 
-    Game game = gameRepository.findById(gameId);
+        // 2. Trouver la meilleure session en pause à reprendre
+        GameSession sessionToResume = findBestPausedSession(clientId);
 
-    // 4. CORRECTION : Utiliser le paramètre remainingTime pour validation
-    if (remainingTime == null || remainingTime.isNegative() || remainingTime.isZero()) {
-        throw new Exception("Temps restant invalide pour la reprise.");
-    }
+        // 3. Vérifier disponibilité poste
+        Poste poste = posteRepository.findById(posteId);
+        if (isPosteOccupied(poste)) {
+            throw new Exception("Poste " + poste.getName() + " déjà occupé.");
+        }
 
-    // 5. Fermer l'ancienne session
-    closeOriginalPausedSession(sessionToResume);
-    
-    // 6. CORRECTION : Passer remainingTime à la méthode
-    createNewActiveSession(sessionToResume, poste, game, remainingTime);
-    
-    System.out.println("✅ Session reprise sur poste " + poste.getName() + " avec " + remainingTime.toMinutes() + " minutes");
+        Game game = gameRepository.findById(gameId);
+
+        // 4. CORRECTION : Utiliser le paramètre remainingTime pour validation
+        if (remainingTime == null || remainingTime.isNegative() || remainingTime.isZero()) {
+            throw new Exception("Temps restant invalide pour la reprise.");
+        }
+
+        // 5. Fermer l'ancienne session
+        closeOriginalPausedSession(sessionToResume);
+
+        // 6. CORRECTION : Passer remainingTime à la méthode
+        createNewActiveSession(sessionToResume, poste, game, remainingTime);
+
+        System.out.println("✅ Session reprise sur poste " + poste.getName() + " avec " + remainingTime.toMinutes() + " minutes");
+    });
 }
 
 private void closeOriginalPausedSession(GameSession originalSession) {
@@ -1232,7 +1486,8 @@ private void closeOriginalPausedSession(GameSession originalSession) {
     originalSession.setPausedRemainingTime(Duration.ZERO);
     originalSession.setEndTime(LocalDateTime.now());
     originalSession.setPaused(false);
-    gameSessionRepository.updateGameSession(originalSession);
+    // Session chargée par findBestPausedSession dans l'unité de travail : écrite au commit
+    trackLiveSession(originalSession);
     
     // CORRECTION : NE PAS fermer la réservation ici
     // Elle sera gérée dans createNewActiveSession si nécessaire
@@ -1241,11 +1496,9 @@ private void closeOriginalPausedSession(GameSession originalSession) {
 
 
 
-private boolean hasActiveSession(int clientId) {
-    return getAllGameSessions().stream()
-        .anyMatch(s -> s.getClient() != null && 
-                      s.getClient().getId() == clientId && 
-                      "Active".equalsIgnoreCase(s.getStatus()));
+@Override
+public boolean hasActiveSession(int clientId) {
+    return gameSessionRepository.existsActiveForClient(clientId);
 }
 
 // ✅ MÉTHODE 1: Trouver la meilleure session en pause
@@ -1295,6 +1548,7 @@ private void createNewActiveSession(GameSession oldSession, Poste newPoste, Game
 
     // Sauvegarder
     gameSessionRepository.addGameSession(newSession);
+    trackLiveSession(newSession);
 
     // CORRECTION : Mettre à jour la réservation UNIQUEMENT si elle existe
     if (oldSession.getReservation() != null) {
@@ -1310,8 +1564,7 @@ private void updateReservationForNewSession(Reservation reservation, Poste newPo
         reservation.setPoste(newPoste);
         reservation.setGame(newGame);
         reservation.setStatus("Active");
-        reservation.setDuration(remainingTime);
-        reservationRepository.update(reservation);
+        reservation.setDuration(remainingTime); // entité gérée : écrite au commit
         System.out.println("📋 Réservation " + reservation.getNumeroTicket() + " mise à jour");
     }
 }
@@ -1327,6 +1580,7 @@ private void closeAllPausedSessions(int clientId, int sessionToKeepId) {
             session.setPausedRemainingTime(Duration.ZERO);
             session.setEndTime(LocalDateTime.now());
             gameSessionRepository.updateGameSession(session);
+            trackLiveSession(session);
             
             // Fermer leurs réservations associées
             closeReservationIfNeeded(session.getReservation());
@@ -1351,26 +1605,24 @@ private void closeReservationIfNeeded(Reservation reservation) {
 
 
     @Override
-    @Transactional
     public void terminateSessionAndReservation(GameSession session) throws Exception {
-        session.setStatus("Terminée");
-        session.setEndTime(LocalDateTime.now());
-        gameSessionRepository.updateGameSession(session);
-
-        // Recharger la session avec ses relations pour éviter les problèmes de LAZY loading
-        GameSession managedSession = gameSessionRepository.findGameSessionByIdWithRelations(session.getId());
-        Reservation reservation = managedSession.getReservation();
-
-        if (reservation != null) {
-            reservation.setStatus("Terminée");
-            // Forcer le merge pour s'assurer que l'entité est attachée
-            reservationRepository.update(reservation);
-        }
+        TransactionRunner.run(() -> {
+            // Session et réservation chargées une seule fois dans l'unité de travail, écrites au commit ;
+            // l'instance de l'appelant n'est mise à jour qu'après commit
+            GameSession managed = managedSession(session.getId());
+            managed.setStatus("Terminée");
+            managed.setEndTime(LocalDateTime.now());
+
+            Reservation reservation = managed.getReservation();
+            if (reservation != null) {
+                reservation.setStatus("Terminée");
+            }
+            publishSession(managed, session);
+        });
     }
 
 
  @Override
-@Transactional
 public void extendGameSession(GameSession session, int additionalMinutes, String connectedUserName, String modePaiement) throws Exception {
     // Validation des paramètres
     Objects.requireNonNull(session, "La session ne peut pas être null.");
@@ -1381,10 +1633,60 @@ public void extendGameSession(GameSession session, int additionalMinutes, String
         throw new IllegalArgumentException("Le mode de paiement ne peut pas être vide.");
     }
 
+    User currentUser = getCurrentUser();
+    if (currentUser == null) {
+        throw new Exception("Aucun utilisateur connecté trouvé.");
+    }
+    Map<String, String> op = sessionOperation(session.getId());
+    op.put("minutes", String.valueOf(additionalMinutes));
+    op.put("mode", modePaiement);
+    op.put("user", String.valueOf(currentUser.getId()));
+
+    // Étapes 1 à 13 dans une seule transaction (session, réservation, points, paiement)
+    journal().execute(OP_EXTENSION, op, () -> {
+        Extension extension = applyExtension(op);
+        // La session de l'appelant et le registre ne reçoivent la nouvelle durée qu'après commit
+        publishSession(extension.session, session);
+
+        // 14. Ticket composé dans la transaction (relations de la réservation chargées), mis en file
+        // d'impression une fois la transaction validée : la prolongation n'attend pas l'imprimante
+        ReservationReceiptPrinter printer = new ReservationReceiptPrinter(
+            extension.reservation,
+            connectedUserName,
+            true, // Indique que c'est une prolongation
+            additionalMinutes,
+            extension.originalAmount,
+            modePaiement // Utilise le mode de paiement sélectionné
+        );
+        UnitOfWork.afterCommit(printer::printReceipt);
+        return null;
+    });
+}
+
+/** Session et réservation prolongées, montant avant prolongation (nécessaire au ticket). */
+private static final class Extension {
+    final GameSession session;
+    final Reservation reservation;
+    final double originalAmount;
+
+    Extension(GameSession session, Reservation reservation, double originalAmount) {
+        this.session = session;
+        this.reservation = reservation;
+        this.originalAmount = originalAmount;
+    }
+}
+
+/** Prolongation telle qu'enregistrée dans l'opération : instant, caissier et mode de paiement compris. */
+private Extension applyExtension(Map<String, String> op) throws Exception {
+    int sessionId = Integer.parseInt(op.get("session"));
+    int additionalMinutes = Integer.parseInt(op.get("minutes"));
+    String modePaiement = op.get("mode");
+    LocalDateTime at = LocalDateTime.parse(op.get("at"));
+
     // 1. Charge la session avec toutes ses relations
-    GameSession managedSession = gameSessionRepository.findGameSessionByIdWithRelations(session.getId());
+    GameSession managedSession = gameSessionRepository.findGameSessionByIdWithRelations(sessionId);
     if (managedSession == null) {
-        throw new Exception("Session introuvable avec l'ID : " + session.getId());
+        throw new Exception("Session introuvable avec l'ID : " + sessionId);
     }
 
     // 2. Vérifie que la réservation est chargée
@@ -1406,7 +1708,7 @@ public void extendGameSession(GameSession session, int additionalMinutes, String
     }
 
     // 5. Calcule le prix supplémentaire
-    double additionalPrice = calculateExtensionPrice(additionalMinutes, reservation);
+    double additionalPrice = calculateExtensionPrice(additionalMinutes, reservation, at.toLocalDate());
 
     // 6. Stocke le prix original pour le ticket
     double originalAmount = reservation.getTotalPrice();
@@ -1425,15 +1727,13 @@ public void extendGameSession(GameSession session, int additionalMinutes, String
     // 10. Met à jour les points de parrainage
     updateParrainPoints(reservation, additionalMinutes);
 
-    // 11. Récupère l'utilisateur connecté
-    User currentUser = getCurrentUser();
+    // 11. Récupère le caissier de l'opération
+    User currentUser = userRepository.findUserById(Integer.parseInt(op.get("user")));
     if (currentUser == null) {
         throw new Exception("Aucun utilisateur connecté trouvé.");
     }
 
-    // 12. Sauvegarde les modifications
-    gameSessionRepository.updateGameSession(managedSession);
-    reservationRepository.update(reservation);
+    // 12. Session, réservation, client et parrain sont gérés par l'unité de travail : écrits au commit
 
     // 13. Crée un paiement pour la prolongation
     String detailReservations = String.format(
@@ -1446,7 +1746,7 @@ public void extendGameSession(GameSession session, int additionalMinutes, String
 
     Payment payment = new Payment(
         "EXT-" + reservation.getNumeroTicket(),
-        new Date(),
+        Date.from(at.atZone(ZoneId.systemDefault()).toInstant()),
         additionalPrice,
         modePaiement, // Utilise le mode de paiement sélectionné
         client,
@@ -1457,21 +1757,12 @@ public void extendGameSession(GameSession session, int additionalMinutes, String
 
     paymentRepository.addPayment(payment);
 
-    // 14. Imprime le ticket avec le mode de paiement
-    ReservationReceiptPrinter printer = new ReservationReceiptPrinter(
-        reservation,
-        connectedUserName,
-        true, // Indique que c'est une prolongation
-        additionalMinutes,
-        originalAmount,
-        modePaiement // Utilise le mode de paiement sélectionné
-    );
-    printer.printReceipt();
+    return new Extension(managedSession, reservation, originalAmount);
 }
 
 
 
-private double calculateExtensionPrice(int additionalMinutes, Reservation reservation) {
+private double calculateExtensionPrice(int additionalMinutes, Reservation reservation, LocalDate date) {
     double additionalPrice = 0.0;
     int remainingMinutes = additionalMinutes;
 
@@ -1487,7 +1778,7 @@ private double calculateExtensionPrice(int additionalMinutes, Reservation reserv
     }
 
     // Appliquer la promotion si elle est valide
-    if (reservation.getAppliedPromotion() != null && reservation.getAppliedPromotion().isValid(LocalDate.now())) {
+    if (reservation.getAppliedPromotion() != null && reservation.getAppliedPromotion().isValid(date)) {
         additionalPrice *= (1 - reservation.getAppliedPromotion().getTauxReduction());
     }
 
@@ -1499,11 +1790,6 @@ private void updateLoyaltyPoints(Reservation reservation, int additionalMinutes)
         Client client = reservation.getClient();
         int pointsEarned = additionalMinutes / 15;
         client.setLoyaltyPoints(client.getLoyaltyPoints() + pointsEarned);
-        try {
-            clientRepository.update(client);
-        } catch (Exception e) {
-            throw new RuntimeException("Erreur lors de la mise à jour des points de fidélité: " + e.getMessage(), e);
-        }
     }
 }
 
@@ -1514,11 +1800,6 @@ private void updateParrainPoints(Reservation reservation, int additionalMinutes)
         if (parrain != null) {
             int pointsEarned = additionalMinutes / 15;
             parrain.addParrainagePoints(pointsEarned);
-            try {
-                parrainRepository.update(parrain);
-            } catch (Exception e) {
-                throw new RuntimeException("Erreur lors de la mise à jour des points de parrainage: " + e.getMessage(), e);
-            }
         }
     }
 }
@@ -1531,12 +1812,21 @@ private void updateParrainPoints(Reservation reservation, int additionalMinutes)
 
     @Override
     public List<Payment> getPaymentsByUser(User currentUser) {
-         if (currentUser == null) return Collections.emptyList();
-         return paymentRepository.getAllPayments().stream()
-        .filter(r -> {
-            User createdBy = r.getCreatedBy();
-            return createdBy != null && createdBy.getId() == currentUser.getId(); // Compare par ID
-        })
-        .collect(Collectors.toList());
+        if (currentUser == null) return Collections.emptyList();
+        return paymentRepository.getPaymentsByUser(currentUser.getId());
+    }
+
+    @Override
+    public List<Payment> findPaymentsBetween(LocalDate from, LocalDate to, Integer createdById) {
+        ZoneId zone = ZoneId.systemDefault();
+        return paymentRepository.findPaymentsBetween(
+            Date.from(from.atStartOfDay(zone).toInstant()),
+            Date.from(to.plusDays(1).atStartOfDay(zone).toInstant()),
+            createdById);
+    }
+
+    @Override
+    public List<Reservation> findReservationsBetween(LocalDate from, LocalDate to, Integer createdById) {
+        return reservationRepository.findReservationsBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), createdById);
     }
 }
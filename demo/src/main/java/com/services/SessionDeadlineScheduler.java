@@ -0,0 +1,222 @@
+package com.services;
+
+import com.entities.GameSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Échéancier des sessions actives : pour chaque session, deux événements datés à la seconde près,
+ * "plus que 2 minutes" puis "temps écoulé", diffusés aux écouteurs sans aucune lecture en base.
+ *
+ * Alimenté par LiveSessionRegistry : chaque écriture de session (démarrage, prolongation, pause,
+ * reprise, fin) reprogramme ou annule ses échéances. Un seul thread attend l'échéance la plus proche
+ * dans une file de priorité ; les écouteurs sont appelés sur ce thread (Platform.runLater côté UI).
+ */
+public class SessionDeadlineScheduler {
+
+    /** Délai avant la fin d'une session pour l'alerte "temps restant faible". */
+    public static final Duration WARNING_BEFORE_END = Duration.ofMinutes(2);
+
+    /** Écouteur des échéances de sessions. */
+    public interface Listener {
+        void onTwoMinutesLeft(GameSession session);
+
+        void onExpired(GameSession session);
+    }
+
+    private enum Kind { WARNING, EXPIRED }
+
+    /** Échéances programmées d'une session, pour une heure de fin donnée. */
+    private static final class Deadlines {
+        final GameSession session;
+        final Instant end;
+        boolean warningFired;
+        boolean expiredFired;
+
+        Deadlines(GameSession session, Instant end) {
+            this.session = session;
+            this.end = end;
+        }
+    }
+
+    /** Entrée de la file : périmée si les échéances de la session ont été remplacées ou annulées. */
+    private static final class Event implements Comparable<Event> {
+        final Instant at;
+        final Kind kind;
+        final Deadlines deadlines;
+
+        Event(Instant at, Kind kind, Deadlines deadlines) {
+            this.at = at;
+            this.kind = kind;
+            this.deadlines = deadlines;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            return at.compareTo(other.at);
+        }
+    }
+
+    private final Object lock = new Object();
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private final Map<Integer, Deadlines> bySession = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private Thread worker;
+
+    /**
+     * Programme les échéances d'une session Active (heure de fin = début + durée payée), ou les annule
+     * si la session n'est plus active. Une heure de fin inchangée ne redéclenche pas d'alerte.
+     */
+    public void schedule(GameSession session) {
+        Instant end = endOf(session);
+        if (end == null) {
+            cancel(session.getId());
+            return;
+        }
+        synchronized (lock) {
+            Deadlines current = bySession.get(session.getId());
+            if (current != null && current.end.equals(end)) {
+                // Même échéance (écriture sans effet sur le temps) : on garde les alertes déjà envoyées
+                Deadlines same = new Deadlines(session, end);
+                same.warningFired = current.warningFired;
+                same.expiredFired = current.expiredFired;
+                replace(session.getId(), same);
+            } else {
+                replace(session.getId(), new Deadlines(session, end));
+            }
+            ensureStarted();
+            lock.notifyAll();
+        }
+    }
+
+    /** Annule les échéances d'une session (pause, fin, suppression). */
+    public void cancel(int sessionId) {
+        synchronized (lock) {
+            if (bySession.remove(sessionId) != null) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /** Annule toutes les échéances (registre rechargé). */
+    public void clear() {
+        synchronized (lock) {
+            bySession.clear();
+            queue.clear();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Ajoute un écouteur. Les alertes déjà passées des sessions toujours actives lui sont rejouées
+     * (écouteur inscrit après l'échéance, par exemple à la connexion).
+     */
+    public void addListener(Listener listener) {
+        List<Deadlines> replay;
+        synchronized (lock) {
+            listeners.add(listener);
+            replay = new ArrayList<>(bySession.values());
+        }
+        for (Deadlines d : replay) {
+            if (d.expiredFired) {
+                dispatch(listener, Kind.EXPIRED, d.session);
+            } else if (d.warningFired) {
+                dispatch(listener, Kind.WARNING, d.session);
+            }
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Heure de fin d'une session Active, ou null si elle n'a pas d'échéance. */
+    private static Instant endOf(GameSession session) {
+        if (!LiveSessionRegistry.STATUS_ACTIVE.equalsIgnoreCase(session.getStatus())
+                || session.getStartTime() == null || session.getPaidDuration() == null) {
+            return null;
+        }
+        return session.getStartTime().plus(session.getPaidDuration()).atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private void replace(int sessionId, Deadlines deadlines) {
+        bySession.put(sessionId, deadlines);
+        if (!deadlines.warningFired) {
+            queue.add(new Event(deadlines.end.minus(WARNING_BEFORE_END), Kind.WARNING, deadlines));
+        }
+        if (!deadlines.expiredFired) {
+            queue.add(new Event(deadlines.end, Kind.EXPIRED, deadlines));
+        }
+    }
+
+    private void ensureStarted() {
+        if (worker != null) return;
+        worker = new Thread(this::loop, "GestionSalles-deadlines");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void loop() {
+        try {
+            while (true) {
+                Event due;
+                synchronized (lock) {
+                    due = nextDueEvent();
+                    if (due == null) continue;
+                    if (due.kind == Kind.WARNING) {
+                        // Alerte traitée après la fin de la session : seule l'expiration est annoncée
+                        if (due.deadlines.expiredFired || !Instant.now().isBefore(due.deadlines.end)) continue;
+                        due.deadlines.warningFired = true;
+                    } else {
+                        due.deadlines.expiredFired = true;
+                    }
+                }
+                for (Listener listener : listeners) {
+                    dispatch(listener, due.kind, due.deadlines.session);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Attend (verrou tenu) la prochaine échéance encore valide ; null si la file a changé entre-temps. */
+    private Event nextDueEvent() throws InterruptedException {
+        Event head = queue.peek();
+        if (head == null) {
+            lock.wait();
+            return null;
+        }
+        if (bySession.get(head.deadlines.session.getId()) != head.deadlines) {
+            queue.poll(); // échéance remplacée ou annulée
+            return null;
+        }
+        long waitMs = Duration.between(Instant.now(), head.at).toMillis();
+        if (waitMs > 0) {
+            lock.wait(waitMs);
+            return null;
+        }
+        return queue.poll();
+    }
+
+    private static void dispatch(Listener listener, Kind kind, GameSession session) {
+        try {
+            if (kind == Kind.WARNING) {
+                listener.onTwoMinutesLeft(session);
+            } else {
+                listener.onExpired(session);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erreur dans un écouteur d'échéance de session : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
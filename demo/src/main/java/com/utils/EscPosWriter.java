@@ -0,0 +1,145 @@
+package com.utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Construction d'un ticket en commandes ESC/POS brutes (imprimantes thermiques 80 mm) : texte envoyé
+ * tel quel à l'imprimante, qui utilise ses polices internes, et images en raster 1 bit (GS v 0).
+ * Aucun rendu Java2D de la page : seules les lignes variables sont encodées à chaque ticket.
+ */
+final class EscPosWriter {
+
+    /** Largeur imprimable d'un rouleau 80 mm à 203 dpi, en points machine. */
+    static final int PAPER_WIDTH_DOTS = 576;
+    /** Nombre de caractères par ligne en police A sur 80 mm. */
+    static final int LINE_CHARS = 48;
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    // Page de codes PC850 (ESC t 2) : accents français
+    private static final Charset CHARSET = Charset.forName("IBM850");
+    // Hauteur maximale d'une commande raster : les images plus hautes sont découpées en bandes
+    private static final int RASTER_BAND_ROWS = 256;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+
+    EscPosWriter() {
+        write(ESC, '@');        // initialisation
+        write(ESC, 't', 2);     // page de codes PC850
+    }
+
+    EscPosWriter center() {
+        write(ESC, 'a', 1);
+        return this;
+    }
+
+    EscPosWriter left() {
+        write(ESC, 'a', 0);
+        return this;
+    }
+
+    EscPosWriter bold(boolean on) {
+        write(ESC, 'E', on ? 1 : 0);
+        return this;
+    }
+
+    EscPosWriter line(String text) {
+        out.writeBytes(text.getBytes(CHARSET));
+        out.write('\n');
+        return this;
+    }
+
+    EscPosWriter separator() {
+        return line("-".repeat(LINE_CHARS));
+    }
+
+    /**
+     * Ligne en colonnes de largeurs fixes (en caractères) : colonnes alignées à gauche, la dernière à
+     * droite ; un texte trop long est tronqué.
+     */
+    EscPosWriter row(int[] widths, String... cells) {
+        StringBuilder sb = new StringBuilder(LINE_CHARS);
+        for (int i = 0; i < cells.length; i++) {
+            String cell = cells[i].length() > widths[i] ? cells[i].substring(0, widths[i]) : cells[i];
+            String padding = " ".repeat(widths[i] - cell.length());
+            sb.append(i == cells.length - 1 ? padding + cell : cell + padding);
+        }
+        return line(sb.toString());
+    }
+
+    /** Ajoute des commandes déjà encodées (image raster mise en cache, par exemple). */
+    EscPosWriter raw(byte[] commands) {
+        out.writeBytes(commands);
+        return this;
+    }
+
+    /** Avance le papier puis coupe (coupe partielle). */
+    EscPosWriter cut() {
+        write(GS, 'V', 66, 3);
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void write(int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+    }
+
+    /**
+     * Image en niveaux de gris encodée en commandes raster GS v 0, après tramage Floyd-Steinberg
+     * (logo photographique lisible en noir et blanc).
+     */
+    static byte[] raster(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int bytesPerRow = (width + 7) / 8;
+        Raster pixels = image.getRaster();
+
+        // Tramage : erreurs de quantification diffusées sur les pixels voisins
+        float[][] gray = new float[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                gray[y][x] = pixels.getSample(x, y, 0);
+            }
+        }
+        byte[] bits = new byte[bytesPerRow * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                float value = gray[y][x];
+                boolean black = value < 128;
+                float error = value - (black ? 0 : 255);
+                if (black) {
+                    bits[y * bytesPerRow + x / 8] |= (byte) (0x80 >> (x % 8));
+                }
+                if (x + 1 < width) gray[y][x + 1] += error * 7 / 16;
+                if (y + 1 < height) {
+                    if (x > 0) gray[y + 1][x - 1] += error * 3 / 16;
+                    gray[y + 1][x] += error * 5 / 16;
+                    if (x + 1 < width) gray[y + 1][x + 1] += error * 1 / 16;
+                }
+            }
+        }
+
+        ByteArrayOutputStream commands = new ByteArrayOutputStream(bits.length + 16);
+        for (int top = 0; top < height; top += RASTER_BAND_ROWS) {
+            int rows = Math.min(RASTER_BAND_ROWS, height - top);
+            commands.write(GS);
+            commands.write('v');
+            commands.write('0');
+            commands.write(0);
+            commands.write(bytesPerRow & 0xFF);
+            commands.write(bytesPerRow >> 8);
+            commands.write(rows & 0xFF);
+            commands.write(rows >> 8);
+            commands.write(bits, top * bytesPerRow, rows * bytesPerRow);
+        }
+        return commands.toByteArray();
+    }
+}
@@ -0,0 +1,205 @@
+package com.utils;
+
+import com.core.AppConfig;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.paint.Color;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache des vignettes d'images (produits) : une image n'est décodée qu'une fois par (chemin, date de
+ * modification, taille). Trois niveaux :
+ * - mémoire : LRU borné de références souples (libérables par le GC sous pression mémoire) ;
+ * - disque : vignettes PNG déjà réduites dans APPDATA/GestionSalles/thumbnails (redémarrages) ;
+ * - décodage de l'original en arrière-plan (backgroundLoading), la vignette est alors écrite sur disque.
+ *
+ * Les placeholders (produit sans image) sont dessinés une seule fois par initiale et par taille.
+ * À utiliser depuis le thread JavaFX.
+ */
+public final class ImageCache {
+
+    private static final int MAX_ENTRIES = 512;
+    // Durée pendant laquelle l'état d'un fichier (existence, date) est réutilisé sans accès disque
+    private static final long STAT_TTL_MS = 30_000;
+
+    private static final Map<String, SoftReference<Image>> THUMBNAILS = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Image>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private static final Map<String, Image> PLACEHOLDERS = new HashMap<>();
+    private static final Map<String, FileStamp> STATS = new HashMap<>();
+
+    // Écriture des vignettes sur disque, hors du thread JavaFX
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "GestionSalles-thumbnails");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static Path thumbnailDir;
+
+    private ImageCache() {}
+
+    /** Existence et date de modification d'un fichier, relevées à checkedAt. */
+    private static final class FileStamp {
+        final boolean exists;
+        final long lastModified;
+        final long checkedAt;
+
+        FileStamp(File file) {
+            this.exists = file.isFile();
+            this.lastModified = exists ? file.lastModified() : 0L;
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Vignette width x height d'un fichier image, ou null si le fichier n'existe pas. L'image retournée
+     * peut être encore en cours de chargement (ImageView l'affiche dès qu'elle est prête) ; surveiller
+     * isError()/errorProperty() pour basculer sur un placeholder.
+     */
+    public static Image getThumbnail(File file, int width, int height) {
+        if (file == null) return null;
+        FileStamp stamp = stat(file);
+        if (!stamp.exists) return null;
+
+        String key = file.getAbsolutePath() + '|' + stamp.lastModified + '|' + width + 'x' + height;
+        SoftReference<Image> ref = THUMBNAILS.get(key);
+        Image cached = ref != null ? ref.get() : null;
+        if (cached != null && !cached.isError()) {
+            return cached;
+        }
+
+        Image image;
+        File stored = storedThumbnail(key);
+        if (stored != null && stored.isFile()) {
+            // Vignette déjà réduite : décodage d'un petit PNG
+            image = new Image(stored.toURI().toString(), width, height, false, true, true);
+        } else {
+            image = new Image(file.toURI().toString(), width, height, false, true, true);
+            if (stored != null) {
+                persistWhenLoaded(image, stored);
+            }
+        }
+        THUMBNAILS.put(key, new SoftReference<>(image));
+        return image;
+    }
+
+    /** Placeholder coloré pour un produit sans image, partagé par tous les produits de même initiale. */
+    public static Image getPlaceholder(String productName, int width, int height) {
+        String initial = productName == null || productName.isBlank()
+            ? "?" : productName.trim().substring(0, 1).toUpperCase();
+        return PLACEHOLDERS.computeIfAbsent(initial + '|' + width + 'x' + height,
+            k -> paintPlaceholder(initial, width, height));
+    }
+
+    private static FileStamp stat(File file) {
+        String path = file.getAbsolutePath();
+        FileStamp stamp = STATS.get(path);
+        if (stamp == null || System.currentTimeMillis() - stamp.checkedAt > STAT_TTL_MS) {
+            stamp = new FileStamp(file);
+            STATS.put(path, stamp);
+        }
+        return stamp;
+    }
+
+    private static File storedThumbnail(String key) {
+        Path dir = thumbnailDir();
+        return dir == null ? null : dir.resolve(sha1(key) + ".png").toFile();
+    }
+
+    private static Path thumbnailDir() {
+        if (thumbnailDir == null) {
+            try {
+                Path dir = AppConfig.getExternalConfigPath().getParent().resolve("thumbnails");
+                Files.createDirectories(dir);
+                thumbnailDir = dir;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Répertoire des vignettes indisponible : " + e.getMessage());
+            }
+        }
+        return thumbnailDir;
+    }
+
+    /** Écrit la vignette sur disque une fois l'original décodé (pixels copiés sur le thread JavaFX). */
+    private static void persistWhenLoaded(Image image, File target) {
+        image.progressProperty().addListener((obs, oldValue, progress) -> {
+            if (progress.doubleValue() < 1.0 || image.isError() || image.getPixelReader() == null) return;
+            int w = (int) image.getWidth();
+            int h = (int) image.getHeight();
+            if (w <= 0 || h <= 0) return;
+            int[] argb = new int[w * h];
+            image.getPixelReader().getPixels(0, 0, w, h, WritablePixelFormat.getIntArgbInstance(), argb, 0, w);
+            WRITER.execute(() -> {
+                try {
+                    BufferedImage buffered = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+                    buffered.setRGB(0, 0, w, h, argb, 0, w);
+                    File tmp = new File(target.getPath() + ".tmp");
+                    ImageIO.write(buffered, "png", tmp);
+                    Files.move(tmp.toPath(), target.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    System.err.println("Écriture de la vignette impossible : " + e.getMessage());
+                }
+            });
+        });
+    }
+
+    private static Image paintPlaceholder(String initial, int width, int height) {
+        WritableImage placeholder = new WritableImage(width, height);
+        PixelWriter pixelWriter = placeholder.getPixelWriter();
+
+        // Couleur de fond basée sur l'initiale
+        int hash = Math.abs(initial.hashCode());
+        Color bgColor = Color.hsb(hash % 360, 0.2, 0.95);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixelWriter.setColor(x, y, bgColor);
+            }
+        }
+
+        // Cadre de 2 pixels
+        Color frameColor = Color.hsb((hash + 180) % 360, 0.5, 0.7);
+        for (int x = 0; x < width; x++) {
+            pixelWriter.setColor(x, 0, frameColor);
+            pixelWriter.setColor(x, 1, frameColor);
+            pixelWriter.setColor(x, height - 1, frameColor);
+            pixelWriter.setColor(x, height - 2, frameColor);
+        }
+        for (int y = 0; y < height; y++) {
+            pixelWriter.setColor(0, y, frameColor);
+            pixelWriter.setColor(1, y, frameColor);
+            pixelWriter.setColor(width - 1, y, frameColor);
+            pixelWriter.setColor(width - 2, y, frameColor);
+        }
+        return placeholder;
+    }
+
+    private static String sha1(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
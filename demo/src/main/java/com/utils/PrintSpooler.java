@@ -0,0 +1,414 @@
+package com.utils;
+
+import com.core.AppConfig;
+import com.core.JpaUtil;
+import com.core.TransactionRunner;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+
+import javax.print.DocFlavor;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.JobName;
+import javax.print.attribute.standard.PrinterIsAcceptingJobs;
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * File d'impression des tickets de caisse : un ticket est remis au spooler et imprimé par un thread
+ * dédié, sans bloquer la vente ni la transaction qui l'a produit.
+ *
+ * - file persistante (table print_jobs) : un ticket non imprimé (imprimante hors ligne, arrêt de
+ *   l'application) est repris au démarrage suivant ;
+ * - imprimante hors ligne ou introuvable : nouvelle tentative avec un délai croissant (5 s à 1 min),
+ *   abandon au bout de 12 heures (le ticket reste en base avec le statut 'failed') ;
+ * - le PrintService de l'imprimante (printer.name, XP-80C par défaut) est résolu une fois, puis à
+ *   nouveau seulement après un échec d'impression ;
+ * - impression graphique (Printable, rendu Java2D) ou, avec printer.escpos=true, envoi direct des
+ *   commandes ESC/POS du ticket à l'imprimante thermique, sans rendu de la page par le pilote ;
+ * - les écouteurs (alertes du caissier) sont informés des échecs et des impressions différées.
+ */
+public final class PrintSpooler {
+
+    /** Ticket imprimable, sérialisé dans la file avec toutes les données nécessaires à son rendu. */
+    public interface Ticket extends Printable, Serializable {
+        /** Hauteur du papier en points (largeur fixe : rouleau 80 mm). */
+        double getPaperHeight();
+
+        /** Libellé du ticket pour les journaux et les messages à l'utilisateur. */
+        String getDescription();
+
+        /** Ticket encodé en commandes ESC/POS, pour l'impression brute. */
+        byte[] toEscPos();
+    }
+
+    /** État d'un ticket notifié à l'écouteur. */
+    public enum Status { PRINTED, RETRYING, FAILED }
+
+    /** Suivi des tickets ; appelé sur le thread d'impression (passer par Platform.runLater pour l'interface). */
+    @FunctionalInterface
+    public interface Listener {
+        /** attempts : nombre d'échecs d'impression du ticket ; message : cause du dernier échec. */
+        void onStatus(String ticket, Status status, int attempts, String message);
+    }
+
+    private static final double PAPER_WIDTH_POINTS = 220;
+    private static final long MIN_RETRY_DELAY_MS = 5_000;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+    private static final long MAX_AGE_MS = 12 * 60 * 60 * 1000L;
+    // Tickets abandonnés conservés pour diagnostic
+    private static final long FAILED_RETENTION_MS = 30L * 24 * 60 * 60 * 1000L;
+
+    // Seules les classes des tickets et du JDK sont acceptées à la relecture de la file
+    private static final ObjectInputFilter PAYLOAD_FILTER =
+        ObjectInputFilter.Config.createFilter("com.utils.*;java.base/*;!*");
+
+    /** Ticket en file ; id = 0 tant qu'il n'est pas enregistré dans print_jobs, -1 si l'enregistrement a échoué. */
+    private static final class Job {
+        long id;
+        final long createdAt;
+        final String description;
+        final byte[] payload;
+        int attempts;
+        long nextAttemptAt;
+
+        Job(long id, long createdAt, String description, byte[] payload, int attempts) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.description = description;
+            this.payload = payload;
+            this.attempts = attempts;
+            this.nextAttemptAt = createdAt;
+        }
+    }
+
+    private static final Object lock = new Object();
+    private static final PriorityQueue<Job> pending = new PriorityQueue<>(
+        Comparator.<Job>comparingLong(j -> j.nextAttemptAt).thenComparingLong(j -> j.createdAt));
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static Thread worker;
+    private static boolean stopping;
+
+    private static volatile PrintService printService;
+
+    private PrintSpooler() {}
+
+    /** Démarre le thread d'impression, qui reprend d'abord les tickets restés en file (démarrage de l'application). */
+    public static void start() {
+        synchronized (lock) {
+            if (worker != null) return;
+            stopping = false;
+            worker = new Thread(PrintSpooler::runWorker, "GestionSalles-print");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Met le ticket en file d'impression et retourne immédiatement. */
+    public static void submit(Ticket ticket) {
+        Job job = new Job(0, System.currentTimeMillis(), ticket.getDescription(), serialize(ticket), 0);
+        start();
+        synchronized (lock) {
+            pending.add(job);
+            lock.notifyAll();
+        }
+    }
+
+    /** Arrête le thread d'impression ; les tickets non imprimés restent en base pour le prochain démarrage. */
+    public static void stop() {
+        Thread t;
+        synchronized (lock) {
+            t = worker;
+            if (t == null) return;
+            stopping = true;
+            lock.notifyAll();
+        }
+        try {
+            t.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Job> unsaved = new ArrayList<>();
+        synchronized (lock) {
+            worker = null;
+            for (Job job : pending) {
+                if (job.id == 0) unsaved.add(job);
+            }
+        }
+        for (Job job : unsaved) {
+            insert(job);
+        }
+    }
+
+    private static void runWorker() {
+        loadPending();
+        while (true) {
+            Job job;
+            synchronized (lock) {
+                try {
+                    while (true) {
+                        if (stopping) return;
+                        Job head = pending.peek();
+                        long now = System.currentTimeMillis();
+                        if (head == null) {
+                            lock.wait();
+                        } else if (head.nextAttemptAt > now) {
+                            lock.wait(head.nextAttemptAt - now);
+                        } else {
+                            job = pending.poll();
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            process(job);
+        }
+    }
+
+    private static void process(Job job) {
+        if (job.id == 0) {
+            insert(job);
+        }
+        try {
+            Ticket ticket = deserialize(job.payload);
+            print(ticket);
+            delete(job);
+            System.out.println("Ticket envoyé à l'imprimante : " + job.description);
+            notify(job, Status.PRINTED, null);
+        } catch (PrinterException e) {
+            // Imprimante hors ligne ou déconnectée : le PrintService sera résolu à nouveau
+            printService = null;
+            job.attempts++;
+            long now = System.currentTimeMillis();
+            if (now - job.createdAt >= MAX_AGE_MS) {
+                abandon(job, e.getMessage());
+                return;
+            }
+            long delay = Math.min(MAX_RETRY_DELAY_MS, MIN_RETRY_DELAY_MS << Math.min(job.attempts - 1, 10));
+            job.nextAttemptAt = now + delay;
+            updateAttempt(job, e.getMessage());
+            System.err.println("Impression de " + job.description + " impossible (tentative " + job.attempts
+                + ") : " + e.getMessage());
+            synchronized (lock) {
+                pending.add(job);
+            }
+            notify(job, Status.RETRYING, e.getMessage());
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // Ticket illisible (format d'une ancienne version) ou erreur de rendu : inutile de réessayer
+            e.printStackTrace();
+            abandon(job, e.getMessage());
+        }
+    }
+
+    private static void print(Ticket ticket) throws PrinterException {
+        PrintService service = resolvePrintService();
+        if (service.getAttribute(PrinterIsAcceptingJobs.class) == PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS) {
+            throw new PrinterException("Imprimante \"" + service.getName() + "\" hors ligne");
+        }
+        if (AppConfig.isPrinterEscPos()) {
+            printRaw(service, ticket);
+            return;
+        }
+        PrinterJob job = PrinterJob.getPrinterJob();
+        PageFormat pf = job.defaultPage();
+        Paper paper = new Paper();
+        paper.setSize(PAPER_WIDTH_POINTS, ticket.getPaperHeight());
+        paper.setImageableArea(0, 0, PAPER_WIDTH_POINTS, ticket.getPaperHeight());
+        pf.setPaper(paper);
+        job.setPrintable(ticket, pf);
+        job.setPrintService(service);
+        job.setJobName(ticket.getDescription());
+        job.print();
+    }
+
+    /** Envoie les commandes ESC/POS du ticket sans passer par le pilote graphique. */
+    private static void printRaw(PrintService service, Ticket ticket) throws PrinterException {
+        if (!service.isDocFlavorSupported(DocFlavor.BYTE_ARRAY.AUTOSENSE)) {
+            // Erreur de configuration : une nouvelle tentative ne changerait rien
+            throw new IllegalStateException("L'imprimante \"" + service.getName() + "\" n'accepte pas l'impression brute (ESC/POS)");
+        }
+        PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+        attributes.add(new JobName(ticket.getDescription(), null));
+        try {
+            service.createPrintJob().print(new SimpleDoc(ticket.toEscPos(), DocFlavor.BYTE_ARRAY.AUTOSENSE, null), attributes);
+        } catch (PrintException e) {
+            throw new PrinterException(e.getMessage());
+        }
+    }
+
+    private static PrintService resolvePrintService() throws PrinterException {
+        PrintService service = printService;
+        if (service != null) return service;
+        String printerName = AppConfig.getPrinterName();
+        for (PrintService candidate : PrinterJob.lookupPrintServices()) {
+            if (candidate.getName().equalsIgnoreCase(printerName)) {
+                printService = candidate;
+                return candidate;
+            }
+        }
+        throw new PrinterException("Imprimante \"" + printerName + "\" non trouvée");
+    }
+
+    private static void abandon(Job job, String error) {
+        System.err.println("Ticket abandonné : " + job.description + " (" + error + ")");
+        if (job.id > 0) {
+            execute("UPDATE print_jobs SET status = 'failed', attempts = ?, last_error = ? WHERE id = ?",
+                job.attempts, error, job.id);
+        }
+        notify(job, Status.FAILED, error);
+    }
+
+    private static void notify(Job job, Status status, String message) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onStatus(job.description, status, job.attempts, message);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // --- File persistante (table non mappée par Hibernate : SQL sur la connexion de la transaction) ---
+
+    /**
+     * Exécute les écritures sur print_jobs dans une transaction du thread d'écriture : elles ne
+     * concurrencent plus les ventes pour le verrou de la base (pas de SQLITE_BUSY).
+     */
+    private static <T> T write(ReturningWork<T> work) throws Exception {
+        return TransactionRunner.call(() -> JpaUtil.getEntityManager().unwrap(Session.class).doReturningWork(work));
+    }
+
+    private static void loadPending() {
+        long now = System.currentTimeMillis();
+        List<Job> loaded;
+        try {
+            loaded = write(c -> {
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM print_jobs WHERE status = 'failed' AND created_at < ?")) {
+                    ps.setLong(1, now - FAILED_RETENTION_MS);
+                    ps.executeUpdate();
+                }
+                List<Job> jobs = new ArrayList<>();
+                try (PreparedStatement ps = c.prepareStatement(
+                        "SELECT id, created_at, description, payload, attempts FROM print_jobs WHERE status = 'pending' ORDER BY id");
+                     ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Job job = new Job(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBytes(4), rs.getInt(5));
+                        job.nextAttemptAt = now;
+                        jobs.add(job);
+                    }
+                }
+                return jobs;
+            });
+        } catch (Exception e) {
+            System.err.println("Lecture de la file d'impression impossible : " + e.getMessage());
+            return;
+        }
+        if (!loaded.isEmpty()) {
+            System.out.println(loaded.size() + " ticket(s) en attente d'impression repris.");
+            synchronized (lock) {
+                pending.addAll(loaded);
+            }
+        }
+    }
+
+    private static void insert(Job job) {
+        try {
+            job.id = write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(
+                         "INSERT INTO print_jobs(created_at, description, payload, status, attempts) VALUES (?, ?, ?, 'pending', ?)",
+                         Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setLong(1, job.createdAt);
+                    ps.setString(2, job.description);
+                    ps.setBytes(3, job.payload);
+                    ps.setInt(4, job.attempts);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (!keys.next()) throw new SQLException("Identifiant du ticket non retourné");
+                        return keys.getLong(1);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // Le ticket reste imprimable, mais ne survivra pas à un redémarrage
+            job.id = -1;
+            System.err.println("Enregistrement du ticket dans la file d'impression impossible : " + e.getMessage());
+        }
+    }
+
+    private static void updateAttempt(Job job, String error) {
+        if (job.id > 0) {
+            execute("UPDATE print_jobs SET attempts = ?, last_error = ? WHERE id = ?", job.attempts, error, job.id);
+        }
+    }
+
+    private static void delete(Job job) {
+        if (job.id > 0) {
+            execute("DELETE FROM print_jobs WHERE id = ?", job.id);
+        }
+    }
+
+    private static void execute(String sql, Object... params) {
+        try {
+            write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    for (int i = 0; i < params.length; i++) {
+                        ps.setObject(i + 1, params[i]);
+                    }
+                    return ps.executeUpdate();
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("Mise à jour de la file d'impression impossible : " + e.getMessage());
+        }
+    }
+
+    private static byte[] serialize(Ticket ticket) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ticket);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ticket non sérialisable : " + ticket.getDescription(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Ticket deserialize(byte[] payload) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            in.setObjectInputFilter(PAYLOAD_FILTER);
+            return (Ticket) in.readObject();
+        }
+    }
+}
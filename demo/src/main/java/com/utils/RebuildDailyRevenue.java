@@ -0,0 +1,46 @@
+package com.utils;
+
+import com.core.DailyRevenueRollup;
+import com.core.JpaUtil;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Recalcule la table de cumul daily_revenue à partir des paiements et des réservations
+ * (base existante, ou cumul à réparer). Fermez l'application avant d'exécuter si la base est utilisée.
+ *
+ * Usage : args[0] = chemin DB (optionnel, par défaut la base de l'application)
+ * Ex. : mvn exec:java -Dexec.mainClass="com.utils.RebuildDailyRevenue"
+ */
+public class RebuildDailyRevenue {
+
+    public static void main(String[] args) {
+        String dbPath = args != null && args.length > 0 ? args[0].trim() : JpaUtil.getDbFilePath();
+
+        if (dbPath == null || dbPath.isEmpty() || !Files.exists(Paths.get(dbPath))) {
+            System.err.println("Base introuvable : " + dbPath);
+            System.err.println("Indiquez le chemin de la base en 1er argument.");
+            return;
+        }
+
+        String url = "jdbc:sqlite:" + dbPath;
+        try (Connection conn = DriverManager.getConnection(url)) {
+            long start = System.currentTimeMillis();
+            DailyRevenueRollup.rebuild(conn);
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*), coalesce(SUM(amount), 0) FROM daily_revenue")) {
+                rs.next();
+                System.out.printf("Cumul recalculé : %d ligne(s), %.2f F au total (%d ms)%n",
+                    rs.getInt(1), rs.getDouble(2), System.currentTimeMillis() - start);
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.utils;
+
+import javax.imageio.ImageIO;
+import java.awt.Image;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Images des tickets (logo, réseaux sociaux, QR code), décodées une seule fois pour toute l'application. */
+final class ReceiptImages {
+
+    static final String LOGO = "/com/img/ticket.jpg";
+    static final String SOCIAL_MEDIA = "/com/img/rs1.png";
+    static final String CANAL = "/com/img/rs.jpg";
+    static final String QR_CODE = "/com/img/QRCode.png";
+
+    // Optional vide : ressource absente ou illisible, inutile de la relire à chaque ticket
+    private static final Map<String, Optional<Image>> IMAGES = new ConcurrentHashMap<>();
+
+    private ReceiptImages() {}
+
+    /** Image décodée de la ressource, ou null si elle est absente ou illisible. */
+    static Image get(String resource) {
+        return IMAGES.computeIfAbsent(resource, ReceiptImages::load).orElse(null);
+    }
+
+    private static Optional<Image> load(String resource) {
+        try (InputStream in = ReceiptImages.class.getResourceAsStream(resource)) {
+            return in == null ? Optional.empty() : Optional.ofNullable(ImageIO.read(in));
+        } catch (IOException e) {
+            System.err.println("Error loading images for receipt: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -5,16 +5,37 @@ import java.awt.*;
 import java.awt.print.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import javax.imageio.ImageIO;
-import java.io.InputStream;
-import javax.print.PrintService;
+import java.io.Serializable;
 
-public class ReceiptPrinter implements Printable {
-    private Map<Produit, Integer> produitsDansLePanier;
-    private double montantTotal;
-    private String numeroTicket;
-    private String userName;
+/**
+ * Ticket de vente de produits. Les données du panier sont copiées à la construction : le ticket est
+ * imprimé plus tard par le PrintSpooler (et peut être repris après un redémarrage).
+ */
+public class ReceiptPrinter implements PrintSpooler.Ticket {
+    private static final long serialVersionUID = 1L;
+
+    /** Ligne du ticket : quantité, nom et total du produit au moment de la vente. */
+    private static final class Ligne implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int quantite;
+        final String nomProduit;
+        final double totalLigne;
+
+        Ligne(int quantite, String nomProduit, double totalLigne) {
+            this.quantite = quantite;
+            this.nomProduit = nomProduit;
+            this.totalLigne = totalLigne;
+        }
+    }
+
+    private final List<Ligne> lignes = new ArrayList<>();
+    private final double montantTotal;
+    private final String numeroTicket;
+    private final String userName;
+    private final LocalDateTime dateVente;
     private static final double RECEIPT_WIDTH_POINTS = 220;
     private static final double RECEIPT_HEIGHT_POINTS = 72 * 25;
     private static final int LINE_HEIGHT = 12;
@@ -22,40 +43,54 @@ public class ReceiptPrinter implements Printable {
     private static final double MARGIN_LEFT = 10; // Réduit pour plus d'espace
     private static final double MARGIN_RIGHT = 10; // Réduit pour plus d'espace
     private static final double CONTENT_WIDTH = RECEIPT_WIDTH_POINTS - MARGIN_LEFT - MARGIN_RIGHT;
-    private Image logoImage;
-    private Image socialMediaImage;
-    private Image qrCodeImage;
-    private String modePaiement;
+    private final String modePaiement;
 
     public ReceiptPrinter(Map<Produit, Integer> produitsDansLePanier, double montantTotal, String numeroTicket, String userName, String modePaiement) {
-        this.produitsDansLePanier = produitsDansLePanier;
+        for (Map.Entry<Produit, Integer> entry : produitsDansLePanier.entrySet()) {
+            Produit produit = entry.getKey();
+            int quantite = entry.getValue();
+            lignes.add(new Ligne(quantite, produit.getNom(), produit.getPrixEffectif().doubleValue() * quantite));
+        }
         this.montantTotal = montantTotal;
         this.numeroTicket = numeroTicket;
         this.userName = userName;
         this.modePaiement = modePaiement;
-        try {
-            loadImages();
-        } catch (Exception e) {
-            System.err.println("Error loading images for receipt: " + e.getMessage());
-            e.printStackTrace();
-        }
+        this.dateVente = LocalDateTime.now();
     }
 
-    private void loadImages() throws Exception {
-        InputStream logoStream = getClass().getResourceAsStream("/com/img/ticket.jpg");
-        if (logoStream != null) {
-            logoImage = ImageIO.read(logoStream);
-        }
-        InputStream rsStream = getClass().getResourceAsStream("/com/img/rs1.png");
-        if (rsStream != null) {
-            socialMediaImage = ImageIO.read(rsStream);
-        }
-        InputStream qrStream = getClass().getResourceAsStream("/com/img/QRCode.png");
-        if (qrStream != null) {
-            qrCodeImage = ImageIO.read(qrStream);
-        }
+    @Override
+    public double getPaperHeight() {
+        return RECEIPT_HEIGHT_POINTS;
+    }
+
+    @Override
+    public String getDescription() {
+        return "TICKET-" + numeroTicket;
     }
 
+    // Parties fixes du ticket, rendues une seule fois pour toutes les ventes
+    private static final ReceiptTemplate TEMPLATE =
+        new ReceiptTemplate(ReceiptPrinter::paintHeader, ReceiptPrinter::paintFooter);
+
+    // Définition des polices
+    private static final Font FONT_NORMAL = new Font("Calibri", Font.PLAIN, 8);
+    private static final Font FONT_BOLD = new Font("Calibri", Font.BOLD, 9);
+    private static final Font FONT_HEADER = new Font("Calibri", Font.BOLD, 10);
+    private static final Font FONT_ITALIC = new Font("Calibri", Font.ITALIC, 8);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("EEE dd/MM/yyyy HH:mm");
+
+    // --- 4. TABLEAU CENTRÉ ---
+    // Définir les largeurs de colonnes pour centrage parfait
+    private static final int COL_QTE_WIDTH = 25;      // Colonne Quantité
+    private static final int COL_ARTICLE_WIDTH = 110; // Colonne Articles
+    private static final int COL_PRIX_WIDTH = 40;     // Colonne Prix
+    // Position X de départ pour centrer le tableau
+    private static final int TABLE_START_X =
+        (int) (MARGIN_LEFT + (CONTENT_WIDTH - (COL_QTE_WIDTH + COL_ARTICLE_WIDTH + COL_PRIX_WIDTH)) / 2);
+    private static final String SEPARATOR = "------------------------------------------";
+    // Colonnes du mode ESC/POS, en caractères
+    private static final int[] ESC_POS_COLUMNS = {5, 33, 10};
+
     @Override
     public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
         if (pageIndex > 0) {
@@ -65,123 +100,126 @@ public class ReceiptPrinter implements Printable {
         g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-        // Définition des polices
-        Font fontNormal = new Font("Calibri", Font.PLAIN, 8);
-        Font fontBold = new Font("Calibri", Font.BOLD, 9);
-        Font fontHeader = new Font("Calibri", Font.BOLD, 10);
-        Font fontItalic = new Font("Calibri", Font.ITALIC, 8);
-
-        int y = 0;
-
-        // --- 1. LOGO ---
-        if (logoImage != null) {
-            int logoWidth = (int) (CONTENT_WIDTH * 0.6);
-            int logoHeight = (int) (logoImage.getHeight(null) * (double) logoWidth / logoImage.getWidth(null));
-            int xLogo = (int) (MARGIN_LEFT + (CONTENT_WIDTH - logoWidth) / 2);
-            g2d.drawImage(logoImage, xLogo, y, logoWidth, logoHeight, null);
-            y += logoHeight + SECTION_SPACING;
-        }
-
-        // --- 2. Informations de l'entreprise ---
-        g2d.setFont(fontNormal);
-        centerString(g2d, "Jaxaay, Parcelle Unité 24, BP 17000, KEUR MASSAR", y);
-        y += LINE_HEIGHT;
-        centerString(g2d, "Tel. +221 33 813 47 20 / 77 112 85 14", y);
-        y += LINE_HEIGHT;
-        centerString(g2d, "Kayplay.gamingroom@gmail.com", y);
-        y += SECTION_SPACING + 5;
+        // --- 1, 2. Logo et informations de l'entreprise (bitmap) ---
+        int y = TEMPLATE.drawHeader(g2d, 0);
 
         // --- 3. Numéro de ticket et date ---
-        g2d.setFont(fontBold);
+        g2d.setFont(FONT_BOLD);
         centerString(g2d, "TICKET-" + numeroTicket, y);
         y += LINE_HEIGHT;
-        centerString(g2d, LocalDateTime.now().format(DateTimeFormatter.ofPattern("EEE dd/MM/yyyy HH:mm")), y);
+        centerString(g2d, dateVente.format(DATE_FORMAT), y);
         y += LINE_HEIGHT;
         centerString(g2d, "Vendeur: " + userName, y);
         y += SECTION_SPACING;
 
-        // --- 4. TABLEAU CENTRÉ ---
-        // Définir les largeurs de colonnes pour centrage parfait
-        int colQteWidth = 25;    // Colonne Quantité
-        int colArticleWidth = 110; // Colonne Articles  
-        int colPrixWidth = 40;   // Colonne Prix
-        
-        // Largeur totale du tableau
-        int tableWidth = colQteWidth + colArticleWidth + colPrixWidth;
-        
-        // Position X de départ pour centrer le tableau
-        int tableStartX = (int) (MARGIN_LEFT + (CONTENT_WIDTH - tableWidth) / 2);
-
         // Ligne séparatrice du haut
-        String separator = "------------------------------------------";
-        centerString(g2d, separator, y);
+        centerString(g2d, SEPARATOR, y);
         y += LINE_HEIGHT;
         
         // En-têtes de colonnes CENTRÉES
-        g2d.setFont(fontBold);
-        g2d.drawString("Qté", tableStartX, y);
-        g2d.drawString("Articles", tableStartX + colQteWidth, y);
-        g2d.drawString("CFA", tableStartX + colQteWidth + colArticleWidth, y);
+        g2d.setFont(FONT_BOLD);
+        g2d.drawString("Qté", TABLE_START_X, y);
+        g2d.drawString("Articles", TABLE_START_X + COL_QTE_WIDTH, y);
+        g2d.drawString("CFA", TABLE_START_X + COL_QTE_WIDTH + COL_ARTICLE_WIDTH, y);
         y += LINE_HEIGHT;
         
         // Ligne séparatrice après en-têtes
-        centerString(g2d, separator, y);
+        centerString(g2d, SEPARATOR, y);
         y += LINE_HEIGHT;
 
         // --- 5. Liste des produits ---
-        g2d.setFont(fontNormal);
-        for (Map.Entry<Produit, Integer> entry : produitsDansLePanier.entrySet()) {
-            Produit produit = entry.getKey();
-            int quantite = entry.getValue();
-            double prixUnitaire = produit.getPrix().doubleValue();
-            double totalLigne = prixUnitaire * quantite;
-            String nomProduit = produit.getNom();
-            
-            // Tronquer le nom du produit si trop long
-            if (nomProduit.length() > 20) {
-                nomProduit = nomProduit.substring(0, 17) + "...";
-            }
-            
+        g2d.setFont(FONT_NORMAL);
+        for (Ligne ligne : lignes) {
             // Affichage des colonnes avec positions calculées
-            g2d.drawString(String.valueOf(quantite), tableStartX, y);
-            g2d.drawString(nomProduit, tableStartX + colQteWidth, y);
-            g2d.drawString(String.format("%.0f", totalLigne), tableStartX + colQteWidth + colArticleWidth, y);
+            g2d.drawString(String.valueOf(ligne.quantite), TABLE_START_X, y);
+            g2d.drawString(shortName(ligne.nomProduit), TABLE_START_X + COL_QTE_WIDTH, y);
+            g2d.drawString(String.format("%.0f", ligne.totalLigne), TABLE_START_X + COL_QTE_WIDTH + COL_ARTICLE_WIDTH, y);
             y += LINE_HEIGHT;
         }
 
         // --- 6. Total ---
-        centerString(g2d, separator, y);
+        centerString(g2d, SEPARATOR, y);
         y += LINE_HEIGHT;
-        g2d.setFont(fontBold);
-        
-        // Centrer la ligne du total
-        String totalText = "TOTAL (CFA) :";
-        String totalValue = String.format("%.0f", montantTotal);
-        
-        int totalTextX = tableStartX + colQteWidth;
-        int totalValueX = tableStartX + colQteWidth + colArticleWidth;
-        
-        g2d.drawString(totalText, totalTextX, y);
-        g2d.drawString(totalValue, totalValueX, y);
+        g2d.setFont(FONT_BOLD);
+        g2d.drawString("TOTAL (CFA) :", TABLE_START_X + COL_QTE_WIDTH, y);
+        g2d.drawString(String.format("%.0f", montantTotal), TABLE_START_X + COL_QTE_WIDTH + COL_ARTICLE_WIDTH, y);
         y += SECTION_SPACING + 5;
 
         // --- 7. Mode de paiement ---
-        g2d.setFont(fontNormal);
+        g2d.setFont(FONT_NORMAL);
         centerString(g2d, "Mode de paiement: " + modePaiement, y);
         y += SECTION_SPACING + 5;
 
+        // --- 8 à 11. Message, réseaux sociaux, QR code, mentions légales (bitmap) ---
+        TEMPLATE.drawFooter(g2d, y);
+
+        return PAGE_EXISTS;
+    }
+
+    @Override
+    public byte[] toEscPos() {
+        EscPosWriter out = new EscPosWriter();
+        out.center().raw(TEMPLATE.headerEscPos());
+        out.bold(true).line("TICKET-" + numeroTicket).bold(false);
+        out.line(dateVente.format(DATE_FORMAT));
+        out.line("Vendeur: " + userName);
+        out.left().separator();
+        out.bold(true).row(ESC_POS_COLUMNS, "Qté", "Articles", "CFA").bold(false);
+        out.separator();
+        for (Ligne ligne : lignes) {
+            out.row(ESC_POS_COLUMNS, String.valueOf(ligne.quantite), ligne.nomProduit,
+                String.format("%.0f", ligne.totalLigne));
+        }
+        out.separator();
+        out.bold(true).row(ESC_POS_COLUMNS, "", "TOTAL (CFA) :", String.format("%.0f", montantTotal)).bold(false);
+        out.center().line("Mode de paiement: " + modePaiement);
+        out.raw(TEMPLATE.footerEscPos());
+        return out.cut().toByteArray();
+    }
+
+    // Tronquer le nom du produit si trop long
+    private static String shortName(String nomProduit) {
+        return nomProduit.length() > 20 ? nomProduit.substring(0, 17) + "..." : nomProduit;
+    }
+
+    /** En-tête fixe : logo et informations de l'entreprise. */
+    private static int paintHeader(Graphics2D g2d, int y) {
+        // --- 1. LOGO ---
+        Image logoImage = ReceiptImages.get(ReceiptImages.LOGO);
+        if (logoImage != null) {
+            int logoWidth = (int) (CONTENT_WIDTH * 0.6);
+            int logoHeight = (int) (logoImage.getHeight(null) * (double) logoWidth / logoImage.getWidth(null));
+            int xLogo = (int) (MARGIN_LEFT + (CONTENT_WIDTH - logoWidth) / 2);
+            g2d.drawImage(logoImage, xLogo, y, logoWidth, logoHeight, null);
+            y += logoHeight + SECTION_SPACING;
+        }
+
+        // --- 2. Informations de l'entreprise ---
+        g2d.setFont(FONT_NORMAL);
+        centerString(g2d, "Jaxaay, Parcelle Unité 24, BP 17000, KEUR MASSAR", y);
+        y += LINE_HEIGHT;
+        centerString(g2d, "Tel. +221 33 813 47 20 / 77 112 85 14", y);
+        y += LINE_HEIGHT;
+        centerString(g2d, "Kayplay.gamingroom@gmail.com", y);
+        y += SECTION_SPACING + 5;
+        return y;
+    }
+
+    /** Pied fixe : message, réseaux sociaux, QR code et mentions légales. */
+    private static int paintFooter(Graphics2D g2d, int y) {
         // --- 8. Message personnalisé ---
-        g2d.setFont(fontHeader);
+        g2d.setFont(FONT_HEADER);
         centerString(g2d, "KAYPLAY GAMING ROOM", y);
         y += LINE_HEIGHT;
-        g2d.setFont(fontNormal);
+        g2d.setFont(FONT_NORMAL);
         centerString(g2d, "Votre passion pour les jeux prend vie !", y);
         y += SECTION_SPACING;
 
         // --- 9. Réseaux sociaux ---
-        g2d.setFont(fontBold);
+        g2d.setFont(FONT_BOLD);
         centerString(g2d, "Suivez-nous sur", y);
         y += LINE_HEIGHT;
+        Image socialMediaImage = ReceiptImages.get(ReceiptImages.SOCIAL_MEDIA);
         if (socialMediaImage != null) {
             int smWidth = (int) (CONTENT_WIDTH * 0.7);
             int smHeight = 25;
@@ -191,6 +229,7 @@ public class ReceiptPrinter implements Printable {
         }
 
         // --- 10. QR Code ---
+        Image qrCodeImage = ReceiptImages.get(ReceiptImages.QR_CODE);
         if (qrCodeImage != null) {
             int qrWidth = 60;
             int qrHeight = 60;
@@ -200,60 +239,22 @@ public class ReceiptPrinter implements Printable {
         }
 
         // --- 11. Mentions légales ---
-        g2d.setFont(fontItalic);
+        g2d.setFont(FONT_ITALIC);
         centerString(g2d, "Ticket non remboursable", y);
         y += LINE_HEIGHT;
         centerString(g2d, "À conserver pour toute réclamation", y);
-
-        return PAGE_EXISTS;
+        return y + LINE_HEIGHT;
     }
 
-    private void centerString(Graphics2D g2d, String text, int yPos) {
+    private static void centerString(Graphics2D g2d, String text, int yPos) {
         FontMetrics fm = g2d.getFontMetrics();
         int textWidth = fm.stringWidth(text);
         int x = (int) (MARGIN_LEFT + (CONTENT_WIDTH - textWidth) / 2);
         g2d.drawString(text, x, yPos);
     }
 
+    /** Met le ticket en file d'impression (PrintSpooler) ; retourne sans attendre l'imprimante. */
     public void printReceipt() {
-        PrinterJob job = PrinterJob.getPrinterJob();
-        job.setPrintable(this);
-        PageFormat pf = job.defaultPage();
-        Paper paper = new Paper();
-        paper.setSize(RECEIPT_WIDTH_POINTS, RECEIPT_HEIGHT_POINTS);
-        paper.setImageableArea(0, 0, RECEIPT_WIDTH_POINTS, RECEIPT_HEIGHT_POINTS);
-        pf.setPaper(paper);
-        job.setPrintable(this, pf);
-
-        // --- Impression directe ---
-        String printerName = "XP-80C";
-        PrintService selectedPrintService = null;
-        PrintService[] printServices = PrinterJob.lookupPrintServices();
-        for (PrintService service : printServices) {
-            if (service.getName().equalsIgnoreCase(printerName)) {
-                selectedPrintService = service;
-                break;
-            }
-        }
-        if (selectedPrintService != null) {
-            try {
-                job.setPrintService(selectedPrintService);
-                job.print();
-                System.out.println("Reçu envoyé à l'imprimante : " + printerName);
-            } catch (PrinterException e) {
-                System.err.println("Erreur d'impression du reçu sur " + printerName + " : " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            System.err.println("Imprimante \"" + printerName + "\" non trouvée. Affichage du dialogue d'impression.");
-            try {
-                if (job.printDialog()) {
-                    job.print();
-                }
-            } catch (PrinterException e) {
-                System.err.println("Erreur lors de l'affichage du dialogue ou de l'impression : " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
+        PrintSpooler.submit(this);
     }
 }
@@ -0,0 +1,118 @@
+package com.utils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Parties fixes d'un ticket (en-tête et pied : logo, coordonnées, réseaux sociaux, QR code) rendues une
+ * seule fois en bitmap à la largeur du papier, puis réutilisées par tous les tickets et par chaque appel
+ * de print() (le pipeline d'impression AWT appelle print() plusieurs fois par page). Seules les lignes
+ * variables du ticket sont dessinées à chaque fois.
+ *
+ * Deux rendus par partie, calculés à la première utilisation :
+ * - niveaux de gris à 3 fois la résolution du papier (216 dpi), pour l'impression graphique ;
+ * - raster ESC/POS 1 bit de 576 points de large (80 mm à 203 dpi), pour l'impression brute.
+ */
+final class ReceiptTemplate {
+
+    /**
+     * Dessine une partie du ticket en points, à partir de la ligne de base y (comme à la suite du ticket),
+     * et retourne le y atteint.
+     */
+    @FunctionalInterface
+    interface Section {
+        int paint(Graphics2D g2d, int y);
+    }
+
+    static final double PAPER_WIDTH_POINTS = 220;
+    // Marge au-dessus de la première ligne de base : hampes du texte en tête de partie
+    private static final int LEAD = 11;
+    private static final int MAX_SECTION_HEIGHT = 1200;
+    private static final double GRAPHICS_SCALE = 3;
+    private static final double ESC_POS_SCALE = EscPosWriter.PAPER_WIDTH_DOTS / PAPER_WIDTH_POINTS;
+
+    /** Partie rendue : bitmap et hauteur en points. */
+    private static final class Bitmap {
+        final BufferedImage image;
+        final int height;
+
+        Bitmap(BufferedImage image, int height) {
+            this.image = image;
+            this.height = height;
+        }
+    }
+
+    private final Section header;
+    private final Section footer;
+    private Bitmap headerBitmap;
+    private Bitmap footerBitmap;
+    private byte[] headerEscPos;
+    private byte[] footerEscPos;
+
+    ReceiptTemplate(Section header, Section footer) {
+        this.header = header;
+        this.footer = footer;
+    }
+
+    /** Dessine l'en-tête à partir de la ligne de base y et retourne le y atteint. */
+    int drawHeader(Graphics2D g2d, int y) {
+        return draw(g2d, headerBitmap(), y);
+    }
+
+    /** Dessine le pied à partir de la ligne de base y et retourne le y atteint. */
+    int drawFooter(Graphics2D g2d, int y) {
+        return draw(g2d, footerBitmap(), y);
+    }
+
+    synchronized byte[] headerEscPos() {
+        if (headerEscPos == null) headerEscPos = EscPosWriter.raster(render(header, ESC_POS_SCALE, false).image);
+        return headerEscPos;
+    }
+
+    synchronized byte[] footerEscPos() {
+        if (footerEscPos == null) footerEscPos = EscPosWriter.raster(render(footer, ESC_POS_SCALE, false).image);
+        return footerEscPos;
+    }
+
+    private synchronized Bitmap headerBitmap() {
+        if (headerBitmap == null) headerBitmap = render(header, GRAPHICS_SCALE, true);
+        return headerBitmap;
+    }
+
+    private synchronized Bitmap footerBitmap() {
+        if (footerBitmap == null) footerBitmap = render(footer, GRAPHICS_SCALE, true);
+        return footerBitmap;
+    }
+
+    private static int draw(Graphics2D g2d, Bitmap bitmap, int y) {
+        g2d.drawImage(bitmap.image, 0, y - LEAD, (int) PAPER_WIDTH_POINTS, bitmap.height, null);
+        return y - LEAD + bitmap.height;
+    }
+
+    private static Bitmap render(Section section, double scale, boolean antialiasing) {
+        int width = (int) Math.round(PAPER_WIDTH_POINTS * scale);
+        BufferedImage scratch = new BufferedImage(width, (int) Math.ceil(MAX_SECTION_HEIGHT * scale), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g2d = scratch.createGraphics();
+        try {
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, scratch.getWidth(), scratch.getHeight());
+            g2d.setColor(Color.BLACK);
+            // Pas de lissage pour le raster 1 bit : texte net après seuillage
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialiasing
+                ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.scale(scale, scale);
+            int height = Math.min(MAX_SECTION_HEIGHT, section.paint(g2d, LEAD));
+            int rows = Math.max(1, (int) Math.ceil(height * scale));
+            // Copie à la hauteur utile : le bitmap de travail n'est pas conservé
+            BufferedImage image = new BufferedImage(width, rows, BufferedImage.TYPE_BYTE_GRAY);
+            image.setData(scratch.getRaster().createChild(0, 0, width, rows, 0, 0, null));
+            return new Bitmap(image, height);
+        } finally {
+            g2d.dispose();
+        }
+    }
+}
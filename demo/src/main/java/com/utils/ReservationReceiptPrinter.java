@@ -1,47 +1,45 @@
 package com.utils;
 
 import com.entities.Reservation;
-import com.entities.Client;
-import com.entities.Poste;
 import com.entities.Game;
 import java.awt.print.PageFormat;
-import java.awt.print.Paper;
-import java.awt.print.Printable;
 import java.awt.print.PrinterException;
-import java.awt.print.PrinterJob;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Font;
 import java.awt.Image;
 import java.awt.FontMetrics;
 import java.awt.RenderingHints;
-import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
-import java.time.format.TextStyle;
 import java.util.Locale;
 import java.util.List;
 import java.util.ArrayList;
-import javax.imageio.ImageIO;
-import javax.print.PrintService;
-import javax.print.PrintServiceLookup;
-
-public class ReservationReceiptPrinter implements Printable {
-    private Reservation reservation;
-    private String userName;
-    private boolean isExtension;
-    private int additionalMinutes;
-    private double originalAmount;
+
+/**
+ * Ticket de réservation (ou de prolongation). Les données de la réservation, du client, du poste et
+ * de ses jeux sont copiées à la construction : le ticket est imprimé plus tard par le PrintSpooler.
+ */
+public class ReservationReceiptPrinter implements PrintSpooler.Ticket {
+    private static final long serialVersionUID = 1L;
+
+    private final String numeroTicket;
+    private final LocalDateTime reservationDate;
+    private final String clientName;
+    private final String poste;
+    private final Duration duration;
+    private final double totalPrice;
+    private final List<String> gameNames = new ArrayList<>();
+    private final String userName;
+    private final boolean isExtension;
+    private final int additionalMinutes;
+    private final double originalAmount;
     private static final double RECEIPT_WIDTH_POINTS = 220;
     private static final double RECEIPT_HEIGHT_POINTS = 72 * 30; // Augmenté pour plus de contenu
     private static final int LINE_HEIGHT = 10;
     private static final int SECTION_SPACING = 10; // Augmenté pour plus d'espacement
-    private Image logoImage;
-    private Image socialMediaImage;
-    private Image canalImage;
-    private Image qrCodeImage;
-    private String modePaiement;
+    private final String modePaiement;
 
     public ReservationReceiptPrinter(Reservation reservation, String userName, String modePaiement) {
         this(reservation, userName, false, 0, 0, modePaiement);
@@ -49,39 +47,51 @@ public class ReservationReceiptPrinter implements Printable {
 
     public ReservationReceiptPrinter(Reservation reservation, String userName, boolean isExtension,
                                     int additionalMinutes, double originalAmount, String modePaiement) {
-        this.reservation = reservation;
+        this.numeroTicket = reservation.getNumeroTicket();
+        this.reservationDate = reservation.getReservationDate();
+        this.clientName = (reservation.getClient() != null) ? reservation.getClient().getName() : "Non spécifié";
+        this.poste = (reservation.getPoste() != null) ? String.valueOf(reservation.getPoste().getId()) : "N/A";
+        this.duration = reservation.getDuration();
+        this.totalPrice = reservation.getTotalPrice();
+        List<Game> gamesOnPoste = (reservation.getPoste() != null) ?
+            reservation.getPoste().getGames() : new ArrayList<>();
+        for (Game game : gamesOnPoste) {
+            if (game != null && game.getName() != null) {
+                gameNames.add(game.getName());
+            }
+        }
         this.userName = userName;
         this.isExtension = isExtension;
         this.additionalMinutes = additionalMinutes;
         this.originalAmount = originalAmount;
         this.modePaiement = modePaiement;
-        try {
-            loadImages();
-        } catch (Exception e) {
-            System.err.println("Error loading images for receipt: " + e.getMessage());
-            e.printStackTrace();
-        }
     }
 
-    private void loadImages() throws Exception {
-        InputStream logoStream = getClass().getResourceAsStream("/com/img/ticket.jpg");
-        if (logoStream != null) {
-            logoImage = ImageIO.read(logoStream);
-        }
-        InputStream rsStream = getClass().getResourceAsStream("/com/img/rs1.png");
-        if (rsStream != null) {
-            socialMediaImage = ImageIO.read(rsStream);
-        }
-        InputStream rsStream1 = getClass().getResourceAsStream("/com/img/rs.jpg");
-        if (rsStream1 != null) {
-            canalImage = ImageIO.read(rsStream1);
-        }
-        InputStream qrStream = getClass().getResourceAsStream("/com/img/QRCode.png");
-        if (qrStream != null) {
-            qrCodeImage = ImageIO.read(qrStream);
-        }
+    @Override
+    public double getPaperHeight() {
+        return RECEIPT_HEIGHT_POINTS;
+    }
+
+    @Override
+    public String getDescription() {
+        return (isExtension ? "PROLONGATION TICKETS-" : "TICKETS-") + numeroTicket;
     }
 
+    // Parties fixes du ticket, rendues une seule fois pour toutes les réservations
+    private static final ReceiptTemplate TEMPLATE =
+        new ReceiptTemplate(ReservationReceiptPrinter::paintHeader, ReservationReceiptPrinter::paintFooter);
+
+    // Définition des polices
+    private static final Font FONT_NORMAL = new Font("Calibri", Font.PLAIN, 8);
+    private static final Font FONT_BOLD = new Font("Calibri", Font.BOLD, 9);
+    private static final Font FONT_HEADER = new Font("Calibri", Font.BOLD, 10);
+    private static final Font FONT_ITALIC = new Font("Calibri", Font.ITALIC, 8);
+    private static final Font FONT_EXTENSION = new Font("Calibri", Font.BOLD, 10);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("EEE dd/MM/yyyy HH:mm", Locale.FRENCH);
+    private static final String SEPARATOR = "---------------------------------";
+    // Colonnes du mode ESC/POS, en caractères
+    private static final int[] ESC_POS_COLUMNS = {12, 24, 12};
+
     @Override
     public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
         if (pageIndex > 0) {
@@ -91,40 +101,17 @@ public class ReservationReceiptPrinter implements Printable {
         g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-        // Définition des polices
-        Font fontNormal = new Font("Calibri", Font.PLAIN, 8);
-        Font fontBold = new Font("Calibri", Font.BOLD, 9);
-        Font fontHeader = new Font("Calibri", Font.BOLD, 10);
-        Font fontItalic = new Font("Calibri", Font.ITALIC, 8);
-        Font fontExtension = new Font("Calibri", Font.BOLD, 10);
-        int y = 0;
-
-        // --- 1. LOGO ---
-        if (logoImage != null) {
-            int logoWidth = 100;
-            int logoHeight = (int) (logoImage.getHeight(null) * (double) logoWidth / logoImage.getWidth(null));
-            int xLogo = (int) ((RECEIPT_WIDTH_POINTS - logoWidth) / 2);
-            g2d.drawImage(logoImage, xLogo, y, logoWidth, logoHeight, null);
-            y += logoHeight + SECTION_SPACING;
-        }
-
-        // --- 2. Informations de l'entreprise ---
-        g2d.setFont(fontNormal);
-        centerString(g2d, "Jaxaay, Parcelle Unité 24, BP 17000, KEUR MASSAR", (int) RECEIPT_WIDTH_POINTS, y);
-        y += LINE_HEIGHT;
-        centerString(g2d, "Tel. +221338220000", (int) RECEIPT_WIDTH_POINTS, y);
-        y += LINE_HEIGHT;
-        centerString(g2d, "Kayplay.gamingroom@gmail.com", (int) RECEIPT_WIDTH_POINTS, y);
-        y += SECTION_SPACING + 5; // Espacement supplémentaire après l'email
+        // --- 1, 2. Logo et informations de l'entreprise (bitmap) ---
+        int y = TEMPLATE.drawHeader(g2d, 0);
 
         // --- 3. Numéro de ticket et date ---
-        g2d.setFont(fontBold);
-        centerString(g2d, "TICKETS-" + reservation.getNumeroTicket(), (int) RECEIPT_WIDTH_POINTS, y);
+        g2d.setFont(FONT_BOLD);
+        centerString(g2d, "TICKETS-" + numeroTicket, (int) RECEIPT_WIDTH_POINTS, y);
         y += LINE_HEIGHT;
 
         // Indication de prolongation
         if (isExtension) {
-            g2d.setFont(fontExtension);
+            g2d.setFont(FONT_EXTENSION);
             g2d.setColor(java.awt.Color.RED);
             centerString(g2d, "*** PROLONGATION DE SESSION ***", (int) RECEIPT_WIDTH_POINTS, y);
             g2d.setColor(java.awt.Color.BLACK);
@@ -132,90 +119,147 @@ public class ReservationReceiptPrinter implements Printable {
         }
 
         // Date de réservation
-        String reservationDate = reservation.getReservationDate().format(
-            DateTimeFormatter.ofPattern("EEE dd/MM/yyyy HH:mm", Locale.FRENCH));
-        centerString(g2d, reservationDate, (int) RECEIPT_WIDTH_POINTS, y);
+        centerString(g2d, reservationDate.format(DATE_FORMAT), (int) RECEIPT_WIDTH_POINTS, y);
         y += SECTION_SPACING + 5; // Espacement supplémentaire après la date
 
         // --- 4. Informations client ---
-        g2d.setFont(fontBold);
-        String clientName = (reservation.getClient() != null) ? reservation.getClient().getName() : "Non spécifié";
+        g2d.setFont(FONT_BOLD);
         centerString(g2d, "CLIENT : " + clientName, (int) RECEIPT_WIDTH_POINTS, y);
         y += SECTION_SPACING + 5; // Espacement supplémentaire après le client
 
         // --- 5. En-tête des colonnes ---
-        g2d.setFont(fontBold);
+        g2d.setFont(FONT_BOLD);
         g2d.drawString("N° Poste", 0, y);
         g2d.drawString("Durée", 80, y);
         g2d.drawString("Total CFA", 160, y);
         y += LINE_HEIGHT;
-        centerString(g2d, "---------------------------------", (int) RECEIPT_WIDTH_POINTS, y);
+        centerString(g2d, SEPARATOR, (int) RECEIPT_WIDTH_POINTS, y);
         y += LINE_HEIGHT;
 
         // --- 6. Détails de la réservation ---
-        g2d.setFont(fontNormal);
-        String poste = (reservation.getPoste() != null) ? String.valueOf(reservation.getPoste().getId()) : "N/A";
-        String duree;
-        if (isExtension) {
-            duree = String.format("%dh%02dmin (+%dmin)",
-                reservation.getDuration().toHours(),
-                reservation.getDuration().toMinutesPart(),
-                additionalMinutes);
-        } else {
-            duree = String.format("%dh%02dmin",
-                reservation.getDuration().toHours(),
-                reservation.getDuration().toMinutesPart());
-        }
-        String total = String.format("%.0f", reservation.getTotalPrice());
+        g2d.setFont(FONT_NORMAL);
         g2d.drawString(poste, 0, y);
-        g2d.drawString(duree, 80, y);
-        g2d.drawString(total, 160, y);
+        g2d.drawString(formatDuree(), 80, y);
+        g2d.drawString(String.format("%.0f", totalPrice), 160, y);
         y += LINE_HEIGHT;
 
         // Détails de prix pour prolongation
         if (isExtension) {
-            g2d.setFont(fontItalic);
-            String priceDetail = String.format("(dont %.0f CFA pour %d minutes supplémentaires)",
-                                            reservation.getTotalPrice() - originalAmount,
-                                            additionalMinutes);
-            centerString(g2d, priceDetail, (int) RECEIPT_WIDTH_POINTS, y);
+            g2d.setFont(FONT_ITALIC);
+            centerString(g2d, formatPriceDetail(), (int) RECEIPT_WIDTH_POINTS, y);
             y += LINE_HEIGHT;
         }
 
         // Ligne séparatrice finale
-        centerString(g2d, "---------------------------------", (int) RECEIPT_WIDTH_POINTS, y);
+        centerString(g2d, SEPARATOR, (int) RECEIPT_WIDTH_POINTS, y);
         y += SECTION_SPACING;
 
         // --- 7. Mode de paiement ---
-        g2d.setFont(fontNormal);
+        g2d.setFont(FONT_NORMAL);
         centerString(g2d, "Mode paiement: " + modePaiement, (int) RECEIPT_WIDTH_POINTS, y);
         y += SECTION_SPACING + 5; // Espacement supplémentaire après le mode de paiement
 
         // --- 8. Liste des jeux ---
-        g2d.setFont(fontBold);
+        g2d.setFont(FONT_BOLD);
         centerString(g2d, "VOUS POUVEZ JOUER À TOUS CES JEUX", (int) RECEIPT_WIDTH_POINTS, y);
         y += LINE_HEIGHT;
         centerString(g2d, "PENDANT LA DURÉE DE VOTRE SESSION !", (int) RECEIPT_WIDTH_POINTS, y);
         y += SECTION_SPACING;
 
-        g2d.setFont(fontNormal);
-        List<Game> gamesOnPoste = (reservation.getPoste() != null) ?
-            reservation.getPoste().getGames() : new ArrayList<>();
-        if (gamesOnPoste.isEmpty()) {
+        g2d.setFont(FONT_NORMAL);
+        if (gameNames.isEmpty()) {
             centerString(g2d, "Aucun jeu disponible", (int) RECEIPT_WIDTH_POINTS, y);
             y += LINE_HEIGHT;
         } else {
-            for (Game game : gamesOnPoste) {
-                if (game != null && game.getName() != null) {
-                    centerString(g2d, "- " + game.getName(), (int) RECEIPT_WIDTH_POINTS, y);
-                    y += LINE_HEIGHT;
-                }
+            for (String gameName : gameNames) {
+                centerString(g2d, "- " + gameName, (int) RECEIPT_WIDTH_POINTS, y);
+                y += LINE_HEIGHT;
             }
         }
         y += SECTION_SPACING;
 
+        // --- 9 à 14. Abonnements, réseaux sociaux, QR code, mentions légales (bitmap) ---
+        TEMPLATE.drawFooter(g2d, y);
+
+        return PAGE_EXISTS;
+    }
+
+    @Override
+    public byte[] toEscPos() {
+        EscPosWriter out = new EscPosWriter();
+        out.center().raw(TEMPLATE.headerEscPos());
+        out.bold(true).line("TICKETS-" + numeroTicket);
+        if (isExtension) {
+            out.line("*** PROLONGATION DE SESSION ***");
+        }
+        out.bold(false).line(reservationDate.format(DATE_FORMAT));
+        out.bold(true).line("CLIENT : " + clientName);
+        out.left().row(ESC_POS_COLUMNS, "N° Poste", "Durée", "Total CFA").bold(false);
+        out.separator();
+        out.row(ESC_POS_COLUMNS, poste, formatDuree(), String.format("%.0f", totalPrice));
+        if (isExtension) {
+            out.center().line(formatPriceDetail()).left();
+        }
+        out.separator();
+        out.center().line("Mode paiement: " + modePaiement);
+        out.bold(true).line("VOUS POUVEZ JOUER À TOUS CES JEUX");
+        out.line("PENDANT LA DURÉE DE VOTRE SESSION !").bold(false);
+        if (gameNames.isEmpty()) {
+            out.line("Aucun jeu disponible");
+        } else {
+            for (String gameName : gameNames) {
+                out.line("- " + gameName);
+            }
+        }
+        out.raw(TEMPLATE.footerEscPos());
+        return out.cut().toByteArray();
+    }
+
+    private String formatDuree() {
+        if (isExtension) {
+            return String.format("%dh%02dmin (+%dmin)",
+                duration.toHours(),
+                duration.toMinutesPart(),
+                additionalMinutes);
+        }
+        return String.format("%dh%02dmin",
+            duration.toHours(),
+            duration.toMinutesPart());
+    }
+
+    private String formatPriceDetail() {
+        return String.format("(dont %.0f CFA pour %d minutes supplémentaires)",
+                             totalPrice - originalAmount,
+                             additionalMinutes);
+    }
+
+    /** En-tête fixe : logo et informations de l'entreprise. */
+    private static int paintHeader(Graphics2D g2d, int y) {
+        // --- 1. LOGO ---
+        Image logoImage = ReceiptImages.get(ReceiptImages.LOGO);
+        if (logoImage != null) {
+            int logoWidth = 100;
+            int logoHeight = (int) (logoImage.getHeight(null) * (double) logoWidth / logoImage.getWidth(null));
+            int xLogo = (int) ((RECEIPT_WIDTH_POINTS - logoWidth) / 2);
+            g2d.drawImage(logoImage, xLogo, y, logoWidth, logoHeight, null);
+            y += logoHeight + SECTION_SPACING;
+        }
+
+        // --- 2. Informations de l'entreprise ---
+        g2d.setFont(FONT_NORMAL);
+        centerString(g2d, "Jaxaay, Parcelle Unité 24, BP 17000, KEUR MASSAR", (int) RECEIPT_WIDTH_POINTS, y);
+        y += LINE_HEIGHT;
+        centerString(g2d, "Tel. +221338220000", (int) RECEIPT_WIDTH_POINTS, y);
+        y += LINE_HEIGHT;
+        centerString(g2d, "Kayplay.gamingroom@gmail.com", (int) RECEIPT_WIDTH_POINTS, y);
+        y += SECTION_SPACING + 5; // Espacement supplémentaire après l'email
+        return y;
+    }
+
+    /** Pied fixe : abonnements, réseaux sociaux, QR code et mentions légales. */
+    private static int paintFooter(Graphics2D g2d, int y) {
         // --- 9. Services supplémentaires ---
-        g2d.setFont(fontBold);
+        g2d.setFont(FONT_BOLD);
         centerString(g2d, "PROFITEZ DE NOS ABONNEMENTS", (int) RECEIPT_WIDTH_POINTS, y);
         y += LINE_HEIGHT;
         centerString(g2d, "YOUTUBE - NETFLIX - MYCANAL - WIFI", (int) RECEIPT_WIDTH_POINTS, y);
@@ -224,6 +268,7 @@ public class ReservationReceiptPrinter implements Printable {
         y += SECTION_SPACING;
 
         // --- 10. Image Canal ---
+        Image canalImage = ReceiptImages.get(ReceiptImages.CANAL);
         if (canalImage != null) {
             int imgWidth = 100;
             int imgHeight = (int) (canalImage.getHeight(null) * (double) imgWidth / canalImage.getWidth(null));
@@ -233,16 +278,17 @@ public class ReservationReceiptPrinter implements Printable {
         }
 
         // --- 11. Footer avec QR Code ---
-        g2d.setFont(fontHeader);
+        g2d.setFont(FONT_HEADER);
         centerString(g2d, "KAYPLAY GAMING ROOM", (int) RECEIPT_WIDTH_POINTS, y);
         y += LINE_HEIGHT;
-        g2d.setFont(fontNormal);
+        g2d.setFont(FONT_NORMAL);
         centerString(g2d, "Votre passion pour les jeux vidéo prend vie !", (int) RECEIPT_WIDTH_POINTS, y);
         y += SECTION_SPACING;
 
         // --- 12. Réseaux sociaux ---
         centerString(g2d, "Suivez-nous sur", (int) RECEIPT_WIDTH_POINTS, y);
         y += LINE_HEIGHT;
+        Image socialMediaImage = ReceiptImages.get(ReceiptImages.SOCIAL_MEDIA);
         if (socialMediaImage != null) {
             int smWidth = 100;
             int smHeight = (int) (socialMediaImage.getHeight(null) * (double) smWidth / socialMediaImage.getWidth(null));
@@ -252,6 +298,7 @@ public class ReservationReceiptPrinter implements Printable {
         }
 
         // --- 13. QR Code ---
+        Image qrCodeImage = ReceiptImages.get(ReceiptImages.QR_CODE);
         if (qrCodeImage != null) {
             int qrWidth = 70;
             int qrHeight = (int) (qrCodeImage.getHeight(null) * (double) qrWidth / qrCodeImage.getWidth(null));
@@ -261,57 +308,22 @@ public class ReservationReceiptPrinter implements Printable {
         }
 
         // --- 14. Mentions légales ---
-        g2d.setFont(fontItalic);
+        g2d.setFont(FONT_ITALIC);
         centerString(g2d, "Ticket non remboursable", (int) RECEIPT_WIDTH_POINTS, y);
         y += LINE_HEIGHT;
         centerString(g2d, "À conserver pour toute réclamation", (int) RECEIPT_WIDTH_POINTS, y);
-
-        return PAGE_EXISTS;
+        return y + LINE_HEIGHT;
     }
 
-    private void centerString(Graphics2D g2d, String text, int pageWidth, int yPos) {
+    private static void centerString(Graphics2D g2d, String text, int pageWidth, int yPos) {
         FontMetrics fm = g2d.getFontMetrics();
         int textWidth = fm.stringWidth(text);
         int x = (pageWidth - textWidth) / 2;
         g2d.drawString(text, x, yPos);
     }
 
+    /** Met le ticket en file d'impression (PrintSpooler) ; retourne sans attendre l'imprimante. */
     public void printReceipt() {
-        PrinterJob job = PrinterJob.getPrinterJob();
-        job.setPrintable(this);
-        PageFormat pf = job.defaultPage();
-        Paper paper = new Paper();
-        paper.setSize(RECEIPT_WIDTH_POINTS, RECEIPT_HEIGHT_POINTS);
-        paper.setImageableArea(0, 0, RECEIPT_WIDTH_POINTS, RECEIPT_HEIGHT_POINTS);
-        pf.setPaper(paper);
-        job.setPrintable(this, pf);
-
-        String printerName = "XP-80C";
-        PrintService selectedPrintService = null;
-        PrintService[] printServices = PrinterJob.lookupPrintServices();
-        for (PrintService service : printServices) {
-            if (service.getName().equalsIgnoreCase(printerName)) {
-                selectedPrintService = service;
-                break;
-            }
-        }
-        if (selectedPrintService != null) {
-            try {
-                job.setPrintService(selectedPrintService);
-                job.print();
-            } catch (PrinterException e) {
-                System.err.println("Erreur d'impression: " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            try {
-                if (job.printDialog()) {
-                    job.print();
-                }
-            } catch (PrinterException e) {
-                System.err.println("Erreur lors de l'impression: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
+        PrintSpooler.submit(this);
     }
 }
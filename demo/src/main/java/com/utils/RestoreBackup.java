@@ -0,0 +1,72 @@
+package com.utils;
+
+import com.core.BackupService;
+import com.core.BackupStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Liste, vérifie ou restaure les sauvegardes du stockage (répertoire backup.dir de la configuration).
+ * La restauration écrit un nouveau fichier : pour remettre une sauvegarde en service, fermez
+ * l'application puis remplacez gestionsalles.sqlite par ce fichier.
+ *
+ * Usage :
+ *   (sans argument)            liste des sauvegardes
+ *   &lt;id&gt; [fichier]            restaure la sauvegarde id (par défaut gestionsalles_&lt;id&gt;.sqlite)
+ *   --verify &lt;id&gt;             restaure dans un fichier temporaire et lance PRAGMA integrity_check
+ * Ex. : mvn exec:java -Dexec.mainClass="com.utils.RestoreBackup" "-Dexec.args=20250301_140000 C:\restauration.sqlite"
+ */
+public class RestoreBackup {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    public static void main(String[] args) {
+        try {
+            if (args == null || args.length == 0) {
+                list();
+            } else if ("--verify".equals(args[0])) {
+                if (args.length < 2) {
+                    System.err.println("Indiquez l'identifiant de la sauvegarde à vérifier.");
+                    return;
+                }
+                System.out.println("Vérification de " + args[1] + " : " + BackupService.verify(args[1].trim()));
+            } else {
+                String id = args[0].trim();
+                Path target = args.length > 1 ? Paths.get(args[1].trim()) : Paths.get("gestionsalles_" + id + ".sqlite");
+                if (Files.exists(target)) {
+                    System.err.println("Le fichier existe déjà : " + target.toAbsolutePath());
+                    return;
+                }
+                long start = System.currentTimeMillis();
+                BackupService.restoreSnapshot(id, target);
+                System.out.printf("Sauvegarde %s restaurée dans %s (%d ms)%n", id, target.toAbsolutePath(),
+                    System.currentTimeMillis() - start);
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur : " + e.getMessage());
+        }
+    }
+
+    private static void list() throws IOException {
+        List<BackupStore.Snapshot> snapshots = BackupService.listSnapshots();
+        if (snapshots.isEmpty()) {
+            System.out.println("Aucune sauvegarde dans " + BackupService.getStore().getDirectory().toAbsolutePath());
+            return;
+        }
+        System.out.printf("%-20s %-20s %12s %12s  %s%n", "Id", "Date", "Base (Ko)", "Ajouté (Ko)", "Vérification");
+        for (BackupStore.Snapshot s : snapshots) {
+            String check = s.getCheck() == null ? "en attente" : s.isVerified() ? "ok" : "ÉCHEC";
+            System.out.printf("%-20s %-20s %12d %12d  %s%n", s.getId(),
+                DATE_FORMAT.format(Instant.ofEpochMilli(s.getCreatedAt()).atZone(ZoneId.systemDefault())),
+                s.getDatabaseSize() / 1024, s.getStoredBytes() / 1024, check);
+        }
+        System.out.printf("%d sauvegarde(s), %d Ko sur disque%n", snapshots.size(), BackupService.getStore().diskUsage() / 1024);
+    }
+}
@@ -0,0 +1,168 @@
+package com.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackupStoreTest {
+
+    @TempDir
+    Path root;
+
+    private Path db;
+    private BackupStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = root.resolve("gestionsalles.sqlite");
+        store = new BackupStore(root.resolve("store"));
+        execute("CREATE TABLE t (x TEXT)");
+        insertRows(20000);
+    }
+
+    @Test
+    void unchangedChunksAreStoredOnlyOnce() throws Exception {
+        snapshot("s00");
+        for (int i = 1; i < 30; i++) {
+            insertRows(5);
+            snapshot(String.format("s%02d", i));
+        }
+
+        List<BackupStore.Snapshot> snapshots = store.list();
+        assertEquals(30, snapshots.size());
+        BackupStore.Snapshot first = snapshots.get(0), second = snapshots.get(1);
+        assertTrue(first.getStoredBytes() < first.getDatabaseSize(), "premier instantané non compressé");
+        assertTrue(second.getStoredBytes() < first.getStoredBytes() / 10,
+            second.getStoredBytes() + " octets écrits contre " + first.getStoredBytes());
+        // 30 instantanés : à peine plus qu'une image compressée
+        assertTrue(store.diskUsage() < first.getStoredBytes() * 2, "stockage : " + store.diskUsage() + " octets");
+    }
+
+    @Test
+    void everySnapshotRestoresToTheExactImage() throws Exception {
+        Path[] images = new Path[4];
+        for (int i = 0; i < images.length; i++) {
+            insertRows(3000);
+            images[i] = snapshot("s" + i);
+        }
+        for (int i = 0; i < images.length; i++) {
+            Path restored = store.restore("s" + i, root.resolve("restored_" + i + ".sqlite"));
+            assertArrayEquals(Files.readAllBytes(images[i]), Files.readAllBytes(restored), "instantané s" + i);
+        }
+        // Nouvelle instance : l'index des blocs est relu depuis les packs
+        BackupStore reopened = new BackupStore(store.getDirectory());
+        Path restored = reopened.restore("s2", root.resolve("reopened.sqlite"));
+        assertArrayEquals(Files.readAllBytes(images[2]), Files.readAllBytes(restored));
+    }
+
+    @Test
+    void retainDropsTheOldestSnapshotsAndTheirUnusedChunks() throws Exception {
+        Path[] images = new Path[5];
+        for (int i = 0; i < images.length; i++) {
+            execute("DELETE FROM t WHERE rowid % 5 = " + i);
+            insertRows(3000);
+            images[i] = snapshot("s" + i);
+        }
+        long before = store.diskUsage();
+
+        store.retain(2);
+
+        assertEquals(List.of("s3", "s4"), ids(store.list()));
+        assertTrue(store.diskUsage() < before, store.diskUsage() + " octets après nettoyage contre " + before);
+        assertFalse(packs().contains("s1.pack"));
+        for (int i = 3; i < images.length; i++) {
+            Path restored = store.restore("s" + i, root.resolve("kept_" + i + ".sqlite"));
+            assertArrayEquals(Files.readAllBytes(images[i]), Files.readAllBytes(restored), "instantané s" + i);
+        }
+    }
+
+    @Test
+    void corruptedChunkIsDetectedOnRestore() throws Exception {
+        snapshot("s0");
+        Path pack = store.getDirectory().resolve("packs").resolve("s0.pack");
+        // Dernier octet : toujours dans les données compressées du dernier bloc
+        try (FileChannel ch = FileChannel.open(pack, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long pos = ch.size() - 1;
+            ch.read(b, pos);
+            b.put(0, (byte) (b.get(0) ^ 0x5A)).rewind();
+            ch.write(b, pos);
+        }
+
+        Path target = root.resolve("corrupted.sqlite");
+        assertThrows(IOException.class, () -> store.restore("s0", target));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void checkResultIsKeptWithTheSnapshot() throws Exception {
+        snapshot("s0");
+        assertNull(store.list().get(0).getCheck());
+
+        store.recordCheck("s0", "ok");
+        assertTrue(store.list().get(0).isVerified());
+
+        store.recordCheck("s0", "*** in database main ***");
+        assertFalse(store.list().get(0).isVerified());
+    }
+
+    @Test
+    void restoringAnUnknownSnapshotFails() throws Exception {
+        snapshot("s0");
+        assertThrows(IOException.class, () -> store.restore("absent", root.resolve("x.sqlite")));
+    }
+
+    // --- Outils ---
+
+    /** Ajoute un instantané de la base et retourne une copie de référence de l'image sauvegardée. */
+    private Path snapshot(String id) throws IOException {
+        Path expected = root.resolve("expected_" + id + ".sqlite");
+        Files.copy(db, expected, StandardCopyOption.REPLACE_EXISTING);
+        store.add(id, expected);
+        return expected;
+    }
+
+    private List<String> packs() throws IOException {
+        try (Stream<Path> files = Files.list(store.getDirectory().resolve("packs"))) {
+            return files.map(p -> p.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    private void insertRows(int count) throws SQLException {
+        execute("INSERT INTO t SELECT hex(randomblob(100)) FROM " +
+                "(WITH RECURSIVE c(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM c WHERE i < " + count + ") SELECT i FROM c)");
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + db);
+             Statement st = c.createStatement()) {
+            st.executeUpdate(sql);
+        }
+    }
+
+    private static List<String> ids(List<BackupStore.Snapshot> snapshots) {
+        return snapshots.stream().map(BackupStore.Snapshot::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,175 @@
+package com.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Triggers du cumul journalier, sur une base SQLite en mémoire réduite aux colonnes utilisées. */
+class DailyRevenueRollupTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+    private static final LocalDate NEXT_DAY = DAY.plusDays(1);
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE payments (id INTEGER PRIMARY KEY, dateHeure INTEGER, montantTotal REAL, " +
+                       "created_by INTEGER, detailsProduits TEXT, detailReservations TEXT)");
+            st.execute("CREATE TABLE reservations (id INTEGER PRIMARY KEY, reservationDate INTEGER, user_id INTEGER, total_price REAL)");
+        }
+        DailyRevenueRollup.rebuild(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void paymentsAreCumulatedByDayUserAndKind() throws SQLException {
+        insertPayment(1, DAY, 1500, 7, "2x Coca", null);
+        insertPayment(2, DAY, 500, 7, "1x Eau", null);
+        insertPayment(3, DAY, 1000, 7, null, "Prolongation de 15 minutes pour la réservation T1");
+
+        assertRollup(DAY, 7, DailyRevenueRollup.KIND_PRODUCT, 2000, 2);
+        assertRollup(DAY, 7, DailyRevenueRollup.KIND_EXTENSION, 1000, 1);
+    }
+
+    @Test
+    void reservationPaymentsAndAnonymousPaymentsAreNotCumulated() throws SQLException {
+        // Paiement d'une réservation : la réservation est déjà cumulée
+        insertPayment(1, DAY, 3000, 7, null, "Réservation T1");
+        insertPayment(2, DAY, 800, null, "1x Eau", null);
+
+        assertEquals(0, count());
+    }
+
+    @Test
+    void reservationsAreCumulatedOnTheirReservationDay() throws SQLException {
+        insertReservation(1, DAY, 7, 2500);
+        insertReservation(2, NEXT_DAY, 7, 1200);
+
+        assertRollup(DAY, 7, DailyRevenueRollup.KIND_RESERVATION, 2500, 1);
+        assertRollup(NEXT_DAY, 7, DailyRevenueRollup.KIND_RESERVATION, 1200, 1);
+    }
+
+    @Test
+    void updateMovesTheAmountToTheNewDayAndUser() throws SQLException {
+        insertPayment(1, DAY, 1500, 7, "2x Coca", null);
+
+        execute("UPDATE payments SET montantTotal = 2000, dateHeure = " + millis(NEXT_DAY) + " WHERE id = 1");
+        assertRollup(NEXT_DAY, 7, DailyRevenueRollup.KIND_PRODUCT, 2000, 1);
+        assertEquals(1, count(), "la ligne vidée du premier jour doit être supprimée");
+
+        execute("UPDATE payments SET created_by = 8 WHERE id = 1");
+        assertRollup(NEXT_DAY, 8, DailyRevenueRollup.KIND_PRODUCT, 2000, 1);
+        assertEquals(1, count());
+    }
+
+    @Test
+    void deleteRemovesTheOperationAndPrunesEmptyRows() throws SQLException {
+        insertPayment(1, DAY, 1500, 7, "2x Coca", null);
+        insertPayment(2, DAY, 500, 7, "1x Eau", null);
+        insertReservation(1, DAY, 7, 2500);
+
+        execute("DELETE FROM payments WHERE id = 1");
+        assertRollup(DAY, 7, DailyRevenueRollup.KIND_PRODUCT, 500, 1);
+
+        execute("DELETE FROM payments WHERE id = 2");
+        execute("DELETE FROM reservations WHERE id = 1");
+        assertEquals(0, count());
+    }
+
+    @Test
+    void rebuildMatchesTheTriggerMaintainedTotals() throws SQLException {
+        insertPayment(1, DAY, 1500, 7, "2x Coca", null);
+        insertPayment(2, NEXT_DAY, 1000, 8, null, "Prolongation de 15 minutes");
+        insertReservation(1, DAY, 7, 2500);
+        execute("UPDATE payments SET montantTotal = 1750 WHERE id = 1");
+        String maintained = snapshot();
+
+        DailyRevenueRollup.rebuild(connection);
+
+        assertEquals(maintained, snapshot());
+    }
+
+    // --- Outils ---
+
+    private void insertPayment(int id, LocalDate day, double amount, Integer userId, String products, String reservations)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO payments(id, dateHeure, montantTotal, created_by, detailsProduits, detailReservations) VALUES (?, ?, ?, ?, ?, ?)")) {
+            ps.setInt(1, id);
+            ps.setLong(2, millis(day));
+            ps.setDouble(3, amount);
+            ps.setObject(4, userId);
+            ps.setString(5, products);
+            ps.setString(6, reservations);
+            ps.executeUpdate();
+        }
+    }
+
+    private void insertReservation(int id, LocalDate day, int userId, double totalPrice) throws SQLException {
+        execute("INSERT INTO reservations(id, reservationDate, user_id, total_price) VALUES (" +
+                id + ", " + millis(day) + ", " + userId + ", " + totalPrice + ")");
+    }
+
+    // Milieu de journée : le jour reste le même quel que soit le fuseau de la machine de test
+    private static long millis(LocalDate day) {
+        return day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void assertRollup(LocalDate day, int userId, String kind, double amount, int operations) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT amount, operations FROM daily_revenue WHERE day = ? AND user_id = ? AND kind = ?")) {
+            ps.setString(1, day.toString());
+            ps.setInt(2, userId);
+            ps.setString(3, kind);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next(), "aucune ligne " + day + "/" + userId + "/" + kind);
+                assertEquals(amount, rs.getDouble(1), 0.001);
+                assertEquals(operations, rs.getInt(2));
+            }
+        }
+    }
+
+    private int count() throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM daily_revenue")) {
+            return rs.getInt(1);
+        }
+    }
+
+    private String snapshot() throws SQLException {
+        StringBuilder rows = new StringBuilder();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT day, user_id, kind, amount, operations FROM daily_revenue ORDER BY day, user_id, kind")) {
+            while (rs.next()) {
+                rows.append(rs.getString(1)).append('|').append(rs.getInt(2)).append('|').append(rs.getString(3))
+                    .append('|').append(rs.getDouble(4)).append('|').append(rs.getInt(5)).append('\n');
+            }
+        }
+        return rows.toString();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.core;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OperationJournalTest {
+
+    private static final String KIND = "test";
+    private static final AtomicInteger labels = new AtomicInteger();
+
+    @TempDir
+    Path root;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.init();
+        TestDatabase.execute("CREATE TABLE IF NOT EXISTS oj_test (label TEXT NOT NULL)");
+    }
+
+    @Test
+    void executedOperationIsNotReplayed() throws Exception {
+        OperationJournal journal = open();
+        String label = label();
+        journal.execute(KIND, Map.of("label", label), () -> insert(label));
+
+        OperationJournal reopened = open();
+        assertEquals(0, reopened.pendingCount());
+        assertEquals(0, reopened.recover(handlers()));
+        assertEquals(1, count(label));
+    }
+
+    @Test
+    void interruptedOperationIsReplayedOnceOnRestart() throws Exception {
+        String label = label();
+        // Arrêt brutal entre l'écriture dans le journal et la transaction
+        open().begin(KIND, Map.of("label", label));
+
+        OperationJournal reopened = open();
+        assertEquals(1, reopened.pendingCount());
+        assertEquals(1, reopened.recover(handlers()));
+        assertEquals(1, count(label));
+
+        OperationJournal again = open();
+        assertEquals(0, again.pendingCount());
+        assertEquals(0, again.recover(handlers()));
+        assertEquals(1, count(label));
+    }
+
+    @Test
+    void operationCommittedBeforeTheCrashIsNotReplayed() throws Exception {
+        String label = label();
+        OperationJournal journal = open();
+        long id = journal.begin(KIND, Map.of("label", label));
+        // Transaction validée, marqueur "terminée" perdu avec l'arrêt
+        TransactionRunner.run(() -> {
+            insert(label);
+            JpaUtil.getEntityManager().createNativeQuery(
+                    "INSERT INTO operation_journal_applied(op_id, kind, applied_at) VALUES (?1, ?2, 0)")
+                .setParameter(1, id)
+                .setParameter(2, KIND)
+                .executeUpdate();
+        });
+
+        OperationJournal reopened = open();
+        assertEquals(1, reopened.pendingCount());
+        assertEquals(0, reopened.recover(handlers()));
+        assertEquals(1, count(label));
+        assertEquals(0, open().pendingCount());
+    }
+
+    @Test
+    void failedOperationIsRolledBackAndNotReplayed() throws Exception {
+        String label = label();
+        OperationJournal journal = open();
+        assertThrows(IllegalStateException.class, () -> journal.execute(KIND, Map.of("label", label), () -> {
+            insert(label);
+            throw new IllegalStateException("stock insuffisant");
+        }));
+
+        assertEquals(0, count(label));
+        assertEquals(0, open().pendingCount());
+    }
+
+    @Test
+    void refusedReplayIsAbortedAndNotRetried() throws Exception {
+        open().begin(KIND, Map.of("label", label()));
+
+        OperationJournal reopened = open();
+        int replayed = reopened.recover(Map.of(KIND, fields -> {
+            throw new IllegalStateException("refusée");
+        }));
+
+        assertEquals(0, replayed);
+        assertEquals(0, open().pendingCount());
+    }
+
+    @Test
+    void restartedJournalDoesNotResurrectOlderRecords() throws Exception {
+        String first = label() + "-" + "x".repeat(500);
+        open().begin(KIND, Map.of("label", first));
+        // Rejeu puis remise à zéro : nouvelle époque, écriture depuis le début du fichier
+        open().recover(handlers());
+
+        String second = label();
+        open().begin(KIND, Map.of("label", second));
+
+        OperationJournal reopened = open();
+        assertEquals(1, reopened.pendingCount());
+        assertEquals(1, reopened.recover(handlers()));
+        assertEquals(1, count(first));
+        assertEquals(1, count(second));
+    }
+
+    @Test
+    void concurrentOperationsAreAllDurable() throws Exception {
+        OperationJournal journal = open();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 50; i++) journal.begin(KIND, Map.of("label", label()));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join(10_000);
+
+        assertEquals(400, open().pendingCount());
+    }
+
+    // --- Outils ---
+
+    private OperationJournal open() throws Exception {
+        return new OperationJournal(root.resolve("test.oplog"));
+    }
+
+    private static Map<String, OperationJournal.Handler> handlers() {
+        return Map.of(KIND, fields -> insert(fields.get("label")));
+    }
+
+    private static String label() {
+        return "oj-" + labels.incrementAndGet() + "-" + System.nanoTime();
+    }
+
+    private static int insert(String label) {
+        return JpaUtil.getEntityManager().createNativeQuery("INSERT INTO oj_test(label) VALUES (?1)")
+            .setParameter(1, label)
+            .executeUpdate();
+    }
+
+    private static long count(String label) {
+        return TestDatabase.queryLong("SELECT COUNT(*) FROM oj_test WHERE label = ?", label);
+    }
+}
@@ -0,0 +1,171 @@
+package com.core;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorTest {
+
+    private static final String[] VERSION_1_INDEXES = {
+        "idx_game_sessions_status", "idx_game_sessions_client_status", "idx_game_sessions_poste_status"
+    };
+    private static final String[] VERSION_2_INDEXES = {
+        "idx_reservations_status_date", "idx_reservations_user_date", "idx_reservations_date"
+    };
+    private static final String[] VERSION_3_INDEXES = {
+        "idx_payments_created_date", "idx_payments_date"
+    };
+    private static final String[] VERSION_4_TRIGGERS = {
+        "trg_daily_revenue_payment_insert", "trg_daily_revenue_payment_delete", "trg_daily_revenue_payment_update",
+        "trg_daily_revenue_reservation_insert", "trg_daily_revenue_reservation_delete", "trg_daily_revenue_reservation_update"
+    };
+
+    private static final String[] VERSION_7_TRIGGERS = {
+        "trg_clients_fts_insert", "trg_clients_fts_delete", "trg_clients_fts_update"
+    };
+
+    private static long latestVersion;
+
+    @BeforeAll
+    static void setUp() {
+        TestDatabase.init();
+        latestVersion = userVersion();
+    }
+
+    @Test
+    void freshDatabaseReceivesEveryMigration() {
+        assertTrue(latestVersion >= 5, "user_version = " + latestVersion);
+        for (String index : VERSION_1_INDEXES) assertTrue(exists("index", index), index);
+        for (String index : VERSION_2_INDEXES) assertTrue(exists("index", index), index);
+        for (String index : VERSION_3_INDEXES) assertTrue(exists("index", index), index);
+        assertTrue(exists("table", "daily_revenue"));
+        for (String trigger : VERSION_4_TRIGGERS) assertTrue(exists("trigger", trigger), trigger);
+        assertTrue(exists("table", "print_jobs"));
+        assertTrue(exists("index", "idx_print_jobs_status"));
+        assertTrue(exists("table", "operation_journal_applied"));
+        assertTrue(exists("table", "clients_fts"));
+        for (String trigger : VERSION_7_TRIGGERS) assertTrue(exists("trigger", trigger), trigger);
+        assertTrue(exists("index", "idx_reservations_client_date"));
+        assertTrue(exists("index", "idx_game_sessions_status_end"));
+    }
+
+    @Test
+    void upToDateDatabaseIsLeftUnchanged() throws Exception {
+        execute("DROP INDEX idx_payments_date");
+        try {
+            migrate();
+            assertEquals(latestVersion, userVersion());
+            assertFalse(exists("index", "idx_payments_date"), "version 3 rejouée alors que la base est à jour");
+        } finally {
+            execute("CREATE INDEX IF NOT EXISTS idx_payments_date ON payments(dateHeure)");
+        }
+    }
+
+    @Test
+    void onlyMigrationsAboveTheStoredVersionAreApplied() throws Exception {
+        execute("DROP INDEX idx_game_sessions_status");
+        execute("DROP TABLE print_jobs");
+        execute("PRAGMA user_version = 4");
+        try {
+            migrate();
+            assertEquals(latestVersion, userVersion());
+            assertTrue(exists("table", "print_jobs"), "version 5 non appliquée");
+            assertFalse(exists("index", "idx_game_sessions_status"), "version 1 rejouée");
+        } finally {
+            execute("CREATE INDEX IF NOT EXISTS idx_game_sessions_status ON game_sessions(status)");
+        }
+    }
+
+    @Test
+    void rollupMigrationRebuildsTheTotalsFromExistingRows() throws Exception {
+        long noon = LocalDate.of(2024, 3, 15).atTime(12, 0)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        execute("INSERT INTO reservations(user_id, reservationDate, total_price, status) VALUES (9001, " + noon + ", 10, 'Terminée')");
+        execute("INSERT INTO reservations(user_id, reservationDate, total_price, status) VALUES (9001, " + (noon + 60_000) + ", 15, 'Terminée')");
+        try {
+            execute("DROP TABLE daily_revenue");
+            execute("PRAGMA user_version = 3");
+            migrate();
+            assertEquals(latestVersion, userVersion());
+            assertEquals(2, TestDatabase.queryLong(
+                "SELECT operations FROM daily_revenue WHERE day = '2024-03-15' AND user_id = 9001 AND kind = 'reservation'"));
+            assertEquals(25, TestDatabase.queryLong(
+                "SELECT amount FROM daily_revenue WHERE day = '2024-03-15' AND user_id = 9001 AND kind = 'reservation'"));
+        } finally {
+            execute("DELETE FROM reservations WHERE user_id = 9001");
+        }
+        assertEquals(0, TestDatabase.queryLong("SELECT COUNT(*) FROM daily_revenue WHERE user_id = 9001"));
+    }
+
+    @Test
+    void priceMigrationRestoresOnlyRecordedBasePrices() throws Exception {
+        execute("INSERT INTO produits(id, nom, prix, ancienPrix, stock) VALUES (9101, 'Remisé', 800, 1000, 1)");
+        execute("INSERT INTO produits(id, nom, prix, ancienPrix, stock) VALUES (9102, 'Ancien prix nul', 500, 0, 1)");
+        execute("INSERT INTO produits(id, nom, prix, ancienPrix, stock) VALUES (9103, 'Sans ancien prix', 700, NULL, 1)");
+        try {
+            execute("PRAGMA user_version = 8");
+            migrate();
+            assertEquals(latestVersion, userVersion());
+            assertEquals(1000, TestDatabase.queryLong("SELECT prix FROM produits WHERE id = 9101"));
+            assertEquals(500, TestDatabase.queryLong("SELECT prix FROM produits WHERE id = 9102"));
+            assertEquals(700, TestDatabase.queryLong("SELECT prix FROM produits WHERE id = 9103"));
+            assertEquals(0, TestDatabase.queryLong("SELECT COUNT(*) FROM produits WHERE id = 9101 AND ancienPrix IS NOT NULL"));
+        } finally {
+            execute("DELETE FROM produits WHERE id IN (9101, 9102, 9103)");
+        }
+    }
+
+    @Test
+    void failedMigrationIsRolledBackAndAbortsTheRun() throws Exception {
+        // Migration 9 (prix des produits) échoue sans sa table ; la 8 passe avant elle
+        execute("DROP INDEX idx_reservations_client_date");
+        execute("ALTER TABLE produits RENAME TO produits_absente");
+        execute("PRAGMA user_version = 7");
+        try {
+            assertThrows(RuntimeException.class, SchemaMigratorTest::migrate);
+            assertEquals(8, userVersion());
+            assertTrue(exists("index", "idx_reservations_client_date"), "version 8 annulée avec la 9");
+        } finally {
+            execute("ALTER TABLE produits_absente RENAME TO produits");
+        }
+        migrate();
+        assertEquals(latestVersion, userVersion());
+    }
+
+    // --- Outils ---
+
+    private static void migrate() {
+        EntityManager em = JpaUtil.createEntityManager();
+        try {
+            SchemaMigrator.migrate(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long userVersion() {
+        return TestDatabase.queryLong("PRAGMA user_version");
+    }
+
+    private static boolean exists(String type, String name) {
+        return TestDatabase.queryLong("SELECT COUNT(*) FROM sqlite_master WHERE type = ? AND name = ?", type, name) == 1;
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection c = SqliteDataSources.getDataSource().getConnection();
+             Statement st = c.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
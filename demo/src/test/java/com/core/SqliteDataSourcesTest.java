@@ -0,0 +1,39 @@
+package com.core;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SqliteDataSourcesTest {
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.init();
+        TestDatabase.execute("CREATE TABLE IF NOT EXISTS pool_test (id INTEGER PRIMARY KEY AUTOINCREMENT)");
+    }
+
+    @Test
+    void writerKeepsItsConnectionWhenReadersHoldTheWholePool() throws Exception {
+        List<Connection> readers = new ArrayList<>();
+        try {
+            // Hors du thread d'écriture : toutes les connexions du pool principal sont prises
+            for (int i = 0; i < Math.max(1, AppConfig.getDbPoolReaders()); i++) {
+                readers.add(SqliteDataSources.getDataSource().getConnection());
+            }
+            assertEquals(0, SqliteDataSources.getSharedDataSource().getHikariPoolMXBean().getIdleConnections());
+
+            int inserted = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> TransactionRunner.call(() ->
+                JpaUtil.getEntityManager().createNativeQuery("INSERT INTO pool_test DEFAULT VALUES").executeUpdate()));
+            assertEquals(1, inserted);
+        } finally {
+            for (Connection c : readers) c.close();
+        }
+    }
+}
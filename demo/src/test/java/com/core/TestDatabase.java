@@ -0,0 +1,67 @@
+package com.core;
+
+import javax.persistence.Query;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Base SQLite des tests : une base neuve sous target/test-appdata (variable APPDATA fixée par surefire),
+ * créée une fois par JVM avec l'unité de persistance et les migrations, comme au démarrage de l'application.
+ */
+public final class TestDatabase {
+
+    private static boolean initialized;
+
+    private TestDatabase() {}
+
+    /** Supprime la base de test précédente puis initialise l'EntityManagerFactory (une seule fois). */
+    public static synchronized void init() {
+        if (initialized) return;
+        String appData = System.getenv("APPDATA");
+        if (appData == null || !appData.contains("test-appdata")) {
+            // Garde-fou : ne jamais effacer la base réelle d'un poste de caisse
+            throw new IllegalStateException("Tests à lancer via Maven (APPDATA=target/test-appdata)");
+        }
+        Path db = Paths.get(JpaUtil.getDbFilePath());
+        try {
+            Files.deleteIfExists(db);
+            Files.deleteIfExists(Paths.get(db + "-wal"));
+            Files.deleteIfExists(Paths.get(db + "-shm"));
+        } catch (Exception e) {
+            throw new RuntimeException("Suppression de la base de test impossible : " + db, e);
+        }
+        JpaUtil.initEntityManagerFactory();
+        initialized = true;
+    }
+
+    /** Première colonne de la première ligne d'une requête, lue hors du thread d'écriture. */
+    public static long queryLong(String sql, Object... params) {
+        try (Connection c = SqliteDataSources.getReadOnlyDataSource().getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(sql, e);
+        }
+    }
+
+    /** Exécute une instruction SQL dans une transaction du thread d'écriture. */
+    public static void execute(String sql, Object... params) throws Exception {
+        TransactionRunner.run(() -> {
+            Query query = JpaUtil.getEntityManager().createNativeQuery(sql);
+            for (int i = 0; i < params.length; i++) {
+                query.setParameter(i + 1, params[i]);
+            }
+            query.executeUpdate();
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package com.core;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionRunnerTest {
+
+    private static final AtomicInteger labels = new AtomicInteger();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.init();
+        TestDatabase.execute("CREATE TABLE IF NOT EXISTS tr_test (id INTEGER PRIMARY KEY AUTOINCREMENT, label TEXT NOT NULL)");
+    }
+
+    @Test
+    void callReturnsTheValueAndCommits() throws Exception {
+        String label = label();
+        int updated = TransactionRunner.call(() -> insert(label));
+        assertEquals(1, updated);
+        assertEquals(1, count(label));
+    }
+
+    @Test
+    void failingTaskIsRolledBackToItsSavepointOnly() throws Exception {
+        String before = label(), failing = label(), after = label();
+        List<Submitted> batch = runGrouped(
+            () -> insert(before),
+            () -> {
+                insert(failing);
+                throw new IllegalStateException("échec attendu");
+            },
+            () -> insert(after));
+
+        assertNull(batch.get(0).error);
+        assertInstanceOf(IllegalStateException.class, batch.get(1).error);
+        assertNull(batch.get(2).error);
+        assertEquals(1, count(before));
+        assertEquals(0, count(failing));
+        assertEquals(1, count(after));
+    }
+
+    @Test
+    void afterCommitRunsOnlyForCommittedTasks() throws Exception {
+        AtomicBoolean committedHook = new AtomicBoolean();
+        AtomicBoolean failedHook = new AtomicBoolean();
+        List<Submitted> batch = runGrouped(
+            () -> {
+                UnitOfWork.afterCommit(() -> committedHook.set(true));
+                return insert(label());
+            },
+            () -> {
+                UnitOfWork.afterCommit(() -> failedHook.set(true));
+                throw new IllegalStateException("échec attendu");
+            });
+
+        assertNull(batch.get(0).error);
+        assertTrue(committedHook.get());
+        assertFalse(failedHook.get());
+    }
+
+    @Test
+    void rollbackOnlyTaskFailsAloneAndTheOthersAreReplayed() throws Exception {
+        String before = label(), culprit = label(), after = label();
+        List<Submitted> batch = runGrouped(
+            () -> insert(before),
+            () -> {
+                insert(culprit);
+                // Transaction entière condamnée : le savepoint ne suffit plus
+                JpaUtil.getEntityManager().unwrap(Session.class).getTransaction().setRollbackOnly();
+                throw new IllegalStateException("fautif");
+            },
+            () -> insert(after));
+
+        assertNull(batch.get(0).error);
+        assertEquals("fautif", batch.get(1).error.getMessage());
+        assertNull(batch.get(2).error);
+        assertEquals(1, count(before));
+        assertEquals(0, count(culprit));
+        assertEquals(1, count(after));
+    }
+
+    @Test
+    void nestedCallJoinsTheCurrentTransaction() {
+        String outer = label(), inner = label();
+        assertThrows(IllegalStateException.class, () -> TransactionRunner.run(() -> {
+            insert(outer);
+            TransactionRunner.run(() -> insert(inner));
+            throw new IllegalStateException("annulation de l'ensemble");
+        }));
+        assertEquals(0, count(outer));
+        assertEquals(0, count(inner));
+    }
+
+    // --- Outils ---
+
+    private static String label() {
+        return "tr-" + labels.incrementAndGet() + "-" + System.nanoTime();
+    }
+
+    private static int insert(String label) {
+        return JpaUtil.getEntityManager().createNativeQuery("INSERT INTO tr_test(label) VALUES (?1)")
+            .setParameter(1, label)
+            .executeUpdate();
+    }
+
+    private static long count(String label) {
+        return TestDatabase.queryLong("SELECT COUNT(*) FROM tr_test WHERE label = ?", label);
+    }
+
+    /** Traitement soumis depuis son propre thread, comme un contrôleur. */
+    private static final class Submitted {
+        final Thread thread;
+        volatile Throwable error;
+
+        Submitted(TransactionRunner.Work<?> work) {
+            thread = new Thread(() -> {
+                try {
+                    TransactionRunner.call(work);
+                } catch (Throwable e) {
+                    error = e;
+                }
+            });
+        }
+    }
+
+    /**
+     * Bloque le thread d'écriture, met les traitements en file dans l'ordre donné puis le libère :
+     * ils sont exécutés dans un même lot.
+     */
+    private static List<Submitted> runGrouped(TransactionRunner.Work<?>... works) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        Submitted blocker = new Submitted(() -> {
+            started.countDown();
+            gate.await();
+            return null;
+        });
+        blocker.thread.start();
+        started.await();
+
+        List<Submitted> batch = new ArrayList<>();
+        for (TransactionRunner.Work<?> work : works) {
+            Submitted submitted = new Submitted(work);
+            submitted.thread.start();
+            awaitQueued(submitted.thread);
+            batch.add(submitted);
+        }
+        gate.countDown();
+        blocker.thread.join(10_000);
+        for (Submitted submitted : batch) {
+            submitted.thread.join(10_000);
+        }
+        return batch;
+    }
+
+    // Thread en attente du résultat : son traitement est dans la file
+    private static void awaitQueued(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(20);
+    }
+}
@@ -0,0 +1,208 @@
+package com.repositories.bd;
+
+import com.core.JpaUtil;
+import com.core.TestDatabase;
+import com.core.TransactionRunner;
+import com.entities.Client;
+import com.entities.Reservation;
+import com.entities.Role;
+import com.entities.User;
+import com.repositories.ClientFilter;
+import com.repositories.ClientPage;
+import com.repositories.ClientSummary;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Recherche des clients (index plein texte clients_fts) et lignes résumées des listes de clients. */
+class ClientRepositoryJpaTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 3);
+    private static final ClientRepositoryJpa repository = new ClientRepositoryJpa();
+    private static int sequence;
+
+    @BeforeAll
+    static void setUp() {
+        TestDatabase.init();
+    }
+
+    @Test
+    void wordPrefixesMatchAndNameRanksBeforeAddress() throws Exception {
+        int byAddress = insert("Awa Fall", "12 rue Kwazibo");
+        int byName = insert("Moussa Kwazibo", "Plateau");
+
+        assertEquals(List.of(byName, byAddress), repository.searchIds("kwaz", 10));
+        assertEquals(List.of(byName), repository.searchIds("kwaz mous", 10));
+        assertEquals(List.of(byName), repository.searchIds("kwaz", 1));
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() throws Exception {
+        int id = insert("Séné Ndiayéko", null);
+
+        assertEquals(List.of(id), repository.searchIds("SENE ndiayek", 10));
+    }
+
+    @Test
+    void renamedClientIsReindexed() throws Exception {
+        int id = insert("Ibrahima Tourelak", null);
+        Client client = repository.findById(id);
+        client.setName("Ibrahima Bassirouk");
+        TransactionRunner.run(() -> repository.update(client));
+
+        assertEquals(List.of(), repository.searchIds("tourelak", 10));
+        assertEquals(List.of(id), repository.searchIds("bassirouk", 10));
+    }
+
+    @Test
+    void deletedClientLeavesTheIndex() throws Exception {
+        int id = insert("Fatou Zerbinak", null);
+        TransactionRunner.run(() -> repository.delete(repository.findById(id)));
+
+        assertEquals(List.of(), repository.searchIds("zerbinak", 10));
+    }
+
+    @Test
+    void onlyClientsAreIndexed() throws Exception {
+        User admin = new User("Admin Quorvelak", "quorvelak-" + System.nanoTime() + "@test.local", Role.Admin);
+        admin.setPassword("x");
+        TransactionRunner.run(() -> new UserRepositoryJpa().addUser(admin));
+
+        assertEquals(List.of(), repository.searchIds("quorvelak", 10));
+    }
+
+    @Test
+    void findByIdsKeepsTheGivenOrder() throws Exception {
+        int first = insert("Ordre Premierk", null);
+        int second = insert("Ordre Secondk", null);
+
+        List<Integer> ids = repository.findByIds(List.of(second, -1, first)).stream()
+            .map(Client::getId).collect(Collectors.toList());
+        assertEquals(List.of(second, first), ids);
+    }
+
+    @Test
+    void clientPhonesAreListedById() throws Exception {
+        int id = insert("Tel Phonique", null);
+
+        Map<Integer, String> phones = repository.findClientPhones();
+        assertTrue(phones.containsKey(id));
+        assertEquals(repository.findById(id).getPhone(), phones.get(id));
+    }
+
+    @Test
+    void summariesAggregateReservationsAndPausedTimeWithoutLoadingThem() throws Exception {
+        int regular = insert("Résumé Habitué", null);
+        int newcomer = insert("Résumé Nouveau", null);
+        reserve(regular, DAY.atTime(10, 0), 90);
+        reserve(regular, DAY.plusDays(2).atTime(18, 30), 60);
+        pausedSession(regular, 20);
+        pausedSession(regular, 45);
+
+        List<ClientSummary> rows = summaries(filterOn(regular, newcomer));
+        assertEquals(List.of(regular, newcomer), rows.stream().map(ClientSummary::getId).collect(Collectors.toList()));
+
+        ClientSummary summary = rows.get(0);
+        assertEquals(2, summary.getReservationCount());
+        assertEquals(Duration.ofMinutes(150), summary.getTotalPlayTime());
+        assertEquals(DAY.plusDays(2).atTime(18, 30), summary.getLastVisit());
+        assertEquals(Duration.ofMinutes(45), summary.getPausedRemainingTime());
+
+        ClientSummary empty = rows.get(1);
+        assertEquals(0, empty.getReservationCount());
+        assertEquals(Duration.ZERO, empty.getTotalPlayTime());
+        assertNull(empty.getLastVisit());
+        assertEquals(Duration.ZERO, empty.getPausedRemainingTime());
+    }
+
+    @Test
+    void summaryFiltersRunInSql() throws Exception {
+        int loyal = insert("Filtre Fidèle", null);
+        int occasional = insert("Filtre Occasionnel", null);
+        int none = insert("Filtre Absent", null);
+        reserve(loyal, DAY.atTime(9, 0), 50 * 60);
+        reserve(occasional, DAY.plusDays(1).atTime(23, 30), 30);
+
+        ClientFilter withReservations = filterOn(loyal, occasional, none);
+        withReservations.setWithReservations(true);
+        assertEquals(List.of(loyal, occasional), ids(summaries(withReservations)));
+
+        ClientFilter loyalOnly = filterOn(loyal, occasional, none);
+        loyalOnly.setMinPlayTime(Duration.ofHours(50));
+        assertEquals(List.of(loyal), ids(summaries(loyalOnly)));
+
+        ClientFilter onDay = filterOn(loyal, occasional, none);
+        onDay.setReservationDate(DAY.plusDays(1));
+        assertEquals(List.of(occasional), ids(summaries(onDay)));
+
+        assertEquals(List.of(), summaries(filterOn()));
+    }
+
+    @Test
+    void summaryPagesFollowTheId() throws Exception {
+        int a = insert("Page A", null), b = insert("Page B", null), c = insert("Page C", null);
+        ClientFilter filter = filterOn(a, b, c);
+
+        List<ClientSummary> first = repository.findClientSummaries(filter, ClientPage.first(2));
+        assertEquals(List.of(a, b), ids(first));
+        assertEquals(List.of(c), ids(repository.findClientSummaries(filter, ClientPage.after(first.get(1), 2))));
+    }
+
+    // --- Outils ---
+
+    private static ClientFilter filterOn(Integer... ids) {
+        ClientFilter filter = new ClientFilter();
+        filter.setClientIds(List.of(ids));
+        return filter;
+    }
+
+    private static List<ClientSummary> summaries(ClientFilter filter) {
+        return repository.findClientSummaries(filter, ClientPage.first(50));
+    }
+
+    private static List<Integer> ids(List<ClientSummary> rows) {
+        return rows.stream().map(ClientSummary::getId).collect(Collectors.toList());
+    }
+
+    private static void reserve(int clientId, LocalDateTime date, long minutes) throws Exception {
+        TransactionRunner.run(() -> {
+            Reservation reservation = new Reservation();
+            reservation.setNumeroTicket("SUM-" + System.nanoTime());
+            reservation.setStatus("Terminée");
+            reservation.setReservationDate(date);
+            reservation.setDuration(Duration.ofMinutes(minutes));
+            reservation.setClient(JpaUtil.getEntityManager().find(Client.class, clientId));
+            JpaUtil.getEntityManager().persist(reservation);
+        });
+    }
+
+    private static void pausedSession(int clientId, long remainingMinutes) throws Exception {
+        TestDatabase.execute(
+            "INSERT INTO game_sessions(status, is_paused, paused_remaining_time, client_id, game_id, poste_id) " +
+            "VALUES ('En pause', 1, ?, ?, 0, 0)", Duration.ofMinutes(remainingMinutes).toNanos(), clientId);
+    }
+
+    private static int insert(String name, String address) throws Exception {
+        return TransactionRunner.call(() -> {
+            int n = ++sequence;
+            Client client = new Client();
+            client.setName(name);
+            client.setEmail("fts-" + n + "-" + System.nanoTime() + "@test.local");
+            client.setPassword("x");
+            client.setRole(Role.Client);
+            client.setPhone("79" + String.format("%07d", System.nanoTime() % 10_000_000));
+            client.setAddress(address);
+            return repository.insert(client).getId();
+        });
+    }
+}
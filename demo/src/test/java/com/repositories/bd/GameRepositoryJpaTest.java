@@ -0,0 +1,89 @@
+package com.repositories.bd;
+
+import com.core.JpaUtil;
+import com.core.TestDatabase;
+import com.core.TransactionRunner;
+import com.entities.Game;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Données de référence servies par le cache de second niveau et le cache de requêtes, vérifié par les
+ * statistiques Hibernate : une recherche répétée n'exécute plus de requête, une écriture la rafraîchit.
+ */
+class GameRepositoryJpaTest {
+
+    private static final GameRepositoryJpa repository = new GameRepositoryJpa();
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void setUp() {
+        TestDatabase.init();
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        } finally {
+            em.close();
+        }
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void repeatedLookupsDoNotReachTheDatabase() throws Exception {
+        Game game = insert("Tekken " + System.nanoTime());
+        assertTrue(repository.existsByName(game.getName()));
+        repository.findById(game.getId());
+
+        statistics.clear();
+        assertTrue(repository.existsByName(game.getName()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        statistics.clear();
+        assertEquals(game.getName(), repository.findById(game.getId()).getName());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void updateThroughHibernateRefreshesCachedLookups() throws Exception {
+        Game game = insert("Fifa " + System.nanoTime());
+        String oldName = game.getName();
+        repository.existsByName(oldName);
+        repository.findById(game.getId());
+
+        game.setName(oldName + " Deluxe");
+        TransactionRunner.run(() -> repository.update(game));
+
+        assertFalse(repository.existsByName(oldName));
+        assertTrue(repository.existsByName(game.getName()));
+        assertEquals(game.getName(), repository.findById(game.getId()).getName());
+    }
+
+    @Test
+    void nativeWriteInvalidatesCachedQueries() throws Exception {
+        Game game = insert("Gran Turismo " + System.nanoTime());
+        repository.existsByName(game.getName());
+
+        TestDatabase.execute("UPDATE games SET name = ?1 WHERE id = ?2", game.getName() + " 7", game.getId());
+
+        assertFalse(repository.existsByName(game.getName()));
+        assertTrue(repository.existsByName(game.getName() + " 7"));
+    }
+
+    // --- Outils ---
+
+    private static Game insert(String name) throws Exception {
+        Game game = new Game(name, "Course", null);
+        TransactionRunner.run(() -> repository.insert(game));
+        return game;
+    }
+}
@@ -0,0 +1,97 @@
+package com.repositories.bd;
+
+import com.core.JpaUtil;
+import com.core.TestDatabase;
+import com.core.TransactionRunner;
+import com.entities.GameSession;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sessions arrivées à échéance (fin calculée lue par l'index idx_game_sessions_status_end) et session
+ * chargée avec ses relations pour le registre des sessions vivantes.
+ */
+class GameSessionRepositoryJpaTest {
+
+    private static final int GAME = 9201;
+    private static final int POSTE = 9202;
+    private static final int CLIENT = 9203;
+    private static final GameSessionRepositoryJpa repository = new GameSessionRepositoryJpa();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.init();
+        TestDatabase.execute("INSERT INTO games(id, name) VALUES (?1, 'Jeu échéances')", GAME);
+        TestDatabase.execute("INSERT INTO postes(id, horsService, name) VALUES (?1, 0, 'Poste échéances')", POSTE);
+        TestDatabase.execute("INSERT INTO users(user_type, id, name, loyaltyPoints) VALUES ('CLIENT', ?1, 'Client échéances', 0)", CLIENT);
+    }
+
+    @Test
+    void onlyActiveSessionsPastTheirPaidTimeAreReturned() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        insert(9211, "Active", now.minusMinutes(70), 60);
+        insert(9212, "Active", now.minusMinutes(30), 60);
+        insert(9213, "En pause", now.minusMinutes(120), 60);
+        insert(9214, "Terminée", now.minusMinutes(120), 60);
+        insert(9215, "Active", now.minusMinutes(60), 60);
+
+        List<GameSession> ending = repository.findEndingBefore(now.plusSeconds(1));
+
+        assertEquals(List.of(9211, 9215), ids(ending));
+        assertEquals(POSTE, ending.get(0).getPoste().getId());
+        assertEquals(CLIENT, ending.get(0).getClient().getId());
+        assertEquals(List.of(9211), ids(repository.findEndingBefore(now.minusMinutes(5))));
+    }
+
+    @Test
+    void endOfSessionIsReadThroughTheExpressionIndex() throws Exception {
+        List<?> rows = TransactionRunner.call(() -> JpaUtil.getEntityManager().createNativeQuery(
+                "EXPLAIN QUERY PLAN SELECT id FROM game_sessions " +
+                "WHERE status = 'Active' AND startTime + paidDuration * 60000 < ?1 ORDER BY id")
+            .setParameter(1, 0L)
+            .getResultList());
+        String plan = rows.stream()
+            .map(row -> String.valueOf(((Object[]) row)[3]))
+            .collect(Collectors.joining("\n"));
+
+        assertTrue(plan.contains("idx_game_sessions_status_end"), plan);
+    }
+
+    @Test
+    void sessionWithRelationsIsUsableOnceDetached() throws Exception {
+        insert(9221, "Active", LocalDateTime.now(), 60);
+
+        GameSession session = repository.findGameSessionByIdWithRelations(9221);
+
+        assertTrue(Hibernate.isInitialized(session.getClient()));
+        assertTrue(Hibernate.isInitialized(session.getGame()));
+        assertTrue(Hibernate.isInitialized(session.getPoste()));
+        assertEquals("Client échéances", session.getClient().getName());
+        assertEquals("Jeu échéances", session.getGame().getName());
+        assertEquals("Poste échéances", session.getPoste().getName());
+    }
+
+    // --- Outils ---
+
+    private static void insert(int id, String status, LocalDateTime start, int minutes) throws Exception {
+        TestDatabase.execute(
+            "INSERT INTO game_sessions(id, status, startTime, paidDuration, is_paused, game_id, poste_id, client_id) " +
+            "VALUES (?1, ?2, ?3, ?4, 0, ?5, ?6, ?7)",
+            id, status, Timestamp.valueOf(start).getTime(), minutes, GAME, POSTE, CLIENT);
+    }
+
+    // Sessions de ce test seulement : d'autres classes peuvent avoir écrit dans game_sessions
+    private static List<Integer> ids(List<GameSession> sessions) {
+        return sessions.stream().map(GameSession::getId).filter(id -> id > 9200 && id < 9300)
+            .collect(Collectors.toList());
+    }
+}
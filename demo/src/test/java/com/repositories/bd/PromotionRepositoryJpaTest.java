@@ -0,0 +1,65 @@
+package com.repositories.bd;
+
+import com.core.JpaUtil;
+import com.core.TestDatabase;
+import com.core.TransactionRunner;
+import com.entities.Produit;
+import com.entities.Promotion;
+import com.entities.TypePromotion;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/** Liens produit -> promotions actives lus pour compiler le moteur de promotions. */
+class PromotionRepositoryJpaTest {
+
+    private static final PromotionRepositoryJpa repository = new PromotionRepositoryJpa();
+
+    @BeforeAll
+    static void setUp() {
+        TestDatabase.init();
+    }
+
+    @Test
+    void activePromotionIdsAreGroupedByProduit() throws Exception {
+        int active = promotion(true);
+        int inactive = promotion(false);
+        int produit = produit(active, inactive);
+        int other = produit(active);
+
+        Map<Integer, List<Integer>> links = repository.findActivePromotionIdsByProduit();
+
+        assertEquals(List.of(active), links.get(produit));
+        assertEquals(List.of(active), links.get(other));
+        assertFalse(links.values().stream().anyMatch(ids -> ids.contains(inactive)));
+    }
+
+    // --- Outils ---
+
+    private static int promotion(boolean actif) throws Exception {
+        return TransactionRunner.call(() -> {
+            LocalDate today = LocalDate.now();
+            Promotion promo = new Promotion("promo-" + System.nanoTime(), actif, 0.1f, TypePromotion.PRODUIT, today, today.plusDays(7));
+            JpaUtil.getEntityManager().persist(promo);
+            return promo.getId();
+        });
+    }
+
+    private static int produit(int... promotionIds) throws Exception {
+        return TransactionRunner.call(() -> {
+            Produit produit = new Produit("produit-" + System.nanoTime(), new BigDecimal("500"), 5, null, null);
+            for (int id : promotionIds) {
+                produit.addPromotion(JpaUtil.getEntityManager().find(Promotion.class, id));
+            }
+            JpaUtil.getEntityManager().persist(produit);
+            return produit.getId();
+        });
+    }
+}
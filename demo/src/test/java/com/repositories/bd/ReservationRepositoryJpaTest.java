@@ -0,0 +1,129 @@
+package com.repositories.bd;
+
+import com.core.JpaUtil;
+import com.core.TestDatabase;
+import com.core.TransactionRunner;
+import com.entities.Reservation;
+import com.repositories.ReservationCursor;
+import com.repositories.ReservationFilter;
+import com.repositories.ReservationRow;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Pagination par clé de la liste des réservations (findPage). */
+class ReservationRepositoryJpaTest {
+
+    // Préfixe de ticket propre à ce test : la recherche isole ses lignes du reste de la base de test
+    private static final String TICKET_PREFIX = "KSET-";
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 10, 14, 0);
+
+    private static final ReservationRepositoryJpa repository = new ReservationRepositoryJpa();
+    private static final List<Integer> pendingNewestFirst = new ArrayList<>();
+    private static final List<Integer> othersNewestFirst = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.init();
+        // Dates en double pour vérifier le départage par id
+        int p1 = insert("En attente", T0);
+        int p2 = insert("En attente", T0.plusHours(1));
+        int p3 = insert("En attente", T0.plusHours(1));
+        int a1 = insert("Active", T0.plusHours(3));
+        int t1 = insert("Terminée", T0.minusDays(1));
+        int t2 = insert("Terminée", T0.plusHours(2));
+        int t3 = insert("Terminée", T0.plusHours(2));
+        int t4 = insert("Terminée", T0.minusDays(2));
+        // Réservations sans date : en fin de groupe, départagées par id
+        int p4 = insert("En attente", null);
+        int t5 = insert("Terminée", null);
+        int t6 = insert("Terminée", null);
+        pendingNewestFirst.addAll(List.of(p3, p2, p1, p4));
+        othersNewestFirst.addAll(List.of(a1, t3, t2, t1, t4, t6, t5));
+    }
+
+    @Test
+    void pendingReservationsComeFirstThenTheOthersNewestFirst() {
+        List<Integer> expected = new ArrayList<>(pendingNewestFirst);
+        expected.addAll(othersNewestFirst);
+
+        assertEquals(expected, ids(repository.findPage(filter(), null, 50)));
+    }
+
+    @Test
+    void walkingPagesWithTheCursorReturnsEveryRowOnceInOrder() {
+        List<Integer> all = ids(repository.findPage(filter(), null, 50));
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            assertEquals(all, walk(filter(), pageSize), "taille de page " + pageSize);
+        }
+    }
+
+    @Test
+    void statusFilterPagesWithinThatStatusOnly() {
+        ReservationFilter pending = filter();
+        pending.setStatus(ReservationFilter.PENDING);
+        assertEquals(pendingNewestFirst, walk(pending, 2));
+
+        ReservationFilter finished = filter();
+        finished.setStatus("Terminée");
+        List<Integer> expected = othersNewestFirst.subList(1, othersNewestFirst.size());
+        assertEquals(expected, walk(finished, 2));
+    }
+
+    @Test
+    void dateRangeIncludesFromAndExcludesTo() {
+        ReservationFilter range = filter();
+        range.setFrom(T0);
+        range.setTo(T0.plusHours(2));
+
+        List<ReservationRow> rows = repository.findPage(range, null, 50);
+
+        assertEquals(pendingNewestFirst.subList(0, 3), ids(rows));
+        assertTrue(rows.stream().allMatch(r -> !r.getReservationDate().isBefore(T0)));
+    }
+
+    // --- Outils ---
+
+    private static ReservationFilter filter() {
+        ReservationFilter filter = new ReservationFilter();
+        filter.setSearch(TICKET_PREFIX);
+        return filter;
+    }
+
+    private static List<Integer> walk(ReservationFilter filter, int pageSize) {
+        List<Integer> ids = new ArrayList<>();
+        ReservationCursor cursor = null;
+        while (true) {
+            List<ReservationRow> page = repository.findPage(filter, cursor, pageSize);
+            ids.addAll(ids(page));
+            if (page.size() < pageSize) return ids;
+            cursor = ReservationCursor.after(page.get(page.size() - 1));
+        }
+    }
+
+    private static List<Integer> ids(List<ReservationRow> rows) {
+        return rows.stream().map(ReservationRow::getId).collect(Collectors.toList());
+    }
+
+    private static int insert(String status, LocalDateTime date) throws Exception {
+        return TransactionRunner.call(() -> {
+            Reservation reservation = new Reservation();
+            reservation.setNumeroTicket(TICKET_PREFIX + System.nanoTime());
+            reservation.setStatus(status);
+            reservation.setReservationDate(date);
+            reservation.setDuration(Duration.ofMinutes(30));
+            reservation.setTotalPrice(1000);
+            JpaUtil.getEntityManager().persist(reservation);
+            JpaUtil.getEntityManager().flush();
+            return reservation.getId();
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.services;
+
+import com.repositories.IClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientPhoneTrieTest {
+
+    /** Dépôt minimal : seule la liste des téléphones est servie. */
+    private final Map<Integer, String> stored = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private ClientPhoneTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        IClientRepository repository = (IClientRepository) Proxy.newProxyInstance(
+            IClientRepository.class.getClassLoader(),
+            new Class<?>[] { IClientRepository.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("findClientPhones")) {
+                    loads.incrementAndGet();
+                    return new HashMap<>(stored);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        trie = new ClientPhoneTrie(repository);
+    }
+
+    @Test
+    void prefixReturnsMatchingNumbersInNumericOrder() {
+        stored.put(1, "771234567");
+        stored.put(2, "77 120 00 00");
+        stored.put(3, "781234567");
+        stored.put(4, "+221 77 123 00 00");
+
+        assertEquals(List.of(2, 1), trie.findByPrefix("7712", 10));
+        assertEquals(List.of(2, 1, 3), trie.findByPrefix("7", 10));
+        assertEquals(List.of(4), trie.findByPrefix("(221) 77", 10));
+        assertEquals(List.of(), trie.findByPrefix("79", 10));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void limitStopsTheWalk() {
+        for (int i = 0; i < 100; i++) stored.put(i, String.format("77%07d", i));
+
+        assertEquals(List.of(0, 1, 2), trie.findByPrefix("77", 3));
+        assertEquals(10, trie.findByPrefix("77000000", 50).size());
+    }
+
+    @Test
+    void updatesKeepTheIndexInSync() {
+        stored.put(1, "771111111");
+        trie.findByPrefix("77", 10);
+
+        trie.put(2, "772222222");
+        trie.put(1, "781111111");
+        assertEquals(List.of(2), trie.findByPrefix("77", 10));
+        assertEquals(List.of(1), trie.findByPrefix("78", 10));
+
+        trie.remove(2);
+        assertEquals(List.of(), trie.findByPrefix("77", 10));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void sharedNumbersAndRemovedEntriesAreHandled() {
+        stored.put(1, "770000000");
+        stored.put(2, "770000000");
+        trie.findByPrefix("7", 1);
+
+        trie.remove(1);
+        assertEquals(List.of(2), trie.findByPrefix("770000000", 10));
+        // Entrée libérée réutilisée
+        trie.put(3, "770000000");
+        assertEquals(2, trie.findByPrefix("77", 10).size());
+    }
+
+    @Test
+    void invalidateReloadsFromTheRepository() {
+        stored.put(1, "771111111");
+        trie.findByPrefix("77", 10);
+        stored.put(2, "772222222");
+
+        trie.invalidate();
+        assertEquals(List.of(1, 2), trie.findByPrefix("77", 10));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void emptyOrNonNumericPrefixMatchesNothing() {
+        stored.put(1, "771111111");
+
+        assertTrue(trie.findByPrefix("", 10).isEmpty());
+        assertTrue(trie.findByPrefix("abc", 10).isEmpty());
+        assertEquals("221771111111", ClientPhoneTrie.normalize("+221 (77) 111-11-11"));
+    }
+}
@@ -0,0 +1,189 @@
+package com.services;
+
+import com.entities.Client;
+import com.entities.GameSession;
+import com.entities.Poste;
+import com.repositories.IGameSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveSessionRegistryTest {
+
+    /** Dépôt minimal : seules les lectures utilisées par le registre sont servies. */
+    private final List<GameSession> stored = new ArrayList<>();
+    private final Map<Integer, GameSession> byId = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile boolean failing;
+    private LiveSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        IGameSessionRepository repository = (IGameSessionRepository) Proxy.newProxyInstance(
+            IGameSessionRepository.class.getClassLoader(),
+            new Class<?>[] { IGameSessionRepository.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findByStatusIn":
+                        loads.incrementAndGet();
+                        if (failing) throw new IllegalStateException("base indisponible");
+                        return new ArrayList<>(stored);
+                    case "getGameSessionById":
+                        return byId.get((Integer) args[0]);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        registry = new LiveSessionRegistry(repository);
+    }
+
+    @Test
+    void loadsLiveSessionsOnceAndIndexesThemByPosteAndClient() {
+        stored.add(session(1, "Active", 10, 100));
+        stored.add(session(2, "En pause", 20, 200));
+
+        assertEquals(List.of(1, 2), ids(registry.getLiveSessions()));
+        assertEquals(List.of(1), ids(registry.findByPoste(10)));
+        assertEquals(List.of(2), ids(registry.findByClient(200)));
+        registry.findByPoste(20);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void failedLoadIsReportedAndRetriedOnNextAccess() {
+        stored.add(session(1, "Active", 10, 100));
+        failing = true;
+
+        assertThrows(IllegalStateException.class, () -> registry.findByPoste(10));
+
+        failing = false;
+        assertEquals(List.of(1), ids(registry.findByPoste(10)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void trackRemovesSessionsThatAreNoLongerLive() {
+        stored.add(session(1, "Active", 10, 100));
+        registry.getLiveSessions();
+
+        registry.track(session(1, "Terminée", 10, 100));
+
+        assertTrue(registry.getLiveSessions().isEmpty());
+        assertTrue(registry.findByPoste(10).isEmpty());
+        assertTrue(registry.findByClient(100).isEmpty());
+    }
+
+    @Test
+    void trackMovesASessionToItsNewPoste() {
+        GameSession live = session(1, "Active", 10, 100);
+        stored.add(live);
+        registry.getLiveSessions();
+
+        // Instance déjà indexée modifiée avant track() : l'ancien poste est retrouvé quand même
+        live.setPoste(poste(30));
+        registry.track(live);
+
+        assertTrue(registry.findByPoste(10).isEmpty());
+        assertEquals(List.of(1), ids(registry.findByPoste(30)));
+    }
+
+    @Test
+    void newLiveSessionIsAddedAndRemoveDropsIt() {
+        registry.track(session(5, "Active", 10, 100));
+        assertEquals(List.of(5), ids(registry.findByPoste(10)));
+
+        registry.remove(5);
+        assertTrue(registry.findByPoste(10).isEmpty());
+        assertTrue(registry.findByClient(100).isEmpty());
+    }
+
+    @Test
+    void refreshReloadsFromTheRepository() {
+        stored.add(session(1, "Active", 10, 100));
+        registry.getLiveSessions();
+
+        byId.put(1, session(1, "En pause", 10, 100));
+        registry.refresh(1);
+        assertEquals("En pause", registry.findByPoste(10).get(0).getStatus());
+
+        byId.remove(1);
+        registry.refresh(1);
+        assertTrue(registry.getLiveSessions().isEmpty());
+    }
+
+    @Test
+    void invalidateReloadsOnNextAccess() {
+        stored.add(session(1, "Active", 10, 100));
+        registry.getLiveSessions();
+        stored.add(session(2, "Active", 20, 200));
+
+        registry.invalidate();
+
+        assertEquals(List.of(1, 2), ids(registry.getLiveSessions()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void trackedActiveSessionPastItsEndIsAnnouncedAsExpired() throws Exception {
+        CountDownLatch expired = new CountDownLatch(1);
+        AtomicInteger expiredId = new AtomicInteger();
+        registry.getDeadlineScheduler().addListener(new SessionDeadlineScheduler.Listener() {
+            @Override
+            public void onTwoMinutesLeft(GameSession session) {}
+
+            @Override
+            public void onExpired(GameSession session) {
+                expiredId.set(session.getId());
+                expired.countDown();
+            }
+        });
+
+        GameSession session = session(7, "Active", 10, 100);
+        session.setStartTime(LocalDateTime.now().minusHours(2));
+        session.setPaidDuration(Duration.ofHours(1));
+        registry.track(session);
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertEquals(7, expiredId.get());
+    }
+
+    // --- Outils ---
+
+    private static GameSession session(int id, String status, int posteId, int clientId) {
+        GameSession session = new GameSession();
+        session.setId(id);
+        session.setStatus(status);
+        session.setStartTime(LocalDateTime.now());
+        session.setPaidDuration(Duration.ofHours(1));
+        session.setPoste(poste(posteId));
+        Client client = new Client();
+        client.setId(clientId);
+        session.setClient(client);
+        return session;
+    }
+
+    private static Poste poste(int id) {
+        Poste poste = new Poste();
+        poste.setId(id);
+        return poste;
+    }
+
+    private static List<Integer> ids(List<GameSession> sessions) {
+        return sessions.stream().map(GameSession::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,162 @@
+package com.services;
+
+import com.entities.Produit;
+import com.entities.Promotion;
+import com.entities.TypePromotion;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromotionEngineTest {
+
+    private static final LocalDate JUNE_1 = LocalDate.of(2024, 6, 1);
+
+    @Test
+    void bestReservationPromotionFollowsTheDates() {
+        Promotion week = reservation(1, 0.10f, JUNE_1, JUNE_1.plusDays(6));
+        Promotion weekend = reservation(2, 0.30f, JUNE_1.plusDays(5), JUNE_1.plusDays(6));
+        Promotion month = reservation(3, 0.05f, JUNE_1, JUNE_1.plusDays(29));
+        PromotionEngine engine = compile(List.of(week, weekend, month), Map.of());
+
+        assertEquals(Optional.empty(), engine.bestOn(TypePromotion.RESERVATION, JUNE_1.minusDays(1)));
+        assertEquals(Optional.of(week), engine.bestOn(TypePromotion.RESERVATION, JUNE_1));
+        assertEquals(Optional.of(weekend), engine.bestOn(TypePromotion.RESERVATION, JUNE_1.plusDays(5)));
+        // Bornes incluses : dernier jour de la semaine, puis le mois seul
+        assertEquals(Optional.of(weekend), engine.bestOn(TypePromotion.RESERVATION, JUNE_1.plusDays(6)));
+        assertEquals(Optional.of(month), engine.bestOn(TypePromotion.RESERVATION, JUNE_1.plusDays(7)));
+        assertEquals(Optional.of(month), engine.bestOn(TypePromotion.RESERVATION, JUNE_1.plusDays(29)));
+        assertEquals(Optional.empty(), engine.bestOn(TypePromotion.RESERVATION, JUNE_1.plusDays(30)));
+    }
+
+    @Test
+    void validPromotionsAreListedByIdAndFilteredByType() {
+        Promotion b = reservation(7, 0.20f, JUNE_1, JUNE_1.plusDays(3));
+        Promotion a = reservation(4, 0.10f, JUNE_1.plusDays(2), JUNE_1.plusDays(9));
+        Promotion produit = produit(5, 0.50f, JUNE_1, JUNE_1.plusDays(9));
+        PromotionEngine engine = compile(List.of(b, a, produit), Map.of());
+
+        assertEquals(List.of(4, 5, 7), ids(engine.validOn(JUNE_1.plusDays(3))));
+        assertEquals(List.of(4, 7), ids(engine.validOn(TypePromotion.RESERVATION, JUNE_1.plusDays(3))));
+        assertEquals(List.of(4), ids(engine.validOn(TypePromotion.RESERVATION, JUNE_1.plusDays(4))));
+        assertTrue(engine.validOn(JUNE_1.plusDays(10)).isEmpty());
+    }
+
+    @Test
+    void inactiveAndMalformedPromotionsAreIgnored() {
+        Promotion inactive = reservation(1, 0.50f, JUNE_1, JUNE_1.plusDays(9));
+        inactive.setActif(false);
+        Promotion reversed = new Promotion("inversée", true, 0.40f, TypePromotion.RESERVATION, JUNE_1.plusDays(9), JUNE_1);
+        reversed.setId(2);
+        Promotion open = new Promotion("sans fin", true, 0.30f, TypePromotion.RESERVATION, JUNE_1, null);
+        open.setId(3);
+        Promotion valid = reservation(4, 0.10f, JUNE_1, JUNE_1.plusDays(9));
+        PromotionEngine engine = compile(List.of(inactive, reversed, open, valid), Map.of());
+
+        assertEquals(Optional.of(valid), engine.bestOn(TypePromotion.RESERVATION, JUNE_1.plusDays(4)));
+        assertEquals(List.of(4), ids(engine.validOn(JUNE_1.plusDays(4))));
+    }
+
+    @Test
+    void equalRatesKeepTheOldestPromotion() {
+        Promotion older = reservation(3, 0.20f, JUNE_1, JUNE_1.plusDays(9));
+        Promotion newer = reservation(8, 0.20f, JUNE_1, JUNE_1.plusDays(9));
+        PromotionEngine engine = compile(List.of(newer, older), Map.of());
+
+        assertEquals(Optional.of(older), engine.bestOn(TypePromotion.RESERVATION, JUNE_1));
+    }
+
+    @Test
+    void productGetsItsBestProductPromotionOnly() {
+        Promotion small = produit(1, 0.10f, JUNE_1, JUNE_1.plusDays(9));
+        Promotion big = produit(2, 0.25f, JUNE_1.plusDays(5), JUNE_1.plusDays(6));
+        Promotion reservation = reservation(3, 0.90f, JUNE_1, JUNE_1.plusDays(9));
+        PromotionEngine engine = compile(List.of(small, big, reservation),
+            Map.of(10, List.of(1, 2, 3), 11, List.of(3)));
+
+        assertEquals(Optional.of(small), engine.bestForProduit(10, JUNE_1));
+        assertEquals(Optional.of(big), engine.bestForProduit(10, JUNE_1.plusDays(5)));
+        assertEquals(Optional.empty(), engine.bestForProduit(11, JUNE_1));
+        assertEquals(Optional.empty(), engine.bestForProduit(12, JUNE_1));
+    }
+
+    @Test
+    void effectivePriceIsComputedWithoutTouchingTheStoredPrice() {
+        Promotion promo = produit(1, 0.1f, JUNE_1, JUNE_1.plusDays(9));
+        PromotionEngine engine = compile(List.of(promo), Map.of(10, List.of(1)));
+        Produit produit = produit(10, "1250");
+
+        assertEquals(new BigDecimal("1125.00"), engine.effectivePrice(produit, JUNE_1));
+        engine.applyTo(produit, JUNE_1);
+        assertEquals(new BigDecimal("1125.00"), produit.getPrixPromo());
+        assertEquals(new BigDecimal("1250"), produit.getPrix());
+        assertNull(produit.getAncienPrix());
+        assertTrue(produit.isEnPromotion());
+
+        engine.applyTo(produit, JUNE_1.plusDays(10));
+        assertNull(produit.getPrixPromo());
+        assertEquals(new BigDecimal("1250"), produit.getPrixEffectif());
+    }
+
+    @Test
+    void manyOverlappingPromotionsMatchALinearScan() {
+        List<Promotion> promotions = new ArrayList<>();
+        Random random = new Random(42);
+        for (int id = 1; id <= 300; id++) {
+            LocalDate start = JUNE_1.plusDays(random.nextInt(120));
+            promotions.add(reservation(id, random.nextInt(90) / 100f, start, start.plusDays(random.nextInt(30))));
+        }
+        PromotionEngine engine = compile(promotions, Map.of());
+
+        for (int day = -5; day < 160; day++) {
+            LocalDate date = JUNE_1.plusDays(day);
+            List<Promotion> valid = promotions.stream().filter(p -> p.isValid(date)).collect(Collectors.toList());
+            Optional<Promotion> best = valid.stream()
+                .max((x, y) -> x.getTauxReduction() != y.getTauxReduction()
+                    ? Float.compare(x.getTauxReduction(), y.getTauxReduction())
+                    : Integer.compare(y.getId(), x.getId()));
+            assertEquals(ids(valid), ids(engine.validOn(date)), date.toString());
+            assertEquals(best, engine.bestOn(TypePromotion.RESERVATION, date), date.toString());
+        }
+    }
+
+    // --- Outils ---
+
+    private static PromotionEngine compile(List<Promotion> promotions, Map<Integer, List<Integer>> byProduit) {
+        return PromotionEngine.compile(0, promotions, byProduit);
+    }
+
+    private static Promotion reservation(int id, float taux, LocalDate debut, LocalDate fin) {
+        return promotion(id, TypePromotion.RESERVATION, taux, debut, fin);
+    }
+
+    private static Promotion produit(int id, float taux, LocalDate debut, LocalDate fin) {
+        return promotion(id, TypePromotion.PRODUIT, taux, debut, fin);
+    }
+
+    private static Promotion promotion(int id, TypePromotion type, float taux, LocalDate debut, LocalDate fin) {
+        Promotion promotion = new Promotion("promo-" + id, true, taux, type, debut, fin);
+        promotion.setId(id);
+        return promotion;
+    }
+
+    private static Produit produit(int id, String prix) {
+        Produit produit = new Produit("produit-" + id, new BigDecimal(prix), 10, null, null);
+        produit.setId(id);
+        return produit;
+    }
+
+    private static List<Integer> ids(List<Promotion> promotions) {
+        return promotions.stream().map(Promotion::getId).collect(Collectors.toList());
+    }
+}
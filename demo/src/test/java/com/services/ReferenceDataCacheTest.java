@@ -0,0 +1,98 @@
+package com.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReferenceDataCacheTest {
+
+    private final List<String> stored = new ArrayList<>(List.of("FIFA", "PES"));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void repeatedReadsAreServedFromTheSnapshot() {
+        ReferenceDataCache<String> cache = cache();
+
+        List<String> first = cache.get();
+        List<String> second = cache.get();
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    void snapshotIsImmutableAndDetachedFromTheLoader() {
+        ReferenceDataCache<String> cache = cache();
+        List<String> snapshot = cache.get();
+
+        stored.add("GTA");
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("GTA"));
+        assertEquals(List.of("FIFA", "PES"), cache.get());
+    }
+
+    @Test
+    void invalidationReloadsOnNextRead() {
+        ReferenceDataCache<String> cache = cache();
+        cache.get();
+
+        stored.add("GTA");
+        cache.invalidate();
+
+        assertEquals(List.of("FIFA", "PES", "GTA"), cache.get());
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().getVersion());
+    }
+
+    @Test
+    void loadStartedBeforeAnInvalidationIsNotKept() {
+        // Écriture validée pendant le chargement : la liste lue peut précéder l'écriture
+        AtomicReference<ReferenceDataCache<String>> holder = new AtomicReference<>();
+        holder.set(new ReferenceDataCache<>("jeux", () -> {
+            List<String> read = new ArrayList<>(stored);
+            if (loads.incrementAndGet() == 1) {
+                stored.add("GTA");
+                holder.get().invalidate();
+            }
+            return read;
+        }));
+
+        assertEquals(List.of("FIFA", "PES"), holder.get().get());
+        assertEquals(List.of("FIFA", "PES", "GTA"), holder.get().get());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        ReferenceDataCache<String> cache = new ReferenceDataCache<>("jeux", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertTrue(cache.get().isEmpty());
+        assertTrue(cache.get().isEmpty());
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().getHits());
+    }
+
+    // --- Outils ---
+
+    private ReferenceDataCache<String> cache() {
+        return new ReferenceDataCache<>("jeux", () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(stored);
+        });
+    }
+}